@@ -0,0 +1,351 @@
+package com.yoc.wms.mail.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 알람 큐 Consumer 설정
+ * application.properties의 alarm.queue.* 값 로드
+ *
+ *  @author 김찬기
+ *  @since v3.1.0
+ */
+@Component
+public class AlarmQueueConfig {
+
+    // ==================== 노드 식별 / 선점(Lease) ====================
+    /** 노드 ID (미지정 시 pid@hostname 자동 생성) */
+    @Value("${alarm.queue.node-id:}")
+    private String nodeId;
+
+    /** 선점 후 처리 완료까지 허용되는 시간 (초), 만료 시 다른 노드가 재선점 가능 */
+    @Value("${alarm.queue.lease-seconds:300}")
+    private int leaseSeconds;
+
+    // ==================== Worker Pool (v3.2.0, v3.6.0부터 Severity Lane별) ====================
+    /** CRITICAL Lane 전용 Worker 수 */
+    @Value("${alarm.queue.lane.critical.worker-count:2}")
+    private int criticalWorkerCount;
+
+    /** WARNING Lane 전용 Worker 수 */
+    @Value("${alarm.queue.lane.warning.worker-count:1}")
+    private int warningWorkerCount;
+
+    /** INFO Lane 전용 Worker 수 (CRITICAL/WARNING 외 전부 처리) */
+    @Value("${alarm.queue.lane.info.worker-count:1}")
+    private int infoWorkerCount;
+
+    /** Lane별 Worker 대기 큐 크기 (초과 시 호출 스레드가 직접 처리) */
+    @Value("${alarm.queue.worker-queue-capacity:100}")
+    private int workerQueueCapacity;
+
+    // ==================== Drain 모드 (v3.4.0) ====================
+    /** 1회 선점 건수 (v3.5.0부터 동적 조절의 초기값) */
+    @Value("${alarm.queue.batch-size:10}")
+    private int batchSize;
+
+    /** 1회 Drain 사이클 최대 시간 (ms), 초과 시 다음 Tick에서 이어서 처리 */
+    @Value("${alarm.queue.drain-max-duration-ms:60000}")
+    private long drainMaxDurationMs;
+
+    /** 큐가 비었을 때 다음 폴링까지 대기 시간 (ms) */
+    @Value("${alarm.queue.idle-interval-ms:10000}")
+    private long idleIntervalMs;
+
+    // ==================== 선점 건수 동적 조절 (v3.5.0) ====================
+    @Value("${alarm.queue.batch-size-min:1}")
+    private int batchSizeMin;
+
+    @Value("${alarm.queue.batch-size-max:100}")
+    private int batchSizeMax;
+
+    /** 1개 배치를 처리하는 목표 시간 (ms) */
+    @Value("${alarm.queue.target-cycle-ms:10000}")
+    private long targetCycleMs;
+
+    // ==================== 재시도 Backoff (v3.7.0) ====================
+    /** 첫 재시도 대기 시간 (초), 이후 2배씩 증가 */
+    @Value("${alarm.queue.retry.base-delay-seconds:60}")
+    private long retryBaseDelaySeconds;
+
+    /** 재시도 대기 시간 상한 (초) */
+    @Value("${alarm.queue.retry.max-delay-seconds:1800}")
+    private long retryMaxDelaySeconds;
+
+    // ==================== Dead Letter (v3.8.0) ====================
+    /** Dead Letter 재처리 기본 속도 (분당 건수, 0 이하면 제한 없이 즉시) */
+    @Value("${alarm.queue.dlq.replay-rate-per-minute:60}")
+    private int dlqReplayRatePerMinute;
+
+    // ==================== 상세 쿼리 캐시 (v3.9.0) ====================
+    /** 같은 SQL_ID 결과를 배치 종료 후에도 재사용하는 시간 (ms, 0이면 배치 안에서만 재사용) */
+    @Value("${alarm.queue.detail-cache.ttl-ms:0}")
+    private long detailCacheTtlMs;
+
+    // ==================== 알람 통합 (v3.11.0) ====================
+    /** 같은 MAIL_SOURCE + 수신인 집합을 1건으로 통합하는 구간 (초, 최초 등록 기준, 0이면 통합하지 않음) */
+    @Value("${alarm.queue.coalesce.window-seconds:0}")
+    private long coalesceWindowSeconds;
+
+    // ==================== 결과 변경 없는 알람 생략 (v3.12.0) ====================
+    /** 상세 결과가 마지막 발송과 같으면 발송을 생략할 MAIL_SOURCE (콤마 구분, *이면 전체, 비어 있으면 사용 안 함) */
+    @Value("${alarm.queue.skip-unchanged.mail-sources:}")
+    private String skipUnchangedMailSources;
+
+    // ==================== 증분 상세 조회 워터마크 (v3.13.0) ====================
+    /** MAIL_SOURCE별 워터마크 컬럼 (MAIL_SOURCE:컬럼, 콤마 구분, 예: OVERDUE_ORDERS:ORDER_ID,LOW_STOCK:UPD_DATE) */
+    @Value("${alarm.queue.watermark.columns:}")
+    private String watermarkColumns;
+
+    // ==================== 상세/수신인 병렬 조회 (v3.14.0) ====================
+    /** 테이블/Excel/수신인 조회 전용 스레드 수 (대기 큐도 같은 크기, 넘치면 Worker 스레드가 직접 조회) */
+    @Value("${alarm.queue.fetch.pool-size:4}")
+    private int fetchPoolSize;
+
+    /** 조회 1건당 대기 시간 상한 (ms, 0 이하면 제한 없음) */
+    @Value("${alarm.queue.fetch.timeout-ms:30000}")
+    private long fetchTimeoutMs;
+
+    // ==================== 상세 조회 행 수 상한 (v3.15.0) ====================
+    /** 상세 쿼리 1회당 보관할 최대 행 수 (초과분은 건수만 집계, 0 이하면 제한 없음) */
+    @Value("${alarm.queue.detail.max-rows:10000}")
+    private int detailMaxRows;
+
+    /** 메일 본문 테이블 최대 행 수 (전체 건수는 제목/안내 문구로 표시, 0 이하면 제한 없음) */
+    @Value("${alarm.queue.detail.table-max-rows:1000}")
+    private int detailTableMaxRows;
+
+    // ==================== SQL_ID 격리 (v3.17.0) ====================
+    /** 격리 기준 연속 실패(지연 포함) 횟수 (0 이하면 격리 안 함) */
+    @Value("${alarm.queue.quarantine.failure-threshold:3}")
+    private int quarantineFailureThreshold;
+
+    /** 지연 판정 기준 실행 시간 (ms, 0 이하면 지연 판정 안 함) */
+    @Value("${alarm.queue.quarantine.slow-ms:0}")
+    private long quarantineSlowMs;
+
+    /** 격리 시간 (초), 격리 중인 SQL_ID의 행은 이 시간만큼 연기 */
+    @Value("${alarm.queue.quarantine.cooldown-seconds:300}")
+    private int quarantineCooldownSeconds;
+
+    // ==================== 노드 Heartbeat / 처리 중 회수 (v3.18.0) ====================
+    /** Heartbeat 갱신 주기 (ms, 0 이하면 Heartbeat 중지) */
+    @Value("${alarm.queue.heartbeat.interval-ms:10000}")
+    private long heartbeatIntervalMs;
+
+    /** Heartbeat가 이 시간(초) 이상 끊긴 노드의 PROCESSING 행은 Lease 만료 전이라도 회수 */
+    @Value("${alarm.queue.heartbeat.dead-seconds:60}")
+    private int heartbeatDeadSeconds;
+
+    /** 처리 중 행이 없는 오래된 Heartbeat 삭제 기준 (시간) */
+    @Value("${alarm.queue.heartbeat.retention-hours:24}")
+    private int heartbeatRetentionHours;
+
+    /** 처리 중 회수 주기 (ms, 0 이하면 회수 중지) */
+    @Value("${alarm.queue.reaper.interval-ms:30000}")
+    private long reaperIntervalMs;
+
+    // ==================== 종료 시 Drain (v3.19.0) ====================
+    /** 종료 시 처리 중 메시지(발송 + 상태 업데이트) 완료 대기 최대 시간 (ms), 초과분은 PENDING으로 반환 */
+    @Value("${alarm.queue.shutdown.drain-timeout-ms:30000}")
+    private long shutdownDrainTimeoutMs;
+
+    // ==================== 예약 작업 스케줄러 (v3.20.0) ====================
+    /** 예약 작업 실행 여부 (false면 collectAlarms/pollQueue 등 자동 실행 안 함, 통합 테스트용) */
+    @Value("${alarm.queue.scheduler.enabled:true}")
+    private boolean schedulerEnabled;
+
+    /** Producer(collectAlarms) cron (빈 값이면 실행 안 함, 규칙별 평가 주기는 MAIL_ALARM_RULE.CHECK_INTERVAL_MINUTES) */
+    @Value("${alarm.queue.scheduler.producer-cron:0 * * * * *}")
+    private String producerCron;
+
+    /** Consumer Tick(pollQueue) 완료 후 대기 (ms, 0 이하면 실행 안 함) */
+    @Value("${alarm.queue.scheduler.consumer-delay-ms:1000}")
+    private long consumerDelayMs;
+
+    /** Heartbeat/회수 Tick 완료 후 대기 (ms, 0 이하면 실행 안 함) */
+    @Value("${alarm.queue.scheduler.reaper-delay-ms:1000}")
+    private long reaperDelayMs;
+
+    /** 완료된 큐 정리(deleteCompletedQueue) cron (빈 값이면 실행 안 함) */
+    @Value("${alarm.queue.scheduler.cleanup-cron:0 0 3 * * *}")
+    private String cleanupCron;
+
+    // ==================== 알람 규칙 엔진 (Producer, v3.21.0) ====================
+    /** 규칙 조건 쿼리 병렬 평가 스레드 수 */
+    @Value("${alarm.queue.rule.pool-size:4}")
+    private int rulePoolSize;
+
+    /** 사이클 전체 평가 대기 시간 (ms, 시작부터 경과 기준, 그때까지 끝나지 않은 규칙만 실패 처리 → 다음 주기에 재평가) */
+    @Value("${alarm.queue.rule.eval-timeout-ms:60000}")
+    private long ruleEvalTimeoutMs;
+
+    // ==================== 등록 신호 (v3.23.0) ====================
+    /** 등록 시 MAIL_QUEUE_SIGNAL 갱신 + 유휴 Lane이 있는 Tick마다 신호 조회 (다른 노드 Consumer 깨우기) */
+    @Value("${alarm.queue.signal.enabled:true}")
+    private boolean signalEnabled;
+
+    // ==================== 큐 저장소 (v3.24.0) ====================
+    /** db: MAIL_QUEUE (Multi-Node 선점), journal: 노드 로컬 Memory-Mapped 저널 (DB 없이 대량 처리, 일시적 알람용) */
+    @Value("${alarm.queue.store.type:db}")
+    private String storeType;
+
+    /** 저널 디렉토리 (노드마다 별도 경로) */
+    @Value("${alarm.queue.store.journal.dir:./alarm-journal}")
+    private String journalDir;
+
+    /** 저널 세그먼트 파일 크기 (bytes), 가득 차면 checkpoint 후 새 세그먼트 */
+    @Value("${alarm.queue.store.journal.segment-bytes:16777216}")
+    private int journalSegmentBytes;
+
+    private volatile String resolvedNodeId;
+
+    // ========== Getter 메서드 ==========
+
+    /**
+     * 노드 ID 반환
+     *
+     * 설정값이 없으면 JVM 이름(pid@hostname)을 사용합니다.
+     * 같은 호스트에서 여러 인스턴스가 떠도 pid로 구분됩니다.
+     */
+    public String getNodeId() {
+        if (resolvedNodeId == null) {
+            if (nodeId != null && !nodeId.trim().isEmpty()) {
+                resolvedNodeId = nodeId.trim();
+            } else {
+                resolvedNodeId = ManagementFactory.getRuntimeMXBean().getName();
+            }
+        }
+        return resolvedNodeId;
+    }
+
+    public int getLeaseSeconds() { return leaseSeconds; }
+
+    /**
+     * Lane별 Worker 수 반환
+     *
+     * @param severity CRITICAL, WARNING, 그 외는 INFO Lane
+     */
+    public int getLaneWorkerCount(String severity) {
+        if ("CRITICAL".equals(severity)) {
+            return criticalWorkerCount;
+        }
+        if ("WARNING".equals(severity)) {
+            return warningWorkerCount;
+        }
+        return infoWorkerCount;
+    }
+
+    public int getWorkerQueueCapacity() { return workerQueueCapacity; }
+
+    public int getBatchSize() { return batchSize; }
+
+    public long getDrainMaxDurationMs() { return drainMaxDurationMs; }
+
+    public long getIdleIntervalMs() { return idleIntervalMs; }
+
+    public int getBatchSizeMin() { return batchSizeMin; }
+
+    public int getBatchSizeMax() { return batchSizeMax; }
+
+    public long getTargetCycleMs() { return targetCycleMs; }
+
+    public long getRetryBaseDelaySeconds() { return retryBaseDelaySeconds; }
+
+    public long getRetryMaxDelaySeconds() { return retryMaxDelaySeconds; }
+
+    public int getDlqReplayRatePerMinute() { return dlqReplayRatePerMinute; }
+
+    public long getDetailCacheTtlMs() { return detailCacheTtlMs; }
+
+    public long getCoalesceWindowSeconds() { return coalesceWindowSeconds; }
+
+    /**
+     * 결과 변경 없는 알람 생략 대상 여부
+     *
+     * @param mailSource 알람 타입 (대소문자 구분)
+     */
+    public boolean isSkipUnchanged(String mailSource) {
+        if (mailSource == null || skipUnchangedMailSources == null) {
+            return false;
+        }
+        for (String source : skipUnchangedMailSources.split(",")) {
+            String trimmed = source.trim();
+            if ("*".equals(trimmed) || trimmed.equals(mailSource)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getFetchPoolSize() { return fetchPoolSize; }
+
+    public long getFetchTimeoutMs() { return fetchTimeoutMs; }
+
+    public int getDetailMaxRows() { return detailMaxRows; }
+
+    public int getDetailTableMaxRows() { return detailTableMaxRows; }
+
+    public int getQuarantineFailureThreshold() { return quarantineFailureThreshold; }
+
+    public long getQuarantineSlowMs() { return quarantineSlowMs; }
+
+    public int getQuarantineCooldownSeconds() { return quarantineCooldownSeconds; }
+
+    public long getHeartbeatIntervalMs() { return heartbeatIntervalMs; }
+
+    public int getHeartbeatDeadSeconds() { return heartbeatDeadSeconds; }
+
+    public int getHeartbeatRetentionHours() { return heartbeatRetentionHours; }
+
+    public long getReaperIntervalMs() { return reaperIntervalMs; }
+
+    public long getShutdownDrainTimeoutMs() { return shutdownDrainTimeoutMs; }
+
+    public boolean isSchedulerEnabled() { return schedulerEnabled; }
+
+    public String getProducerCron() { return producerCron; }
+
+    public long getConsumerDelayMs() { return consumerDelayMs; }
+
+    public long getReaperDelayMs() { return reaperDelayMs; }
+
+    public String getCleanupCron() { return cleanupCron; }
+
+    public int getRulePoolSize() { return rulePoolSize; }
+
+    public long getRuleEvalTimeoutMs() { return ruleEvalTimeoutMs; }
+
+    /**
+     * 등록 신호 사용 여부 (저널 저장소는 노드 로컬이라 다른 노드에 알릴 필요 없음)
+     */
+    public boolean isSignalEnabled() { return signalEnabled && !isJournalStore(); }
+
+    public boolean isJournalStore() { return "journal".equalsIgnoreCase(storeType); }
+
+    public String getJournalDir() { return journalDir; }
+
+    public int getJournalSegmentBytes() { return journalSegmentBytes; }
+
+    /**
+     * MAIL_SOURCE의 워터마크 컬럼 반환
+     *
+     * @param mailSource 알람 타입 (대소문자 구분)
+     * @return 워터마크 컬럼명 (미설정이면 NULL → 워터마크 미사용)
+     */
+    public String getWatermarkColumn(String mailSource) {
+        if (mailSource == null || watermarkColumns == null) {
+            return null;
+        }
+        for (String mapping : watermarkColumns.split(",")) {
+            int separator = mapping.indexOf(':');
+            if (separator > 0 && mapping.substring(0, separator).trim().equals(mailSource)) {
+                String column = mapping.substring(separator + 1).trim();
+                return column.isEmpty() ? null : column;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,53 @@
+package com.yoc.wms.mail.dao;
+
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 상한 건수까지만 보관하는 MyBatis ResultHandler
+ *
+ * selectList()는 결과 전체를 List로 적재하므로 폭주한 알람 쿼리(수십만 건)가 Consumer Heap을 고갈시킬 수 있습니다.
+ * 이 Handler는 행을 한 건씩 받아 maxRows까지만 보관하고 나머지는 건수만 셉니다.
+ * (Oracle JDBC는 fetchSize 단위로 가져오므로 보관하지 않은 행은 즉시 GC 대상)
+ * 보관한 행은 List로 적재되므로 알람 1건당 Heap 사용량은 maxRows건 기준으로 잡아야 합니다.
+ *
+ * MyBatis 3.1(운영) / 3.5(개발) 공용:
+ * - 3.4+의 Cursor 대신 ResultHandler 사용
+ * - 3.1의 ResultHandler는 Generic이 아니므로 Raw 타입으로 구현
+ *
+ *  @author 김찬기
+ *  @since v3.15.0
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class CappedResultHandler implements ResultHandler {
+
+    private final int maxRows;
+    private final List<Map<String, Object>> rows = new ArrayList<>();
+    private long totalCount;
+
+    /**
+     * @param maxRows 보관할 최대 행 수 (0 이하면 제한 없음)
+     */
+    public CappedResultHandler(int maxRows) {
+        this.maxRows = maxRows;
+    }
+
+    @Override
+    public void handleResult(ResultContext context) {
+        totalCount++;
+        if (maxRows <= 0 || rows.size() < maxRows) {
+            rows.add((Map<String, Object>) context.getResultObject());
+        }
+    }
+
+    /**
+     * 수집 결과 반환
+     */
+    public CappedRows toRows() {
+        return new CappedRows(rows, totalCount);
+    }
+}
@@ -0,0 +1,51 @@
+package com.yoc.wms.mail.dao;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * 상한 건수까지만 보관한 조회 결과 (수정 불가)
+ *
+ * List로 그대로 사용하면서 실제 전체 건수(getTotalCount)를 함께 전달합니다.
+ * - size(): 보관한 행 수 (상한 이하)
+ * - getTotalCount(): 쿼리가 반환한 전체 행 수
+ *
+ *  @author 김찬기
+ *  @since v3.15.0
+ */
+public class CappedRows extends AbstractList<Map<String, Object>> implements RandomAccess {
+
+    private final List<Map<String, Object>> rows;
+    private final long totalCount;
+
+    /**
+     * @param rows 보관한 행 (복사하여 보관)
+     * @param totalCount 전체 행 수 (rows.size()보다 작으면 rows.size() 사용)
+     */
+    public CappedRows(List<Map<String, Object>> rows, long totalCount) {
+        this.rows = new ArrayList<>(rows);
+        this.totalCount = Math.max(totalCount, this.rows.size());
+    }
+
+    @Override
+    public Map<String, Object> get(int index) {
+        return rows.get(index);
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    public long getTotalCount() { return totalCount; }
+
+    /**
+     * 상한 초과로 일부 행만 보관했는지 여부
+     */
+    public boolean isTruncated() {
+        return totalCount > rows.size();
+    }
+}
@@ -0,0 +1,53 @@
+package com.yoc.wms.mail.dao;
+
+import com.yoc.wms.mail.util.MailUtils;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * CLOB/VARCHAR 컬럼을 결과 매핑 시점에 String으로 읽는 TypeHandler
+ *
+ * Clob Locator는 조회한 커넥션에서만 유효합니다.
+ * 선점 SqlSession은 비트랜잭션이라 조회 직후 커넥션을 Pool에 반환하므로,
+ * Lane/Worker 스레드에서 나중에 읽으면 Oracle에서 ORA-22922 / 커넥션 닫힘 오류가 나거나
+ * 다른 요청이 쓰는 커넥션으로 읽게 됩니다. (H2는 값을 바로 적재하므로 재현되지 않음)
+ *
+ * - CLOB(SECTION_CONTENT), VARCHAR2(RECIPIENT_USER_IDS) 공용: getObject + MailUtils.convertToString
+ *   (VARCHAR2 컬럼에 getClob을 호출하면 Oracle 드라이버가 거부)
+ * - NULL은 NULL 그대로 반환 (기본값은 QueueMessage에서 결정)
+ *
+ *  @author 김찬기
+ *  @since v3.25.0
+ */
+public class ClobStringTypeHandler extends BaseTypeHandler<String> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, String parameter, JdbcType jdbcType)
+            throws SQLException {
+        ps.setString(i, parameter);
+    }
+
+    @Override
+    public String getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return toText(rs.getObject(columnName));
+    }
+
+    @Override
+    public String getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return toText(rs.getObject(columnIndex));
+    }
+
+    @Override
+    public String getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return toText(cs.getObject(columnIndex));
+    }
+
+    private String toText(Object value) {
+        return (value != null) ? MailUtils.convertToString(value) : null;
+    }
+}
@@ -0,0 +1,724 @@
+package com.yoc.wms.mail.dao;
+
+import com.yoc.wms.mail.domain.QueueMessage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * 노드 로컬 저널 큐 저장소 (alarm.queue.store.type=journal)
+ *
+ * 처리 전 행을 메모리에 두고 모든 변경을 Memory-Mapped 저널(MailQueueJournal)에 먼저 기록합니다.
+ * 등록/선점/상태 변경에 DB 왕복이 없어 대량의 일시적 알람을 DB와 무관하게 처리하고, 재기동 시 저널로 복구합니다.
+ *
+ * MyBatisMailQueueStore와 다른 점:
+ * - 노드 로컬: 다른 노드와 큐를 공유하지 않음 (Multi-Node 선점, 등록 신호 불필요)
+ * - 처리 완료(SUCCESS/SKIPPED) 행은 바로 제거 (보관/정리 없음)
+ * - 최종 실패 행은 MAIL_QUEUE_DLQ 대신 Dead Letter 저널(dir/dlq)에 보관 (AlarmDeadLetterService로 재처리)
+ * - 재기동 시 PROCESSING 행은 재시도 횟수 증가 없이 PENDING으로 복구 (이 노드만 선점하므로)
+ * - 내구성: 프로세스 비정상 종료는 OS 페이지 캐시로 보존, OS/전원 장애 시 마지막 checkpoint 이후 기록은 유실될 수 있음
+ *
+ * Lane별 인덱스:
+ * - PENDING: NEXT_RETRY_AT(없으면 REG_DATE) 순, PROCESSING: LEASE_EXPIRE_DATE 순
+ * - 선점/적체량 조회는 해당 Lane에서 도래한 행까지만 읽음 (전체 행 순회 없음, 모니터 점유 시간 단축)
+ *
+ *  @author 김찬기
+ *  @since v3.24.0
+ */
+public class JournalMailQueueStore implements MailQueueStore {
+
+    private static final String[] LANES = {"CRITICAL", "WARNING", "INFO"};
+    private static final String DEAD_LETTER_DIR = "dlq";
+
+    private final File dir;
+    private final MailQueueJournal journal;
+
+    /** 처리 전 행 (QUEUE_ID 순 = 등록 순) */
+    private final LinkedHashMap<Long, Map<String, Object>> rows;
+
+    /** 처리 전 행의 DEDUP_KEY → QUEUE_ID (v3.22.0 중복 흡수와 같은 규칙) */
+    private final Map<String, Long> activeDedupKeys = new HashMap<>();
+
+    /** Lane → PENDING 인덱스 (도래 시각 순) */
+    private final Map<String, TreeSet<IndexEntry>> pendingIndex = new HashMap<>();
+
+    /** Lane → PROCESSING 인덱스 (Lease 만료 시각 순) */
+    private final Map<String, TreeSet<IndexEntry>> leaseIndex = new HashMap<>();
+
+    /** QUEUE_ID → 현재 인덱스 항목 (상태 변경 전 제거용) */
+    private final Map<Long, IndexEntry> indexed = new HashMap<>();
+
+    /** Dead Letter 저널 (MAIL_QUEUE_DLQ 대신, QUEUE_ID 유지) */
+    private final MailQueueJournal deadLetterJournal;
+    private final LinkedHashMap<Long, Map<String, Object>> deadLetters;
+
+    private long nextQueueId;
+
+    /**
+     * 저널 복구 → PROCESSING 행 반환 → checkpoint (새 세그먼트로 기록 시작)
+     *
+     * @param dir 저널 디렉토리 (없으면 생성)
+     * @param segmentBytes 세그먼트 파일 크기 (가득 차면 checkpoint 후 새 세그먼트)
+     * @throws IllegalStateException 디렉토리/checkpoint 손상 등으로 복구 불가
+     */
+    public JournalMailQueueStore(File dir, int segmentBytes) {
+        this.dir = dir;
+        this.journal = new MailQueueJournal(dir, segmentBytes);
+        this.deadLetterJournal = new MailQueueJournal(new File(dir, DEAD_LETTER_DIR), segmentBytes);
+        for (String lane : LANES) {
+            pendingIndex.put(lane, new TreeSet<IndexEntry>());
+            leaseIndex.put(lane, new TreeSet<IndexEntry>());
+        }
+        try {
+            MailQueueJournal.Recovered recovered = journal.recover();
+            this.rows = recovered.rows;
+            this.nextQueueId = recovered.nextQueueId;
+            this.deadLetters = deadLetterJournal.recover().rows;
+
+            int released = 0;
+            for (Map<String, Object> row : rows.values()) {
+                if ("PROCESSING".equals(row.get("STATUS"))) {
+                    row.putAll(releasedFields());
+                    released++;
+                }
+                indexDedupKey(row);
+                index(row);
+            }
+            journal.checkpoint(rows.values(), nextQueueId);
+            deadLetterJournal.checkpoint(deadLetters.values(), nextQueueId);
+            System.out.println("📒 큐 저널 복구: " + dir + " (처리 전 " + rows.size() + "건, 선점 반환 "
+                    + released + "건, Dead Letter " + deadLetters.size() + "건)");
+        } catch (IOException e) {
+            throw new IllegalStateException("큐 저널 복구 실패: " + dir, e);
+        }
+    }
+
+    @Override
+    public synchronized int enqueue(List<Map<String, Object>> alarms) {
+        // 1. 흡수 판단 + 레코드 생성 (크기 초과 행이 있으면 1건도 기록하지 않음)
+        long now = System.currentTimeMillis();
+        long queueId = nextQueueId;
+        Set<String> batchKeys = new HashSet<>();
+        List<Map<String, Object>> accepted = new ArrayList<>();
+        List<byte[]> records = new ArrayList<>();
+        for (Map<String, Object> alarm : alarms) {
+            String dedupKey = dedupKeyOf(alarm);
+            if (dedupKey != null && (activeDedupKeys.containsKey(dedupKey) || !batchKeys.add(dedupKey))) {
+                continue;
+            }
+            Map<String, Object> row = new HashMap<>(alarm);
+            row.put("QUEUE_ID", queueId++);
+            row.put("STATUS", "PENDING");
+            row.put("RETRY_COUNT", 0);
+            row.put("REG_DATE", new Date(now));
+            byte[] record = MailQueueJournal.enqueueRecord(row);
+            if (record.length > journal.maxPayloadBytes()) {
+                throw new IllegalArgumentException("저널 세그먼트보다 큰 알람: " + row.get("MAIL_SOURCE")
+                        + " (" + record.length + " bytes)");
+            }
+            accepted.add(row);
+            records.add(record);
+        }
+
+        // 2. 기록 후 반영
+        for (int i = 0; i < accepted.size(); i++) {
+            Map<String, Object> row = accepted.get(i);
+            append(records.get(i));
+            Long id = (Long) row.get("QUEUE_ID");
+            rows.put(id, row);
+            nextQueueId = id + 1;
+            indexDedupKey(row);
+            index(row);
+        }
+        return accepted.size();
+    }
+
+    @Override
+    public synchronized List<QueueMessage> claim(String severity, int limit, Date cycleStart, String nodeId,
+                                                 int leaseSeconds) {
+        long now = System.currentTimeMillis();
+        List<Long> queueIds = new ArrayList<>();
+        for (String lane : lanesOf(severity)) {
+            // Lease 만료된 PROCESSING → 도래한 PENDING 순 (만료 시각/도래 시각이 지나지 않은 항목에서 중단)
+            collectClaimable(leaseIndex.get(lane), severity, cycleStart, now, limit, queueIds);
+            collectClaimable(pendingIndex.get(lane), severity, cycleStart, now, limit, queueIds);
+        }
+        if (queueIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("STATUS", "PROCESSING");
+        fields.put("OWNER_NODE_ID", nodeId);
+        fields.put("CLAIM_TOKEN", UUID.randomUUID().toString());
+        fields.put("LEASE_EXPIRE_DATE", new Date(now + leaseSeconds * 1000L));
+        fields.put("UPD_DATE", new Date(now));
+        update(queueIds, fields);
+
+        List<QueueMessage> claimed = new ArrayList<>();
+        for (Long queueId : queueIds) {
+            claimed.add(QueueMessage.fromRow(rows.get(queueId)));
+        }
+        return claimed;
+    }
+
+    @Override
+    public synchronized long countPending(String severity) {
+        IndexEntry dueBound = new IndexEntry(System.currentTimeMillis(), Long.MAX_VALUE, null);
+        long count = 0L;
+        for (String lane : lanesOf(severity)) {
+            count += pendingIndex.get(lane).headSet(dueBound, true).size();
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized int ack(List<Long> queueIds, String claimToken) {
+        return remove(matchClaimed(queueIds, claimToken, false));
+    }
+
+    @Override
+    public synchronized int skip(List<Long> queueIds, String claimToken) {
+        return remove(matchClaimed(queueIds, claimToken, false));
+    }
+
+    @Override
+    public synchronized int defer(List<Long> queueIds, String claimToken, long deferSeconds, String reason) {
+        long now = System.currentTimeMillis();
+        Map<String, Object> fields = releasedFields();
+        fields.put("ERROR_MESSAGE", reason);
+        fields.put("NEXT_RETRY_AT", new Date(now + deferSeconds * 1000L));
+        fields.put("UPD_DATE", new Date(now));
+        return update(matchClaimed(queueIds, claimToken, false), fields);
+    }
+
+    @Override
+    public synchronized int retry(Long queueId, String claimToken, long delaySeconds, String errorMessage,
+                                  String failureEntry) {
+        List<Long> matched = matchClaimed(Collections.singletonList(queueId), claimToken, false);
+        if (matched.isEmpty()) {
+            return 0;
+        }
+        Map<String, Object> row = rows.get(queueId);
+        long now = System.currentTimeMillis();
+        Map<String, Object> fields = releasedFields();
+        fields.put("RETRY_COUNT", toInt(row.get("RETRY_COUNT")) + 1);
+        fields.put("ERROR_MESSAGE", errorMessage);
+        if (failureEntry != null) {
+            Object history = row.get("FAILURE_HISTORY");
+            fields.put("FAILURE_HISTORY", (history != null ? history.toString() : "") + failureEntry);
+        }
+        fields.put("NEXT_RETRY_AT", new Date(now + delaySeconds * 1000L));
+        fields.put("UPD_DATE", new Date(now));
+        return update(matched, fields);
+    }
+
+    @Override
+    public synchronized int fail(Long queueId, String claimToken, String errorMessage, String failureEntry) {
+        List<Long> matched = matchClaimed(Collections.singletonList(queueId), claimToken, false);
+        if (matched.isEmpty()) {
+            return 0;
+        }
+        Map<String, Object> row = rows.get(queueId);
+        Map<String, Object> deadLetter = toDeadLetter(row, errorMessage, failureEntry, System.currentTimeMillis());
+        byte[] record = MailQueueJournal.enqueueRecord(deadLetter);
+        if (record.length > deadLetterJournal.maxPayloadBytes()) {
+            // 실패 이력이 세그먼트보다 커진 경우만 로그로 보존 (재처리 대상 아님)
+            System.err.println("❌ 저널 큐 Dead Letter (저널 기록 불가, 로그만): QUEUE_ID=" + queueId + ", "
+                    + row.get("MAIL_SOURCE") + " (" + row.get("ALARM_NAME") + ") - " + errorMessage + "\n"
+                    + deadLetter.get("FAILURE_HISTORY"));
+        } else {
+            appendDeadLetter(record);
+            deadLetters.put(queueId, deadLetter);
+            System.err.println("❌ 저널 큐 Dead Letter: QUEUE_ID=" + queueId + ", " + row.get("MAIL_SOURCE")
+                    + " (" + row.get("ALARM_NAME") + ") - " + errorMessage);
+        }
+        return remove(matched);
+    }
+
+    @Override
+    public synchronized int release(List<Long> queueIds, String claimToken) {
+        if (claimToken == null) {
+            return 0;  // MAIL_QUEUE와 같이 토큰 일치 행만
+        }
+        return update(matchClaimed(queueIds, claimToken, true), releasedFields());
+    }
+
+    @Override
+    public synchronized int renewLease(List<Long> queueIds, String claimToken, int leaseSeconds) {
+        if (claimToken == null) {
+            return 0;
+        }
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("LEASE_EXPIRE_DATE", new Date(System.currentTimeMillis() + leaseSeconds * 1000L));
+        return update(matchClaimed(queueIds, claimToken, true), fields);
+    }
+
+    @Override
+    public synchronized int releaseNode(String nodeId) {
+        List<Long> queueIds = new ArrayList<>();
+        for (String lane : LANES) {
+            for (IndexEntry entry : leaseIndex.get(lane)) {
+                if (nodeId != null && nodeId.equals(rows.get(entry.queueId).get("OWNER_NODE_ID"))) {
+                    queueIds.add(entry.queueId);
+                }
+            }
+        }
+        return update(queueIds, releasedFields());
+    }
+
+    @Override
+    public synchronized long countDeadLetters(Map<String, Object> filter) {
+        long count = 0L;
+        for (Map<String, Object> deadLetter : deadLetters.values()) {
+            if (matchesDeadLetterFilter(deadLetter, filter)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Dead Letter 저널 → 처리 전 행 복귀 (alarm.replayDeadLetter와 같은 규칙)
+     *
+     * Flow:
+     * 1. 조건에 맞는 행을 실패 순서(FAILED_DATE, QUEUE_ID)로 정렬
+     * 2. 같은 DEDUP_KEY가 처리 전이거나 대상 안에서 최신 QUEUE_ID가 아니면 흡수
+     *    (이미 복귀한 QUEUE_ID도 흡수 - 복귀 기록 후 Dead Letter 삭제 전에 중단된 경우)
+     * 3. 복귀 행 ENQUEUE 기록 → Dead Letter 저널에서 복귀/흡수 행 REMOVE 기록
+     */
+    @Override
+    public synchronized int replayDeadLetters(Map<String, Object> filter, int ratePerMinute) {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> targets = new ArrayList<>();
+        Map<String, Long> newestByKey = new HashMap<>();
+        for (Map<String, Object> deadLetter : deadLetters.values()) {
+            if (!matchesDeadLetterFilter(deadLetter, filter)) {
+                continue;
+            }
+            targets.add(deadLetter);
+            String dedupKey = dedupKeyOf(deadLetter);
+            Long queueId = (Long) deadLetter.get("QUEUE_ID");
+            Long newest = (dedupKey != null) ? newestByKey.get(dedupKey) : null;
+            if (dedupKey != null && (newest == null || newest < queueId)) {
+                newestByKey.put(dedupKey, queueId);
+            }
+        }
+        Collections.sort(targets, FAILED_ORDER);
+
+        List<Map<String, Object>> replayed = new ArrayList<>();
+        List<Long> removedIds = new ArrayList<>();
+        for (Map<String, Object> deadLetter : targets) {
+            Long queueId = (Long) deadLetter.get("QUEUE_ID");
+            String dedupKey = dedupKeyOf(deadLetter);
+            removedIds.add(queueId);
+            if (rows.containsKey(queueId) || (dedupKey != null
+                    && (activeDedupKeys.containsKey(dedupKey) || !queueId.equals(newestByKey.get(dedupKey))))) {
+                continue;
+            }
+            replayed.add(toReplayedRow(deadLetter, replayed.size(), ratePerMinute, now));
+        }
+
+        for (Map<String, Object> row : replayed) {
+            append(MailQueueJournal.enqueueRecord(row));
+            rows.put((Long) row.get("QUEUE_ID"), row);
+            indexDedupKey(row);
+            index(row);
+        }
+        if (!removedIds.isEmpty()) {
+            appendDeadLetter(MailQueueJournal.removeRecord(removedIds));
+            for (Long queueId : removedIds) {
+                deadLetters.remove(queueId);
+            }
+        }
+        int absorbed = removedIds.size() - replayed.size();
+        if (absorbed > 0) {
+            System.out.println("🔁 저널 Dead Letter 중복 흡수: " + absorbed + "건");
+        }
+        return replayed.size();
+    }
+
+    /**
+     * 종료 checkpoint (재기동 시 세그먼트 재생 없이 checkpoint만 적재)
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            journal.checkpoint(rows.values(), nextQueueId);
+            deadLetterJournal.checkpoint(deadLetters.values(), nextQueueId);
+        } catch (IOException e) {
+            System.err.println("⚠️ 큐 저널 종료 checkpoint 실패 (재기동 시 세그먼트 재생): " + e.getMessage());
+        }
+        journal.close();
+        deadLetterJournal.close();
+        System.out.println("📒 큐 저널 종료: " + dir + " (처리 전 " + rows.size() + "건)");
+    }
+
+    /**
+     * 행 상태 사본 (STATUS, OWNER_NODE_ID, FAILURE_HISTORY 등 QueueMessage에 없는 컬럼 확인용)
+     *
+     * @return 처리 전 행이 없으면 NULL
+     */
+    synchronized Map<String, Object> snapshot(Long queueId) {
+        Map<String, Object> row = rows.get(queueId);
+        return (row != null) ? new HashMap<>(row) : null;
+    }
+
+    /**
+     * Dead Letter 사본 (FAILURE_HISTORY, FAILED_DATE 등 확인용)
+     *
+     * @return 없으면 NULL
+     */
+    synchronized Map<String, Object> deadLetterSnapshot(Long queueId) {
+        Map<String, Object> deadLetter = deadLetters.get(queueId);
+        return (deadLetter != null) ? new HashMap<>(deadLetter) : null;
+    }
+
+    // ==================== 상태 변경 (저널 기록 → 메모리 반영) ====================
+
+    private int update(List<Long> queueIds, Map<String, Object> fields) {
+        if (queueIds.isEmpty()) {
+            return 0;
+        }
+        append(MailQueueJournal.updateRecord(queueIds, fields));
+        for (Long queueId : queueIds) {
+            Map<String, Object> row = rows.get(queueId);
+            unindex(queueId);
+            row.putAll(fields);
+            index(row);
+        }
+        return queueIds.size();
+    }
+
+    private int remove(List<Long> queueIds) {
+        if (queueIds.isEmpty()) {
+            return 0;
+        }
+        append(MailQueueJournal.removeRecord(queueIds));
+        for (Long queueId : queueIds) {
+            unindex(queueId);
+            String dedupKey = dedupKeyOf(rows.remove(queueId));
+            if (dedupKey != null && queueId.equals(activeDedupKeys.get(dedupKey))) {
+                activeDedupKeys.remove(dedupKey);
+            }
+        }
+        return queueIds.size();
+    }
+
+    /**
+     * 세그먼트가 가득 차면 checkpoint 후 새 세그먼트에 기록
+     *
+     * 기록에 실패하면 메모리도 바꾸지 않습니다 (호출자에게 예외 전달).
+     */
+    private void append(byte[] record) {
+        appendTo(journal, rows, record);
+    }
+
+    private void appendDeadLetter(byte[] record) {
+        appendTo(deadLetterJournal, deadLetters, record);
+    }
+
+    private void appendTo(MailQueueJournal target, LinkedHashMap<Long, Map<String, Object>> targetRows, byte[] record) {
+        try {
+            if (!target.tryAppend(record)) {
+                target.checkpoint(targetRows.values(), nextQueueId);
+                if (!target.tryAppend(record)) {
+                    throw new IllegalArgumentException("저널 세그먼트보다 큰 레코드: " + record.length + " bytes");
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("큐 저널 기록 실패: " + dir, e);
+        }
+    }
+
+    // ==================== Lane별 인덱스 ====================
+
+    /**
+     * 행의 현재 상태로 인덱스 등록 (PENDING/PROCESSING만)
+     */
+    private void index(Map<String, Object> row) {
+        Object status = row.get("STATUS");
+        TreeSet<IndexEntry> target;
+        long at;
+        if ("PENDING".equals(status)) {
+            target = pendingIndex.get(laneOf(row.get("SEVERITY")));
+            at = dueAt(row);
+        } else if ("PROCESSING".equals(status)) {
+            target = leaseIndex.get(laneOf(row.get("SEVERITY")));
+            Object leaseExpire = row.get("LEASE_EXPIRE_DATE");
+            at = (leaseExpire instanceof Date) ? ((Date) leaseExpire).getTime() : Long.MAX_VALUE;
+        } else {
+            return;
+        }
+        Long queueId = (Long) row.get("QUEUE_ID");
+        IndexEntry entry = new IndexEntry(at, queueId, target);
+        target.add(entry);
+        indexed.put(queueId, entry);
+    }
+
+    private void unindex(Long queueId) {
+        IndexEntry entry = indexed.remove(queueId);
+        if (entry != null) {
+            entry.owner.remove(entry);
+        }
+    }
+
+    /**
+     * 인덱스 앞에서부터 선점 가능한 행 수집 (시각이 지나지 않은 항목에서 중단)
+     */
+    private void collectClaimable(TreeSet<IndexEntry> lane, String severity, Date cycleStart, long now, int limit,
+                                  List<Long> queueIds) {
+        for (IndexEntry entry : lane) {
+            if (queueIds.size() >= limit || entry.at > now) {
+                return;
+            }
+            if (isClaimable(rows.get(entry.queueId), severity, cycleStart, now)) {
+                queueIds.add(entry.queueId);
+            }
+        }
+    }
+
+    /**
+     * 인덱스 항목 (시각, QUEUE_ID 순 정렬)
+     */
+    private static final class IndexEntry implements Comparable<IndexEntry> {
+        final long at;
+        final long queueId;
+        final TreeSet<IndexEntry> owner;
+
+        IndexEntry(long at, long queueId, TreeSet<IndexEntry> owner) {
+            this.at = at;
+            this.queueId = queueId;
+            this.owner = owner;
+        }
+
+        @Override
+        public int compareTo(IndexEntry other) {
+            if (at != other.at) {
+                return (at < other.at) ? -1 : 1;
+            }
+            return Long.compare(queueId, other.queueId);
+        }
+    }
+
+    /** Dead Letter 재처리 순서 (FAILED_DATE, QUEUE_ID) */
+    private static final Comparator<Map<String, Object>> FAILED_ORDER = new Comparator<Map<String, Object>>() {
+        @Override
+        public int compare(Map<String, Object> left, Map<String, Object> right) {
+            long leftFailed = toTime(left.get("FAILED_DATE"));
+            long rightFailed = toTime(right.get("FAILED_DATE"));
+            if (leftFailed != rightFailed) {
+                return (leftFailed < rightFailed) ? -1 : 1;
+            }
+            return Long.compare((Long) left.get("QUEUE_ID"), (Long) right.get("QUEUE_ID"));
+        }
+    };
+
+    private List<Long> matchClaimed(List<Long> queueIds, String claimToken, boolean processingOnly) {
+        List<Long> matched = new ArrayList<>();
+        for (Long queueId : queueIds) {
+            Map<String, Object> row = rows.get(queueId);
+            if (row == null) {
+                continue;
+            }
+            if (claimToken != null && !claimToken.equals(row.get("CLAIM_TOKEN"))) {
+                continue;
+            }
+            if (processingOnly && !"PROCESSING".equals(row.get("STATUS"))) {
+                continue;
+            }
+            matched.add(queueId);
+        }
+        return matched;
+    }
+
+    private void indexDedupKey(Map<String, Object> row) {
+        String dedupKey = dedupKeyOf(row);
+        if (dedupKey != null) {
+            activeDedupKeys.put(dedupKey, (Long) row.get("QUEUE_ID"));
+        }
+    }
+
+    // ==================== Pure Functions (단위 테스트 대상) ====================
+
+    /**
+     * 선점 가능 여부 (alarm.claimPendingQueue 조건과 동일)
+     *
+     * - PENDING 또는 Lease 만료된 PROCESSING
+     * - NEXT_RETRY_AT 도래
+     * - cycleStart 이후 상태가 바뀐 행 제외
+     * - Lane 일치 (INFO는 CRITICAL/WARNING 외 전부)
+     */
+    static boolean isClaimable(Map<String, Object> row, String severity, Date cycleStart, long now) {
+        Object status = row.get("STATUS");
+        Object leaseExpire = row.get("LEASE_EXPIRE_DATE");
+        boolean available = "PENDING".equals(status)
+                || ("PROCESSING".equals(status) && leaseExpire instanceof Date && ((Date) leaseExpire).getTime() < now);
+        if (!available || !isRetryDue(row, now) || !isInLane(row, severity)) {
+            return false;
+        }
+        Object updDate = row.get("UPD_DATE");
+        return cycleStart == null || !(updDate instanceof Date) || ((Date) updDate).before(cycleStart);
+    }
+
+    static boolean isInLane(Map<String, Object> row, String severity) {
+        if (severity == null) {
+            return true;
+        }
+        Object rowSeverity = row.get("SEVERITY");
+        if ("INFO".equals(severity)) {
+            return !"CRITICAL".equals(rowSeverity) && !"WARNING".equals(rowSeverity);
+        }
+        return severity.equals(rowSeverity);
+    }
+
+    /**
+     * Lane (CRITICAL/WARNING 외는 INFO, AlarmLane.laneOf와 동일)
+     */
+    static String laneOf(Object severity) {
+        if ("CRITICAL".equals(severity) || "WARNING".equals(severity)) {
+            return (String) severity;
+        }
+        return "INFO";
+    }
+
+    /**
+     * 선점 대상 Lane 목록 (NULL이면 전체, CRITICAL 우선)
+     */
+    private static String[] lanesOf(String severity) {
+        return (severity == null) ? LANES : new String[]{laneOf(severity)};
+    }
+
+    /**
+     * PENDING 도래 시각 (NEXT_RETRY_AT, 없으면 REG_DATE)
+     */
+    static long dueAt(Map<String, Object> row) {
+        Object nextRetryAt = row.get("NEXT_RETRY_AT");
+        return (nextRetryAt instanceof Date) ? ((Date) nextRetryAt).getTime() : toTime(row.get("REG_DATE"));
+    }
+
+    /**
+     * Dead Letter 조건 일치 (alarm.deadLetterFilter와 동일, 조건 키가 없으면 통과)
+     *
+     * @param filter MAIL_SOURCE, FROM_DATE(포함), TO_DATE(미포함), ERROR_PATTERN(LIKE)
+     */
+    static boolean matchesDeadLetterFilter(Map<String, Object> deadLetter, Map<String, Object> filter) {
+        Object mailSource = filter.get("MAIL_SOURCE");
+        if (mailSource != null && !mailSource.equals(deadLetter.get("MAIL_SOURCE"))) {
+            return false;
+        }
+        Object failedDate = deadLetter.get("FAILED_DATE");
+        Object fromDate = filter.get("FROM_DATE");
+        if (fromDate instanceof Date && !(failedDate instanceof Date && !((Date) failedDate).before((Date) fromDate))) {
+            return false;
+        }
+        Object toDate = filter.get("TO_DATE");
+        if (toDate instanceof Date && !(failedDate instanceof Date && ((Date) failedDate).before((Date) toDate))) {
+            return false;
+        }
+        Object errorPattern = filter.get("ERROR_PATTERN");
+        return errorPattern == null || matchesLike((String) deadLetter.get("ERROR_MESSAGE"), errorPattern.toString());
+    }
+
+    /**
+     * SQL LIKE 일치 (% = 0자 이상, _ = 1자, 이스케이프 없음, 값이 NULL이면 불일치)
+     */
+    static boolean matchesLike(String value, String pattern) {
+        if (value == null) {
+            return false;
+        }
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            if (c == '%' || c == '_') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '%' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL).matcher(value).matches();
+    }
+
+    /**
+     * 최종 실패 행 → Dead Letter (alarm.updateQueueFailed + insertDeadLetter와 같은 컬럼)
+     */
+    static Map<String, Object> toDeadLetter(Map<String, Object> row, String errorMessage, String failureEntry,
+                                            long now) {
+        Map<String, Object> deadLetter = new HashMap<>(row);
+        for (String column : new String[]{"STATUS", "OWNER_NODE_ID", "CLAIM_TOKEN", "LEASE_EXPIRE_DATE",
+                "NEXT_RETRY_AT", "UPD_DATE"}) {
+            deadLetter.remove(column);
+        }
+        Object history = row.get("FAILURE_HISTORY");
+        deadLetter.put("ERROR_MESSAGE", errorMessage);
+        deadLetter.put("FAILURE_HISTORY", (history != null ? history.toString() : "")
+                + (failureEntry != null ? failureEntry : ""));
+        deadLetter.put("LAST_NODE_ID", row.get("OWNER_NODE_ID"));
+        deadLetter.put("FAILED_DATE", new Date(now));
+        return deadLetter;
+    }
+
+    /**
+     * Dead Letter → PENDING 행 (alarm.replayDeadLetter와 같은 규칙)
+     *
+     * - 원본 QUEUE_ID, REG_DATE, FAILURE_HISTORY 유지 / RETRY_COUNT 0
+     * - ratePerMinute > 0이면 rank번째 행은 (rank / ratePerMinute)분 뒤 도래
+     */
+    static Map<String, Object> toReplayedRow(Map<String, Object> deadLetter, int rank, int ratePerMinute, long now) {
+        Map<String, Object> row = new HashMap<>(deadLetter);
+        row.remove("LAST_NODE_ID");
+        row.remove("FAILED_DATE");
+        row.put("STATUS", "PENDING");
+        row.put("RETRY_COUNT", 0);
+        row.put("NEXT_RETRY_AT", (ratePerMinute > 0) ? new Date(now + (rank / ratePerMinute) * 60000L) : null);
+        row.put("UPD_DATE", new Date(now));
+        return row;
+    }
+
+    private static boolean isRetryDue(Map<String, Object> row, long now) {
+        Object nextRetryAt = row.get("NEXT_RETRY_AT");
+        return !(nextRetryAt instanceof Date) || ((Date) nextRetryAt).getTime() <= now;
+    }
+
+    private static Map<String, Object> releasedFields() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("STATUS", "PENDING");
+        fields.put("OWNER_NODE_ID", null);
+        fields.put("CLAIM_TOKEN", null);
+        fields.put("LEASE_EXPIRE_DATE", null);
+        return fields;
+    }
+
+    private static String dedupKeyOf(Map<String, Object> row) {
+        Object dedupKey = (row != null) ? row.get("DEDUP_KEY") : null;
+        return (dedupKey != null) ? dedupKey.toString() : null;
+    }
+
+    private static long toTime(Object value) {
+        return (value instanceof Date) ? ((Date) value).getTime() : 0L;
+    }
+
+    private static int toInt(Object value) {
+        return (value instanceof Number) ? ((Number) value).intValue() : 0;
+    }
+}
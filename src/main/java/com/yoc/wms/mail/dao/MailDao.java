@@ -1,9 +1,16 @@
 package com.yoc.wms.mail.dao;
 
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.List;
 import java.util.Map;
 
@@ -19,6 +26,9 @@ public class MailDao {
     @Autowired
     private SqlSession sqlSession;
 
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
     // ========================================
     // 기본 CRUD (범용)
     // ========================================
@@ -31,6 +41,15 @@ public class MailDao {
         return sqlSession.selectList(statement, params);
     }
 
+    /**
+     * resultMap으로 객체에 매핑하는 조회 (예: alarm.selectClaimedQueue → QueueMessage)
+     *
+     * @since v3.25.0
+     */
+    public <E> List<E> selectTypedList(String statement, Map<String, Object> params) {
+        return sqlSession.selectList(statement, params);
+    }
+
     public int insert(String statement, Map<String, Object> params) {
         return sqlSession.insert(statement, params);
     }
@@ -42,4 +61,228 @@ public class MailDao {
     public int delete(String statement, Map<String, Object> params) {
         return sqlSession.delete(statement, params);
     }
+
+    /**
+     * 상한 건수까지만 보관하는 조회 (ResultHandler)
+     *
+     * 행을 한 건씩 받아 maxRows까지만 보관하고 전체 건수는 끝까지 셉니다.
+     * selectList()와 달리 상한을 넘는 행은 적재하지 않지만, 보관한 행(최대 maxRows건)은 List로 적재됩니다.
+     * (결과를 DetailQueryCache로 여러 메시지가 공유하고 Excel도 List로 만들어지므로 렌더러로 직접 흘려보내지 않음)
+     *
+     * @param maxRows 보관할 최대 행 수 (0 이하면 제한 없음)
+     * @return 보관한 행 + 전체 건수
+     * @since v3.15.0
+     */
+    public CappedRows selectCapped(String statement, Map<String, Object> params, int maxRows) {
+        return selectCapped(statement, params, maxRows, null);
+    }
+
+    /**
+     * 상한 건수 조회 + SQL 실행 프로파일 적용 (쿼리 타임아웃, Fetch Size)
+     *
+     * 프로파일은 현재 스레드에 바인딩되어 SqlProfileInterceptor가 Statement에 적용합니다.
+     *
+     * @param profile 실행 프로파일 (NULL이면 Mapper/드라이버 기본값)
+     * @since v3.16.0
+     */
+    public CappedRows selectCapped(String statement, Map<String, Object> params, int maxRows,
+                                   SqlProfile profile) {
+        CappedResultHandler handler = new CappedResultHandler(maxRows);
+        SqlProfileInterceptor.bind(profile);
+        try {
+            sqlSession.select(statement, params, handler);
+        } finally {
+            SqlProfileInterceptor.clear();
+        }
+        return handler.toRows();
+    }
+
+    /**
+     * 일괄 INSERT (JDBC Batch, 1회 왕복 + 커밋)
+     *
+     * SqlSessionTemplate(SIMPLE)은 행마다 실행되므로 BATCH Executor 세션을 따로 열어
+     * addBatch → executeBatch 한 번으로 전송합니다.
+     * (Spring 트랜잭션 밖에서 호출하면 이 메서드 안에서 커밋, 트랜잭션 안이면 참여)
+     *
+     * @param rows INSERT 파라미터 목록 (비어 있으면 실행 안 함)
+     * @return 요청 행 수
+     * @since v3.21.0
+     */
+    public int batchInsert(String statement, List<Map<String, Object>> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+        SqlSession batchSession = sqlSessionFactory.openSession(ExecutorType.BATCH, false);
+        try {
+            for (Map<String, Object> row : rows) {
+                batchSession.insert(statement, row);
+            }
+            batchSession.flushStatements();
+            batchSession.commit(true);
+            return rows.size();
+        } catch (RuntimeException e) {
+            batchSession.rollback();
+            throw e;
+        } finally {
+            batchSession.close();
+        }
+    }
+
+    /**
+     * 일괄 등록 + 중복 흡수 (JDBC Batch, MERGE / insert-or-ignore Statement용)
+     *
+     * Statement가 중복 키 행을 0건으로 처리하므로 반영 건수는 드라이버 update count 합계입니다.
+     * 다른 노드/Procedure와 동시에 같은 키를 등록해 유니크 제약 위반이 나면 Batch 전체를 롤백하고
+     * 행 단위로 다시 실행하며 위반 행만 건너뜁니다 (먼저 커밋된 쪽이 유지).
+     *
+     * @param rows 등록 파라미터 목록 (비어 있으면 실행 안 함)
+     * @return 실제 등록 건수 (드라이버가 건수를 주지 않으면 해당 행은 1건으로 계산)
+     * @since v3.22.0
+     */
+    public int batchInsertIgnoreDuplicates(String statement, List<Map<String, Object>> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+        SqlSession batchSession = sqlSessionFactory.openSession(ExecutorType.BATCH, false);
+        try {
+            for (Map<String, Object> row : rows) {
+                batchSession.insert(statement, row);
+            }
+            int applied = countApplied(batchSession.flushStatements());
+            batchSession.commit(true);
+            return applied;
+        } catch (RuntimeException e) {
+            batchSession.rollback();
+            if (!isDuplicateKey(e)) {
+                throw e;
+            }
+            System.err.println("⚠️ 일괄 등록 중복 키 경합 → 행 단위 재실행: " + statement + " (" + rows.size() + "건)");
+        } finally {
+            batchSession.close();
+        }
+        return insertEachIgnoreDuplicates(statement, rows);
+    }
+
+    private int insertEachIgnoreDuplicates(String statement, List<Map<String, Object>> rows) {
+        SqlSession session = sqlSessionFactory.openSession(ExecutorType.SIMPLE, false);
+        try {
+            int applied = 0;
+            for (Map<String, Object> row : rows) {
+                try {
+                    applied += session.insert(statement, row);
+                } catch (RuntimeException e) {
+                    if (!isDuplicateKey(e)) {
+                        throw e;
+                    }
+                    // 위반 문장만 롤백됨 (Oracle/H2 문장 단위 원자성) → 나머지 행 계속
+                }
+            }
+            session.commit(true);
+            return applied;
+        } catch (RuntimeException e) {
+            session.rollback();
+            throw e;
+        } finally {
+            session.close();
+        }
+    }
+
+    // ========================================
+    // 중복 등록 판정 (단위 테스트 대상)
+    // ========================================
+
+    /**
+     * Batch 반영 건수 합계
+     *
+     * SUCCESS_NO_INFO(-2, 구버전 Oracle 드라이버)는 건수를 알 수 없으므로 1건으로 계산합니다.
+     */
+    static int countApplied(List<BatchResult> results) {
+        int applied = 0;
+        if (results == null) {
+            return 0;
+        }
+        for (BatchResult result : results) {
+            int[] counts = result.getUpdateCounts();
+            if (counts == null) {
+                continue;
+            }
+            for (int count : counts) {
+                if (count > 0) {
+                    applied += count;
+                } else if (count == Statement.SUCCESS_NO_INFO) {
+                    applied++;
+                }
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * 유니크 제약 위반 여부 (예외 원인 체인 + SQLException.getNextException 탐색)
+     *
+     * - Oracle: ORA-00001 (errorCode 1)
+     * - H2/표준: SQLState 23505
+     * (CHECK/NOT NULL 위반은 중복이 아니므로 제외)
+     */
+    static boolean isDuplicateKey(Throwable error) {
+        Throwable current = error;
+        int depth = 0;
+        while (current != null && depth++ < 20) {
+            if (current instanceof SQLException) {
+                SQLException sqlError = (SQLException) current;
+                while (sqlError != null) {
+                    if (sqlError.getErrorCode() == 1 || "23505".equals(sqlError.getSQLState())) {
+                        return true;
+                    }
+                    sqlError = sqlError.getNextException();
+                }
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+
+    // ========================================
+    // Statement 메타정보
+    // ========================================
+
+    /**
+     * Statement의 실행 SQL 조회 (파라미터 없이 바인딩)
+     *
+     * @see #getStatementSql(String, Map)
+     * @since v3.10.0
+     */
+    public String getStatementSql(String statement) {
+        return getStatementSql(statement, null);
+    }
+
+    /**
+     * Statement의 실행 SQL 조회 (실행할 때와 같은 파라미터로 바인딩)
+     *
+     * 워터마크 대상 상세 쿼리는 MAIL_SOURCE/WATERMARK를 받으므로 (v3.13.0)
+     * 파라미터 없이 바인딩하면 동적 SQL(<if> 등) 분기가 빠져 실제 실행 SQL과 달라집니다.
+     * #{} 바인딩은 모두 "?"가 되므로 바인딩 파라미터 이름을 SQL 뒤에 붙여 반환합니다
+     * (같은 SQL 모양이라도 다른 파라미터를 바인딩하면 다른 쿼리로 판단).
+     * 바인딩 값은 포함하지 않습니다. 비교하는 두 Statement를 같은 params로 실행하므로
+     * 분기와 파라미터 이름이 같으면 같은 결과입니다.
+     *
+     * @param params 실행 파라미터 (NULL이면 파라미터 없이 실행하는 경우)
+     * @return SQL + " -- params: 이름,..." (Statement가 없거나 바인딩 실패 시 null)
+     * @since v3.13.0
+     */
+    public String getStatementSql(String statement, Map<String, Object> params) {
+        try {
+            BoundSql boundSql = sqlSession.getConfiguration().getMappedStatement(statement).getBoundSql(params);
+            StringBuilder sql = new StringBuilder(boundSql.getSql()).append(" -- params:");
+            List<ParameterMapping> mappings = boundSql.getParameterMappings();
+            if (mappings != null) {
+                for (ParameterMapping mapping : mappings) {
+                    sql.append(' ').append(mapping.getProperty());
+                }
+            }
+            return sql.toString();
+        } catch (Exception e) {
+            return null;
+        }
+    }
 }
\ No newline at end of file
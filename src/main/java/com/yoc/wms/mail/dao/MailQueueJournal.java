@@ -0,0 +1,474 @@
+package com.yoc.wms.mail.dao;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 큐 저널 파일 (Append-Only 세그먼트 + Checkpoint)
+ *
+ * 파일 구성:
+ * - segment-NNNNNNNNNN.log: 고정 크기 Memory-Mapped 세그먼트, 레코드를 앞에서부터 추가
+ * - checkpoint.dat: checkpoint 시점의 처리 전 행 전체 + 다음 QUEUE_ID + 재생 시작 세그먼트 번호
+ *
+ * 레코드: [본문 길이 int][CRC32 int][본문]
+ * - 본문과 CRC를 먼저 쓰고 길이를 마지막에 기록 → 쓰다 중단된 레코드는 길이 0으로 남아 재생되지 않음
+ * - 재생 중 길이 0 / 범위 초과 / CRC 불일치를 만나면 그 세그먼트는 거기까지만 사용
+ *
+ * 본문:
+ * - ENQUEUE: 행 전체
+ * - UPDATE: QUEUE_ID 목록 + 바뀐 컬럼
+ * - REMOVE: QUEUE_ID 목록 (처리 완료)
+ *
+ * Checkpoint (세그먼트가 가득 찼을 때, 기동/종료 시):
+ * 1. 현재 세그먼트 force
+ * 2. checkpoint.tmp 작성 + fsync → checkpoint.dat로 원자적 교체
+ * 3. 새 세그먼트 생성, 이전 세그먼트 삭제
+ * 어느 단계에서 중단되어도 checkpoint.dat + 그 이후 세그먼트로 복구됩니다.
+ *
+ * 스레드 안전하지 않음 (JournalMailQueueStore가 동기화)
+ *
+ *  @author 김찬기
+ *  @since v3.24.0
+ */
+class MailQueueJournal {
+
+    static final byte OP_ENQUEUE = 1;
+    static final byte OP_UPDATE = 2;
+    static final byte OP_REMOVE = 3;
+
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int CHECKPOINT_MAGIC = 0x4D514350;  // "MQCP"
+    private static final String CHECKPOINT_FILE = "checkpoint.dat";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.log");
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_INTEGER = 3;
+    private static final byte TYPE_DATE = 4;
+    private static final byte TYPE_DECIMAL = 5;
+
+    private final File dir;
+    private final int segmentBytes;
+
+    /** 현재 기록 중인 세그먼트 번호 (복구 전 0) */
+    private long segmentNo = 0L;
+    private MappedByteBuffer segment;
+
+    MailQueueJournal(File dir, int segmentBytes) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * 복구 결과 (처리 전 행, 다음 QUEUE_ID)
+     */
+    static class Recovered {
+        final LinkedHashMap<Long, Map<String, Object>> rows;
+        final long nextQueueId;
+
+        Recovered(LinkedHashMap<Long, Map<String, Object>> rows, long nextQueueId) {
+            this.rows = rows;
+            this.nextQueueId = nextQueueId;
+        }
+    }
+
+    /**
+     * checkpoint.dat 적재 후 이후 세그먼트 재생
+     *
+     * 기록은 다음 checkpoint()가 새 세그먼트를 연 뒤부터 가능합니다.
+     */
+    Recovered recover() throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("저널 디렉토리 생성 실패: " + dir);
+        }
+        LinkedHashMap<Long, Map<String, Object>> rows = new LinkedHashMap<>();
+        long nextQueueId = 1L;
+        long firstSegment = 0L;
+
+        File checkpointFile = new File(dir, CHECKPOINT_FILE);
+        if (checkpointFile.exists()) {
+            CheckedInputStream checked = new CheckedInputStream(
+                    new BufferedInputStream(new FileInputStream(checkpointFile)), new CRC32());
+            try {
+                DataInputStream in = new DataInputStream(checked);
+                if (in.readInt() != CHECKPOINT_MAGIC) {
+                    throw new IOException("checkpoint 형식 오류: " + checkpointFile);
+                }
+                firstSegment = in.readLong();
+                nextQueueId = in.readLong();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    Map<String, Object> row = readMap(in);
+                    rows.put(toLong(row.get("QUEUE_ID")), row);
+                }
+                long expected = checked.getChecksum().getValue();
+                if (in.readLong() != expected) {
+                    throw new IOException("checkpoint CRC 불일치: " + checkpointFile);
+                }
+            } finally {
+                checked.close();
+            }
+        }
+
+        segmentNo = Math.max(0L, firstSegment - 1);
+        for (long no : listSegments()) {
+            if (no >= firstSegment) {
+                nextQueueId = Math.max(nextQueueId, replaySegment(no, rows) + 1);
+            }
+            segmentNo = Math.max(segmentNo, no);
+        }
+        return new Recovered(rows, nextQueueId);
+    }
+
+    /**
+     * 레코드 추가
+     *
+     * @return 현재 세그먼트에 공간이 없으면 false (checkpoint 후 다시 호출)
+     */
+    boolean tryAppend(byte[] payload) {
+        if (segment == null) {
+            throw new IllegalStateException("큐 저널이 열려 있지 않습니다: " + dir);
+        }
+        int position = segment.position();
+        if (position + RECORD_HEADER_BYTES + payload.length > segment.capacity()) {
+            return false;
+        }
+        segment.position(position + RECORD_HEADER_BYTES);
+        segment.put(payload);
+        segment.putInt(position + 4, crc(payload));
+        segment.putInt(position, payload.length);  // 길이를 마지막에 기록 (이 시점부터 재생 대상)
+        return true;
+    }
+
+    /**
+     * 빈 세그먼트 하나에 들어가는 최대 본문 크기
+     */
+    int maxPayloadBytes() {
+        return segmentBytes - RECORD_HEADER_BYTES;
+    }
+
+    /**
+     * 처리 전 행 전체를 checkpoint.dat로 저장하고 새 세그먼트로 전환
+     */
+    void checkpoint(Collection<Map<String, Object>> rows, long nextQueueId) throws IOException {
+        if (segment != null) {
+            segment.force();
+        }
+        long nextSegment = segmentNo + 1;
+
+        File tmp = new File(dir, CHECKPOINT_FILE + ".tmp");
+        FileOutputStream fos = new FileOutputStream(tmp);
+        try {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(fos), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeLong(nextSegment);
+            out.writeLong(nextQueueId);
+            out.writeInt(rows.size());
+            for (Map<String, Object> row : rows) {
+                writeMap(out, row);
+            }
+            out.flush();
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            fos.getFD().sync();
+        } finally {
+            fos.close();
+        }
+        Files.move(tmp.toPath(), new File(dir, CHECKPOINT_FILE).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        segment = createSegment(nextSegment);
+        segmentNo = nextSegment;
+        for (long no : listSegments()) {
+            if (no < nextSegment && !segmentFile(no).delete()) {
+                System.err.println("⚠️ 이전 저널 세그먼트 삭제 실패 (다음 checkpoint에서 재시도): " + segmentFile(no));
+            }
+        }
+    }
+
+    /**
+     * 기록 중인 세그먼트 force 후 닫기 (호출 전 checkpoint 권장)
+     */
+    void close() {
+        if (segment != null) {
+            segment.force();
+            segment = null;
+        }
+    }
+
+    private MappedByteBuffer createSegment(long no) throws IOException {
+        File file = segmentFile(no);
+        if (file.exists() && !file.delete()) {
+            throw new IOException("저널 세그먼트 초기화 실패: " + file);
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(segmentBytes);
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        } finally {
+            raf.close();  // 매핑은 채널을 닫아도 유지
+        }
+    }
+
+    /**
+     * 세그먼트 재생
+     *
+     * @return 재생한 ENQUEUE 중 가장 큰 QUEUE_ID (없으면 0)
+     */
+    private long replaySegment(long no, LinkedHashMap<Long, Map<String, Object>> rows) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(segmentFile(no), "r");
+        MappedByteBuffer buffer;
+        try {
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        } finally {
+            raf.close();
+        }
+
+        long maxQueueId = 0L;
+        int replayed = 0;
+        while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+            int length = buffer.getInt();
+            int crc = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;  // 기록 끝 또는 쓰다 중단된 레코드
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            if (crc(payload) != crc) {
+                System.err.println("⚠️ 저널 레코드 CRC 불일치, 이후 레코드 무시: " + segmentFile(no)
+                        + " (" + replayed + "건 재생)");
+                break;
+            }
+            maxQueueId = Math.max(maxQueueId, apply(payload, rows));
+            replayed++;
+        }
+        return maxQueueId;
+    }
+
+    private List<Long> listSegments() {
+        List<Long> segments = new ArrayList<>();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getName());
+                if (matcher.matches()) {
+                    segments.add(Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private File segmentFile(long no) {
+        return new File(dir, String.format("segment-%010d.log", no));
+    }
+
+    // ==================== Pure Functions (단위 테스트 대상) ====================
+
+    static byte[] enqueueRecord(Map<String, Object> row) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(OP_ENQUEUE);
+            writeMap(out, row);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);  // 메모리 스트림
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] updateRecord(List<Long> queueIds, Map<String, Object> fields) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(OP_UPDATE);
+            writeIds(out, queueIds);
+            writeMap(out, fields);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] removeRecord(List<Long> queueIds) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(OP_REMOVE);
+            writeIds(out, queueIds);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 레코드 1건을 행 목록에 반영 (재생)
+     *
+     * @return ENQUEUE면 QUEUE_ID, 아니면 0
+     */
+    static long apply(byte[] payload, LinkedHashMap<Long, Map<String, Object>> rows) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        if (op == OP_ENQUEUE) {
+            Map<String, Object> row = readMap(in);
+            long queueId = toLong(row.get("QUEUE_ID"));
+            rows.put(queueId, row);
+            return queueId;
+        }
+        if (op == OP_UPDATE) {
+            List<Long> queueIds = readIds(in);
+            Map<String, Object> fields = readMap(in);
+            for (Long queueId : queueIds) {
+                Map<String, Object> row = rows.get(queueId);
+                if (row != null) {
+                    row.putAll(fields);
+                }
+            }
+            return 0L;
+        }
+        if (op == OP_REMOVE) {
+            for (Long queueId : readIds(in)) {
+                rows.remove(queueId);
+            }
+            return 0L;
+        }
+        throw new IOException("알 수 없는 저널 레코드: " + op);
+    }
+
+    private static void writeIds(DataOutputStream out, List<Long> queueIds) throws IOException {
+        out.writeInt(queueIds.size());
+        for (Long queueId : queueIds) {
+            out.writeLong(queueId);
+        }
+    }
+
+    private static List<Long> readIds(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<Long> queueIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            queueIds.add(in.readLong());
+        }
+        return queueIds;
+    }
+
+    private static void writeMap(DataOutputStream out, Map<String, Object> map) throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private static Map<String, Object> readMap(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readValue(in));
+        }
+        return map;
+    }
+
+    /**
+     * 값 기록 (String, Long, Integer, Date, 그 외 숫자는 BigDecimal, 나머지는 문자열)
+     */
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Date) {
+            out.writeByte(TYPE_DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof Number) {
+            out.writeByte(TYPE_DECIMAL);
+            writeString(out, value.toString());
+        } else {
+            out.writeByte(TYPE_STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return readString(in);
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_INTEGER:
+                return in.readInt();
+            case TYPE_DATE:
+                return new Date(in.readLong());
+            case TYPE_DECIMAL:
+                return new BigDecimal(readString(in));
+            default:
+                throw new IOException("알 수 없는 값 형식: " + type);
+        }
+    }
+
+    /**
+     * UTF-8 문자열 (writeUTF의 64KB 제한 없이 SECTION_CONTENT 등 긴 값 기록)
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    private static long toLong(Object value) throws IOException {
+        if (!(value instanceof Number)) {
+            throw new IOException("QUEUE_ID 없는 저널 행: " + value);
+        }
+        return ((Number) value).longValue();
+    }
+}
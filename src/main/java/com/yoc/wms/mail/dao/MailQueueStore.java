@@ -0,0 +1,118 @@
+package com.yoc.wms.mail.dao;
+
+import com.yoc.wms.mail.domain.QueueMessage;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 알람 큐 저장소
+ *
+ * Producer(AlarmQueue)와 Consumer(AlarmMailService)가 큐 행을 다루는 연산만 모은 인터페이스입니다.
+ * 등록은 MAIL_QUEUE 컬럼명 Map(alarm.enqueueAlarmQueue 파라미터), 선점 결과는 QueueMessage(v3.25.0)입니다.
+ *
+ * 구현 (alarm.queue.store.type):
+ * - db: MyBatisMailQueueStore - MAIL_QUEUE 테이블, Multi-Node 선점 (기본)
+ * - journal: JournalMailQueueStore - 노드 로컬 Memory-Mapped 저널, DB 없이 대량 처리 (일시적 알람용)
+ *
+ * 선점 이후 상태 변경은 CLAIM_TOKEN이 일치하는 행에만 반영되고 반영 건수를 반환합니다.
+ * 0건이면 Lease 만료 후 다른 선점이 가져간 것입니다.
+ *
+ *  @author 김찬기
+ *  @since v3.24.0
+ */
+public interface MailQueueStore {
+
+    /**
+     * 일괄 등록 (DEDUP_KEY가 같은 처리 전 행이 있으면 흡수)
+     *
+     * @param rows alarm.enqueueAlarmQueue 파라미터 (AlarmQueue.toQueueRow)
+     * @return 실제 등록 건수
+     */
+    int enqueue(List<Map<String, Object>> rows);
+
+    /**
+     * 선점 (PENDING 또는 Lease 만료된 PROCESSING → PROCESSING)
+     *
+     * @param severity 선점 대상 Lane (INFO는 CRITICAL/WARNING 외 전부)
+     * @param limit 최대 선점 건수
+     * @param cycleStart 이 시각 이후 상태가 바뀐 행 제외 (NULL이면 조건 없음)
+     * @param nodeId 선점 노드
+     * @param leaseSeconds 선점 유효 시간 (초)
+     * @return 선점된 메시지 (REG_DATE 순, 없으면 빈 리스트)
+     */
+    List<QueueMessage> claim(String severity, int limit, Date cycleStart, String nodeId, int leaseSeconds);
+
+    /**
+     * Lane 적체량 (재시도 대기 중인 행 제외)
+     */
+    long countPending(String severity);
+
+    /**
+     * 발송 성공 (SUCCESS)
+     */
+    int ack(List<Long> queueIds, String claimToken);
+
+    /**
+     * 발송 생략 (SKIPPED, 결과 변경 없음)
+     */
+    int skip(List<Long> queueIds, String claimToken);
+
+    /**
+     * 연기 (재시도 횟수 미소모, deferSeconds 후 재선점)
+     */
+    int defer(List<Long> queueIds, String claimToken, long deferSeconds, String reason);
+
+    /**
+     * 재시도 (RETRY_COUNT 증가, 실패 이력 누적, delaySeconds 후 재선점)
+     */
+    int retry(Long queueId, String claimToken, long delaySeconds, String errorMessage, String failureEntry);
+
+    /**
+     * 최종 실패 (FAILED, Dead Letter로 이동)
+     *
+     * @return 이동 건수 (0이면 선점 만료)
+     */
+    int fail(Long queueId, String claimToken, String errorMessage, String failureEntry);
+
+    /**
+     * 선점 반환 (발송 시작 전, 재시도 횟수 유지)
+     */
+    int release(List<Long> queueIds, String claimToken);
+
+    /**
+     * 선점 연장 (발송 시작 직전, LEASE_EXPIRE_DATE = 지금 + leaseSeconds)
+     *
+     * @return 연장 건수 (0이면 이미 회수/재선점됨 → 발송하면 안 됨)
+     * @since v3.18.0
+     */
+    int renewLease(List<Long> queueIds, String claimToken, int leaseSeconds);
+
+    /**
+     * 노드의 남은 선점 전체 반환 (종료 마지막 단계)
+     */
+    int releaseNode(String nodeId);
+
+    /**
+     * Dead Letter 건수
+     *
+     * @param filter MAIL_SOURCE, FROM_DATE, TO_DATE, ERROR_PATTERN 중 지정된 값 (AlarmDeadLetterService.buildFilterParams)
+     */
+    long countDeadLetters(Map<String, Object> filter);
+
+    /**
+     * Dead Letter 재처리 (조건에 맞는 행을 PENDING으로 복귀, RETRY_COUNT 초기화)
+     *
+     * 같은 DEDUP_KEY가 처리 전이거나 대상 안에서 같은 키가 여러 건이면 최신 1건만 복귀하고 나머지는 흡수(삭제)합니다.
+     *
+     * @param ratePerMinute 분당 복귀 건수 (실패 순서대로 NEXT_RETRY_AT 1분 간격 분산, 0 이하면 즉시 전부)
+     * @return 복귀 건수 (흡수 제외)
+     */
+    int replayDeadLetters(Map<String, Object> filter, int ratePerMinute);
+
+    /**
+     * 저장소 종료 (열린 파일 정리, DB는 없음)
+     */
+    void close();
+}
@@ -0,0 +1,243 @@
+package com.yoc.wms.mail.dao;
+
+import com.yoc.wms.mail.domain.QueueMessage;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * MAIL_QUEUE 테이블 큐 저장소 (기본)
+ *
+ * alarm-mapper의 Statement를 그대로 사용합니다 (v3.24.0 이전 AlarmMailService 구현 이동).
+ *
+ * 메시지별 트랜잭션 (v3.3.0):
+ * - SMTP 발송은 트랜잭션 밖, 상태 업데이트만 짧은 트랜잭션으로 commit
+ * - 한 메시지 실패가 이미 처리된 다른 메시지의 상태 업데이트를 롤백하지 않음
+ *
+ *  @author 김찬기
+ *  @since v3.24.0
+ */
+public class MyBatisMailQueueStore implements MailQueueStore {
+
+    private final MailDao mailDao;
+    private final TransactionTemplate transactionTemplate;
+
+    public MyBatisMailQueueStore(MailDao mailDao, PlatformTransactionManager transactionManager) {
+        this.mailDao = mailDao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public int enqueue(List<Map<String, Object>> rows) {
+        return mailDao.batchInsertIgnoreDuplicates("alarm.enqueueAlarmQueue", rows);
+    }
+
+    /**
+     * 큐 선점 (Lease 기반 Multi-Node Claim)
+     *
+     * Flow:
+     * 1. alarm.claimPendingQueue → PENDING(또는 Lease 만료된 PROCESSING) 행을
+     *    PROCESSING으로 변경하고 OWNER_NODE_ID, CLAIM_TOKEN, LEASE_EXPIRE_DATE 기록
+     *    - Oracle: FOR UPDATE SKIP LOCKED 커서 (다른 노드가 잠근 행은 건너뜀)
+     *    - H2: 조건부 UPDATE (STATUS 재검사로 동일 행 중복 선점 차단)
+     * 2. alarm.selectClaimedQueue → 이번에 발급한 CLAIM_TOKEN으로 선점된 행만 조회 (queueMessageMap, v3.25.0)
+     *
+     * Why CLAIM_TOKEN으로 재조회:
+     * - Oracle PL/SQL 블록은 UPDATE 건수를 반환하지 않음
+     * - 같은 노드의 이전 선점분과 이번 선점분을 구분
+     * - 상태 업데이트 시 토큰 일치 조건으로 Lease 만료 후 늦게 도착한 업데이트 차단
+     */
+    @Override
+    public List<QueueMessage> claim(String severity, int limit, Date cycleStart, String nodeId, int leaseSeconds) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("NODE_ID", nodeId);
+        params.put("CLAIM_TOKEN", UUID.randomUUID().toString());
+        params.put("LEASE_SECONDS", leaseSeconds);
+        params.put("LIMIT", limit);
+        params.put("CYCLE_START", cycleStart);
+        params.put("SEVERITY", severity);
+
+        mailDao.update("alarm.claimPendingQueue", params);
+        return mailDao.selectTypedList("alarm.selectClaimedQueue", params);
+    }
+
+    @Override
+    public long countPending(String severity) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("SEVERITY", severity);
+        Map<String, Object> result = mailDao.selectOne("alarm.selectPendingCount", params);
+        if (result == null || !(result.get("CNT") instanceof Number)) {
+            return 0L;
+        }
+        return ((Number) result.get("CNT")).longValue();
+    }
+
+    /**
+     * 1건이면 alarm.updateQueueSuccess, 통합 묶음이면 alarm.updateQueueSuccessList
+     */
+    @Override
+    public int ack(List<Long> queueIds, String claimToken) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("CLAIM_TOKEN", claimToken);
+        if (queueIds.size() == 1) {
+            params.put("QUEUE_ID", queueIds.get(0));
+            return updateInTransaction("alarm.updateQueueSuccess", params);
+        }
+        params.put("QUEUE_IDS", queueIds);
+        return updateInTransaction("alarm.updateQueueSuccessList", params);
+    }
+
+    @Override
+    public int skip(List<Long> queueIds, String claimToken) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("QUEUE_IDS", queueIds);
+        params.put("CLAIM_TOKEN", claimToken);
+        return updateInTransaction("alarm.updateQueueSkipped", params);
+    }
+
+    @Override
+    public int defer(List<Long> queueIds, String claimToken, long deferSeconds, String reason) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("QUEUE_IDS", queueIds);
+        params.put("CLAIM_TOKEN", claimToken);
+        params.put("DEFER_SECONDS", deferSeconds);
+        params.put("ERROR_MESSAGE", reason);
+        return updateInTransaction("alarm.updateQueueDeferred", params);
+    }
+
+    @Override
+    public int retry(Long queueId, String claimToken, long delaySeconds, String errorMessage, String failureEntry) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("QUEUE_ID", queueId);
+        params.put("CLAIM_TOKEN", claimToken);
+        params.put("ERROR_MESSAGE", errorMessage);
+        params.put("FAILURE_ENTRY", failureEntry);
+        params.put("RETRY_DELAY_SECONDS", delaySeconds);
+        return updateInTransaction("alarm.updateQueueRetry", params);
+    }
+
+    /**
+     * 최종 실패 행 Dead Letter 이동 (단일 트랜잭션)
+     *
+     * Flow:
+     * 1. alarm.updateQueueFailed → FAILED + 마지막 실패 이력 기록 (CLAIM_TOKEN 조건)
+     * 2. alarm.insertDeadLetter → MAIL_QUEUE_DLQ로 복사 (FAILURE_HISTORY 포함)
+     * 3. alarm.deleteFailedQueue → MAIL_QUEUE에서 삭제
+     *
+     * Why 이동 (v3.8.0):
+     * - 기존: FAILED 행이 실행되지 않는 deleteCompletedQueue 전까지 MAIL_QUEUE에 계속 누적
+     * - 선점/적체량 조회가 읽는 테이블과 인덱스를 운영 중인 행만으로 작게 유지
+     *
+     * 1단계가 0건(선점 만료 후 다른 노드가 재선점)이면 이동하지 않습니다.
+     */
+    @Override
+    public int fail(Long queueId, String claimToken, String errorMessage, String failureEntry) {
+        final Map<String, Object> params = new HashMap<>();
+        params.put("QUEUE_ID", queueId);
+        params.put("CLAIM_TOKEN", claimToken);
+        params.put("ERROR_MESSAGE", errorMessage);
+        params.put("FAILURE_ENTRY", failureEntry);
+
+        Integer failed = transactionTemplate.execute(new TransactionCallback<Integer>() {
+            @Override
+            public Integer doInTransaction(TransactionStatus status) {
+                int failed = mailDao.update("alarm.updateQueueFailed", params);
+                if (failed > 0) {
+                    mailDao.insert("alarm.insertDeadLetter", params);
+                    mailDao.delete("alarm.deleteFailedQueue", params);
+                }
+                return failed;
+            }
+        });
+        return failed != null ? failed : 0;
+    }
+
+    @Override
+    public int release(List<Long> queueIds, String claimToken) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("QUEUE_IDS", queueIds);
+        params.put("CLAIM_TOKEN", claimToken);
+        return updateInTransaction("alarm.releaseQueueClaims", params);
+    }
+
+    @Override
+    public int renewLease(List<Long> queueIds, String claimToken, int leaseSeconds) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("QUEUE_IDS", queueIds);
+        params.put("CLAIM_TOKEN", claimToken);
+        params.put("LEASE_SECONDS", leaseSeconds);
+        return updateInTransaction("alarm.renewQueueLease", params);
+    }
+
+    @Override
+    public int releaseNode(String nodeId) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("NODE_ID", nodeId);
+        return mailDao.update("alarm.releaseNodeClaims", params);
+    }
+
+    @Override
+    public long countDeadLetters(Map<String, Object> filter) {
+        Map<String, Object> result = mailDao.selectOne("alarm.selectDeadLetterCount", filter);
+        if (result == null || !(result.get("CNT") instanceof Number)) {
+            return 0L;
+        }
+        return ((Number) result.get("CNT")).longValue();
+    }
+
+    /**
+     * Dead Letter 재처리 (단일 트랜잭션)
+     *
+     * Flow:
+     * 1. alarm.replayDeadLetter → INSERT ... SELECT 한 문장으로 MAIL_QUEUE에 PENDING 등록
+     *    - 원본 QUEUE_ID, REG_DATE, FAILURE_HISTORY 유지 / RETRY_COUNT 0으로 초기화
+     * 2. alarm.deleteReplayedDeadLetter → MAIL_QUEUE로 복귀한 QUEUE_ID를 Dead Letter에서 삭제
+     * 3. alarm.deleteAbsorbedDeadLetter → 같은 DEDUP_KEY가 MAIL_QUEUE에서 처리 전이라 복귀하지 않은 행 삭제
+     */
+    @Override
+    public int replayDeadLetters(Map<String, Object> filter, int ratePerMinute) {
+        final Map<String, Object> params = new HashMap<>(filter);
+        params.put("RATE_PER_MINUTE", ratePerMinute);
+
+        Integer replayed = transactionTemplate.execute(new TransactionCallback<Integer>() {
+            @Override
+            public Integer doInTransaction(TransactionStatus status) {
+                int replayed = mailDao.insert("alarm.replayDeadLetter", params);
+                if (replayed > 0) {
+                    mailDao.delete("alarm.deleteReplayedDeadLetter", params);
+                }
+                int absorbed = mailDao.delete("alarm.deleteAbsorbedDeadLetter", params);
+                if (absorbed > 0) {
+                    System.out.println("🔁 Dead Letter 중복 흡수: " + absorbed + "건");
+                }
+                return replayed;
+            }
+        });
+        return replayed != null ? replayed : 0;
+    }
+
+    @Override
+    public void close() {
+        // DataSource는 Spring이 관리
+    }
+
+    /**
+     * 상태 업데이트 (메시지별 단독 트랜잭션)
+     */
+    private int updateInTransaction(final String statementId, final Map<String, Object> params) {
+        Integer updated = transactionTemplate.execute(new TransactionCallback<Integer>() {
+            @Override
+            public Integer doInTransaction(TransactionStatus status) {
+                return mailDao.update(statementId, params);
+            }
+        });
+        return updated != null ? updated : 0;
+    }
+}
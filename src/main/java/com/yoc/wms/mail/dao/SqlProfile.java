@@ -0,0 +1,53 @@
+package com.yoc.wms.mail.dao;
+
+/**
+ * SQL_ID별 실행 프로파일 (수정 불가)
+ *
+ * - timeoutSeconds: Statement.setQueryTimeout (0 이하면 드라이버 기본값, 제한 없음)
+ * - fetchSize: Statement.setFetchSize (0 이하면 드라이버 기본값, Oracle은 10)
+ *
+ *  @author 김찬기
+ *  @since v3.16.0
+ */
+public class SqlProfile {
+
+    /** 적용할 값 없음 (드라이버 기본값 사용) */
+    public static final SqlProfile NONE = new SqlProfile(0, 0);
+
+    private final int timeoutSeconds;
+    private final int fetchSize;
+
+    public SqlProfile(int timeoutSeconds, int fetchSize) {
+        this.timeoutSeconds = timeoutSeconds;
+        this.fetchSize = fetchSize;
+    }
+
+    public int getTimeoutSeconds() { return timeoutSeconds; }
+
+    public int getFetchSize() { return fetchSize; }
+
+    /**
+     * 적용할 값이 하나도 없는지 여부
+     */
+    public boolean isEmpty() {
+        return timeoutSeconds <= 0 && fetchSize <= 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SqlProfile)) return false;
+        SqlProfile that = (SqlProfile) o;
+        return timeoutSeconds == that.timeoutSeconds && fetchSize == that.fetchSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * timeoutSeconds + fetchSize;
+    }
+
+    @Override
+    public String toString() {
+        return "SqlProfile{timeoutSeconds=" + timeoutSeconds + ", fetchSize=" + fetchSize + "}";
+    }
+}
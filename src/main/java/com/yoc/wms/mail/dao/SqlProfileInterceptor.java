@@ -0,0 +1,86 @@
+package com.yoc.wms.mail.dao;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+/**
+ * SQL 실행 프로파일 적용 MyBatis Plugin
+ *
+ * MailDao가 현재 스레드에 바인딩한 SqlProfile을 JDBC Statement에 적용합니다 (쿼리 타임아웃, Fetch Size).
+ * 바인딩이 없는 일반 쿼리는 Mapper/드라이버 기본값을 그대로 사용합니다.
+ *
+ * MyBatis 3.1(운영) / 3.5(개발) 공용:
+ * - StatementHandler.prepare()는 버전별 시그니처가 달라 parameterize(Statement)에서 적용
+ * - Interceptor의 plugin()/setProperties()는 3.1에서 default 메서드가 아니므로 직접 구현
+ *
+ * 등록:
+ * - 개발 (Spring Boot): Interceptor Bean을 mybatis-spring-boot-starter가 자동 등록
+ * - 운영 (Spring 3.1): SqlSessionFactoryBean의 plugins 속성에 등록 필요
+ *
+ *  @author 김찬기
+ *  @since v3.16.0
+ */
+@Component
+@Intercepts({@Signature(type = StatementHandler.class, method = "parameterize", args = {Statement.class})})
+public class SqlProfileInterceptor implements Interceptor {
+
+    private static final ThreadLocal<SqlProfile> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 현재 스레드의 다음 쿼리에 프로파일 적용 (NULL이면 해제)
+     */
+    public static void bind(SqlProfile profile) {
+        if (profile == null || profile.isEmpty()) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(profile);
+        }
+    }
+
+    /**
+     * 현재 스레드의 프로파일 해제 (finally에서 반드시 호출)
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        SqlProfile profile = CURRENT.get();
+        if (profile != null) {
+            apply((Statement) invocation.getArgs()[0], profile);
+        }
+        return invocation.proceed();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        // 설정은 SqlProfileRegistry에서 관리
+    }
+
+    /**
+     * Statement에 프로파일 적용 (0 이하 값은 건너뜀)
+     */
+    static void apply(Statement statement, SqlProfile profile) throws SQLException {
+        if (profile.getTimeoutSeconds() > 0) {
+            statement.setQueryTimeout(profile.getTimeoutSeconds());
+        }
+        if (profile.getFetchSize() > 0) {
+            statement.setFetchSize(profile.getFetchSize());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.yoc.wms.mail.dao;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * SQL_ID별 실행 프로파일 저장소
+ * application.properties의 alarm.queue.sql-profile.* 값 로드
+ *
+ * - 기본값: default-timeout-seconds, default-fetch-size
+ * - SQL_ID별 변경: timeouts, fetch-sizes (SQL_ID:값, 콤마 구분)
+ *
+ * Example:
+ *   alarm.queue.sql-profile.fetch-sizes=alarm.selectOverdueOrdersDetail:1000
+ *   → alarm.selectOverdueOrdersDetail = SqlProfile{timeoutSeconds=30, fetchSize=1000}
+ *
+ * 설정은 기동 후 바뀌지 않으므로 SQL_ID별 결과를 캐시합니다.
+ *
+ *  @author 김찬기
+ *  @since v3.16.0
+ */
+@Component
+public class SqlProfileRegistry {
+
+    /** 쿼리 타임아웃 기본값 (초, 0 이하면 제한 없음) */
+    @Value("${alarm.queue.sql-profile.default-timeout-seconds:30}")
+    private int defaultTimeoutSeconds;
+
+    /** Fetch Size 기본값 (0 이하면 드라이버 기본값) */
+    @Value("${alarm.queue.sql-profile.default-fetch-size:500}")
+    private int defaultFetchSize;
+
+    /** SQL_ID별 쿼리 타임아웃 (SQL_ID:초, 콤마 구분) */
+    @Value("${alarm.queue.sql-profile.timeouts:}")
+    private String timeouts;
+
+    /** SQL_ID별 Fetch Size (SQL_ID:행 수, 콤마 구분) */
+    @Value("${alarm.queue.sql-profile.fetch-sizes:}")
+    private String fetchSizes;
+
+    private final ConcurrentMap<String, SqlProfile> profiles = new ConcurrentHashMap<>();
+
+    /**
+     * SQL_ID의 실행 프로파일 반환
+     *
+     * @param sqlId Mapper Statement ID (NULL이면 NONE)
+     * @return 실행 프로파일 (NULL 아님)
+     */
+    public SqlProfile get(String sqlId) {
+        if (sqlId == null) {
+            return SqlProfile.NONE;
+        }
+        SqlProfile profile = profiles.get(sqlId);
+        if (profile == null) {
+            profile = buildProfile(sqlId, defaultTimeoutSeconds, defaultFetchSize, timeouts, fetchSizes);
+            profiles.putIfAbsent(sqlId, profile);
+        }
+        return profile;
+    }
+
+    // ==================== Pure Functions (단위 테스트 대상) ====================
+
+    /**
+     * SQL_ID 프로파일 계산 (Pure Function)
+     *
+     * SQL_ID별 설정이 있으면 해당 값, 없으면 기본값을 사용합니다.
+     */
+    public static SqlProfile buildProfile(String sqlId, int defaultTimeoutSeconds, int defaultFetchSize,
+                                          String timeouts, String fetchSizes) {
+        Integer timeout = findOverride(timeouts, sqlId);
+        Integer fetchSize = findOverride(fetchSizes, sqlId);
+        return new SqlProfile(
+                (timeout != null) ? timeout : defaultTimeoutSeconds,
+                (fetchSize != null) ? fetchSize : defaultFetchSize);
+    }
+
+    /**
+     * "SQL_ID:값" 목록에서 SQL_ID 값 조회 (Pure Function)
+     *
+     * - SQL_ID는 대소문자 구분 (Mapper Statement ID와 동일)
+     * - 값이 숫자가 아니면 로그 후 무시
+     *
+     * @return 설정 값 (없으면 NULL)
+     */
+    public static Integer findOverride(String mappings, String sqlId) {
+        if (mappings == null || sqlId == null) {
+            return null;
+        }
+        for (String mapping : mappings.split(",")) {
+            int separator = mapping.lastIndexOf(':');
+            if (separator > 0 && mapping.substring(0, separator).trim().equals(sqlId)) {
+                String value = mapping.substring(separator + 1).trim();
+                try {
+                    return Integer.valueOf(value);
+                } catch (NumberFormatException e) {
+                    System.err.println("⚠️ SQL 프로파일 설정 오류 (무시): " + mapping.trim());
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
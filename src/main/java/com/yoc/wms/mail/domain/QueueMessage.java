@@ -0,0 +1,157 @@
+package com.yoc.wms.mail.domain;
+
+import com.yoc.wms.mail.util.MailUtils;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * 선점된 큐 메시지 (MAIL_QUEUE 1행, 불변)
+ *
+ * alarm.selectClaimedQueue의 queueMessageMap(constructor resultMap)으로 생성됩니다.
+ * 행마다 HashMap + 캐스팅/박싱 헬퍼로 꺼내던 방식 대신 필드로 바로 접근합니다.
+ *
+ * CLOB 변환:
+ * - SECTION_CONTENT, RECIPIENT_USER_IDS는 String으로 보관 (NULL → "")
+ * - MyBatis: ClobStringTypeHandler가 결과 매핑 시점(조회 커넥션 반환 전)에 변환
+ * - fromRow(): 생성 시 MailUtils.convertToString으로 변환
+ *
+ * Clob Locator는 조회한 커넥션에서만 유효하므로 보관하지 않습니다.
+ * (선점 세션이 커넥션을 반환한 뒤 Lane/Worker 스레드에서 읽으면 Oracle ORA-22922 등)
+ *
+ *  @author 김찬기
+ *  @since v3.25.0
+ */
+public class QueueMessage {
+
+    private final Long queueId;
+    private final String mailSource;
+    private final String alarmName;
+    private final String severity;
+    private final String sqlId;
+    private final String sectionTitle;
+    private final String recipientGroups;
+    private final String columnOrder;
+    private final String excelSqlId;
+    private final String excelColumnOrder;
+    private final String excelFileName;
+    private final int retryCount;
+    private final String sectionContent;
+    private final String recipientUserIds;
+    private final String claimToken;
+    private final Date regDate;
+
+    /**
+     * MyBatis constructor 매핑용 (SELECT 컬럼 순서)
+     *
+     * @param sectionContent SECTION_CONTENT (ClobStringTypeHandler로 변환, NULL이면 "")
+     * @param recipientUserIds RECIPIENT_USER_IDS (ClobStringTypeHandler로 변환, NULL이면 "")
+     * @param retryCount RETRY_COUNT (NULL이면 0)
+     */
+    public QueueMessage(Long queueId, String mailSource, String alarmName, String severity, String sqlId,
+                        String sectionTitle, String sectionContent, String recipientUserIds,
+                        String recipientGroups, String columnOrder, String excelSqlId,
+                        String excelColumnOrder, String excelFileName, Integer retryCount,
+                        String claimToken, Date regDate) {
+        this.queueId = queueId;
+        this.mailSource = mailSource;
+        this.alarmName = alarmName;
+        this.severity = severity;
+        this.sqlId = sqlId;
+        this.sectionTitle = sectionTitle;
+        this.sectionContent = (sectionContent != null) ? sectionContent : "";
+        this.recipientUserIds = (recipientUserIds != null) ? recipientUserIds : "";
+        this.recipientGroups = recipientGroups;
+        this.columnOrder = columnOrder;
+        this.excelSqlId = excelSqlId;
+        this.excelColumnOrder = excelColumnOrder;
+        this.excelFileName = excelFileName;
+        this.retryCount = (retryCount != null) ? retryCount : 0;
+        this.claimToken = claimToken;
+        this.regDate = (regDate != null) ? new Date(regDate.getTime()) : null;
+    }
+
+    /**
+     * MAIL_QUEUE 컬럼명 Map을 QueueMessage로 변환 (저널 저장소 등 MyBatis 밖의 행)
+     *
+     * @param row QUEUE_ID, MAIL_SOURCE, ..., CLAIM_TOKEN, REG_DATE
+     */
+    public static QueueMessage fromRow(Map<String, Object> row) {
+        Object queueId = row.get("QUEUE_ID");
+        Object retryCount = row.get("RETRY_COUNT");
+        Object regDate = row.get("REG_DATE");
+        return new QueueMessage(
+                (queueId instanceof Number) ? ((Number) queueId).longValue() : null,
+                (String) row.get("MAIL_SOURCE"),
+                (String) row.get("ALARM_NAME"),
+                (String) row.get("SEVERITY"),
+                (String) row.get("SQL_ID"),
+                (String) row.get("SECTION_TITLE"),
+                MailUtils.convertToString(row.get("SECTION_CONTENT")),
+                MailUtils.convertToString(row.get("RECIPIENT_USER_IDS")),
+                (String) row.get("RECIPIENT_GROUPS"),
+                (String) row.get("COLUMN_ORDER"),
+                (String) row.get("EXCEL_SQL_ID"),
+                (String) row.get("EXCEL_COLUMN_ORDER"),
+                (String) row.get("EXCEL_FILE_NAME"),
+                (retryCount instanceof Number) ? ((Number) retryCount).intValue() : null,
+                (String) row.get("CLAIM_TOKEN"),
+                (regDate instanceof Date) ? (Date) regDate : null);
+    }
+
+    /**
+     * 본문만 바꾼 사본 (통합 안내 추가 등, 원본 불변)
+     */
+    public QueueMessage withSectionContent(String content) {
+        return new QueueMessage(queueId, mailSource, alarmName, severity, sqlId, sectionTitle, content,
+                recipientUserIds, recipientGroups, columnOrder, excelSqlId, excelColumnOrder, excelFileName,
+                retryCount, claimToken, regDate);
+    }
+
+    // ==================== Getters ====================
+
+    /**
+     * 본문 (NULL이면 "")
+     */
+    public String getSectionContent() { return sectionContent; }
+
+    /**
+     * 수신인 사용자 ID (콤마 구분, NULL이면 "")
+     */
+    public String getRecipientUserIds() { return recipientUserIds; }
+
+    public Long getQueueId() { return queueId; }
+
+    public String getMailSource() { return mailSource; }
+
+    public String getAlarmName() { return alarmName; }
+
+    public String getSeverity() { return severity; }
+
+    public String getSqlId() { return sqlId; }
+
+    public String getSectionTitle() { return sectionTitle; }
+
+    public String getRecipientGroups() { return recipientGroups; }
+
+    public String getColumnOrder() { return columnOrder; }
+
+    public String getExcelSqlId() { return excelSqlId; }
+
+    public String getExcelColumnOrder() { return excelColumnOrder; }
+
+    public String getExcelFileName() { return excelFileName; }
+
+    public int getRetryCount() { return retryCount; }
+
+    public String getClaimToken() { return claimToken; }
+
+    public Date getRegDate() {
+        return (regDate != null) ? new Date(regDate.getTime()) : null;
+    }
+
+    @Override
+    public String toString() {
+        return "QueueMessage{queueId=" + queueId + ", mailSource=" + mailSource + ", severity=" + severity + "}";
+    }
+}
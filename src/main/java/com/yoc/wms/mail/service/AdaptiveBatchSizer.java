@@ -0,0 +1,134 @@
+package com.yoc.wms.mail.service;
+
+/**
+ * 큐 선점 건수 동적 조절기
+ *
+ * 계산 방식:
+ * - 처리 가능량 = Worker 수 × 목표 사이클 시간 ÷ 메시지당 평균 처리 시간
+ * - 실패율만큼 감소 (SMTP 장애 시 선점 건수를 줄여 Lease 낭비 방지)
+ * - 현재 적체량(PENDING 건수)을 넘지 않음
+ * - [최소, 최대] 범위로 보정
+ *
+ * 평균 처리 시간/실패율은 지수 이동 평균(EWMA)으로 누적하여
+ * 일시적인 지연 한 번에 크게 흔들리지 않도록 합니다.
+ *
+ * 관측 전(첫 배치)에는 초기 건수(alarm.queue.batch-size)를 사용합니다.
+ *
+ *  @author 김찬기
+ *  @since v3.5.0
+ */
+public class AdaptiveBatchSizer {
+
+    /** EWMA 가중치 (최근 배치 반영 비율) */
+    private static final double SMOOTHING = 0.3;
+
+    private final int initialBatchSize;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final int workerCount;
+    private final long targetCycleMs;
+
+    /** 메시지당 평균 처리 시간 (ms), 관측 전에는 -1 */
+    private double avgMessageMs = -1;
+    private double failureRate = 0;
+    private int lastBatchSize;
+
+    public AdaptiveBatchSizer(int initialBatchSize, int minBatchSize, int maxBatchSize,
+                              int workerCount, long targetCycleMs) {
+        if (minBatchSize < 1 || maxBatchSize < minBatchSize) {
+            throw new IllegalArgumentException("배치 크기 범위가 올바르지 않습니다: min=" + minBatchSize + ", max=" + maxBatchSize);
+        }
+        if (workerCount < 1 || targetCycleMs < 1) {
+            throw new IllegalArgumentException("workerCount, targetCycleMs는 1 이상이어야 합니다");
+        }
+
+        this.initialBatchSize = initialBatchSize;
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.workerCount = workerCount;
+        this.targetCycleMs = targetCycleMs;
+        this.lastBatchSize = clamp(initialBatchSize);
+    }
+
+    /**
+     * 다음 선점 건수 결정
+     *
+     * @param pendingCount 현재 PENDING 건수
+     * @return 선점 건수 (minBatchSize ~ maxBatchSize)
+     */
+    public synchronized int nextBatchSize(long pendingCount) {
+        lastBatchSize = calculateBatchSize(pendingCount, avgMessageMs, failureRate);
+        return lastBatchSize;
+    }
+
+    /**
+     * 배치 처리 결과 반영
+     *
+     * Worker Pool은 병렬로 처리하므로 배치 경과 시간을 동시 처리 수로 환산하여
+     * 메시지 1건의 처리 시간을 추정합니다.
+     *
+     * @param batchSize 처리한 메시지 수
+     * @param elapsedMs 배치 전체 경과 시간 (ms)
+     * @param failedCount 실패(재시도/최종 실패) 메시지 수
+     */
+    public synchronized void recordBatch(int batchSize, long elapsedMs, int failedCount) {
+        if (batchSize <= 0) {
+            return;
+        }
+
+        int parallelism = Math.min(workerCount, batchSize);
+        double messageMs = (double) elapsedMs * parallelism / batchSize;
+        double batchFailureRate = (double) failedCount / batchSize;
+
+        avgMessageMs = (avgMessageMs < 0) ? messageMs : ewma(avgMessageMs, messageMs);
+        failureRate = ewma(failureRate, batchFailureRate);
+    }
+
+    // ===== Pure Functions (단위 테스트 대상) =====
+
+    /**
+     * 선점 건수 계산 (Pure Function)
+     *
+     * @param pendingCount 현재 PENDING 건수
+     * @param avgMessageMs 메시지당 평균 처리 시간 (음수면 관측 전)
+     * @param failureRate 최근 실패율 (0.0 ~ 1.0)
+     */
+    int calculateBatchSize(long pendingCount, double avgMessageMs, double failureRate) {
+        if (pendingCount <= 0) {
+            return minBatchSize;
+        }
+
+        double capacity;
+        if (avgMessageMs < 0) {
+            capacity = initialBatchSize;
+        } else {
+            capacity = workerCount * (double) targetCycleMs / Math.max(avgMessageMs, 1.0);
+        }
+        capacity = capacity * (1.0 - Math.min(Math.max(failureRate, 0.0), 1.0));
+
+        long size = Math.min((long) Math.floor(capacity), pendingCount);
+        return clamp(size);
+    }
+
+    private int clamp(long size) {
+        if (size < minBatchSize) {
+            return minBatchSize;
+        }
+        if (size > maxBatchSize) {
+            return maxBatchSize;
+        }
+        return (int) size;
+    }
+
+    private double ewma(double previous, double current) {
+        return SMOOTHING * current + (1 - SMOOTHING) * previous;
+    }
+
+    // ========== Getter 메서드 ==========
+
+    public synchronized int getLastBatchSize() { return lastBatchSize; }
+
+    public synchronized double getAvgMessageMs() { return avgMessageMs; }
+
+    public synchronized double getFailureRate() { return failureRate; }
+}
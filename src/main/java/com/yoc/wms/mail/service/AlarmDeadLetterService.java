@@ -0,0 +1,130 @@
+package com.yoc.wms.mail.service;
+
+import com.yoc.wms.mail.config.AlarmQueueConfig;
+import com.yoc.wms.mail.exception.ValueChainException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 알람 Dead Letter 큐(MAIL_QUEUE_DLQ) 조회/재처리 서비스
+ *
+ * 최종 실패한 알람은 AlarmMailService가 MAIL_QUEUE_DLQ로 이동시키고,
+ * 원인(SQL 수정, SMTP 복구 등) 해결 후 이 서비스로 조건에 맞는 행을 MAIL_QUEUE로 되돌립니다.
+ *
+ * 재처리 조건 (모두 선택, 최소 1개 필수):
+ * - MAIL_SOURCE: 알람 타입 일치
+ * - fromDate ~ toDate: Dead Letter 이동 일시 (FAILED_DATE, fromDate 포함 / toDate 미포함)
+ * - errorPattern: 마지막 에러 메시지 LIKE 패턴 (예: "%SMTP%")
+ *
+ * 저장소 (v3.24.0): AlarmQueue의 큐 저장소에 위임 (db: MAIL_QUEUE_DLQ, journal: 노드 로컬 Dead Letter 저널)
+ *
+ *  @author 김찬기
+ *  @since v3.8.0
+ */
+@Service
+public class AlarmDeadLetterService {
+
+    @Autowired
+    private AlarmQueue alarmQueue;
+
+    @Autowired
+    private AlarmQueueConfig queueConfig;
+
+    /**
+     * Dead Letter 재처리 대상 건수 조회
+     *
+     * @return 조건에 맞는 Dead Letter 건수
+     */
+    public long countDeadLetters(String mailSource, Date fromDate, Date toDate, String errorPattern) {
+        return alarmQueue.getStore().countDeadLetters(buildFilterParams(mailSource, fromDate, toDate, errorPattern));
+    }
+
+    /**
+     * Dead Letter 재처리 (기본 속도: alarm.queue.dlq.replay-rate-per-minute)
+     *
+     * @see #replay(String, Date, Date, String, int)
+     */
+    public int replay(String mailSource, Date fromDate, Date toDate, String errorPattern) {
+        return replay(mailSource, fromDate, toDate, errorPattern, queueConfig.getDlqReplayRatePerMinute());
+    }
+
+    /**
+     * Dead Letter 재처리 (조건에 맞는 행을 MAIL_QUEUE로 일괄 복귀)
+     *
+     * Flow: MailQueueStore.replayDeadLetters (db는 단일 트랜잭션)
+     * 1. 조건에 맞는 행을 PENDING으로 등록 - 원본 QUEUE_ID, REG_DATE, FAILURE_HISTORY 유지 / RETRY_COUNT 0으로 초기화
+     * 2. 복귀한 행을 Dead Letter에서 삭제
+     * 3. 같은 DEDUP_KEY가 처리 전이라 복귀하지 않은 행 삭제
+     *
+     * 중복 흡수 (v3.22.0):
+     * - DEDUP_KEY가 처리 전(DEDUP_ACTIVE_KEY)인 행, 조건 대상 안에서 같은 키의 두 번째 이후 행은 INSERT 대상에서 제외
+     * - 유니크 제약 위반으로 재처리 전체가 실패하지 않고, 제외된 행은 처리 전 알람에 흡수된 것으로 보고 삭제
+     *
+     * 속도 제어:
+     * - 실패 순서대로 분당 ratePerMinute건씩 NEXT_RETRY_AT을 1분 간격으로 분산
+     * - 수천 건을 한 번에 되돌려도 Consumer가 SMTP에 동시에 몰아 보내지 않음
+     *
+     * @param mailSource 알람 타입 (NULL이면 조건 없음)
+     * @param fromDate Dead Letter 이동 일시 시작 (포함, NULL 가능)
+     * @param toDate Dead Letter 이동 일시 종료 (미포함, NULL 가능)
+     * @param errorPattern 에러 메시지 LIKE 패턴 (NULL 가능)
+     * @param ratePerMinute 분당 재처리 건수 (0 이하면 즉시 전부)
+     * @return 재처리 등록된 건수 (중복 흡수로 삭제된 행 제외)
+     * @throws ValueChainException 조건이 하나도 없는 경우 (전체 재처리 방지)
+     */
+    public int replay(String mailSource, Date fromDate, Date toDate, String errorPattern, int ratePerMinute) {
+        Map<String, Object> params = buildFilterParams(mailSource, fromDate, toDate, errorPattern);
+        if (params.isEmpty()) {
+            throw new ValueChainException("Dead Letter 재처리 조건이 없습니다 (MAIL_SOURCE, 기간, 에러 패턴 중 하나 이상 필요)");
+        }
+
+        int replayed = alarmQueue.getStore().replayDeadLetters(params, ratePerMinute);
+
+        System.out.println("=== Dead Letter 재처리: " + replayed + "건 (조건 " + describeFilter(params)
+                + (ratePerMinute > 0 ? ", 분당 " + ratePerMinute + "건" : ", 즉시") + ") ===");
+        return replayed;
+    }
+
+    // ===== Pure Functions (단위 테스트 대상) =====
+
+    /**
+     * 재처리 조건 파라미터 생성 (Pure Function)
+     *
+     * NULL/공백 조건은 제외합니다.
+     *
+     * @return MAIL_SOURCE, FROM_DATE, TO_DATE, ERROR_PATTERN 중 지정된 값만 포함한 Map
+     */
+    public Map<String, Object> buildFilterParams(String mailSource, Date fromDate, Date toDate, String errorPattern) {
+        Map<String, Object> params = new HashMap<>();
+        if (mailSource != null && !mailSource.trim().isEmpty()) {
+            params.put("MAIL_SOURCE", mailSource.trim());
+        }
+        if (fromDate != null) {
+            params.put("FROM_DATE", fromDate);
+        }
+        if (toDate != null) {
+            params.put("TO_DATE", toDate);
+        }
+        if (errorPattern != null && !errorPattern.trim().isEmpty()) {
+            params.put("ERROR_PATTERN", errorPattern);
+        }
+        return params;
+    }
+
+    private String describeFilter(Map<String, Object> params) {
+        StringBuilder description = new StringBuilder();
+        for (String key : new String[]{"MAIL_SOURCE", "FROM_DATE", "TO_DATE", "ERROR_PATTERN"}) {
+            if (params.containsKey(key)) {
+                if (description.length() > 0) {
+                    description.append(", ");
+                }
+                description.append(key).append("=").append(params.get(key));
+            }
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,126 @@
+package com.yoc.wms.mail.service;
+
+import com.yoc.wms.mail.config.AlarmQueueConfig;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 알람 예약 작업 스케줄러 (작업별 전용 스레드)
+ *
+ * 기존 @Scheduled 작업은 Spring 기본 스케줄러(단일 스레드)를 공유했습니다.
+ * - 30분마다 실행되는 Producer(collectAlarms)가 느려지면 Consumer Tick(pollQueue)과 Heartbeat가 함께 멈춤
+ * - Heartbeat가 dead-seconds 이상 밀리면 다른 노드가 이 노드의 처리 중 행을 회수 (v3.18.0)
+ *
+ * 작업 (작업마다 ScheduledJob 전용 스레드):
+ * - producer: AlarmMailService.collectAlarms() (cron)
+ * - consumer: AlarmMailService.pollQueue() (fixed-delay, Lane 실행은 Lane 스레드에서 비동기)
+ *   - 켜진 노드만 AlarmQueue에 Consumer로 등록 → 같은 노드 등록 시 즉시 깨우기 (v3.23.0)
+ * - reaper: AlarmQueueReaper.tick() (fixed-delay, Heartbeat/회수 주기는 내부 판단)
+ * - cleanup: AlarmQueueReaper.cleanupCompletedQueue() (cron)
+ * - 저널 저장소(alarm.queue.store.type=journal)면 reaper/cleanup 미등록 (MAIL_QUEUE 미사용, 완료 행은 저널이 바로 제거, v3.24.0)
+ *
+ * 종료 순서:
+ * - 이 Bean이 AlarmMailService에 의존하므로 먼저 종료 → 예약 작업 중지 후 AlarmMailService Drain (v3.19.0)
+ *
+ * Spring 3.1.2 호환:
+ * - @EnableScheduling / task:annotation-driven 불필요 (운영 XML에 남아 있어도 @Scheduled 대상 없음)
+ *
+ *  @author 김찬기
+ *  @since v3.20.0
+ */
+@Component
+public class AlarmJobScheduler implements InitializingBean, DisposableBean {
+
+    @Autowired
+    private AlarmMailService alarmMailService;
+
+    @Autowired
+    private AlarmQueueReaper queueReaper;
+
+    @Autowired
+    private AlarmQueueConfig queueConfig;
+
+    @Autowired
+    private AlarmQueueMetrics queueMetrics;
+
+    @Autowired
+    private AlarmQueue alarmQueue;
+
+    private final List<ScheduledJob> jobs = new ArrayList<>();
+
+    /**
+     * 설정된 작업 생성/시작 (cron 형식 오류 시 기동 실패)
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (!queueConfig.isSchedulerEnabled()) {
+            System.out.println("=== 예약 작업 비활성화 (alarm.queue.scheduler.enabled=false) ===");
+            return;
+        }
+
+        if (!isBlank(queueConfig.getProducerCron())) {
+            jobs.add(ScheduledJob.cron("producer", queueConfig.getProducerCron(), new Runnable() {
+                @Override
+                public void run() {
+                    alarmMailService.collectAlarms();
+                }
+            }));
+        }
+        if (queueConfig.getConsumerDelayMs() > 0) {
+            jobs.add(ScheduledJob.fixedDelay("consumer", queueConfig.getConsumerDelayMs(), new Runnable() {
+                @Override
+                public void run() {
+                    alarmMailService.pollQueue();
+                }
+            }));
+            alarmQueue.registerConsumer(alarmMailService);
+        }
+        boolean dbStore = !queueConfig.isJournalStore();
+        if (dbStore && queueConfig.getReaperDelayMs() > 0) {
+            jobs.add(ScheduledJob.fixedDelay("reaper", queueConfig.getReaperDelayMs(), new Runnable() {
+                @Override
+                public void run() {
+                    queueReaper.tick();
+                }
+            }));
+        }
+        if (dbStore && !isBlank(queueConfig.getCleanupCron())) {
+            jobs.add(ScheduledJob.cron("cleanup", queueConfig.getCleanupCron(), new Runnable() {
+                @Override
+                public void run() {
+                    queueReaper.cleanupCompletedQueue();
+                }
+            }));
+        }
+
+        for (ScheduledJob job : jobs) {
+            queueMetrics.registerJob(job);
+            job.start();
+        }
+    }
+
+    /**
+     * 예약 작업 중지 (진행 중인 실행은 shutdown.drain-timeout-ms까지 완료 대기)
+     */
+    @Override
+    public void destroy() {
+        alarmQueue.registerConsumer(null);  // 종료 중 등록은 DB 신호만 (다른 노드가 처리)
+        // 전체 작업의 다음 실행을 먼저 막은 뒤 진행 중인 실행 대기 (느린 작업 대기 중 다른 작업이 계속 돌지 않도록)
+        for (ScheduledJob job : jobs) {
+            job.requestStop();
+        }
+        long deadline = System.currentTimeMillis() + queueConfig.getShutdownDrainTimeoutMs();
+        for (ScheduledJob job : jobs) {
+            job.stop(deadline - System.currentTimeMillis());
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -0,0 +1,121 @@
+package com.yoc.wms.mail.service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 심각도(SEVERITY)별 처리 Lane
+ *
+ * Lane마다 전용 Worker Pool과 선점 건수 조절기를 가지므로
+ * INFO 적체가 CRITICAL 처리 용량을 잠식하지 않고, 반대로 CRITICAL 폭주 중에도
+ * INFO Lane의 예약 Worker가 계속 처리합니다 (기아 방지).
+ *
+ * INFO Lane은 CRITICAL/WARNING 이외의 모든 행(NULL, 미정의 값 포함)을 처리합니다.
+ *
+ * 깨우기 (v3.23.0):
+ * - 새 행이 등록되면 idle-interval을 기다리지 않고 다음 폴링 가능
+ * - 실행 중에 깨우면 finish()가 true를 반환 → 호출자가 바로 다시 실행
+ *   (깨우기/종료는 같은 모니터로 동기화되어 종료 직전 요청도 유실되지 않음)
+ *
+ *  @author 김찬기
+ *  @since v3.6.0
+ */
+public class AlarmLane {
+
+    /** 선점 우선순위 순서 (CRITICAL 먼저) */
+    public static final String[] SEVERITIES = {"CRITICAL", "WARNING", "INFO"};
+
+    private final String severity;
+    private final AlarmWorkerPool workerPool;
+    private final AdaptiveBatchSizer batchSizer;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /** 다음 폴링 가능 시각 (Lane 큐가 비었을 때만 idle-interval만큼 미룸) */
+    private volatile long nextPollTime = 0L;
+
+    /** 실행 중 깨우기 요청 여부 (this로 동기화) */
+    private boolean wakeRequested = false;
+
+    public AlarmLane(String severity, AlarmWorkerPool workerPool, AdaptiveBatchSizer batchSizer) {
+        this.severity = severity;
+        this.workerPool = workerPool;
+        this.batchSizer = batchSizer;
+    }
+
+    /**
+     * 폴링 시각 도래 여부
+     */
+    public boolean isDue(long now) {
+        return now >= nextPollTime;
+    }
+
+    /**
+     * 실행 시작 (이미 실행 중이면 false)
+     */
+    public synchronized boolean tryStart() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        wakeRequested = false;  // 이번 실행의 선점이 등록된 행을 가져감
+        return true;
+    }
+
+    /**
+     * 실행 종료
+     *
+     * @param nextPollTime 다음 폴링 가능 시각 (0이면 다음 Tick에서 바로 실행)
+     * @return 실행 중 깨우기 요청이 있었으면 true (다음 폴링 시각은 0으로 기록)
+     */
+    public synchronized boolean finish(long nextPollTime) {
+        boolean woken = wakeRequested;
+        wakeRequested = false;
+        this.nextPollTime = woken ? 0L : nextPollTime;
+        running.set(false);
+        return woken;
+    }
+
+    /**
+     * 깨우기 (새 행 등록, v3.23.0)
+     *
+     * idle-interval 대기를 해제하고, 실행 중이면 종료 후 바로 다시 실행하도록 표시합니다.
+     */
+    public synchronized void wakeUp() {
+        nextPollTime = 0L;
+        if (running.get()) {
+            wakeRequested = true;
+        }
+    }
+
+    /**
+     * 행의 SEVERITY를 처리하는 Lane (CRITICAL/WARNING 외에는 INFO, Pure Function)
+     */
+    public static String laneOf(String severity) {
+        if ("CRITICAL".equals(severity) || "WARNING".equals(severity)) {
+            return severity;
+        }
+        return "INFO";
+    }
+
+    public void shutdown() {
+        workerPool.shutdown();
+    }
+
+    /**
+     * Worker Pool 종료 (최대 timeoutMs 대기, v3.19.0)
+     *
+     * @return 시간 안에 모든 Worker가 끝났으면 true
+     */
+    public boolean shutdown(long timeoutMs) {
+        return workerPool.shutdown(timeoutMs);
+    }
+
+    // ========== Getter 메서드 ==========
+
+    public String getSeverity() { return severity; }
+
+    public AlarmWorkerPool getWorkerPool() { return workerPool; }
+
+    public AdaptiveBatchSizer getBatchSizer() { return batchSizer; }
+
+    public boolean isRunning() { return running.get(); }
+}
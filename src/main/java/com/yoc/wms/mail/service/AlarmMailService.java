@@ -1,15 +1,37 @@
 package com.yoc.wms.mail.service;
 
+import com.yoc.wms.mail.config.AlarmQueueConfig;
+import com.yoc.wms.mail.dao.CappedRows;
 import com.yoc.wms.mail.dao.MailDao;
+import com.yoc.wms.mail.dao.MailQueueStore;
+import com.yoc.wms.mail.dao.SqlProfile;
+import com.yoc.wms.mail.dao.SqlProfileRegistry;
 import com.yoc.wms.mail.domain.MailRequest;
+import com.yoc.wms.mail.domain.QueueMessage;
 import com.yoc.wms.mail.domain.Recipient;
 import com.yoc.wms.mail.util.MailUtils;
+import com.yoc.wms.mail.util.WatermarkUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 알람 메일 발송 서비스
@@ -21,7 +43,7 @@ import java.util.*;
  *  @since 1.0
  */
 @Service
-public class AlarmMailService {
+public class AlarmMailService implements InitializingBean, DisposableBean {
 
     @Autowired
     private MailDao mailDao;
@@ -32,164 +54,1442 @@ public class AlarmMailService {
     @Autowired
     private RecipientResolver recipientResolver;
 
-    private static final int MAX_RETRY_COUNT = 3;
+    @Autowired
+    private AlarmQueueConfig queueConfig;
+
+    @Autowired
+    private SqlProfileRegistry sqlProfileRegistry;
+
+    @Autowired
+    private AlarmQueueMetrics queueMetrics;
+
+    @Autowired
+    private AlarmRuleEngine ruleEngine;
+
+    @Autowired
+    private AlarmQueue alarmQueue;
+
+    /** 최대 시도 횟수 (AlarmQueueReaper 회수 시에도 적용) */
+    static final int MAX_RETRY_COUNT = 3;
+
+    /** 조회 Pool 포화로 제출이 거부된 메시지의 연기 시간 (v3.14.0) */
+    private static final long FETCH_REJECTED_DEFER_MS = 5000L;
+
+    /** 선점/상태 변경 저장소 (MAIL_QUEUE 또는 노드 로컬 저널, v3.24.0) */
+    private MailQueueStore queueStore;
+
+    /** Severity Lane (선점 우선순위 순서: CRITICAL → WARNING → INFO) */
+    private List<AlarmLane> lanes;
+
+    /** Lane별 Drain 실행 스레드 (Lane 수만큼) */
+    private AlarmWorkerPool laneExecutor;
+
+    /** 테이블/Excel/수신인 병렬 조회 전용 Pool (v3.14.0) */
+    private AlarmWorkerPool fetchPool;
+
+    /** 상세 쿼리(SQL_ID) 결과 캐시 (배치 단위, v3.9.0) */
+    private DetailQueryCache detailQueryCache;
+
+    /** SQL_ID별 실행 상태 / 격리 (v3.17.0) */
+    private SqlIdHealthTracker sqlIdHealth;
+
+    /** SQL_ID/EXCEL_SQL_ID 조합별 동일 쿼리 여부 (Statement는 실행 중 바뀌지 않으므로 1회만 판단, v3.10.0) */
+    private final Map<String, Boolean> sameQueryCache = new ConcurrentHashMap<>();
+
+    /** 종료 진행 중 (새 선점 중지, 시작 전 메시지는 PENDING으로 반환, v3.19.0) */
+    private volatile boolean shuttingDown = false;
+
+    /** Lane별 마지막으로 본 MAIL_QUEUE_SIGNAL.SIGNAL_SEQ (wakeSignaledLanes에서만 접근, v3.23.0) */
+    private final Map<String, Long> lastSignalSeq = new HashMap<>();
+
+    /** 선점 후 아직 processAlarm을 시작하지 않은 QUEUE_ID → CLAIM_TOKEN (종료 시간 초과 시 이것만 반환, v3.19.0) */
+    private final Map<Long, String> notStartedClaims = new ConcurrentHashMap<>();
+
+    /**
+     * Severity Lane(전용 Worker Pool + 선점 건수 조절기), 큐 저장소,
+     * 상세 쿼리 캐시, SQL_ID 격리 상태, 병렬 조회 Pool 생성
+     */
+    @Override
+    public void afterPropertiesSet() {
+        queueStore = alarmQueue.getStore();
+        detailQueryCache = new DetailQueryCache(queueConfig.getDetailCacheTtlMs());
+        queueMetrics.registerDetailQueryCache(detailQueryCache);
+        sqlIdHealth = new SqlIdHealthTracker(queueConfig.getQuarantineFailureThreshold(),
+                queueConfig.getQuarantineSlowMs(), queueConfig.getQuarantineCooldownSeconds() * 1000L);
+        queueMetrics.registerSqlIdHealth(sqlIdHealth);
+
+        lanes = new ArrayList<>();
+        int totalWorkerCount = 0;
+        for (String severity : AlarmLane.SEVERITIES) {
+            int workerCount = queueConfig.getLaneWorkerCount(severity);
+            totalWorkerCount += workerCount;
+            AlarmWorkerPool workerPool = new AlarmWorkerPool("alarm-" + severity.toLowerCase() + "-worker",
+                    workerCount, queueConfig.getWorkerQueueCapacity());
+            // 초기값이 Worker 수보다 작으면 Worker가 놀게 되므로 Worker 수 이상으로 시작
+            AdaptiveBatchSizer batchSizer = new AdaptiveBatchSizer(
+                    Math.max(queueConfig.getBatchSize(), workerCount),
+                    queueConfig.getBatchSizeMin(),
+                    queueConfig.getBatchSizeMax(),
+                    workerCount,
+                    queueConfig.getTargetCycleMs());
+            lanes.add(new AlarmLane(severity, workerPool, batchSizer));
+        }
+        laneExecutor = new AlarmWorkerPool("alarm-lane", lanes.size(), lanes.size());
+
+        // 거부 모드: Worker 스레드가 직접 조회하면 fetch.timeout-ms가 적용되지 않으므로 포화 시 메시지 연기
+        // 대기 큐 = 전체 Worker 수 × 3 (메시지당 최대 테이블/Excel/수신인 3건) → 정상 운영 중에는 거부 없음
+        fetchPool = new AlarmWorkerPool("alarm-fetch", queueConfig.getFetchPoolSize(), totalWorkerCount * 3, true);
+    }
+
+    /**
+     * 종료 시 Drain (v3.19.0)
+     *
+     * 배포 중 processQueue 도중 종료되면 발송 후 상태 기록 전인 메시지는 재발송되고,
+     * 선점만 된 메시지는 Lease 만료(또는 회수)까지 지연됩니다.
+     *
+     * 순서 (전체 shutdown.drain-timeout-ms 안에서):
+     * 1. shuttingDown 설정 → 새 선점 중지, 배치 내 시작 전 메시지는 발송 없이 PENDING 반환
+     * 2. Lane 실행 스레드 종료 대기 (진행 중인 배치의 발송 + 상태 업데이트 완료)
+     * 3. Lane Worker Pool, 병렬 조회 Pool 종료
+     * 4. 선점 반환 (다른 노드가 즉시 선점)
+     *    - 모두 끝났으면: 이 노드의 남은 PROCESSING 행 전체 (선점 직후 중단된 배치 등)
+     *    - 시간 초과면: 처리를 시작하지 않은 선점만 (진행 중이던 행은 발송됐을 수 있으므로 Lease 만료 후 회수)
+     */
+    @Override
+    public void destroy() {
+        shuttingDown = true;
+        long deadline = System.currentTimeMillis() + queueConfig.getShutdownDrainTimeoutMs();
+        System.out.println("=== Consumer 종료: 처리 중 메시지 완료 대기 (최대 "
+                + queueConfig.getShutdownDrainTimeoutMs() + "ms, node=" + queueConfig.getNodeId() + ") ===");
+
+        boolean drained = true;
+        if (laneExecutor != null) {
+            drained = laneExecutor.shutdown(deadline - System.currentTimeMillis());
+        }
+        if (lanes != null) {
+            for (AlarmLane lane : lanes) {
+                drained &= lane.shutdown(deadline - System.currentTimeMillis());
+            }
+        }
+        if (fetchPool != null) {
+            fetchPool.shutdown(deadline - System.currentTimeMillis());
+        }
+
+        int released = drained ? releaseNodeClaims() : releaseNotStartedClaims();
+        System.out.println("=== Consumer 종료 완료: " + (drained ? "처리 중 메시지 완료" : "대기 시간 초과")
+                + ", PENDING 반환 " + released + "건 ===");
+    }
+
+    /**
+     * Producer (AlarmJobScheduler, 기본 1분마다, v3.20.0)
+     *
+     * 알람 규칙 엔진 (v3.21.0):
+     * - MAIL_ALARM_RULE 규칙 평가 → 발생 규칙만 MAIL_QUEUE 일괄 등록 (AlarmRuleEngine)
+     * - 규칙별 평가 주기는 CHECK_INTERVAL_MINUTES, cron은 평가 대상 확인 주기
+     * - @Transactional 제거: 규칙 선점 UPDATE는 즉시 커밋되어야 다른 노드가 같은 규칙을 건너뜀
+     *   (큐 등록은 Batch 세션에서 별도 커밋)
+     */
+    public void collectAlarms() {
+        ruleEngine.collect();
+    }
+
+    /**
+     * Consumer 스케줄 Tick (AlarmJobScheduler, 기본 1초마다)
+     *
+     * Drain 모드 (v3.4.0):
+     * - 큐가 비어있으면 idle-interval 동안 폴링하지 않음 (기존 10초 폴링과 동일한 부하)
+     * - 최대 Drain 시간 초과로 중단된 경우 다음 Tick에서 바로 이어서 처리
+     *
+     * Severity Lane (v3.6.0):
+     * - Lane별로 독립 실행 (실행 중인 Lane은 건너뜀, 대기 없이 반환)
+     * - INFO Lane이 오래 걸려도 CRITICAL Lane은 다음 Tick에서 바로 선점
+     *
+     * 예약 작업 (v3.20.0):
+     * - Producer/정리 작업과 다른 전용 스레드에서 실행 → 느린 Producer가 발송 Tick을 막지 않음
+     *
+     * 등록 신호 (v3.23.0):
+     * - idle-interval 대기 중인 Lane이 있으면 MAIL_QUEUE_SIGNAL 조회, 다른 노드가 등록한 Lane은 바로 폴링
+     */
+    public void pollQueue() {
+        if (shuttingDown) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        wakeSignaledLanes(now);
+        for (final AlarmLane lane : lanes) {
+            if (!lane.isDue(now) || !lane.tryStart()) {
+                continue;
+            }
+            laneExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    runLane(lane);
+                }
+            });
+        }
+    }
+
+    /**
+     * 새 행 등록 알림 → 해당 Lane 즉시 폴링 (AlarmQueue.enqueue(), v3.23.0)
+     *
+     * Lane이 실행 중이면 종료 직후 한 번 더 실행됩니다 (runLane).
+     *
+     * @param severity 등록된 행의 SEVERITY (CRITICAL/WARNING 외에는 INFO Lane)
+     */
+    public void wakeUp(String severity) {
+        String laneSeverity = AlarmLane.laneOf(severity);
+        for (AlarmLane lane : lanes) {
+            if (lane.getSeverity().equals(laneSeverity)) {
+                lane.wakeUp();
+            }
+        }
+        pollQueue();
+    }
+
+    /**
+     * 다른 노드의 등록 신호 확인 (유휴 Lane이 있을 때만 조회)
+     *
+     * pollQueue()는 Consumer Tick과 wakeUp() 호출 스레드에서 동시에 실행될 수 있으므로 동기화합니다.
+     */
+    private synchronized void wakeSignaledLanes(long now) {
+        if (!queueConfig.isSignalEnabled()) {
+            return;
+        }
+        boolean anyIdle = false;
+        for (AlarmLane lane : lanes) {
+            if (!lane.isDue(now) && !lane.isRunning()) {
+                anyIdle = true;
+            }
+        }
+        if (!anyIdle) {
+            return;  // 모든 Lane이 곧 폴링하거나 실행 중
+        }
+
+        List<Map<String, Object>> signals;
+        try {
+            signals = mailDao.selectList("alarm.selectQueueSignals", null);
+        } catch (Exception e) {
+            return;  // 신호는 보조 수단, idle-interval 폴링은 그대로
+        }
+        for (String severity : findSignaledLanes(lastSignalSeq, signals)) {
+            for (AlarmLane lane : lanes) {
+                if (lane.getSeverity().equals(severity)) {
+                    lane.wakeUp();
+                }
+            }
+        }
+    }
+
+    /**
+     * Consumer: 전체 Lane 처리 (Drain, 완료까지 대기)
+     *
+     * idle-interval과 무관하게 모든 Lane을 즉시 Drain합니다 (이미 실행 중인 Lane 제외).
+     *
+     * @return 모든 Lane 큐를 비웠으면 true, 하나라도 최대 Drain 시간 초과로 중단했으면 false
+     * @since v3.6.0 (Lane별 병렬 Drain)
+     */
+    public boolean processQueue() {
+        if (shuttingDown) {
+            return true;
+        }
+        final AtomicBoolean allEmpty = new AtomicBoolean(true);
+        List<Runnable> tasks = new ArrayList<>();
+        for (final AlarmLane lane : lanes) {
+            if (!lane.tryStart()) {
+                continue;
+            }
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    if (!runLane(lane)) {
+                        allEmpty.set(false);
+                    }
+                }
+            });
+        }
+        laneExecutor.runAll(tasks);
+        return allEmpty.get();
+    }
+
+    /**
+     * Lane 1회 실행 후 다음 폴링 시각 기록 (tryStart() 성공 후 호출)
+     */
+    private boolean runLane(AlarmLane lane) {
+        boolean queueEmpty = true;
+        boolean woken;
+        try {
+            queueEmpty = drainLane(lane);
+        } finally {
+            woken = lane.finish(queueEmpty ? System.currentTimeMillis() + queueConfig.getIdleIntervalMs() : 0L);
+        }
+        if (woken) {
+            pollQueue();  // 실행 중 등록된 행은 다음 Tick을 기다리지 않음 (v3.23.0)
+        }
+        return queueEmpty;
+    }
+
+    /**
+     * Lane Drain
+     *
+     * Multi-Node (v3.1.0):
+     * - PENDING 행을 바로 읽지 않고 claimMessages()로 선점한 행만 처리
+     * - 여러 노드가 동시에 실행되어도 같은 QUEUE_ID를 두 번 발송하지 않음
+     *
+     * 병렬 처리 (v3.2.0):
+     * - 선점한 메시지를 Worker Pool에 분배, 전체 완료까지 대기
+     * - 느린 알람 하나(SQL 지연, SMTP 재시도)가 같은 배치의 다른 알람을 막지 않음
+     * - @Transactional 제거: 선점 UPDATE가 커밋되지 않은 채 Worker가 같은 행을 업데이트하면
+     *   행 잠금 대기로 교착됨 → 선점은 즉시 커밋, 상태 업데이트는 Worker별로 처리
+     *
+     * Drain 모드 (v3.4.0):
+     * - 기존: 10초마다 10건 고정 → 최대 초당 1건, 2,000건 적체 시 30분 이상 소요
+     * - 변경: 선점 결과가 선점 건수만큼 찼으면 대기 없이 다음 배치 선점
+     * - 종료 조건: 선점 결과가 선점 건수 미만(큐 소진) 또는 drain-max-duration-ms 초과
+     * - 이번 사이클에서 재시도 처리된 행은 다시 선점하지 않음 (CYCLE_START)
+     *
+     * 선점 건수 동적 조절 (v3.5.0):
+     * - 배치마다 적체량(selectPendingCount) + 최근 처리 시간/실패율로 AdaptiveBatchSizer가 결정
+     * - SMTP 지연/장애 시 선점 건수 감소, 적체 증가 시 batch-size-max까지 증가
+     * - 결정된 건수와 처리 결과는 AlarmQueueMetrics(JMX)로 노출
+     *
+     * Severity Lane (v3.6.0):
+     * - 선점/적체량 조회를 Lane의 SEVERITY로 한정, Lane 전용 Worker Pool에서 처리
+     *
+     * 종료 시 Drain (v3.19.0):
+     * - 종료 중이면 다음 배치를 선점하지 않음 (진행 중인 배치만 마무리)
+     *
+     * 상세 쿼리 캐시 (v3.9.0):
+     * - 배치마다 DetailQueryCache 범위 시작/종료 → 같은 SQL_ID는 배치당 1회만 실행
+     *
+     * 알람 통합 (v3.11.0):
+     * - 선점한 메시지를 coalesceMessages()로 묶어 묶음 단위로 Worker에 분배
+     *
+     * @return Lane 큐를 모두 비웠으면 true, 최대 Drain 시간 초과로 중단했으면 false
+     */
+    private boolean drainLane(AlarmLane lane) {
+        String severity = lane.getSeverity();
+        AdaptiveBatchSizer batchSizer = lane.getBatchSizer();
+        long startTime = System.currentTimeMillis();
+        // UPD_DATE는 초 단위 DATE → 초 미만 절삭해야 같은 초에 재시도된 행도 제외됨
+        Date cycleStart = new Date(startTime - (startTime % 1000));
+        int processedCount = 0;
+        List<QueueMessage> messages = null;
+
+        try {
+            while (true) {
+                if (shuttingDown) {
+                    return true;  // 종료 중 새 선점 중지 (v3.19.0)
+                }
+                long pendingCount = selectPendingCount(severity);
+                int limit = batchSizer.nextBatchSize(pendingCount);
+
+                messages = claimMessages(limit, cycleStart, severity);
+                trackNotStarted(messages);
+
+                if (messages == null || messages.isEmpty()) {
+                    queueMetrics.recordPendingCount(severity, pendingCount);
+                    return true;
+                }
+
+                System.out.println("=== 큐 처리 시작 [" + severity + "]: " + messages.size() + "건 (node="
+                        + queueConfig.getNodeId() + ", 적체 " + pendingCount + "건) ===");
+
+                long batchStart = System.currentTimeMillis();
+                final long batchId = detailQueryCache.beginBatch();
+                final AtomicInteger failedCount = new AtomicInteger();
+                List<Runnable> tasks = new ArrayList<>();
+                for (final CoalescedAlarm alarm : coalesceMessages(messages)) {
+                    tasks.add(new Runnable() {
+                        @Override
+                        public void run() {
+                            failedCount.addAndGet(processAlarm(alarm, batchId));
+                        }
+                    });
+                }
+                try {
+                    lane.getWorkerPool().runAll(tasks);
+                } finally {
+                    detailQueryCache.endBatch(batchId);
+                }
+                if (!shuttingDown) {
+                    untrackNotStarted(messages);  // 종료 중이면 destroy()가 반환할 때까지 유지
+                }
+                processedCount += messages.size();
+
+                long batchElapsed = System.currentTimeMillis() - batchStart;
+                batchSizer.recordBatch(messages.size(), batchElapsed, failedCount.get());
+                queueMetrics.recordBatch(severity, limit, pendingCount, messages.size(), failedCount.get(),
+                        batchElapsed, batchSizer.getAvgMessageMs(), batchSizer.getFailureRate());
+
+                if (messages.size() < limit) {
+                    return true;  // 마지막 배치 (큐 소진)
+                }
+                if (System.currentTimeMillis() - startTime >= queueConfig.getDrainMaxDurationMs()) {
+                    System.out.println("=== Drain 시간 초과 [" + severity + "], 다음 Tick에서 계속: "
+                            + processedCount + "건 처리 ===");
+                    return false;
+                }
+            }
+
+        } catch (Exception e) {
+            // 시스템 오류만 catch (DB 커넥션 끊김, OutOfMemory 등)
+            // 선점만 되고 처리되지 못한 행은 Lease 만료 후 재선점됨
+            if (messages != null && !shuttingDown) {
+                untrackNotStarted(messages);
+            }
+            System.err.println("큐 처리 시스템 오류 [" + severity + "]: " + e.getMessage());
+            e.printStackTrace();
+            return true;  // idle-interval 후 재시도
+        }
+    }
+
+    /**
+     * 큐 선점 (Lease 기반 Multi-Node Claim)
+     *
+     * PENDING(또는 Lease 만료된 PROCESSING) 행을 이 노드의 CLAIM_TOKEN으로 PROCESSING 변경 후 반환합니다.
+     * 상태 업데이트는 토큰 일치 행에만 반영되어 Lease 만료 후 늦게 도착한 업데이트를 차단합니다.
+     * (MAIL_QUEUE 구현: MyBatisMailQueueStore.claim(), v3.24.0)
+     *
+     * @param limit 최대 선점 건수
+     * @param cycleStart Drain 사이클 시작 시각 (이후 재시도 처리된 행 제외, v3.4.0)
+     * @param severity 선점 대상 Lane (INFO는 CRITICAL/WARNING 외 전부, v3.6.0)
+     * @return 선점된 큐 메시지 (없으면 빈 리스트)
+     * @since v3.1.0
+     */
+    private List<QueueMessage> claimMessages(int limit, Date cycleStart, String severity) {
+        return queueStore.claim(severity, limit, cycleStart, queueConfig.getNodeId(), queueConfig.getLeaseSeconds());
+    }
+
+    /**
+     * Lane 적체량 조회 (PENDING 건수)
+     *
+     * @since v3.5.0
+     */
+    private long selectPendingCount(String severity) {
+        return queueStore.countPending(severity);
+    }
+
+    /**
+     * 알람 통합 (같은 MAIL_SOURCE + 수신인 집합을 1건의 메일로)
+     *
+     * Why:
+     * - Procedure가 같은 MAIL_SOURCE를 몇 분 사이 여러 번 등록하면 같은 그룹에 거의 같은 메일이 여러 통 발송
+     * - 건마다 렌더링, MAIL_SEND_LOG INSERT, SMTP 세션 발생
+     *
+     * 규칙:
+     * - alarm.queue.coalesce.window-seconds 0 이하면 통합하지 않음 (메시지별 1건)
+     * - 수신인은 묶음 판단을 위해 여기서 조회 (RECIPIENT_USER_IDS/GROUPS 조합별 1회), 조회 실패 메시지는 통합하지 않음
+     * - 묶음 판단은 groupForCoalescing() (Pure Function)
+     *
+     * @param messages 선점한 메시지 (REG_DATE 오름차순)
+     * @return 발송 단위 묶음 목록
+     * @since v3.11.0
+     */
+    private List<CoalescedAlarm> coalesceMessages(List<QueueMessage> messages) {
+        List<CoalescedAlarm> alarms = new ArrayList<>();
+        long windowSeconds = queueConfig.getCoalesceWindowSeconds();
+        if (windowSeconds <= 0 || messages.size() < 2) {
+            for (QueueMessage msg : messages) {
+                alarms.add(new CoalescedAlarm(Collections.singletonList(msg), null));
+            }
+            return alarms;
+        }
+
+        Map<String, List<Recipient>> resolved = new HashMap<>();
+        List<String> recipientKeys = new ArrayList<>();
+        for (QueueMessage msg : messages) {
+            String userIds = msg.getRecipientUserIds();
+            String groups = msg.getRecipientGroups();
+            String conditionKey = userIds + "|" + groups;
+            if (!resolved.containsKey(conditionKey)) {
+                try {
+                    resolved.put(conditionKey, recipientResolver.resolveByConditions(userIds, groups, true));
+                } catch (Exception e) {
+                    resolved.put(conditionKey, null);  // 발송 단계에서 다시 조회 → 실패 처리
+                }
+            }
+            List<Recipient> recipients = resolved.get(conditionKey);
+            recipientKeys.add(recipients != null ? buildRecipientKey(recipients) : null);
+        }
+
+        int mergedCount = 0;
+        for (List<QueueMessage> group : groupForCoalescing(messages, recipientKeys, windowSeconds)) {
+            QueueMessage first = group.get(0);
+            String conditionKey = first.getRecipientUserIds() + "|" + first.getRecipientGroups();
+            alarms.add(new CoalescedAlarm(group, resolved.get(conditionKey)));
+            if (group.size() > 1) {
+                mergedCount += group.size() - 1;
+                System.out.println("=== 알람 통합: " + first.getMailSource() + " " + group.size() + "건 → 1건 ===");
+            }
+        }
+        if (mergedCount > 0) {
+            queueMetrics.recordCoalesced(mergedCount);
+        }
+        return alarms;
+    }
+
+    /**
+     * 알람 처리 (통합 묶음 단위)
+     *
+     * 대표 메시지(가장 최근 등록)로 메일 1건을 발송하고, 결과를 묶음의 모든 QUEUE_ID에 기록합니다.
+     * 통합하지 않은 메시지는 1건짜리 묶음으로 기존과 동일하게 처리됩니다.
+     *
+     * QUEUE에서 읽은 데이터 구조 (v3.25.0: QueueMessage 필드, SECTION_CONTENT/RECIPIENT_USER_IDS는 필요할 때 변환):
+     *  - QUEUE_ID: QUEUE_ID
+     *  - MAIL_SOURCE: MAIL_SOURCE (예: OVERDUE_ORDERS)
+     *  - ALARM_NAME: ALARM_NAME (예: 지연 주문 알림)
+     *  - SEVERITY: SEVERITY (INFO/WARNING/CRITICAL)
+     *  - SQL_ID: SQL_ID (예: alarm.selectOverdueOrdersDetail)
+     *  - SECTION_TITLE: SECTION_TITLE (Procedure가 작성한 소제목)
+     *  - SECTION_CONTENT: SECTION_CONTENT (Procedure가 작성한 본문)
+     *  - RECIPIENT_USER_IDS: RECIPIENT_USER_IDS (콤마 구분 사용자 ID, NULL 가능)
+     *  - RECIPIENT_GROUPS: RECIPIENT_GROUPS (콤마 구분 그룹, NULL 가능)
+     *  - COLUMN_ORDER: COLUMN_ORDER (콤마 구분 컬럼 순서, NULL 가능)
+     *  - EXCEL_SQL_ID: EXCEL_SQL_ID (Excel 데이터 조회 SQL ID, NULL 가능, v3.0.0)
+     *  - EXCEL_COLUMN_ORDER: EXCEL_COLUMN_ORDER (Excel 컬럼 순서, NULL 가능, v3.0.0)
+     *  - EXCEL_FILE_NAME: EXCEL_FILE_NAME (Excel 파일명, NULL 가능, v3.0.0)
+     *  - CLAIM_TOKEN: CLAIM_TOKEN (선점 토큰, 상태 업데이트 조건, v3.1.0)
+     *
+     * 상세 쿼리 캐시 (v3.9.0):
+     * - SQL_ID / EXCEL_SQL_ID 조회는 DetailQueryCache 경유 → 같은 배치의 동일 SQL_ID는 1회만 실행
+     *
+     * 테이블/Excel 결과 공유 (v3.10.0):
+     * - EXCEL_SQL_ID가 SQL_ID와 같은 쿼리(같은 ID 또는 같은 SQL)면 테이블 결과를 그대로 Excel에 사용
+     * - 컬럼 순서는 COLUMN_ORDER / EXCEL_COLUMN_ORDER 각각 적용
+     *
+     * 알람 통합 (v3.11.0):
+     * - 통합 묶음이면 본문에 통합 건수/최초 발생 일시 안내 추가 (buildCoalescedContent)
+     * - 성공: 묶음 전체 SUCCESS (한 트랜잭션), 실패: 메시지별 RETRY_COUNT 기준 재시도/Dead Letter
+     *
+     * 결과 변경 없는 알람 생략 (v3.12.0):
+     * - alarm.queue.skip-unchanged.mail-sources 대상이면 상세 결과 + 수신인 지문을 MAIL_ALARM_STATE와 비교
+     * - 같으면 SMTP/MAIL_SEND_LOG 없이 묶음 전체 SKIPPED, 발송 성공 시 지문 갱신
+     *
+     * 증분 상세 조회 워터마크 (v3.13.0):
+     * - alarm.queue.watermark.columns 대상이면 SQL_ID / EXCEL_SQL_ID에 MAIL_SOURCE, WATERMARK 파라미터 전달
+     *   (WATERMARK: 마지막으로 본 워터마크 컬럼 최대값, 첫 실행은 NULL → 전체 조회)
+     * - 발송 성공/생략 시 결과의 최대값으로 워터마크 전진, 실패 시 유지 (재시도에서 같은 행 다시 조회)
+     *
+     * 병렬 조회 (v3.14.0):
+     * - 테이블(SQL_ID) / Excel(EXCEL_SQL_ID) / 수신인 조회를 fetchPool에서 동시에 실행, 각각 fetch.timeout-ms 대기
+     * - 테이블/수신인 실패·시간 초과: 나머지 조회 취소 후 메시지 실패 처리 (재시도/Dead Letter)
+     * - Excel 실패·시간 초과: 기존과 같이 첨부만 건너뜀
+     *
+     * @param alarm 발송 단위 묶음 (v3.11.0)
+     * @param batchId 상세 쿼리 캐시 배치 ID (v3.9.0)
+     * @return 실패(재시도/최종 실패) 메시지 수 (선점 건수 조절용, v3.5.0)
+     */
+    private int processAlarm(CoalescedAlarm alarm, long batchId) {
+        QueueMessage msg = alarm.getRepresentative();
+        String mailSource = msg.getMailSource();
+        String sqlId = msg.getSqlId();
+
+        // Excel 관련 정보 읽기 (v3.0.0)
+        String excelSqlId = msg.getExcelSqlId();
+
+        // 발송 생략 / 워터마크 사용 여부 (v3.12.0, v3.13.0)
+        boolean skipUnchanged = queueConfig.isSkipUnchanged(mailSource);
+        String watermarkColumn = queueConfig.getWatermarkColumn(mailSource);
+
+        untrackNotStarted(alarm.getMessages());
+        try {
+            // 종료 중이면 발송을 시작하지 않고 선점 반환 (v3.19.0, 다른 노드가 즉시 선점)
+            if (shuttingDown) {
+                releaseClaims(alarm);
+                return 0;
+            }
+
+            // 발송 시작 전 Lease 연장 (v3.18.0, 배치 대기 중 Lease가 소진되어 처리 중 회수되지 않도록)
+            if (renewClaims(alarm) == 0) {
+                System.err.println("⚠️ 선점 만료 (회수/재선점됨), 발송 안 함: " + mailSource);
+                return 0;
+            }
+
+            // 격리 중인 SQL_ID면 쿼리 없이 격리 해제 시점까지 연기 (v3.17.0, 재시도 횟수 미소모)
+            long quarantineMs = sqlIdHealth.getQuarantineRemainingMs(sqlId, System.currentTimeMillis());
+            if (quarantineMs > 0) {
+                queueMetrics.recordQuarantineDeferred(markDeferred(alarm, quarantineMs, "SQL_ID 격리 중: " + sqlId));
+                return 0;
+            }
+
+            // 0. 알람 상태 조회 (발송 결과 지문, 워터마크)
+            Map<String, Object> alarmState = (skipUnchanged || watermarkColumn != null)
+                    ? selectAlarmState(mailSource) : null;
+            Object lastWatermark = null;
+            Map<String, Object> detailParams = null;
+            if (watermarkColumn != null) {
+                lastWatermark = decodeWatermark(mailSource, alarmState);
+                detailParams = buildDetailParams(mailSource, lastWatermark);
+            }
+
+            // 1~3. 테이블 / Excel / 수신인 병렬 조회 (v3.14.0)
+            //      EXCEL_SQL_ID가 SQL_ID와 같은 쿼리면 재조회 없이 테이블 결과 공유 (v3.10.0)
+            boolean hasExcel = excelSqlId != null && !excelSqlId.trim().isEmpty();
+            if (hasExcel && sqlIdHealth.getQuarantineRemainingMs(excelSqlId.trim(), System.currentTimeMillis()) > 0) {
+                // Excel 조회 실패와 같이 첨부만 생략 (v3.17.0)
+                System.err.println("⚠️ EXCEL_SQL_ID 격리 중 (첨부 생략): " + excelSqlId);
+                hasExcel = false;
+            }
+            boolean excelShared = hasExcel && isSameDetailQuery(sqlId, excelSqlId.trim(), detailParams);
+
+            Future<List<Map<String, Object>>> tableFuture = null;
+            Future<List<Map<String, Object>>> excelFuture = null;
+            Future<List<Recipient>> recipientsFuture = null;
+            try {
+                tableFuture = submitDetail(sqlId, detailParams, batchId);
+                if (hasExcel && !excelShared) {
+                    excelFuture = submitDetail(excelSqlId, detailParams, batchId);
+                }
+                if (alarm.getRecipients() == null) {
+                    recipientsFuture = submitRecipients(msg.getRecipientUserIds(), msg.getRecipientGroups());
+                }
+            } catch (RejectedExecutionException e) {
+                // 조회 Pool 포화/종료: Worker 스레드에서 timeout 없이 조회하지 않고 연기 (재시도 횟수 미소모)
+                cancelFetch(tableFuture);
+                cancelFetch(excelFuture);
+                markDeferred(alarm, FETCH_REJECTED_DEFER_MS, "조회 Pool 포화");
+                return 0;
+            }
+
+            // 1. SQL_ID로 HTML 테이블 데이터 조회
+            List<Map<String, Object>> tableData;
+            try {
+                tableData = awaitFetch(tableFuture, "SQL_ID 조회(" + sqlId + ")");
+            } catch (Exception e) {
+                cancelFetch(excelFuture);
+                cancelFetch(recipientsFuture);
+                throw e;
+            }
+
+            // 2. Excel 데이터 조회 (SKIP on error, v3.0.0)
+            List<Map<String, Object>> excelData = null;
+            if (hasExcel) {
+                try {
+                    excelData = excelShared
+                            ? tableData
+                            : awaitFetch(excelFuture, "Excel 조회(" + excelSqlId + ")");
+                    if (excelData == null || excelData.isEmpty()) {
+                        System.out.println("⚠️ Excel 데이터 없음, 첨부 건너뜀: " + excelSqlId);
+                        excelData = null; // Skip
+                    }
+                } catch (Exception e) {
+                    System.err.println("⚠️ Excel 조회 실패, 첨부 건너뜀: " + e.getMessage());
+                    excelData = null; // Skip
+                }
+            }
+
+            // 3. 수신인 목록 동적 조회 (RecipientResolver 사용, 통합 단계에서 조회했으면 재사용)
+            List<Recipient> recipients = (recipientsFuture != null)
+                    ? awaitFetch(recipientsFuture, "수신인 조회")
+                    : alarm.getRecipients();
+
+            // 상세 결과가 마지막 발송과 같으면 발송 생략 (v3.12.0)
+            String fingerprint = null;
+            if (skipUnchanged) {
+                fingerprint = buildResultFingerprint(tableData, excelData, buildRecipientKey(recipients));
+                if (alarmState != null && fingerprint.equals(alarmState.get("LAST_FINGERPRINT"))) {
+                    markSkipped(alarm);
+                    if (watermarkColumn != null) {
+                        advanceWatermark(mailSource, lastWatermark, findNextWatermark(tableData, watermarkColumn));
+                    }
+                    System.out.println("⏭️ 알람 발송 생략 (결과 변경 없음): " + mailSource + " (" + alarm.size() + "건)");
+                    return 0;
+                }
+            }
+
+            // 통합 묶음이면 본문에 통합 안내 추가 (v3.11.0)
+            QueueMessage mailMessage = msg;
+            if (alarm.isCoalesced()) {
+                mailMessage = msg.withSectionContent(
+                        buildCoalescedContent(msg.getSectionContent(), alarm.size(), alarm.getFirst().getRegDate()));
+            }
+
+            // 4. MailRequest 생성 (Pure Function 사용, Excel 포함)
+            MailRequest request = buildAlarmMailRequest(
+                    mailMessage,
+                    tableData,
+                    recipients,
+                    excelData,
+                    queueConfig.getDetailTableMaxRows()
+            );
+
+            // 5. MailService 호출 (boolean 반환)
+            boolean success = mailService.sendMail(request);
+
+            // 6. 성공/실패 처리 (묶음의 모든 QUEUE_ID)
+            if (success) {
+                markSuccess(alarm);
+                if (fingerprint != null) {
+                    saveLastFingerprint(mailSource, fingerprint);
+                }
+                if (watermarkColumn != null) {
+                    advanceWatermark(mailSource, lastWatermark, findNextWatermark(tableData, watermarkColumn));
+                }
+                System.out.println("✅ 알람 발송 성공: " + mailSource + " (수신인 " + recipients.size() + "명"
+                        + (alarm.isCoalesced() ? ", " + alarm.size() + "건 통합" : "") + ")");
+                return 0;
+            } else {
+                return handleFailure(alarm, new Exception("메일 발송 실패"));
+            }
+
+        } catch (Exception e) {
+            // 예상치 못한 시스템 오류 (수신인 조회 실패, SQL 오류 등)
+            return handleFailure(alarm, e);
+        }
+    }
+
+    /**
+     * 묶음 발송 성공 처리
+     *
+     * 묶음의 모든 QUEUE_ID를 한 번에 업데이트합니다.
+     * (같은 배치에서 선점했으므로 CLAIM_TOKEN이 모두 같음)
+     *
+     * @since v3.11.0
+     */
+    private void markSuccess(CoalescedAlarm alarm) {
+        List<Long> queueIds = getQueueIds(alarm);
+        warnIfNotClaimed(queueStore.ack(queueIds, alarm.getRepresentative().getClaimToken()), queueIds);
+    }
+
+    /**
+     * 묶음 발송 생략 처리 (결과 변경 없음)
+     *
+     * 묶음의 모든 QUEUE_ID를 SKIPPED로 변경하고 MAIL_ALARM_STATE 생략 건수를 누적합니다.
+     * SMTP 발송과 MAIL_SEND_LOG 기록은 하지 않습니다.
+     *
+     * @since v3.12.0
+     */
+    private void markSkipped(CoalescedAlarm alarm) {
+        QueueMessage representative = alarm.getRepresentative();
+        List<Long> queueIds = getQueueIds(alarm);
+        int updated = warnIfNotClaimed(queueStore.skip(queueIds, representative.getClaimToken()), queueIds);
+        if (updated > 0) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("MAIL_SOURCE", representative.getMailSource());
+            params.put("SKIPPED_COUNT", updated);
+            mailDao.update("alarm.updateAlarmStateSkipped", params);
+            queueMetrics.recordSkipped(updated);
+        }
+    }
+
+    /**
+     * 묶음 연기 처리 (SQL_ID 격리, 조회 Pool 포화)
+     *
+     * 묶음의 모든 QUEUE_ID를 선점 해제하고 NEXT_RETRY_AT을 delayMs 뒤로 미룹니다.
+     * 쿼리를 실행하지 않았으므로 RETRY_COUNT는 증가하지 않습니다.
+     *
+     * @param delayMs 연기 시간 (초 단위로 올림)
+     * @return 연기된 건수
+     * @since v3.17.0
+     */
+    private int markDeferred(CoalescedAlarm alarm, long delayMs, String reason) {
+        List<Long> queueIds = getQueueIds(alarm);
+        long deferSeconds = (delayMs + 999) / 1000;
+        int updated = warnIfNotClaimed(queueStore.defer(queueIds,
+                alarm.getRepresentative().getClaimToken(), deferSeconds, reason), queueIds);
+        System.out.println("⏸️ 알람 연기: " + alarm.getRepresentative().getMailSource() + " (" + reason
+                + ", " + deferSeconds + "초, " + updated + "건)");
+        return updated;
+    }
+
+    /**
+     * 묶음 선점 반환 (종료 중 발송 시작 전)
+     *
+     * 묶음의 모든 QUEUE_ID를 선점 해제하고 PENDING으로 되돌립니다.
+     * 발송을 시도하지 않았으므로 RETRY_COUNT, NEXT_RETRY_AT, ERROR_MESSAGE는 유지합니다.
+     *
+     * @since v3.19.0
+     */
+    private void releaseClaims(CoalescedAlarm alarm) {
+        List<Long> queueIds = getQueueIds(alarm);
+        int updated = warnIfNotClaimed(queueStore.release(queueIds,
+                alarm.getRepresentative().getClaimToken()), queueIds);
+        System.out.println("↩️ 종료 중 선점 반환: " + alarm.getRepresentative().getMailSource()
+                + " (" + updated + "건)");
+    }
+
+    /**
+     * 묶음 선점 연장 (발송 시작 전)
+     *
+     * Lease는 선점 시점부터 계산되므로 배치 뒤쪽 메시지는 대기한 만큼 처리 시한이 줄어듭니다.
+     * 처리 시작 시점부터 다시 lease-seconds를 주어 살아있는 노드의 처리가 Reaper에 회수되지 않게 합니다.
+     * (SMTP 등에서 멈춘 처리는 연장 후 lease-seconds가 지나면 그대로 회수)
+     *
+     * @return 연장 건수 (0이면 이미 회수/재선점됨)
+     * @since v3.18.0
+     */
+    private int renewClaims(CoalescedAlarm alarm) {
+        List<Long> queueIds = getQueueIds(alarm);
+        return warnIfNotClaimed(queueStore.renewLease(queueIds,
+                alarm.getRepresentative().getClaimToken(), queueConfig.getLeaseSeconds()), queueIds);
+    }
+
+    private void trackNotStarted(List<QueueMessage> messages) {
+        if (messages == null) {
+            return;
+        }
+        for (QueueMessage msg : messages) {
+            if (msg.getQueueId() != null && msg.getClaimToken() != null) {
+                notStartedClaims.put(msg.getQueueId(), msg.getClaimToken());
+            }
+        }
+    }
+
+    private void untrackNotStarted(List<QueueMessage> messages) {
+        for (QueueMessage msg : messages) {
+            if (msg.getQueueId() != null) {
+                notStartedClaims.remove(msg.getQueueId());
+            }
+        }
+    }
+
+    /**
+     * 처리를 시작하지 않은 선점만 반환 (종료 Drain 시간 초과, v3.19.0)
+     *
+     * 강제 종료로 Worker 대기 큐에서 버려진 메시지를 CLAIM_TOKEN별로 PENDING 반환합니다.
+     * 진행 중이던 메시지는 발송 후 상태 기록 전일 수 있으므로 반환하지 않고 Lease 만료 후 회수에 맡깁니다
+     * (즉시 PENDING으로 돌리면 다른 노드가 바로 선점해 중복 발송).
+     *
+     * @return 반환 건수
+     */
+    private int releaseNotStartedClaims() {
+        Map<String, List<Long>> byToken = new HashMap<>();
+        for (Map.Entry<Long, String> entry : notStartedClaims.entrySet()) {
+            List<Long> queueIds = byToken.get(entry.getValue());
+            if (queueIds == null) {
+                queueIds = new ArrayList<>();
+                byToken.put(entry.getValue(), queueIds);
+            }
+            queueIds.add(entry.getKey());
+        }
+        int released = 0;
+        for (Map.Entry<String, List<Long>> entry : byToken.entrySet()) {
+            try {
+                released += queueStore.release(entry.getValue(), entry.getKey());
+            } catch (Exception e) {
+                System.err.println("종료 시 선점 반환 실패 (Lease 만료 후 회수): " + e.getMessage());
+            }
+        }
+        notStartedClaims.clear();
+        return released;
+    }
+
+    /**
+     * 이 노드의 남은 선점 전체 반환 (종료 마지막 단계, 모든 처리가 끝난 경우만)
+     *
+     * 선점 직후 중단된 배치 등 처리되지 못한 이 노드의 PROCESSING 행을 PENDING으로 되돌립니다.
+     * Drain 시간 초과 시에는 진행 중이던 메시지까지 되돌려 중복 발송되므로 호출하지 않습니다.
+     *
+     * @return 반환 건수 (실패 시 0, Lease 만료 후 회수됨)
+     * @since v3.19.0
+     */
+    private int releaseNodeClaims() {
+        try {
+            return queueStore.releaseNode(queueConfig.getNodeId());
+        } catch (Exception e) {
+            System.err.println("종료 시 선점 반환 실패 (Lease 만료 후 회수): " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * MAIL_SOURCE 알람 상태 조회 (발송 결과 지문, 워터마크)
+     *
+     * @return MAIL_ALARM_STATE 행 (없으면 NULL)
+     * @since v3.12.0
+     */
+    private Map<String, Object> selectAlarmState(String mailSource) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("MAIL_SOURCE", mailSource);
+        return mailDao.selectOne("alarm.selectAlarmState", params);
+    }
+
+    /**
+     * 저장된 워터마크 복원
+     *
+     * 형식이 잘못된 값(수동 수정 등)은 로그만 남기고 NULL → 전체 조회 후 새 워터마크로 덮어씀
+     *
+     * @since v3.13.0
+     */
+    private Object decodeWatermark(String mailSource, Map<String, Object> alarmState) {
+        if (alarmState == null) {
+            return null;
+        }
+        try {
+            return WatermarkUtils.decode((String) alarmState.get("WATERMARK_TYPE"),
+                    (String) alarmState.get("WATERMARK_VALUE"));
+        } catch (IllegalArgumentException e) {
+            System.err.println("⚠️ 워터마크 복원 실패, 전체 조회: " + mailSource + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 이번 결과 기준 다음 워터마크
+     *
+     * 상한으로 잘린 결과(CappedRows)는 보관하지 않은 행의 값을 알 수 없으므로 NULL (워터마크 유지, v3.15.0)
+     *
+     * @since v3.15.0
+     */
+    private Object findNextWatermark(List<Map<String, Object>> tableData, String watermarkColumn) {
+        if (tableData instanceof CappedRows && ((CappedRows) tableData).isTruncated()) {
+            System.err.println("⚠️ 상세 결과가 상한으로 잘려 워터마크를 유지합니다: " + watermarkColumn);
+            return null;
+        }
+        return WatermarkUtils.findMax(tableData, watermarkColumn);
+    }
+
+    /**
+     * 워터마크 전진 (UPDATE, 없으면 INSERT)
+     *
+     * 결과 최대값이 없거나 기존 워터마크 이하이면 유지합니다.
+     * 메일은 이미 처리되었으므로 저장 실패 시 로그만 남깁니다 (다음 알람에서 같은 행 다시 조회).
+     *
+     * @param lastWatermark 이번 조회에 사용한 워터마크 (NULL 가능)
+     * @param newWatermark 이번 결과의 워터마크 컬럼 최대값 (NULL 가능)
+     * @since v3.13.0
+     */
+    private void advanceWatermark(String mailSource, Object lastWatermark, Object newWatermark) {
+        if (newWatermark == null) {
+            return;
+        }
+        if (lastWatermark != null
+                && WatermarkUtils.typeOf(lastWatermark).equals(WatermarkUtils.typeOf(newWatermark))
+                && WatermarkUtils.compare(newWatermark, lastWatermark) <= 0) {
+            return;
+        }
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("MAIL_SOURCE", mailSource);
+        params.put("WATERMARK_TYPE", WatermarkUtils.typeOf(newWatermark));
+        params.put("WATERMARK_VALUE", WatermarkUtils.encode(newWatermark));
+        try {
+            if (mailDao.update("alarm.updateAlarmWatermark", params) == 0) {
+                mailDao.insert("alarm.insertAlarmWatermark", params);
+            }
+            System.out.println("=== 워터마크 갱신: " + mailSource + " → " + params.get("WATERMARK_VALUE") + " ===");
+        } catch (Exception e) {
+            System.err.println("⚠️ 워터마크 저장 실패: " + mailSource + " - " + e.getMessage());
+        }
+    }
+
+    /**
+     * MAIL_SOURCE 마지막 발송 결과 지문 저장 (UPDATE, 없으면 INSERT)
+     *
+     * 메일은 이미 발송되었으므로 저장 실패 시 로그만 남깁니다 (다음 발송에서 다시 저장).
+     *
+     * @since v3.12.0
+     */
+    private void saveLastFingerprint(String mailSource, String fingerprint) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("MAIL_SOURCE", mailSource);
+        params.put("FINGERPRINT", fingerprint);
+        try {
+            if (mailDao.update("alarm.updateAlarmStateSent", params) == 0) {
+                mailDao.insert("alarm.insertAlarmState", params);
+            }
+        } catch (Exception e) {
+            // 다른 노드가 같은 MAIL_SOURCE를 동시에 INSERT한 경우 등
+            System.err.println("⚠️ 알람 상태 저장 실패: " + mailSource + " - " + e.getMessage());
+        }
+    }
+
+    private List<Long> getQueueIds(CoalescedAlarm alarm) {
+        List<Long> queueIds = new ArrayList<>();
+        for (QueueMessage msg : alarm.getMessages()) {
+            queueIds.add(msg.getQueueId());
+        }
+        return queueIds;
+    }
 
     /**
-     * Producer
+     * 묶음 발송 실패 처리 (메시지별 RETRY_COUNT 기준)
+     *
+     * @return 실패 처리한 메시지 수
+     * @since v3.11.0
      */
-    @Scheduled(cron = "0 */30 * * * *")
-    @Transactional
-    public void collectAlarms() {
-        System.out.println("=== [H2 환경] Producer 비활성화 (data.sql 초기 데이터 사용) ===");
-        // 아무 작업도 수행하지 않음
+    private int handleFailure(CoalescedAlarm alarm, Exception e) {
+        for (QueueMessage msg : alarm.getMessages()) {
+            handleFailure(msg.getQueueId(), msg.getClaimToken(), msg.getMailSource(), msg.getRetryCount(), e);
+        }
+        return alarm.size();
     }
 
     /**
-     * Consumer: 큐 처리 (10초마다)
+     * 상세 쿼리 병렬 조회 제출 (fetchPool)
+     *
+     * @since v3.14.0
      */
-    @Scheduled(fixedRate = 10000)
-    @Transactional
-    public void processQueue() {
-        try {
-            // 배치 크기 제한 (긴 트랜잭션 방지)
-            Map<String, Object> params = new HashMap<>();
-            params.put("LIMIT", 10);
-            List<Map<String, Object>> messages = mailDao.selectList("alarm.selectPendingQueue", params);
-
-            if (messages == null || messages.isEmpty()) {
-                return;
+    private Future<List<Map<String, Object>>> submitDetail(final String sqlId, final Map<String, Object> params,
+                                                           final long batchId) {
+        return fetchPool.submit(new Callable<List<Map<String, Object>>>() {
+            @Override
+            public List<Map<String, Object>> call() throws Exception {
+                return selectDetail(sqlId, params, batchId);
             }
+        });
+    }
 
-            System.out.println("=== 큐 처리 시작: " + messages.size() + "건 ===");
-
-            for (Map<String, Object> msg : messages) {
-                processMessage(msg);
+    /**
+     * 수신인 병렬 조회 제출 (fetchPool)
+     *
+     * @since v3.14.0
+     */
+    private Future<List<Recipient>> submitRecipients(final String recipientUserIds, final String recipientGroups) {
+        return fetchPool.submit(new Callable<List<Recipient>>() {
+            @Override
+            public List<Recipient> call() {
+                return recipientResolver.resolveByConditions(recipientUserIds, recipientGroups, true);
             }
+        });
+    }
 
-        } catch (Exception e) {
-            // 시스템 오류만 catch (DB 커넥션 끊김, OutOfMemory 등)
-            System.err.println("큐 처리 시스템 오류: " + e.getMessage());
-            e.printStackTrace();
-            // 트랜잭션 롤백됨 (정상 동작)
+    /**
+     * 병렬 조회 결과 대기 (alarm.queue.fetch.timeout-ms)
+     *
+     * - 조회 중 예외: 원래 예외 그대로 전달 (에러 메시지/실패 이력 유지)
+     * - 시간 초과: 대기만 중단하고 TimeoutException (cancelFetch와 같이 실행 중인 조회는 interrupt하지 않음)
+     *
+     * @param label 로그/에러 메시지용 조회 이름
+     * @since v3.14.0
+     */
+    private <T> T awaitFetch(Future<T> future, String label) throws Exception {
+        long timeoutMs = queueConfig.getFetchTimeoutMs();
+        try {
+            return (timeoutMs > 0) ? future.get(timeoutMs, TimeUnit.MILLISECONDS) : future.get();
+        } catch (TimeoutException e) {
+            cancelFetch(future);
+            throw new TimeoutException(label + " 시간 초과 (" + timeoutMs + "ms)");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
         }
     }
 
     /**
-     * 개별 메시지 처리
+     * 조회 취소 (아직 시작 전이면 실행하지 않음, 실행 중이면 interrupt 없이 끝까지 실행)
      *
-     * QUEUE에서 읽은 데이터 구조:
-     *  - QUEUE_ID: QUEUE_ID
-     *  - MAIL_SOURCE: MAIL_SOURCE (예: OVERDUE_ORDERS)
-     *  - ALARM_NAME: ALARM_NAME (예: 지연 주문 알림)
-     *  - SEVERITY: SEVERITY (INFO/WARNING/CRITICAL)
-     *  - SQL_ID: SQL_ID (예: alarm.selectOverdueOrdersDetail)
-     *  - SECTION_TITLE: SECTION_TITLE (Procedure가 작성한 소제목)
-     *  - SECTION_CONTENT: SECTION_CONTENT (Procedure가 작성한 본문)
-     *  - RECIPIENT_USER_IDS: RECIPIENT_USER_IDS (콤마 구분 사용자 ID, NULL 가능)
-     *  - RECIPIENT_GROUPS: RECIPIENT_GROUPS (콤마 구분 그룹, NULL 가능)
-     *  - COLUMN_ORDER: COLUMN_ORDER (콤마 구분 컬럼 순서, NULL 가능)
-     *  - EXCEL_SQL_ID: EXCEL_SQL_ID (Excel 데이터 조회 SQL ID, NULL 가능, v3.0.0)
-     *  - EXCEL_COLUMN_ORDER: EXCEL_COLUMN_ORDER (Excel 컬럼 순서, NULL 가능, v3.0.0)
-     *  - EXCEL_FILE_NAME: EXCEL_FILE_NAME (Excel 파일명, NULL 가능, v3.0.0)
+     * 상세 조회는 DetailQueryCache의 같은 작업을 다른 메시지도 기다리므로,
+     * interrupt로 실행 중인 쿼리를 중단하면 이 메시지만이 아니라 대기 중인 모든 메시지가 실패합니다.
+     * 실행 중인 조회는 SQL_ID별 쿼리 타임아웃(v3.16.0)으로 끝나고 결과는 캐시에 남습니다.
      */
-    private void processMessage(Map<String, Object> msg) {
-        Long queueId = getLong(msg.get("QUEUE_ID"));
-        String mailSource = (String) msg.get("MAIL_SOURCE");
-        String severity = (String) msg.get("SEVERITY");
-        String sqlId = (String) msg.get("SQL_ID");
-        String sectionTitle = (String) msg.get("SECTION_TITLE");
-        String sectionContent = MailUtils.convertToString(msg.get("SECTION_CONTENT"));
-        String columnOrder = (String) msg.get("COLUMN_ORDER");
-        Integer retryCount = getInteger(msg.get("RETRY_COUNT"));
-
-        // Excel 관련 정보 읽기 (v3.0.0)
-        String excelSqlId = (String) msg.get("EXCEL_SQL_ID");
-        String excelColumnOrder = (String) msg.get("EXCEL_COLUMN_ORDER");
-        String excelFileName = (String) msg.get("EXCEL_FILE_NAME");
-
-        // 수신인 정보 읽기
-        String recipientUserIds = MailUtils.convertToString(msg.get("RECIPIENT_USER_IDS"));
-        String recipientGroups = (String) msg.get("RECIPIENT_GROUPS");
-
-        try {
-            // 1. SQL_ID로 HTML 테이블 데이터 조회
-            List<Map<String, Object>> tableData = mailDao.selectList(sqlId, null);
+    private void cancelFetch(Future<?> future) {
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
 
-            // 2. Excel 데이터 조회 (SKIP on error, v3.0.0)
-            List<Map<String, Object>> excelData = null;
-            if (excelSqlId != null && !excelSqlId.trim().isEmpty()) {
+    /**
+     * 상세 쿼리 실행 (DetailQueryCache 경유)
+     *
+     * @param params 쿼리 파라미터 (워터마크 미사용 시 NULL, v3.13.0)
+     * @since v3.9.0
+     * @since v3.15.0 (selectCapped로 상한 건수까지만 보관)
+     * @since v3.16.0 (SqlProfileRegistry 실행 프로파일 적용)
+     * @since v3.17.0 (실행 결과를 SqlIdHealthTracker에 기록)
+     */
+    private List<Map<String, Object>> selectDetail(final String sqlId, final Map<String, Object> params,
+                                                   long batchId) throws Exception {
+        final int maxRows = queueConfig.getDetailMaxRows();
+        final SqlProfile profile = sqlProfileRegistry.get(sqlId);
+        return detailQueryCache.get(sqlId, params, batchId, new Callable<List<Map<String, Object>>>() {
+            @Override
+            public List<Map<String, Object>> call() {
+                // 상한까지만 보관 (v3.15.0, 폭주 쿼리 메모리 보호)
+                // SQL_ID별 쿼리 타임아웃 / Fetch Size 적용 (v3.16.0)
+                // 실행 결과/시간은 SQL_ID 격리 판단에 기록 (v3.17.0, 캐시 적중은 실행이 아니므로 제외)
+                long start = System.currentTimeMillis();
+                CappedRows rows;
                 try {
-                    excelData = mailDao.selectList(excelSqlId, null);
-                    if (excelData == null || excelData.isEmpty()) {
-                        System.out.println("⚠️ Excel 데이터 없음, 첨부 건너뜀: " + excelSqlId);
-                        excelData = null; // Skip
-                    }
-                } catch (Exception e) {
-                    System.err.println("⚠️ Excel 조회 실패, 첨부 건너뜀: " + e.getMessage());
-                    excelData = null; // Skip
+                    rows = mailDao.selectCapped(sqlId, params, maxRows, profile);
+                } catch (RuntimeException e) {
+                    long now = System.currentTimeMillis();
+                    sqlIdHealth.recordFailure(sqlId, now - start,
+                            e.getClass().getSimpleName() + ": " + e.getMessage(), now);
+                    throw e;
                 }
+                long now = System.currentTimeMillis();
+                sqlIdHealth.recordSuccess(sqlId, now - start, now);
+                if (rows.isTruncated()) {
+                    System.err.println("⚠️ 상세 조회 상한 초과: " + sqlId
+                            + " (전체 " + rows.getTotalCount() + "건 중 " + rows.size() + "건 사용)");
+                }
+                return rows;
             }
+        });
+    }
 
-            // 3. 수신인 목록 동적 조회 (RecipientResolver 사용)
-            List<Recipient> recipients = recipientResolver.resolveByConditions(recipientUserIds, recipientGroups, true);
-
-            // 4. MailRequest 생성 (Pure Function 사용, Excel 포함)
-            MailRequest request = buildAlarmMailRequest(
-                    msg,
-                    tableData,
-                    recipients,
-                    columnOrder,
-                    excelData,
-                    excelColumnOrder,
-                    excelFileName
-            );
-
-            // 5. MailService 호출 (boolean 반환)
-            boolean success = mailService.sendMail(request);
-
-            // 6. 성공/실패 처리
-            if (success) {
-                Map<String, Object> updateParams = new HashMap<>();
-                updateParams.put("QUEUE_ID", queueId);
-                mailDao.update("alarm.updateQueueSuccess", updateParams);
-                System.out.println("✅ 알람 발송 성공: " + mailSource + " (수신인 " + recipients.size() + "명)");
-            } else {
-                handleFailure(queueId, mailSource, retryCount, new Exception("메일 발송 실패"));
-            }
-
-        } catch (Exception e) {
-            // 예상치 못한 시스템 오류 (수신인 조회 실패, SQL 오류 등)
-            handleFailure(queueId, mailSource, retryCount, e);
+    /**
+     * SQL_ID와 EXCEL_SQL_ID가 같은 쿼리인지 판단
+     *
+     * - 실제 실행 파라미터(detailParams)로 바인딩한 SQL끼리 비교 (동적 SQL 분기 반영, v3.13.0)
+     * - 파라미터 없는 조회만 조합별 1회 비교 후 캐시 (워터마크 값마다 분기가 달라질 수 있음)
+     *
+     * @param detailParams 상세 쿼리 파라미터 (워터마크 미사용 시 NULL)
+     * @since v3.10.0
+     */
+    private boolean isSameDetailQuery(String sqlId, String excelSqlId, Map<String, Object> detailParams) {
+        if (sqlId == null) {
+            return false;
+        }
+        if (sqlId.equals(excelSqlId)) {
+            return true;
+        }
+        if (detailParams != null) {
+            return isSameSql(mailDao.getStatementSql(sqlId, detailParams),
+                    mailDao.getStatementSql(excelSqlId, detailParams));
+        }
+        String key = sqlId + "|" + excelSqlId;
+        Boolean same = sameQueryCache.get(key);
+        if (same == null) {
+            same = isSameSql(mailDao.getStatementSql(sqlId), mailDao.getStatementSql(excelSqlId));
+            sameQueryCache.put(key, same);
         }
+        return same;
     }
 
     /**
      * 실패 처리 (재시도 또는 최종 실패)
+     *
+     * 재시도 시 선점을 해제(PROCESSING → PENDING)하여 어느 노드든 다시 선점할 수 있게 합니다.
+     *
+     * 재시도 Backoff (v3.7.0):
+     * - NEXT_RETRY_AT = 현재 + calculateRetryDelaySeconds() → 도래 전까지 선점 대상에서 제외
+     * - SQL_ID 오류/SMTP 장애 시 같은 행을 매 폴링마다 반복 시도하지 않음
+     * - 대기 중인 재시도 행이 배치를 차지하지 않아 정상 알람 처리량 유지
+     *
+     * Dead Letter (v3.8.0):
+     * - 시도마다 FAILURE_HISTORY에 실패 이력 한 줄 누적
+     * - 최종 실패 행은 MAIL_QUEUE에 남기지 않고 MAIL_QUEUE_DLQ로 이동 (MailQueueStore.fail)
+     * - 재처리는 AlarmDeadLetterService.replay()
      */
-    private void handleFailure(Long queueId, String mailSource, Integer retryCount, Exception e) {
+    private void handleFailure(Long queueId, String claimToken, String mailSource, Integer retryCount, Exception e) {
         String errorMessage = e.getMessage();
         if (errorMessage != null && errorMessage.length() > 2000) {
             errorMessage = errorMessage.substring(0, 2000);
         }
 
-        Map<String, Object> params = new HashMap<>();
-        params.put("QUEUE_ID", queueId);
-        params.put("ERROR_MESSAGE", errorMessage);
+        String failureEntry = buildFailureEntry(new Date(), retryCount + 1, queueConfig.getNodeId(), errorMessage);
+        List<Long> queueIds = Collections.singletonList(queueId);
 
         if (retryCount >= MAX_RETRY_COUNT - 1) {
-            // 최종 실패
-            mailDao.update("alarm.updateQueueFailed", params);
-            System.err.println("❌ 알람 발송 최종 실패: " + mailSource + " - " + errorMessage);
+            // 최종 실패 → Dead Letter 이동 (0건이면 선점 만료 후 다른 노드가 재선점)
+            if (warnIfNotClaimed(queueStore.fail(queueId, claimToken, errorMessage, failureEntry), queueIds) > 0) {
+                System.err.println("❌ 알람 발송 최종 실패 (Dead Letter 이동): " + mailSource + " - " + errorMessage);
+            }
         } else {
             // 재시도
-            mailDao.update("alarm.updateQueueRetry", params);
+            long delaySeconds = calculateRetryDelaySeconds(retryCount,
+                    queueConfig.getRetryBaseDelaySeconds(),
+                    queueConfig.getRetryMaxDelaySeconds(),
+                    ThreadLocalRandom.current().nextDouble());
+            warnIfNotClaimed(queueStore.retry(queueId, claimToken, delaySeconds, errorMessage, failureEntry), queueIds);
             System.err.println("⚠️ 알람 발송 재시도 예정: " + mailSource +
-                    " (시도 " + (retryCount + 2) + "/" + MAX_RETRY_COUNT + ")");
+                    " (시도 " + (retryCount + 2) + "/" + MAX_RETRY_COUNT + ", " + delaySeconds + "초 후)");
+        }
+    }
+
+    /**
+     * 큐 상태 변경 결과 확인
+     *
+     * CLAIM_TOKEN 불일치(Lease 만료 후 다른 노드가 재선점)로 0건이면 로그만 남깁니다.
+     * 메시지별 단독 트랜잭션은 저장소 구현이 담당합니다 (MyBatisMailQueueStore, v3.3.0).
+     *
+     * @return 반영된 행 수
+     */
+    private int warnIfNotClaimed(int updated, List<Long> queueIds) {
+        if (updated == 0) {
+            System.err.println("⚠️ 큐 상태 업데이트 무시 (선점 만료): QUEUE_ID=" + queueIds);
         }
+        return updated;
     }
 
     // ===== Pure Functions (단위 테스트 대상) =====
 
+    /**
+     * 재시도 대기 시간 계산 (Pure Function)
+     *
+     * Exponential Backoff + Equal Jitter:
+     * - 기준 = min(base × 2^retryCount, max)
+     * - 결과 = 기준/2 + jitter × 기준/2 (기준의 50~100%)
+     * - Jitter로 동시에 실패한 알람들이 같은 시각에 몰려 재시도하지 않도록 분산
+     *
+     * Example (base=60, max=1800):
+     *   retryCount=0 → 30~60초, 1 → 60~120초, 5 이상 → 900~1800초
+     *
+     * @param retryCount 지금까지의 재시도 횟수 (첫 실패 시 0)
+     * @param baseDelaySeconds 첫 재시도 기준 대기 시간 (초)
+     * @param maxDelaySeconds 대기 시간 상한 (초)
+     * @param jitter 0.0 이상 1.0 미만 난수
+     * @return 대기 시간 (초, 최소 1초)
+     * @since v3.7.0
+     */
+    public long calculateRetryDelaySeconds(int retryCount, long baseDelaySeconds, long maxDelaySeconds, double jitter) {
+        if (baseDelaySeconds <= 0) {
+            return 1L;
+        }
+
+        long delay = baseDelaySeconds;
+        for (int i = 0; i < retryCount && delay < maxDelaySeconds; i++) {
+            delay = delay * 2;
+        }
+        delay = Math.min(delay, maxDelaySeconds);
+
+        double boundedJitter = Math.min(Math.max(jitter, 0.0), 1.0);
+        long jittered = Math.round(delay / 2.0 + boundedJitter * delay / 2.0);
+        return Math.max(jittered, 1L);
+    }
+
+    /**
+     * 실패 이력 한 줄 생성 (Pure Function)
+     *
+     * Format: "yyyy-MM-dd HH:mm:ss [시도 n/3] node=노드ID 에러 메시지\n"
+     *
+     * @param failedAt 실패 일시
+     * @param attempt 이번 시도 순번 (1부터)
+     * @param nodeId 처리한 Consumer 노드 ID
+     * @param errorMessage 에러 메시지 (NULL 가능)
+     * @return FAILURE_HISTORY에 누적할 문자열
+     * @since v3.8.0
+     */
+    public String buildFailureEntry(Date failedAt, int attempt, String nodeId, String errorMessage) {
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(failedAt)
+                + " [시도 " + attempt + "/" + MAX_RETRY_COUNT + "]"
+                + " node=" + nodeId
+                + " " + (errorMessage != null ? errorMessage : "(메시지 없음)")
+                + "\n";
+    }
+
+    /**
+     * 통합 묶음 분리 (Pure Function)
+     *
+     * 같은 MAIL_SOURCE + SQL_ID + EXCEL_SQL_ID + 수신인 Key이고, 묶음의 최초 메시지로부터
+     * windowSeconds 이내에 등록된 메시지를 하나의 묶음으로 합칩니다.
+     *
+     * - 수신인 Key가 NULL(조회 실패)이거나 REG_DATE가 없는 메시지는 단독 묶음
+     * - 묶음 순서는 각 묶음의 최초 메시지 순서, 묶음 안의 순서는 입력 순서 유지
+     *
+     * Example (window=300초, 같은 Key):
+     *   10:00, 10:02, 10:04 → [10:00, 10:02, 10:04]
+     *   10:00, 10:06        → [10:00], [10:06]
+     *
+     * @param messages 메시지 (REG_DATE 오름차순)
+     * @param recipientKeys messages와 같은 순서의 수신인 Key (buildRecipientKey, NULL 가능)
+     * @param windowSeconds 통합 구간 (초, 0 이하면 통합하지 않음)
+     * @return 묶음 목록
+     * @since v3.11.0
+     */
+    public List<List<QueueMessage>> groupForCoalescing(List<QueueMessage> messages,
+                                                       List<String> recipientKeys,
+                                                       long windowSeconds) {
+        List<List<QueueMessage>> groups = new ArrayList<>();
+        Map<String, List<QueueMessage>> openGroups = new HashMap<>();
+
+        for (int i = 0; i < messages.size(); i++) {
+            QueueMessage msg = messages.get(i);
+            String recipientKey = recipientKeys.get(i);
+            Date regDate = msg.getRegDate();
+
+            if (windowSeconds <= 0 || recipientKey == null || regDate == null) {
+                List<QueueMessage> single = new ArrayList<>();
+                single.add(msg);
+                groups.add(single);
+                continue;
+            }
+
+            String key = msg.getMailSource() + "|" + msg.getSqlId() + "|" + msg.getExcelSqlId() + "|" + recipientKey;
+            List<QueueMessage> group = openGroups.get(key);
+            if (group != null) {
+                long firstTime = group.get(0).getRegDate().getTime();
+                if (regDate.getTime() - firstTime <= windowSeconds * 1000L) {
+                    group.add(msg);
+                    continue;
+                }
+            }
+
+            group = new ArrayList<>();
+            group.add(msg);
+            groups.add(group);
+            openGroups.put(key, group);
+        }
+        return groups;
+    }
+
+    /**
+     * 수신인 집합 Key 생성 (Pure Function)
+     *
+     * 이메일을 소문자로 정렬하여 순서와 무관하게 같은 집합이면 같은 Key를 반환합니다.
+     *
+     * @since v3.11.0
+     */
+    public String buildRecipientKey(List<Recipient> recipients) {
+        List<String> emails = new ArrayList<>();
+        for (Recipient recipient : recipients) {
+            if (recipient != null && recipient.getEmail() != null) {
+                emails.add(recipient.getEmail().trim().toLowerCase());
+            }
+        }
+        Collections.sort(emails);
+        StringBuilder key = new StringBuilder();
+        for (String email : emails) {
+            if (key.length() > 0) {
+                key.append(",");
+            }
+            key.append(email);
+        }
+        return key.toString();
+    }
+
+    /**
+     * 상세 쿼리 파라미터 생성 (Pure Function)
+     *
+     * WATERMARK는 NULL이어도 포함합니다 (첫 실행 → 쿼리의 <if test="WATERMARK != null"> 조건 생략, 전체 조회).
+     *
+     * Example:
+     *   ("OVERDUE_ORDERS", "ORD-0042") → {MAIL_SOURCE=OVERDUE_ORDERS, WATERMARK=ORD-0042}
+     *
+     * @since v3.13.0
+     */
+    public Map<String, Object> buildDetailParams(String mailSource, Object watermark) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("MAIL_SOURCE", mailSource);
+        params.put("WATERMARK", watermark);
+        return params;
+    }
+
+    /**
+     * 상세 결과 지문 생성 (Pure Function)
+     *
+     * 테이블/Excel 결과와 수신인 Key를 안정적인 문자열로 직렬화한 뒤 SHA-256(HEX 64자리)을 계산합니다.
+     * - 행 순서는 유지 (ORDER BY가 바뀌면 다른 결과로 판단)
+     * - 컬럼은 이름순 정렬 (HashMap 순서와 무관)
+     * - 값: Date는 epoch ms, BigDecimal은 뒤 0 제거(5.0 = 5), CLOB은 문자열
+     * - excelData가 NULL이거나 tableData와 같은 목록이면 테이블 결과만 반영
+     * - 상한으로 잘린 결과(CappedRows)는 전체 건수도 반영 (v3.15.0)
+     *
+     * @param tableData 테이블 데이터 (NULL 가능)
+     * @param excelData Excel 데이터 (NULL 가능)
+     * @param recipientKey 수신인 Key (buildRecipientKey)
+     * @return SHA-256 HEX 문자열
+     * @since v3.12.0
+     */
+    public String buildResultFingerprint(List<Map<String, Object>> tableData,
+                                         List<Map<String, Object>> excelData,
+                                         String recipientKey) {
+        StringBuilder canonical = new StringBuilder();
+        appendRows(canonical.append("T:"), tableData);
+        if (excelData != null && excelData != tableData) {
+            appendRows(canonical.append("E:"), excelData);
+        }
+        canonical.append("R:").append(recipientKey);
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 미지원 JVM", e);
+        }
+    }
+
+    private void appendRows(StringBuilder canonical, List<Map<String, Object>> rows) {
+        if (rows == null) {
+            canonical.append("null\n");
+            return;
+        }
+        canonical.append(rows.size());
+        if (rows instanceof CappedRows && ((CappedRows) rows).isTruncated()) {
+            // 보관하지 않은 행은 전체 건수로만 반영 (v3.15.0)
+            canonical.append('/').append(((CappedRows) rows).getTotalCount());
+        }
+        canonical.append("\n");
+        for (Map<String, Object> row : rows) {
+            for (Map.Entry<String, Object> entry : new TreeMap<>(row).entrySet()) {
+                String value = toCanonicalValue(entry.getValue());
+                canonical.append(entry.getKey().length()).append(':').append(entry.getKey())
+                        .append('=');
+                if (value == null) {
+                    canonical.append("-1:");
+                } else {
+                    canonical.append(value.length()).append(':').append(value);
+                }
+                canonical.append(';');
+            }
+            canonical.append("\n");
+        }
+    }
+
+    private String toCanonicalValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Date) {
+            return String.valueOf(((Date) value).getTime());
+        }
+        if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            return (decimal.signum() == 0) ? "0" : decimal.stripTrailingZeros().toPlainString();
+        }
+        return MailUtils.convertToString(value);
+    }
+
+    /**
+     * 통합 발송 본문 생성 (Pure Function)
+     *
+     * Example:
+     *   ("재고 부족 5건", 3, 2025-03-04 09:00:00)
+     *   → "재고 부족 5건\n\n※ 같은 알람 3건을 통합 발송했습니다 (최초 발생: 2025-03-04 09:00:00)"
+     *
+     * @param sectionContent 대표 메시지 본문 (NULL 가능)
+     * @param count 통합 건수
+     * @param firstRegDate 최초 메시지 등록 일시 (NULL 가능)
+     * @since v3.11.0
+     */
+    public String buildCoalescedContent(String sectionContent, int count, Object firstRegDate) {
+        StringBuilder content = new StringBuilder();
+        if (sectionContent != null && !sectionContent.isEmpty()) {
+            content.append(sectionContent).append("\n\n");
+        }
+        content.append("※ 같은 알람 ").append(count).append("건을 통합 발송했습니다");
+        if (firstRegDate instanceof Date) {
+            content.append(" (최초 발생: ")
+                    .append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format((Date) firstRegDate))
+                    .append(")");
+        }
+        return content.toString();
+    }
+
+    /**
+     * 두 SQL이 같은 쿼리인지 비교 (Pure Function)
+     *
+     * 공백/줄바꿈 차이만 무시합니다 (Mapper 들여쓰기만 다른 복사본 판별).
+     * 대소문자는 문자열 리터럴 값이 달라질 수 있으므로 구분합니다.
+     *
+     * @param sql 테이블 쿼리 SQL (NULL이면 false)
+     * @param excelSql Excel 쿼리 SQL (NULL이면 false)
+     * @since v3.10.0
+     */
+    public boolean isSameSql(String sql, String excelSql) {
+        if (sql == null || excelSql == null) {
+            return false;
+        }
+        return normalizeSql(sql).equals(normalizeSql(excelSql));
+    }
+
+    private String normalizeSql(String sql) {
+        return sql.trim().replaceAll("\\s+", " ");
+    }
+
     /**
      * 큐 데이터로부터 MailRequest 생성 (Pure Function)
      *
@@ -200,7 +1500,7 @@ public class AlarmMailService {
      * @param tableData SQL_ID 실행 결과 (NULL 가능)
      * @param recipients 조회된 수신인 목록
      * @param columnOrder 테이블 컬럼 순서 (쉼표 구분, NULL 가능)
-     * @param excelData Excel 데이터 (NULL이면 첨부 없음, v3.0.0)
+     * @param excelData Excel 데이터 (NULL이면 첨부 없음, tableData와 같은 객체면 변환 결과 공유, v3.0.0)
      * @param excelColumnOrder Excel 컬럼 순서 (쉼표 구분, NULL 가능, v3.0.0)
      * @param excelFileName Excel 파일명 (NULL이면 sectionTitle 기반, v3.0.0)
      * @return MailRequest 객체
@@ -217,20 +1517,109 @@ public class AlarmMailService {
             String excelColumnOrder,
             String excelFileName
     ) {
-        String severity = (String) queueData.get("SEVERITY");
-        String sectionTitle = (String) queueData.get("SECTION_TITLE");
-        String sectionContent = MailUtils.convertToString(queueData.get("SECTION_CONTENT"));
-        String mailSource = (String) queueData.get("MAIL_SOURCE");
+        return buildAlarmMailRequest(queueData, tableData, recipients, columnOrder,
+                excelData, excelColumnOrder, excelFileName, 0);
+    }
+
+    /**
+     * 큐 데이터로부터 MailRequest 생성 (Pure Function - 본문 테이블 행 수 제한)
+     *
+     * - 제목 건수: 실제 전체 건수 (tableData가 CappedRows면 getTotalCount, 아니면 size)
+     * - 본문 테이블: 앞에서 tableMaxRows건까지만 표시
+     * - 표시 건수가 전체보다 적으면 본문에 안내 문구 추가 (buildTruncationNotice)
+     *
+     * @param tableMaxRows 본문 테이블 최대 행 수 (0 이하면 제한 없음)
+     * @since v3.15.0
+     */
+    public MailRequest buildAlarmMailRequest(
+            Map<String, Object> queueData,
+            List<Map<String, Object>> tableData,
+            List<Recipient> recipients,
+            String columnOrder,
+            List<Map<String, Object>> excelData,
+            String excelColumnOrder,
+            String excelFileName,
+            int tableMaxRows
+    ) {
+        return buildAlarmMailRequest(
+                (String) queueData.get("SEVERITY"),
+                (String) queueData.get("SECTION_TITLE"),
+                MailUtils.convertToString(queueData.get("SECTION_CONTENT")),
+                (String) queueData.get("MAIL_SOURCE"),
+                tableData, recipients, columnOrder, excelData, excelColumnOrder, excelFileName, tableMaxRows);
+    }
+
+    /**
+     * 선점한 큐 메시지로부터 MailRequest 생성 (Pure Function)
+     *
+     * 컬럼 순서 / Excel 컬럼 순서 / Excel 파일명은 메시지 값을 사용합니다.
+     *
+     * @param message 대표 메시지 (통합 묶음이면 통합 안내가 추가된 사본)
+     * @since v3.25.0
+     */
+    public MailRequest buildAlarmMailRequest(
+            QueueMessage message,
+            List<Map<String, Object>> tableData,
+            List<Recipient> recipients,
+            List<Map<String, Object>> excelData,
+            int tableMaxRows
+    ) {
+        return buildAlarmMailRequest(message.getSeverity(), message.getSectionTitle(), message.getSectionContent(),
+                message.getMailSource(), tableData, recipients, message.getColumnOrder(),
+                excelData, message.getExcelColumnOrder(), message.getExcelFileName(), tableMaxRows);
+    }
+
+    private MailRequest buildAlarmMailRequest(
+            String severity,
+            String sectionTitle,
+            String sectionContent,
+            String mailSource,
+            List<Map<String, Object>> tableData,
+            List<Recipient> recipients,
+            String columnOrder,
+            List<Map<String, Object>> excelData,
+            String excelColumnOrder,
+            String excelFileName,
+            int tableMaxRows
+    ) {
+        // 건수 계산 (상한으로 잘린 결과면 실제 전체 건수, v3.15.0)
+        long totalCount = countTotalRows(tableData);
+
+        // 본문 테이블 행 수 제한 (v3.15.0)
+        List<Map<String, Object>> shownData = tableData;
+        if (tableData != null && tableMaxRows > 0 && tableData.size() > tableMaxRows) {
+            shownData = tableData.subList(0, tableMaxRows);
+        }
+
+        // 테이블과 Excel이 같은 결과면 한 번만 변환 (v3.15.0)
+        // 본문 테이블은 변환본의 앞 tableMaxRows건 뷰를 사용 (잘린 경우에도 두 벌 만들지 않음)
+        List<Map<String, String>> sharedString = null;
+        if (excelData != null && !excelData.isEmpty() && excelData == tableData) {
+            sharedString = MailUtils.convertToStringMap(excelData);
+        }
 
         // 테이블 데이터를 String으로 변환 (MailUtils 사용)
-        List<Map<String, String>> tableDataString = MailUtils.convertToStringMap(tableData);
+        List<Map<String, String>> tableDataString;
+        if (sharedString == null) {
+            tableDataString = MailUtils.convertToStringMap(shownData);
+        } else if (shownData == tableData) {
+            tableDataString = sharedString;
+        } else {
+            tableDataString = sharedString.subList(0, Math.min(tableMaxRows, sharedString.size()));
+        }
+        int shownCount = (tableDataString != null) ? tableDataString.size() : 0;
 
-        // 건수 계산
-        int count = (tableDataString != null && !tableDataString.isEmpty()) ? tableDataString.size() : 0;
+        int excelCount = (excelData != null) ? excelData.size() : 0;
+        String notice = buildTruncationNotice(totalCount, shownCount, excelCount);
+        if (notice != null) {
+            sectionContent = (sectionContent == null || sectionContent.isEmpty())
+                    ? notice
+                    : sectionContent + "\n\n" + notice;
+        }
 
         // MailRequest 생성
         MailRequest.Builder builder = MailRequest.builder()
-                .subject(MailRequest.alarmSubject(sectionTitle, severity, count))
+                .subject(MailRequest.alarmSubject(sectionTitle, severity, (int) Math.min(totalCount, Integer.MAX_VALUE)))
                 .addTextSection(MailRequest.alarmTitle(sectionTitle, severity), sectionContent)
                 .recipients(recipients)
                 .mailType("ALARM")
@@ -250,7 +1639,10 @@ public class AlarmMailService {
 
         // Excel 첨부 추가 (v3.0.0)
         if (excelData != null && !excelData.isEmpty()) {
-            List<Map<String, String>> excelDataString = MailUtils.convertToStringMap(excelData);
+            // 테이블과 같은 결과면 변환본 공유 (v3.10.0, Excel은 보관한 행 전체)
+            List<Map<String, String>> excelDataString = (sharedString != null)
+                    ? sharedString
+                    : MailUtils.convertToStringMap(excelData);
 
             // 파일명 결정 (NULL이면 sectionTitle 기반)
             String title = (excelFileName != null && !excelFileName.trim().isEmpty())
@@ -279,6 +1671,77 @@ public class AlarmMailService {
         return buildAlarmMailRequest(queueData, tableData, recipients, columnOrder, null, null, null);
     }
 
+    /**
+     * 상세 결과의 실제 전체 건수 (Pure Function)
+     *
+     * @return CappedRows면 getTotalCount(), 그 외 size() (NULL이면 0)
+     * @since v3.15.0
+     */
+    public long countTotalRows(List<Map<String, Object>> rows) {
+        if (rows == null) {
+            return 0;
+        }
+        if (rows instanceof CappedRows) {
+            return ((CappedRows) rows).getTotalCount();
+        }
+        return rows.size();
+    }
+
+    /**
+     * 본문 테이블 일부만 표시할 때의 안내 문구 (Pure Function)
+     *
+     * Example:
+     *   (1500, 1000, 1500) → "※ 전체 1500건 중 1000건만 표시합니다. (첨부 Excel: 1500건)"
+     *   (1000, 1000, 0)    → null
+     *
+     * @param totalCount 실제 전체 건수
+     * @param shownCount 본문 테이블 표시 건수
+     * @param excelCount 첨부 Excel 건수 (0이면 첨부 없음)
+     * @return 안내 문구 (전체를 표시하면 NULL)
+     * @since v3.15.0
+     */
+    public String buildTruncationNotice(long totalCount, int shownCount, int excelCount) {
+        if (shownCount >= totalCount) {
+            return null;
+        }
+        StringBuilder notice = new StringBuilder()
+                .append("※ 전체 ").append(totalCount).append("건 중 ").append(shownCount).append("건만 표시합니다.");
+        if (excelCount > 0) {
+            notice.append(" (첨부 Excel: ").append(excelCount).append("건)");
+        }
+        return notice.toString();
+    }
+
+    /**
+     * 신호가 바뀐 Lane 찾기 (Pure Function)
+     *
+     * 마지막으로 본 SIGNAL_SEQ와 다르면 다른 노드가 그 Lane에 등록한 것입니다.
+     * 처음 보는 Lane은 기준값만 기록합니다 (기동 직후 전체 Lane을 깨우지 않음).
+     *
+     * @param lastSeen Lane별 마지막 SIGNAL_SEQ (이번 조회 값으로 갱신됨)
+     * @param signals alarm.selectQueueSignals 결과 (SEVERITY, SIGNAL_SEQ)
+     * @return 깨울 Lane 목록
+     * @since v3.23.0
+     */
+    public List<String> findSignaledLanes(Map<String, Long> lastSeen, List<Map<String, Object>> signals) {
+        List<String> signaled = new ArrayList<>();
+        if (signals == null) {
+            return signaled;
+        }
+        for (Map<String, Object> signal : signals) {
+            Object severity = signal.get("SEVERITY");
+            Long seq = getLong(signal.get("SIGNAL_SEQ"));
+            if (severity == null || seq == null) {
+                continue;
+            }
+            Long previous = lastSeen.put(severity.toString(), seq);
+            if (previous != null && !previous.equals(seq)) {
+                signaled.add(severity.toString());
+            }
+        }
+        return signaled;
+    }
+
     // ===== Orchestration (통합 테스트 대상) =====
 
     private Long getLong(Object value) {
@@ -287,11 +1750,4 @@ public class AlarmMailService {
         }
         return null;
     }
-
-    private Integer getInteger(Object value) {
-        if (value instanceof Number) {
-            return ((Number) value).intValue();
-        }
-        return 0;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,214 @@
+package com.yoc.wms.mail.service;
+
+import com.yoc.wms.mail.config.AlarmQueueConfig;
+import com.yoc.wms.mail.dao.JournalMailQueueStore;
+import com.yoc.wms.mail.dao.MailDao;
+import com.yoc.wms.mail.dao.MailQueueStore;
+import com.yoc.wms.mail.dao.MyBatisMailQueueStore;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 알람 큐 등록 API (Java Producer)
+ *
+ * 지금까지 MAIL_QUEUE 등록은 Oracle Procedure만 가능했고, Consumer는 Lane이 비어 있으면
+ * idle-interval(10초) 뒤에야 새 행을 발견했습니다.
+ * enqueue()는 행을 등록한 뒤 Consumer를 바로 깨워 CRITICAL 알람도 1초 안에 발송되도록 합니다.
+ *
+ * 깨우기:
+ * - 같은 노드: 등록된 행의 Lane을 깨워 즉시 폴링 (AlarmJobScheduler가 Consumer 작업을 켠 노드만)
+ * - 다른 노드: MAIL_QUEUE_SIGNAL의 Lane별 SIGNAL_SEQ 증가 → 다음 Consumer Tick(1초)에 변경을 보고 해당 Lane 폴링
+ * - 전체 폴링 주기(idle-interval)는 그대로, 등록이 있는 Lane만 앞당김
+ *
+ * 중복 흡수: DEDUP_KEY가 같은 행이 처리 전이면 등록하지 않음 (v3.22.0)
+ *
+ * 큐 저장소 (v3.24.0):
+ * - alarm.queue.store.type에 따라 MAIL_QUEUE(db) 또는 노드 로컬 저널(journal) 생성, Consumer도 같은 저장소 사용
+ * - 저널은 이 Bean 종료 시 checkpoint 후 닫음 (의존하는 AlarmMailService가 먼저 종료되어 선점 반환까지 기록)
+ *
+ *  @author 김찬기
+ *  @since v3.23.0
+ */
+@Service
+public class AlarmQueue implements InitializingBean, DisposableBean {
+
+    @Autowired
+    private MailDao mailDao;
+
+    @Autowired
+    private AlarmQueueConfig queueConfig;
+
+    @Autowired
+    private AlarmQueueMetrics queueMetrics;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private MailQueueStore store;
+
+    /** 같은 노드 Consumer (AlarmJobScheduler가 등록, 미등록이면 DB 신호만) */
+    private volatile AlarmMailService consumer;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (queueConfig.isJournalStore()) {
+            store = new JournalMailQueueStore(new File(queueConfig.getJournalDir()), queueConfig.getJournalSegmentBytes());
+        } else {
+            store = new MyBatisMailQueueStore(mailDao, transactionManager);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    /**
+     * 큐 저장소 (Consumer 선점/상태 변경용)
+     */
+    public MailQueueStore getStore() {
+        return store;
+    }
+
+    /**
+     * 같은 노드 Consumer 등록 (Consumer 작업이 켜진 경우만)
+     */
+    public void registerConsumer(AlarmMailService consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * 알람 1건 등록
+     *
+     * @see #enqueue(List)
+     */
+    public int enqueue(Map<String, Object> alarm) {
+        return enqueue(Collections.singletonList(alarm));
+    }
+
+    /**
+     * 알람 일괄 등록 (DB는 JDBC Batch 1회) 후 Consumer 깨우기
+     *
+     * 필수: MAIL_SOURCE, ALARM_NAME, SEVERITY(INFO/WARNING/CRITICAL), SQL_ID
+     * 선택: SECTION_TITLE, SECTION_CONTENT, RECIPIENT_USER_IDS, RECIPIENT_GROUPS, COLUMN_ORDER,
+     *       EXCEL_SQL_ID, EXCEL_COLUMN_ORDER, EXCEL_FILE_NAME, DEDUP_KEY
+     *
+     * @param alarms MAIL_QUEUE 컬럼명 Map 목록
+     * @return 실제 등록 건수 (중복 흡수 제외)
+     * @throws IllegalArgumentException 필수 값 누락 / SEVERITY 오류 (등록 전 검증, 1건이라도 오류면 전체 미등록)
+     */
+    public int enqueue(List<Map<String, Object>> alarms) {
+        if (alarms == null || alarms.isEmpty()) {
+            return 0;
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map<String, Object> alarm : alarms) {
+            validate(alarm);
+            rows.add(toQueueRow(alarm));
+        }
+
+        int inserted = store.enqueue(rows);
+        queueMetrics.recordDedupAbsorbed(Math.max(0, rows.size() - inserted));
+        if (inserted > 0) {
+            for (String lane : lanesOf(rows)) {
+                notifyConsumers(lane);
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Lane 깨우기: 다른 노드용 DB 신호 → 같은 노드 Consumer (신호 실패해도 등록은 유지)
+     *
+     * 저널 저장소는 노드 로컬이라 다른 노드가 읽을 행이 없으므로 MAIL_QUEUE_SIGNAL을 쓰지 않습니다.
+     */
+    private void notifyConsumers(String lane) {
+        if (!queueConfig.isJournalStore() && queueConfig.isSignalEnabled()) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("SEVERITY", lane);
+            try {
+                mailDao.update("alarm.signalQueue", params);
+            } catch (Exception e) {
+                System.err.println("⚠️ 큐 등록 신호 실패 [" + lane + "] (다른 노드는 idle-interval 후 처리): " + e.getMessage());
+            }
+        }
+        AlarmMailService localConsumer = consumer;
+        if (localConsumer != null) {
+            localConsumer.wakeUp(lane);
+        }
+    }
+
+    // ==================== Pure Functions (단위 테스트 대상) ====================
+
+    /**
+     * 필수 값 검증 (Pure Function)
+     *
+     * @throws IllegalArgumentException 누락 / SEVERITY 오류
+     */
+    public static void validate(Map<String, Object> alarm) {
+        if (alarm == null) {
+            throw new IllegalArgumentException("등록할 알람이 null입니다");
+        }
+        String[] required = {"MAIL_SOURCE", "ALARM_NAME", "SEVERITY", "SQL_ID"};
+        for (String column : required) {
+            Object value = alarm.get(column);
+            if (value == null || value.toString().trim().isEmpty()) {
+                throw new IllegalArgumentException(column + "는 필수입니다: " + alarm.get("MAIL_SOURCE"));
+            }
+        }
+        Object severity = alarm.get("SEVERITY");
+        if (!"INFO".equals(severity) && !"WARNING".equals(severity) && !"CRITICAL".equals(severity)) {
+            throw new IllegalArgumentException("SEVERITY는 INFO/WARNING/CRITICAL 중 하나여야 합니다: " + severity);
+        }
+    }
+
+    /**
+     * alarm.enqueueAlarmQueue 파라미터 (Pure Function)
+     *
+     * 선택 컬럼은 키가 없어도 jdbcType 바인딩되도록 NULL로 채웁니다 (호출자 Map은 변경하지 않음).
+     */
+    public static Map<String, Object> toQueueRow(Map<String, Object> alarm) {
+        Map<String, Object> row = new HashMap<>();
+        String[] columns = {
+                "MAIL_SOURCE", "ALARM_NAME", "SEVERITY", "SQL_ID", "SECTION_TITLE", "SECTION_CONTENT",
+                "RECIPIENT_USER_IDS", "RECIPIENT_GROUPS", "COLUMN_ORDER",
+                "EXCEL_SQL_ID", "EXCEL_COLUMN_ORDER", "EXCEL_FILE_NAME", "DEDUP_KEY"
+        };
+        for (String column : columns) {
+            row.put(column, alarm.get(column));
+        }
+        return row;
+    }
+
+    /**
+     * 등록 행의 Lane 목록 (CRITICAL → WARNING → INFO 순, Pure Function)
+     */
+    public static List<String> lanesOf(List<Map<String, Object>> rows) {
+        Set<String> present = new HashSet<>();
+        for (Map<String, Object> row : rows) {
+            Object severity = row.get("SEVERITY");
+            present.add(AlarmLane.laneOf(severity != null ? severity.toString() : null));
+        }
+        List<String> lanes = new ArrayList<>();
+        for (String severity : AlarmLane.SEVERITIES) {
+            if (present.contains(severity)) {
+                lanes.add(severity);
+            }
+        }
+        return lanes;
+    }
+}
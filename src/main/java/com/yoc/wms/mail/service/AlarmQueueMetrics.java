@@ -0,0 +1,339 @@
+package com.yoc.wms.mail.service;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 알람 큐 Consumer 지표
+ *
+ * JMX로 노출 (Spring Boot: spring.jmx.enabled=true, 운영 XML: context:mbean-export)
+ * - Gauge: 마지막 선점 건수, 적체량, 평균 처리 시간, 실패율 (Severity Lane별, v3.6.0)
+ * - Counter: 누적 처리/실패 건수, 상세 쿼리 캐시 적중/미스 건수 (v3.9.0), 통합 발송 생략 건수 (v3.11.0),
+ *   결과 변경 없음 발송 생략 건수 (v3.12.0), SQL_ID 격리로 연기된 건수 (v3.17.0),
+ *   처리 중 회수 건수 (v3.18.0), 중복 등록 흡수 건수 (v3.22.0)
+ * - SQL_ID 격리 목록/실행 통계 조회, 격리 수동 해제 (v3.17.0)
+ * - 예약 작업별 실행/생략 횟수, 예정 대비 시작 지연, 실행 시간 (v3.20.0)
+ * - 알람 규칙별 평가 횟수/발생/실패, 평가 시간 (v3.21.0)
+ *
+ *  @author 김찬기
+ *  @since v3.5.0
+ */
+@Component
+@ManagedResource(objectName = "com.yoc.wms.mail:name=AlarmQueueMetrics", description = "알람 큐 Consumer 지표")
+public class AlarmQueueMetrics {
+
+    // ==================== Gauge (Lane별) ====================
+    private final Map<String, LaneStats> laneStats = new ConcurrentHashMap<>();
+
+    // ==================== Counter ====================
+    private final AtomicLong processedTotal = new AtomicLong();
+    private final AtomicLong failedTotal = new AtomicLong();
+    private final AtomicLong coalescedTotal = new AtomicLong();
+    private final AtomicLong skippedTotal = new AtomicLong();
+    private final AtomicLong quarantineDeferredTotal = new AtomicLong();
+    private final AtomicLong reapedTotal = new AtomicLong();
+    private final AtomicLong dedupAbsorbedTotal = new AtomicLong();
+
+    /** 상세 쿼리 캐시 (AlarmMailService가 등록, 미등록 시 0) */
+    private volatile DetailQueryCache detailQueryCache;
+
+    /** SQL_ID 실행 상태 (AlarmMailService가 등록, 미등록 시 빈 값) */
+    private volatile SqlIdHealthTracker sqlIdHealth;
+
+    /** 예약 작업 (AlarmJobScheduler가 등록, 작업명 순) */
+    private final Map<String, ScheduledJob> jobs = new ConcurrentHashMap<>();
+
+    /** 알람 규칙별 평가 통계 (MAIL_SOURCE) */
+    private final ConcurrentHashMap<String, RuleStats> ruleStats = new ConcurrentHashMap<>();
+
+    /**
+     * 배치 처리 결과 기록
+     *
+     * @param lane Severity Lane (CRITICAL/WARNING/INFO)
+     */
+    public void recordBatch(String lane, int batchSize, long pendingCount, int processed, int failed,
+                            long elapsedMs, double avgMessageMs, double failureRate) {
+        LaneStats stats = getLaneStats(lane);
+        stats.batchSize = batchSize;
+        stats.pendingCount = pendingCount;
+        stats.lastBatchElapsedMs = elapsedMs;
+        stats.avgMessageMs = avgMessageMs;
+        stats.failureRate = failureRate;
+        processedTotal.addAndGet(processed);
+        failedTotal.addAndGet(failed);
+    }
+
+    /**
+     * 적체량만 갱신 (Lane 큐가 비어 선점하지 않은 경우)
+     */
+    public void recordPendingCount(String lane, long pendingCount) {
+        getLaneStats(lane).pendingCount = pendingCount;
+    }
+
+    /**
+     * 알람 통합 기록
+     *
+     * @param mergedCount 대표 메시지에 합쳐져 별도 발송하지 않은 메시지 수
+     * @since v3.11.0
+     */
+    public void recordCoalesced(int mergedCount) {
+        coalescedTotal.addAndGet(mergedCount);
+    }
+
+    /**
+     * 결과 변경 없음 발송 생략 기록
+     *
+     * @param skippedCount SKIPPED 처리한 메시지 수
+     * @since v3.12.0
+     */
+    public void recordSkipped(int skippedCount) {
+        skippedTotal.addAndGet(skippedCount);
+    }
+
+    /**
+     * SQL_ID 격리로 연기 기록
+     *
+     * @param deferredCount 쿼리 없이 연기한 메시지 수
+     * @since v3.17.0
+     */
+    public void recordQuarantineDeferred(int deferredCount) {
+        quarantineDeferredTotal.addAndGet(deferredCount);
+    }
+
+    /**
+     * 처리 중 회수 기록 (Lease 경과 / 노드 응답 없음)
+     *
+     * @param reapedCount PENDING으로 회수한 메시지 수
+     * @since v3.18.0
+     */
+    public void recordReaped(int reapedCount) {
+        reapedTotal.addAndGet(reapedCount);
+    }
+
+    /**
+     * 중복 등록 흡수 기록 (같은 DEDUP_KEY가 처리 전이라 새 행을 만들지 않음)
+     *
+     * @param absorbedCount 등록 요청 중 흡수된 건수
+     * @since v3.22.0
+     */
+    public void recordDedupAbsorbed(int absorbedCount) {
+        dedupAbsorbedTotal.addAndGet(absorbedCount);
+    }
+
+    /**
+     * 알람 규칙 평가 결과 기록
+     *
+     * @param hitCount 발생 건수 (0이면 미발생)
+     * @param failed 조건 쿼리 실패/시간 초과 여부
+     * @since v3.21.0
+     */
+    public void recordRuleEvaluation(String mailSource, long elapsedMs, long hitCount, boolean failed) {
+        RuleStats stats = ruleStats.get(mailSource);
+        if (stats == null) {
+            ruleStats.putIfAbsent(mailSource, new RuleStats());
+            stats = ruleStats.get(mailSource);
+        }
+        synchronized (stats) {
+            stats.evaluations++;
+            if (failed) {
+                stats.failures++;
+            } else if (hitCount > 0) {
+                stats.hits++;
+            }
+            stats.lastElapsedMs = elapsedMs;
+            stats.maxElapsedMs = Math.max(stats.maxElapsedMs, elapsedMs);
+            stats.totalElapsedMs += elapsedMs;
+            stats.lastHitCount = hitCount;
+        }
+    }
+
+    /**
+     * 상세 쿼리 캐시 등록 (적중/미스 건수 노출용)
+     */
+    public void registerDetailQueryCache(DetailQueryCache cache) {
+        this.detailQueryCache = cache;
+    }
+
+    /**
+     * SQL_ID 실행 상태 등록 (격리 목록/통계 노출용)
+     *
+     * @since v3.17.0
+     */
+    public void registerSqlIdHealth(SqlIdHealthTracker tracker) {
+        this.sqlIdHealth = tracker;
+    }
+
+    /**
+     * 예약 작업 등록 (작업별 지표 노출용)
+     *
+     * @since v3.20.0
+     */
+    public void registerJob(ScheduledJob job) {
+        jobs.put(job.getName(), job);
+    }
+
+    private LaneStats getLaneStats(String lane) {
+        LaneStats stats = laneStats.get(lane);
+        if (stats == null) {
+            laneStats.put(lane, new LaneStats());
+            stats = laneStats.get(lane);
+        }
+        return stats;
+    }
+
+    // ========== Getter 메서드 ==========
+
+    @ManagedAttribute(description = "마지막 선점 건수 (전체 Lane 합계)")
+    public int getBatchSize() {
+        int total = 0;
+        for (LaneStats stats : laneStats.values()) {
+            total += stats.batchSize;
+        }
+        return total;
+    }
+
+    @ManagedAttribute(description = "마지막 확인 시점 PENDING 건수 (전체 Lane 합계)")
+    public long getPendingCount() {
+        long total = 0;
+        for (LaneStats stats : laneStats.values()) {
+            total += stats.pendingCount;
+        }
+        return total;
+    }
+
+    @ManagedAttribute(description = "Lane별 선점 건수/적체량/평균 처리 시간(ms)/실패율")
+    public String getLaneSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<String, LaneStats> entry : new TreeMap<>(laneStats).entrySet()) {
+            LaneStats stats = entry.getValue();
+            if (summary.length() > 0) {
+                summary.append(", ");
+            }
+            summary.append(entry.getKey())
+                    .append("[batch=").append(stats.batchSize)
+                    .append(", pending=").append(stats.pendingCount)
+                    .append(", avgMs=").append(Math.round(stats.avgMessageMs))
+                    .append(", failureRate=").append(String.format("%.2f", stats.failureRate))
+                    .append("]");
+        }
+        return summary.toString();
+    }
+
+    @ManagedAttribute(description = "누적 처리 건수")
+    public long getProcessedTotal() { return processedTotal.get(); }
+
+    @ManagedAttribute(description = "누적 실패 건수")
+    public long getFailedTotal() { return failedTotal.get(); }
+
+    @ManagedAttribute(description = "통합 발송으로 생략된 메일 건수 (같은 MAIL_SOURCE + 수신인 집합)")
+    public long getCoalescedTotal() { return coalescedTotal.get(); }
+
+    @ManagedAttribute(description = "상세 결과가 마지막 발송과 같아 SKIPPED 처리된 건수")
+    public long getSkippedTotal() { return skippedTotal.get(); }
+
+    @ManagedAttribute(description = "SQL_ID 격리로 쿼리 없이 연기된 건수")
+    public long getQuarantineDeferredTotal() { return quarantineDeferredTotal.get(); }
+
+    @ManagedAttribute(description = "처리 중(PROCESSING) 멈춰 PENDING으로 회수된 건수 (Lease 경과 / 노드 응답 없음)")
+    public long getReapedTotal() { return reapedTotal.get(); }
+
+    @ManagedAttribute(description = "같은 DEDUP_KEY가 처리 전이라 큐 등록을 생략한 건수")
+    public long getDedupAbsorbedTotal() { return dedupAbsorbedTotal.get(); }
+
+    @ManagedAttribute(description = "격리 중인 SQL_ID (남은 초, 마지막 사유)")
+    public Map<String, String> getQuarantinedSqlIds() {
+        SqlIdHealthTracker tracker = sqlIdHealth;
+        return (tracker != null) ? tracker.getQuarantined(System.currentTimeMillis())
+                : new TreeMap<String, String>();
+    }
+
+    @ManagedAttribute(description = "SQL_ID별 실행/실패/지연 횟수, 평균/최대 실행 시간(ms)")
+    public Map<String, String> getSqlIdStats() {
+        SqlIdHealthTracker tracker = sqlIdHealth;
+        return (tracker != null) ? tracker.getStats() : new TreeMap<String, String>();
+    }
+
+    @ManagedOperation(description = "SQL_ID 격리 수동 해제 (수정 배포 후 cooldown 대기 없이 재개)")
+    public boolean releaseQuarantine(String sqlId) {
+        SqlIdHealthTracker tracker = sqlIdHealth;
+        boolean released = tracker != null && tracker.release(sqlId, System.currentTimeMillis());
+        if (released) {
+            System.out.println("✅ SQL_ID 격리 해제: " + sqlId);
+        }
+        return released;
+    }
+
+    @ManagedAttribute(description = "예약 작업별 실행/실패/생략 횟수, 예정 대비 시작 지연(ms), 실행 시간(ms), 다음 예정 시각")
+    public Map<String, String> getJobStats() {
+        Map<String, String> result = new TreeMap<>();
+        for (ScheduledJob job : jobs.values()) {
+            result.put(job.getName(), job.getSummary());
+        }
+        return result;
+    }
+
+    @ManagedAttribute(description = "알람 규칙별 평가/발생/실패 횟수, 마지막 발생 건수, 평가 시간(ms)")
+    public Map<String, String> getRuleStats() {
+        Map<String, String> result = new TreeMap<>();
+        for (Map.Entry<String, RuleStats> entry : ruleStats.entrySet()) {
+            RuleStats stats = entry.getValue();
+            synchronized (stats) {
+                result.put(entry.getKey(), "evaluations=" + stats.evaluations
+                        + ", hits=" + stats.hits
+                        + ", failures=" + stats.failures
+                        + ", lastHitCount=" + stats.lastHitCount
+                        + ", lastMs=" + stats.lastElapsedMs
+                        + ", avgMs=" + ((stats.evaluations > 0) ? stats.totalElapsedMs / stats.evaluations : 0)
+                        + ", maxMs=" + stats.maxElapsedMs);
+            }
+        }
+        return result;
+    }
+
+    @ManagedAttribute(description = "상세 쿼리 캐시 적중 건수 (SQL_ID 재실행 생략)")
+    public long getDetailCacheHitTotal() {
+        DetailQueryCache cache = detailQueryCache;
+        return (cache != null) ? cache.getHitCount() : 0L;
+    }
+
+    @ManagedAttribute(description = "상세 쿼리 캐시 미스 건수 (SQL_ID 실행)")
+    public long getDetailCacheMissTotal() {
+        DetailQueryCache cache = detailQueryCache;
+        return (cache != null) ? cache.getMissCount() : 0L;
+    }
+
+    public int getBatchSize(String lane) { return getLaneStats(lane).batchSize; }
+
+    public long getPendingCount(String lane) { return getLaneStats(lane).pendingCount; }
+
+    /**
+     * Lane별 Gauge 값
+     */
+    private static class LaneStats {
+        volatile int batchSize;
+        volatile long pendingCount;
+        volatile double avgMessageMs;
+        volatile double failureRate;
+        volatile long lastBatchElapsedMs;
+    }
+
+    /**
+     * 알람 규칙별 평가 통계 (RuleStats 객체 단위로 동기화)
+     */
+    private static class RuleStats {
+        long evaluations;
+        long hits;
+        long failures;
+        long lastHitCount;
+        long lastElapsedMs;
+        long maxElapsedMs;
+        long totalElapsedMs;
+    }
+}
@@ -0,0 +1,207 @@
+package com.yoc.wms.mail.service;
+
+import com.yoc.wms.mail.config.AlarmQueueConfig;
+import com.yoc.wms.mail.dao.MailDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 노드 Heartbeat + 처리 중 메시지 회수 (Reaper)
+ *
+ * 노드가 발송 중 죽거나 sendWithRetry가 SMTP에서 멈추면 PROCESSING 행을 찾거나 되돌릴 방법이 없었습니다.
+ * - Heartbeat: MAIL_NODE_HEARTBEAT.LAST_HEARTBEAT를 주기적으로 갱신
+ * - Reaper: 처리 시한(Lease)이 지났거나 소유 노드의 Heartbeat가 끊긴 PROCESSING 행을 PENDING으로 회수
+ *   (RETRY_COUNT 증가, CLAIM_TOKEN 초기화 → 원래 노드의 늦은 상태 업데이트는 무시)
+ * - 회수로 시도 횟수를 모두 쓴 행(RETRY_COUNT + 1 >= MAX_RETRY_COUNT)은 PENDING 대신 Dead Letter로 이동
+ *   (발송 중 노드를 죽이는 메시지가 무한히 재선점되지 않도록)
+ *
+ * 살아있는 노드의 Lease는 Worker가 발송 시작 직전에 연장합니다 (AlarmMailService.renewClaims).
+ *
+ * 모든 노드가 Reaper를 실행해도 조건부 UPDATE이므로 같은 행을 두 번 회수하지 않습니다.
+ * 1초 Tick에서 Heartbeat/회수 주기를 직접 판단합니다.
+ *
+ * 예약 작업 (v3.20.0):
+ * - tick(), cleanupCompletedQueue()는 AlarmJobScheduler가 작업별 전용 스레드에서 호출
+ *   (Producer/Consumer가 느려져도 Heartbeat가 밀려 다른 노드에 회수되지 않도록)
+ *
+ *  @author 김찬기
+ *  @since v3.18.0
+ */
+@Service
+public class AlarmQueueReaper {
+
+    @Autowired
+    private MailDao mailDao;
+
+    @Autowired
+    private AlarmQueueConfig queueConfig;
+
+    @Autowired
+    private AlarmQueueMetrics queueMetrics;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private volatile long lastHeartbeatAt;
+    private volatile long lastReapAt;
+
+    /**
+     * 스케줄 Tick (AlarmJobScheduler, 기본 1초마다)
+     */
+    public void tick() {
+        long now = System.currentTimeMillis();
+        if (isDue(lastHeartbeatAt, queueConfig.getHeartbeatIntervalMs(), now)) {
+            lastHeartbeatAt = now;
+            heartbeat();
+        }
+        if (isDue(lastReapAt, queueConfig.getReaperIntervalMs(), now)) {
+            lastReapAt = now;
+            reap();
+        }
+    }
+
+    /**
+     * 이 노드의 Heartbeat 갱신 (행이 없으면 등록)
+     */
+    public void heartbeat() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("NODE_ID", queueConfig.getNodeId());
+        params.put("HOST_NAME", resolveHostName());
+        try {
+            if (mailDao.update("alarm.updateNodeHeartbeat", params) == 0) {
+                mailDao.insert("alarm.insertNodeHeartbeat", params);
+            }
+        } catch (Exception e) {
+            // DB 일시 장애: 다음 주기에 재시도 (dead-seconds 안에 복구되면 영향 없음)
+            System.err.println("⚠️ 노드 Heartbeat 갱신 실패: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 멈춘 처리 회수
+     *
+     * 1. alarm.reapStuckQueue → 시도 횟수가 남은 행은 PENDING
+     * 2. alarm.failExhaustedStuckQueue → 시도 횟수를 모두 쓴 행은 FAILED 후 Dead Letter 이동 (단일 트랜잭션)
+     *
+     * @return 회수한 행 수 (PENDING + Dead Letter)
+     */
+    public int reap() {
+        String reason = "처리 중 회수 (처리 시한 경과 또는 노드 응답 없음)";
+        Map<String, Object> params = new HashMap<>();
+        params.put("DEAD_SECONDS", queueConfig.getHeartbeatDeadSeconds());
+        params.put("MAX_RETRY_COUNT", AlarmMailService.MAX_RETRY_COUNT);
+        params.put("ERROR_MESSAGE", reason);
+        params.put("FAILURE_ENTRY", buildReapEntry(new Date(), queueConfig.getNodeId(), reason));
+        params.put("RETENTION_HOURS", queueConfig.getHeartbeatRetentionHours());
+
+        try {
+            int reaped = mailDao.update("alarm.reapStuckQueue", params);
+            if (reaped > 0) {
+                System.err.println("♻️ 처리 중 메시지 회수: " + reaped + "건 → PENDING");
+            }
+            int deadLettered = moveExhaustedToDeadLetter(params);
+            if (deadLettered > 0) {
+                System.err.println("❌ 처리 중 메시지 회수: " + deadLettered + "건 → Dead Letter (최대 "
+                        + AlarmMailService.MAX_RETRY_COUNT + "회 시도)");
+            }
+            if (reaped + deadLettered > 0) {
+                queueMetrics.recordReaped(reaped + deadLettered);
+            }
+            mailDao.delete("alarm.deleteStaleNodeHeartbeat", params);
+            return reaped + deadLettered;
+        } catch (Exception e) {
+            System.err.println("⚠️ 처리 중 메시지 회수 실패: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * 시도 횟수를 모두 쓴 처리 중 행 Dead Letter 이동 (단일 트랜잭션)
+     *
+     * 이번 회수분만 옮기도록 FAILED로 바꿀 때 CLAIM_TOKEN에 회수 토큰을 기록합니다
+     * (여러 노드의 Reaper가 동시에 실행되어도 조건부 UPDATE라 같은 행을 두 번 옮기지 않음).
+     *
+     * @return 이동 건수
+     */
+    private int moveExhaustedToDeadLetter(final Map<String, Object> params) {
+        params.put("REAP_TOKEN", UUID.randomUUID().toString());
+        Integer moved = new TransactionTemplate(transactionManager).execute(new TransactionCallback<Integer>() {
+            @Override
+            public Integer doInTransaction(TransactionStatus status) {
+                int failed = mailDao.update("alarm.failExhaustedStuckQueue", params);
+                if (failed > 0) {
+                    mailDao.insert("alarm.insertReapedDeadLetters", params);
+                    mailDao.delete("alarm.deleteReapedQueue", params);
+                }
+                return failed;
+            }
+        });
+        return moved != null ? moved : 0;
+    }
+
+    /**
+     * 완료된 큐 정리 (SUCCESS/FAILED/SKIPPED 중 7일 경과 행 삭제)
+     *
+     * 기존 deleteCompletedQueue는 호출하는 작업이 없어 MAIL_QUEUE에 완료 행이 계속 누적되었습니다.
+     * 모든 노드가 실행해도 삭제 대상이 겹칠 뿐 결과는 같습니다.
+     *
+     * @return 삭제한 행 수
+     * @since v3.20.0
+     */
+    public int cleanupCompletedQueue() {
+        try {
+            int deleted = mailDao.delete("alarm.deleteCompletedQueue", null);
+            System.out.println("🧹 완료된 큐 정리: " + deleted + "건 삭제");
+            return deleted;
+        } catch (Exception e) {
+            System.err.println("⚠️ 완료된 큐 정리 실패: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    // ==================== Pure Functions (단위 테스트 대상) ====================
+
+    /**
+     * 주기 도래 여부 (Pure Function)
+     *
+     * @param lastRunAt 마지막 실행 시각 (0이면 미실행 → 즉시 실행)
+     * @param intervalMs 주기 (0 이하면 비활성)
+     */
+    public static boolean isDue(long lastRunAt, long intervalMs, long now) {
+        if (intervalMs <= 0) {
+            return false;
+        }
+        return lastRunAt == 0 || now - lastRunAt >= intervalMs;
+    }
+
+    /**
+     * 회수 이력 한 줄 생성 (Pure Function)
+     *
+     * Format: "yyyy-MM-dd HH:mm:ss [회수] node=회수한 노드ID 사유\n" (FAILURE_HISTORY 누적)
+     */
+    public static String buildReapEntry(Date reapedAt, String nodeId, String reason) {
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(reapedAt)
+                + " [회수] node=" + nodeId
+                + " " + reason
+                + "\n";
+    }
+
+    private String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
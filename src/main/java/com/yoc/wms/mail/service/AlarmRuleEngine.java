@@ -0,0 +1,300 @@
+package com.yoc.wms.mail.service;
+
+import com.yoc.wms.mail.config.AlarmQueueConfig;
+import com.yoc.wms.mail.dao.CappedRows;
+import com.yoc.wms.mail.dao.MailDao;
+import com.yoc.wms.mail.dao.SqlProfileRegistry;
+import com.yoc.wms.mail.util.MailUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 알람 규칙 엔진 (Producer)
+ *
+ * 기존 Producer는 Oracle Procedure라 규칙별 실행 시간 확인, 병렬 평가, 노드 확장이 불가능했습니다.
+ * MAIL_ALARM_RULE의 규칙을 주기마다 평가해 발생한 규칙만 MAIL_QUEUE에 등록합니다.
+ *
+ * Flow (AlarmMailService.collectAlarms()에서 호출):
+ * 1. alarm.selectDueAlarmRules → 사용 중이고 CHECK_INTERVAL_MINUTES가 지난 규칙 (DB 시각 기준)
+ * 2. alarm.claimAlarmRule → LAST_CHECKED_AT 조건부 UPDATE, 1건 반영된 노드만 평가 (여러 노드 중복 등록 방지)
+ * 3. 조건 쿼리(CONDITION_SQL_ID) 병렬 평가 (전용 거부 모드 Pool, SQL_ID별 쿼리 타임아웃 적용)
+ *    - 결과 CNT 컬럼(없으면 행 수)이 1 이상이면 발생
+ * 4. 발생 규칙을 AlarmQueue.enqueue()로 일괄 등록 (JDBC Batch 1회 + Consumer 깨우기, v3.23.0)
+ *    - DEDUP_KEY = MAIL_SOURCE: 같은 알람이 아직 처리 전(PENDING/PROCESSING)이면 새 행을 만들지 않음 (v3.22.0)
+ *
+ * 실패 처리 (alarm.releaseAlarmRule로 LAST_CHECKED_AT을 선점 전 값으로 되돌려 다음 주기에 재평가):
+ * - 조건 쿼리 실패/시간 초과: 해당 규칙만 제외
+ * - 평가 Pool 포화: 호출 스레드에서 평가하지 않고(eval-timeout-ms 미적용) 해당 규칙만 제외
+ * - 일괄 등록 실패: 이번 사이클 발생분 전체 미등록 (로그)
+ *
+ * 지표: 규칙별 평가 시간/발생/실패 → AlarmQueueMetrics.RuleStats
+ *
+ *  @author 김찬기
+ *  @since v3.21.0
+ */
+@Service
+public class AlarmRuleEngine implements InitializingBean, DisposableBean {
+
+    @Autowired
+    private MailDao mailDao;
+
+    @Autowired
+    private AlarmQueueConfig queueConfig;
+
+    @Autowired
+    private AlarmQueueMetrics queueMetrics;
+
+    @Autowired
+    private SqlProfileRegistry sqlProfileRegistry;
+
+    @Autowired
+    private AlarmQueue alarmQueue;
+
+    /** 평가 Pool 대기 큐 = 스레드 수 × 이 값 */
+    private static final int RULE_QUEUE_FACTOR = 10;
+
+    /**
+     * 조건 쿼리 병렬 평가 Pool (거부 모드)
+     *
+     * 호출 스레드가 직접 평가하면 eval-timeout-ms가 적용되지 않으므로 넘치는 규칙은 선점 취소 후 다음 주기에 평가합니다.
+     * 대기 시간도 eval-timeout-ms에 포함됩니다.
+     */
+    private AlarmWorkerPool evalPool;
+
+    @Override
+    public void afterPropertiesSet() {
+        evalPool = new AlarmWorkerPool("alarm-rule", queueConfig.getRulePoolSize(),
+                queueConfig.getRulePoolSize() * RULE_QUEUE_FACTOR, true);
+    }
+
+    @Override
+    public void destroy() {
+        if (evalPool != null) {
+            evalPool.shutdown(queueConfig.getShutdownDrainTimeoutMs());
+        }
+    }
+
+    /**
+     * 규칙 평가 1 사이클
+     *
+     * @return MAIL_QUEUE 등록 건수
+     */
+    public int collect() {
+        long cycleStart = System.currentTimeMillis();
+        List<Map<String, Object>> dueRules;
+        try {
+            dueRules = mailDao.selectList("alarm.selectDueAlarmRules", null);
+        } catch (Exception e) {
+            System.err.println("⚠️ 알람 규칙 조회 실패: " + e.getMessage());
+            return 0;
+        }
+        if (dueRules == null || dueRules.isEmpty()) {
+            return 0;
+        }
+
+        // 1. 평가 선점 후 병렬 평가 제출
+        final List<Map<String, Object>> claimedRules = new ArrayList<>();
+        List<Future<RuleResult>> futures = new ArrayList<>();
+        for (final Map<String, Object> rule : dueRules) {
+            if (!claimRule(rule)) {
+                continue;  // 다른 노드가 먼저 평가
+            }
+            Future<RuleResult> future;
+            try {
+                future = evalPool.submit(new Callable<RuleResult>() {
+                    @Override
+                    public RuleResult call() {
+                        return evaluate(rule);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                System.err.println("⚠️ 알람 규칙 평가 Pool 포화 [" + rule.get("MAIL_SOURCE") + "]: 다음 주기에 평가");
+                releaseRule(rule);
+                continue;
+            }
+            claimedRules.add(rule);
+            futures.add(future);
+        }
+
+        // 2. 평가 결과 수집 (사이클 전체 eval-timeout-ms 안에서)
+        long deadline = cycleStart + queueConfig.getRuleEvalTimeoutMs();
+        List<Map<String, Object>> queueRows = new ArrayList<>();
+        List<Map<String, Object>> firedRules = new ArrayList<>();
+        int failedCount = 0;
+        for (int i = 0; i < claimedRules.size(); i++) {
+            Map<String, Object> rule = claimedRules.get(i);
+            String mailSource = (String) rule.get("MAIL_SOURCE");
+            Future<RuleResult> future = futures.get(i);
+            try {
+                RuleResult result = future.get(Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                queueMetrics.recordRuleEvaluation(mailSource, result.elapsedMs, result.hitCount, false);
+                System.out.println("  - 알람 규칙 [" + mailSource + "]: "
+                        + (result.hitCount > 0 ? result.hitCount + "건 발생" : "미발생") + " (" + result.elapsedMs + "ms)");
+                if (result.hitCount > 0) {
+                    queueRows.add(buildQueueRow(rule, result.hitCount));
+                    firedRules.add(rule);
+                }
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                releaseRule(rule);
+                failedCount++;
+                queueMetrics.recordRuleEvaluation(mailSource, System.currentTimeMillis() - cycleStart, 0L, true);
+                System.err.println("⚠️ 알람 규칙 평가 시간 초과 [" + mailSource + "]: "
+                        + queueConfig.getRuleEvalTimeoutMs() + "ms");
+            } catch (ExecutionException e) {
+                releaseRule(rule);
+                failedCount++;
+                queueMetrics.recordRuleEvaluation(mailSource, System.currentTimeMillis() - cycleStart, 0L, true);
+                System.err.println("⚠️ 알람 규칙 평가 실패 [" + mailSource + "]: " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.err.println("알람 규칙 평가 대기 중단 (interrupt)");
+                releaseRules(firedRules);
+                for (int j = i; j < claimedRules.size(); j++) {
+                    futures.get(j).cancel(true);
+                    releaseRule(claimedRules.get(j));
+                }
+                return 0;
+            }
+        }
+
+        // 3. 발생 규칙 일괄 등록 (처리 전 같은 알람은 흡수)
+        int inserted = 0;
+        int absorbed = 0;
+        try {
+            inserted = alarmQueue.enqueue(queueRows);
+            absorbed = Math.max(0, queueRows.size() - inserted);
+        } catch (Exception e) {
+            System.err.println("❌ 알람 큐 일괄 등록 실패 (" + queueRows.size() + "건, 다음 주기에 재평가): " + e.getMessage());
+            releaseRules(firedRules);
+        }
+
+        System.out.println("=== 알람 규칙 평가: " + claimedRules.size() + "건 (발생 " + queueRows.size()
+                + "건, 실패 " + failedCount + "건, 큐 등록 " + inserted + "건, 중복 흡수 " + absorbed + "건, "
+                + (System.currentTimeMillis() - cycleStart) + "ms) ===");
+        return inserted;
+    }
+
+    /**
+     * 규칙 평가 선점 (LAST_CHECKED_AT 조건부 UPDATE)
+     *
+     * @return 이 노드가 평가해야 하면 true
+     */
+    private boolean claimRule(Map<String, Object> rule) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("MAIL_SOURCE", rule.get("MAIL_SOURCE"));
+        try {
+            return mailDao.update("alarm.claimAlarmRule", params) == 1;
+        } catch (Exception e) {
+            System.err.println("⚠️ 알람 규칙 선점 실패 [" + rule.get("MAIL_SOURCE") + "]: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 규칙 평가 선점 취소 (LAST_CHECKED_AT을 선점 전 값으로 복원)
+     *
+     * 평가/등록하지 못한 규칙이 CHECK_INTERVAL_MINUTES 동안 누락되지 않도록 다음 주기에 다시 평가합니다.
+     * 복원에 실패하면 로그만 남기고 CHECK_INTERVAL_MINUTES 후 평가됩니다.
+     */
+    private void releaseRule(Map<String, Object> rule) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("MAIL_SOURCE", rule.get("MAIL_SOURCE"));
+        params.put("PREV_CHECKED_AT", rule.get("LAST_CHECKED_AT"));
+        try {
+            mailDao.update("alarm.releaseAlarmRule", params);
+        } catch (Exception e) {
+            System.err.println("⚠️ 알람 규칙 선점 취소 실패 [" + rule.get("MAIL_SOURCE") + "]: " + e.getMessage());
+        }
+    }
+
+    private void releaseRules(List<Map<String, Object>> rules) {
+        for (Map<String, Object> rule : rules) {
+            releaseRule(rule);
+        }
+    }
+
+    /**
+     * 조건 쿼리 실행 (결과는 1행만 보관, 전체 행 수는 끝까지 셈)
+     */
+    private RuleResult evaluate(Map<String, Object> rule) {
+        String conditionSqlId = (String) rule.get("CONDITION_SQL_ID");
+        Map<String, Object> params = new HashMap<>();
+        params.put("MAIL_SOURCE", rule.get("MAIL_SOURCE"));
+
+        long start = System.currentTimeMillis();
+        CappedRows rows = mailDao.selectCapped(conditionSqlId, params, 1, sqlProfileRegistry.get(conditionSqlId));
+        return new RuleResult(resolveHitCount(rows, rows.getTotalCount()), System.currentTimeMillis() - start);
+    }
+
+    // ==================== Pure Functions (단위 테스트 대상) ====================
+
+    /**
+     * 발생 건수 판정 (Pure Function)
+     *
+     * - 첫 행에 숫자 CNT 컬럼이 있으면 그 값 (SELECT COUNT(*) AS CNT 형태)
+     * - 없으면 조건 쿼리 결과 행 수
+     *
+     * @param rows 조건 쿼리 결과 (첫 행만 사용)
+     * @param totalCount 조건 쿼리 전체 행 수
+     */
+    public static long resolveHitCount(List<Map<String, Object>> rows, long totalCount) {
+        if (rows != null && !rows.isEmpty() && rows.get(0) != null) {
+            for (Map.Entry<String, Object> entry : rows.get(0).entrySet()) {
+                if ("CNT".equalsIgnoreCase(entry.getKey()) && entry.getValue() instanceof Number) {
+                    return ((Number) entry.getValue()).longValue();
+                }
+            }
+        }
+        return totalCount;
+    }
+
+    /**
+     * 규칙 → MAIL_QUEUE INSERT 파라미터 (Pure Function)
+     *
+     * SECTION_CONTENT의 {count}는 발생 건수로 치환합니다.
+     * DEDUP_KEY는 MAIL_SOURCE (규칙당 처리 전 알람 1건, v3.22.0)
+     */
+    public static Map<String, Object> buildQueueRow(Map<String, Object> rule, long hitCount) {
+        Map<String, Object> row = new HashMap<>();
+        String[] columns = {
+                "MAIL_SOURCE", "ALARM_NAME", "SEVERITY", "SQL_ID", "SECTION_TITLE",
+                "RECIPIENT_USER_IDS", "RECIPIENT_GROUPS", "COLUMN_ORDER",
+                "EXCEL_SQL_ID", "EXCEL_COLUMN_ORDER", "EXCEL_FILE_NAME"
+        };
+        for (String column : columns) {
+            row.put(column, rule.get(column));
+        }
+        row.put("DEDUP_KEY", rule.get("MAIL_SOURCE"));
+        Object content = rule.get("SECTION_CONTENT");  // Oracle CLOB → String 변환
+        row.put("SECTION_CONTENT", (content != null)
+                ? MailUtils.convertToString(content).replace("{count}", String.valueOf(hitCount)) : null);
+        return row;
+    }
+
+    /**
+     * 규칙 1건 평가 결과
+     */
+    private static class RuleResult {
+        final long hitCount;
+        final long elapsedMs;
+
+        RuleResult(long hitCount, long elapsedMs) {
+            this.hitCount = hitCount;
+            this.elapsedMs = elapsedMs;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.yoc.wms.mail.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 알람 메시지 병렬 처리용 Worker Pool
+ *
+ * 설계:
+ * - 고정 크기 ThreadPoolExecutor + 유한 큐 (ArrayBlockingQueue)
+ * - 큐가 가득 차면 CallerRunsPolicy → 호출 스레드가 직접 처리 (메시지 유실 없음, 자연스러운 backpressure)
+ * - 거부 모드(rejectWhenFull)면 AbortPolicy → RejectedExecutionException (호출 스레드가 실행하면 안 되는 작업용, v3.14.0)
+ * - runAll()은 제출한 작업이 모두 끝날 때까지 대기 → 한 배치가 끝나야 다음 선점 진행
+ *
+ * Spring 3.1.2 호환:
+ * - ThreadPoolTaskExecutor 대신 JDK Executor 직접 사용 (Bean 설정 불필요)
+ * - 생명주기는 소유자(AlarmMailService)가 관리
+ *
+ *  @author 김찬기
+ *  @since v3.2.0
+ */
+public class AlarmWorkerPool {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param name 스레드 이름 접두사 (예: alarm-worker)
+     * @param workerCount Worker 스레드 수 (1 이상)
+     * @param queueCapacity 대기 큐 크기 (1 이상)
+     */
+    public AlarmWorkerPool(final String name, int workerCount, int queueCapacity) {
+        this(name, workerCount, queueCapacity, false);
+    }
+
+    /**
+     * @param name 스레드 이름 접두사 (예: alarm-fetch)
+     * @param workerCount Worker 스레드 수 (1 이상)
+     * @param queueCapacity 대기 큐 크기 (1 이상)
+     * @param rejectWhenFull true면 큐 포화 시 호출 스레드 실행 대신 RejectedExecutionException
+     *                       (호출자가 timeout을 걸고 기다리는 조회 등, 호출 스레드에서 실행되면 timeout이 적용되지 않는 작업)
+     * @since v3.14.0
+     */
+    public AlarmWorkerPool(final String name, int workerCount, int queueCapacity, boolean rejectWhenFull) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("workerCount는 1 이상이어야 합니다: " + workerCount);
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity는 1 이상이어야 합니다: " + queueCapacity);
+        }
+
+        this.name = name;
+        this.executor = new ThreadPoolExecutor(
+                workerCount,
+                workerCount,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity),
+                new ThreadFactory() {
+                    private final AtomicInteger sequence = new AtomicInteger(1);
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, name + "-" + sequence.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                },
+                rejectWhenFull
+                        ? new ThreadPoolExecutor.AbortPolicy()
+                        : new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    /**
+     * 작업 일괄 실행 후 전체 완료까지 대기
+     *
+     * 개별 작업의 예외는 로그만 남기고 나머지 작업 결과에 영향을 주지 않습니다.
+     * (메시지별 성공/실패 처리는 작업 내부에서 완료되어야 함)
+     *
+     * @param tasks 실행할 작업 목록
+     * @return 예외 없이 완료된 작업 수
+     */
+    public int runAll(List<? extends Runnable> tasks) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (Runnable task : tasks) {
+            futures.add(executor.submit(task));
+        }
+
+        int completed = 0;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+                completed++;
+            } catch (ExecutionException e) {
+                System.err.println("[" + name + "] 작업 실행 오류: " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.err.println("[" + name + "] 작업 대기 중단 (interrupt)");
+                break;
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * 작업 비동기 실행 (완료 대기 없음, v3.6.0)
+     *
+     * @param task 실행할 작업 (예외는 작업 내부에서 처리해야 함)
+     */
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * 결과를 반환하는 작업 비동기 실행 (v3.14.0)
+     *
+     * 큐가 가득 차면 CallerRunsPolicy로 호출 스레드가 직접 실행하므로 반환된 Future는 이미 완료 상태입니다.
+     * 거부 모드 Pool은 실행하지 않고 RejectedExecutionException을 던집니다.
+     *
+     * @param task 실행할 작업
+     * @return 작업 결과 Future (예외는 ExecutionException으로 전달)
+     * @throws java.util.concurrent.RejectedExecutionException 거부 모드 Pool의 큐 포화 또는 종료 후 제출
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return executor.submit(task);
+    }
+
+    /**
+     * 종료 (진행 중인 작업 완료 대기 후 강제 종료)
+     */
+    public void shutdown() {
+        shutdown(TimeUnit.SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS));
+    }
+
+    /**
+     * 종료 (최대 timeoutMs 동안 진행 중/대기 중인 작업 완료 대기, 초과 시 강제 종료, v3.19.0)
+     *
+     * 새 작업은 즉시 거부됩니다. 강제 종료 시 실행 중인 스레드에 interrupt를 보내고 대기 큐의 작업은 버립니다.
+     *
+     * @param timeoutMs 최대 대기 시간 (0 이하면 대기 없이 강제 종료)
+     * @return 시간 안에 모든 작업이 끝났으면 true
+     */
+    public boolean shutdown(long timeoutMs) {
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(Math.max(0L, timeoutMs), TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Runnable> dropped = executor.shutdownNow();
+        System.err.println("[" + name + "] 종료 대기 시간 초과 → 강제 종료 (실행 중 "
+                + executor.getActiveCount() + "건, 대기 " + dropped.size() + "건 폐기)");
+        return false;
+    }
+
+    public int getWorkerCount() { return executor.getCorePoolSize(); }
+
+    public int getActiveCount() { return executor.getActiveCount(); }
+}
@@ -0,0 +1,64 @@
+package com.yoc.wms.mail.service;
+
+import com.yoc.wms.mail.domain.QueueMessage;
+import com.yoc.wms.mail.domain.Recipient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 1건의 메일로 통합 발송할 큐 메시지 묶음
+ *
+ * 같은 MAIL_SOURCE + SQL_ID + 수신인 집합으로 통합 구간(coalesce.window-seconds) 안에 등록된 메시지를 묶습니다.
+ * 통합하지 않은 메시지는 1건짜리 묶음입니다.
+ *
+ * - 대표 메시지: 가장 최근 등록된 메시지 (제목/본문에 사용, 상세 데이터는 발송 시점에 조회)
+ * - 발송 결과(SUCCESS/FAILED)는 묶음의 모든 QUEUE_ID에 기록
+ *
+ *  @author 김찬기
+ *  @since v3.11.0
+ */
+public class CoalescedAlarm {
+
+    private final List<QueueMessage> messages;
+
+    /** 통합 단계에서 조회한 수신인 (NULL이면 발송 시 조회) */
+    private final List<Recipient> recipients;
+
+    /**
+     * @param messages 묶을 메시지 (REG_DATE 오름차순, 1건 이상)
+     * @param recipients 조회된 수신인 (NULL 가능)
+     */
+    public CoalescedAlarm(List<QueueMessage> messages, List<Recipient> recipients) {
+        if (messages == null || messages.isEmpty()) {
+            throw new IllegalArgumentException("messages는 1건 이상이어야 합니다");
+        }
+        this.messages = Collections.unmodifiableList(new ArrayList<>(messages));
+        this.recipients = recipients;
+    }
+
+    /**
+     * 대표 메시지 (가장 최근 등록)
+     */
+    public QueueMessage getRepresentative() {
+        return messages.get(messages.size() - 1);
+    }
+
+    /**
+     * 최초 메시지 (가장 먼저 등록)
+     */
+    public QueueMessage getFirst() {
+        return messages.get(0);
+    }
+
+    public boolean isCoalesced() {
+        return messages.size() > 1;
+    }
+
+    public int size() { return messages.size(); }
+
+    public List<QueueMessage> getMessages() { return messages; }
+
+    public List<Recipient> getRecipients() { return recipients; }
+}
@@ -0,0 +1,212 @@
+package com.yoc.wms.mail.service;
+
+import com.yoc.wms.mail.dao.CappedRows;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 알람 상세 쿼리(SQL_ID) 결과 캐시
+ *
+ * 같은 배치에 같은 SQL_ID가 여러 건 선점되면(예: 그룹만 다른 alarm.selectLowStockDetail 10건)
+ * 쿼리는 한 번만 실행하고 결과를 공유합니다.
+ *
+ * 설계:
+ * - Key: SQL_ID + 파라미터 (buildCacheKey)
+ * - 값: FutureTask → Worker 여러 개가 동시에 같은 Key를 요청해도 첫 요청만 실행, 나머지는 결과 대기
+ * - 범위: 배치(beginBatch ~ endBatch) 단위, ttlMs > 0이면 배치가 끝나도 TTL 동안 다음 폴링에서 재사용
+ * - 쿼리 실패 결과는 캐시하지 않음 (같은 배치의 대기 중인 요청은 같은 예외, 이후 요청은 재실행)
+ * - 공유 작업은 취소하지 않음: 대기 중인 요청이 interrupt되면 그 요청만 InterruptedException,
+ *   실행 중인 쿼리와 다른 대기 요청은 영향 없음 (호출자도 조회 Future를 interrupt 없이 취소)
+ *
+ * 반환 목록은 여러 메시지가 공유하므로 수정 불가(unmodifiableList)입니다.
+ * (v3.15.0) CappedRows는 이미 수정 불가이며 전체 건수를 함께 전달해야 하므로 감싸지 않고 그대로 반환합니다.
+ *
+ *  @author 김찬기
+ *  @since v3.9.0
+ */
+public class DetailQueryCache {
+
+    private final long ttlMs;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong batchSequence = new AtomicLong();
+
+    // ==================== Counter ====================
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * @param ttlMs 배치 종료 후 결과 재사용 시간 (ms, 0 이하면 배치 안에서만 재사용)
+     */
+    public DetailQueryCache(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * 배치 시작 (캐시 범위 식별자 발급)
+     *
+     * @return 배치 ID (get(), endBatch()에 전달)
+     */
+    public long beginBatch() {
+        return batchSequence.incrementAndGet();
+    }
+
+    /**
+     * 배치 종료
+     *
+     * 이 배치가 실행한 결과 중 TTL 재사용 대상이 아닌 항목과 TTL이 지난 항목을 제거합니다.
+     */
+    public void endBatch(long batchId) {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            boolean ownBatch = entry.batchId == batchId;
+            if ((ownBatch && ttlMs <= 0) || (ttlMs > 0 && isExpired(entry, now))) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 상세 쿼리 결과 조회 (캐시에 없으면 loader 실행)
+     *
+     * @param sqlId MyBatis SQL ID
+     * @param params 쿼리 파라미터 (NULL 가능)
+     * @param batchId beginBatch()로 발급받은 배치 ID
+     * @param loader 실제 쿼리 실행 (캐시 미스 시 1회만 호출)
+     * @return 쿼리 결과 (수정 불가, NULL이면 NULL)
+     * @throws InterruptedException 결과 대기 중 이 스레드가 interrupt된 경우 (공유 작업은 계속 실행)
+     * @throws Exception loader가 던진 예외
+     */
+    public List<Map<String, Object>> get(String sqlId, Map<String, Object> params, long batchId,
+                                         Callable<List<Map<String, Object>>> loader) throws Exception {
+        // TTL 미사용 시 배치별 Key → 동시에 실행 중인 다른 Lane 배치의 항목과 섞이지 않음
+        String key = (ttlMs > 0) ? buildCacheKey(sqlId, params) : batchId + "#" + buildCacheKey(sqlId, params);
+        long now = System.currentTimeMillis();
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.batchId != batchId && isExpired(entry, now)) {
+            entries.remove(key, entry);
+            entry = null;
+        }
+
+        boolean loaded = false;
+        if (entry == null) {
+            Entry created = new Entry(batchId, now, new FutureTask<List<Map<String, Object>>>(loader));
+            Entry existing = entries.putIfAbsent(key, created);
+            if (existing == null) {
+                entry = created;
+                created.task.run();
+                loaded = true;
+            } else {
+                entry = existing;
+            }
+        }
+
+        if (loaded) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+
+        try {
+            List<Map<String, Object>> result = entry.task.get();
+            if (result == null || result instanceof CappedRows) {
+                return result;
+            }
+            return Collections.unmodifiableList(result);
+        } catch (ExecutionException e) {
+            entries.remove(key, entry);
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    // ===== Pure Functions (단위 테스트 대상) =====
+
+    /**
+     * 캐시 Key 생성 (Pure Function)
+     *
+     * 파라미터는 Key 순서와 무관하도록 정렬하여 붙입니다.
+     * Date 값은 toString()이 초 단위까지만 표시하므로 epoch ms(Timestamp는 나노초 포함)로 붙입니다.
+     * (같은 초 안의 서로 다른 WATERMARK가 같은 Key가 되어 TTL 재사용 시 새 행을 건너뛰지 않도록)
+     *
+     * Example:
+     *   ("alarm.selectLowStockDetail", null) → "alarm.selectLowStockDetail"
+     *   ("alarm.selectUsersByGroup", {GROUP=ADM}) → "alarm.selectUsersByGroup|{GROUP=ADM}"
+     *   ("alarm.selectOverdueOrdersDetail", {WATERMARK=Date}) → "alarm.selectOverdueOrdersDetail|{WATERMARK=Date(1700000000123)}"
+     */
+    static String buildCacheKey(String sqlId, Map<String, Object> params) {
+        if (params == null || params.isEmpty()) {
+            return sqlId;
+        }
+        StringBuilder key = new StringBuilder(sqlId).append("|{");
+        boolean first = true;
+        for (Map.Entry<String, Object> param : new TreeMap<>(params).entrySet()) {
+            if (!first) {
+                key.append(", ");
+            }
+            first = false;
+            key.append(param.getKey()).append('=').append(toKeyValue(param.getValue()));
+        }
+        return key.append('}').toString();
+    }
+
+    private static String toKeyValue(Object value) {
+        if (value instanceof Timestamp) {
+            return "Date(" + ((Timestamp) value).getTime() + "." + ((Timestamp) value).getNanos() + ")";
+        }
+        if (value instanceof Date) {
+            return "Date(" + ((Date) value).getTime() + ")";
+        }
+        return String.valueOf(value);
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.loadedAt >= ttlMs;
+    }
+
+    // ========== Getter 메서드 ==========
+
+    public long getTtlMs() { return ttlMs; }
+
+    public long getHitCount() { return hitCount.get(); }
+
+    public long getMissCount() { return missCount.get(); }
+
+    public int size() { return entries.size(); }
+
+    /**
+     * 캐시 항목 (쿼리를 실행한 배치 ID, 실행 시각, 결과)
+     */
+    private static class Entry {
+        final long batchId;
+        final long loadedAt;
+        final FutureTask<List<Map<String, Object>>> task;
+
+        Entry(long batchId, long loadedAt, FutureTask<List<Map<String, Object>>> task) {
+            this.batchId = batchId;
+            this.loadedAt = loadedAt;
+            this.task = task;
+        }
+    }
+}
@@ -16,7 +16,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.mail.internet.MimeMessage;
 import jakarta.mail.util.ByteArrayDataSource;
@@ -70,6 +69,11 @@ public class MailService {
      * - REQUIRES_NEW 없이도 로그 영속성 보장 (단순한 트랜잭션)
      * - 예외를 잡아서 false로 변환 → 호출자에게 제어권 전달
      *
+     * Why no @Transactional (v3.3.0):
+     * - 재시도 대기(5/10/20초)와 SMTP I/O 동안 DB 커넥션을 점유하지 않음
+     * - 로그 INSERT/UPDATE는 각각 즉시 commit (단일 문장이라 트랜잭션 불필요)
+     * - 호출자(AlarmMailService)는 발송 결과만 받아 짧은 트랜잭션으로 큐 상태 업데이트
+     *
      * Why synchronous (v2.2.0):
      * - @Async 제거 → 큐 상태와 실제 발송 상태 일치 보장
      * - AlarmMailService → sendMail() → updateQueueSuccess() 순차 실행
@@ -88,8 +92,8 @@ public class MailService {
      * @throws ValueChainException Validation 실패 시 (수신인 null/empty/format)
      * @since v2.2.0 (@Async 제거, 동기 처리)
      * @since v2.3.0 (void → boolean 반환, Railway Oriented)
+     * @since v3.3.0 (@Transactional 제거, SMTP I/O를 트랜잭션 밖에서 수행)
      */
-    @Transactional
     public boolean sendMail(MailRequest request) {
         // 1. 수신인 검증 (예외 발생 시 그대로 throw - 프로그래머 오류)
         MailUtils.validateRecipients(request.getRecipients());
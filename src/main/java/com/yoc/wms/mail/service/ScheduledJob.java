@@ -0,0 +1,249 @@
+package com.yoc.wms.mail.service;
+
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 전용 스레드에서 실행되는 예약 작업 (fixed-delay 또는 cron)
+ *
+ * 작업마다 스레드를 따로 두므로 느린 작업(Producer, 큐 정리)이 다른 작업(Consumer Tick, Heartbeat)의
+ * 시작을 밀어내지 않습니다.
+ *
+ * 실행 규칙:
+ * - 한 작업은 동시에 한 번만 실행 (단일 스레드, 다음 실행은 완료 후 예약)
+ * - fixed-delay: 완료 시각 + delay (겹칠 수 없음)
+ * - cron: 예정 시각 이후의 다음 cron 시각, 실행이 길어져 지나간 cron 시각은 몰아서 실행하지 않고 생략 (overrun)
+ * - 작업 예외는 로그만 남기고 다음 실행 예약 유지
+ *
+ * 지표: 실행/실패/생략 횟수, 예정 대비 시작 지연(ms), 실행 시간(ms)
+ *
+ * Spring 3.1.2 호환:
+ * - @Scheduled는 설정값 주기와 작업별 스레드 분리를 지원하지 않으므로 JDK ScheduledThreadPoolExecutor 직접 사용
+ * - cron 계산만 Spring CronTrigger 사용 (3.0+)
+ *
+ *  @author 김찬기
+ *  @since v3.20.0
+ */
+public class ScheduledJob implements Runnable {
+
+    private final String name;
+    private final Runnable task;
+    private final long fixedDelayMs;
+    private final CronTrigger cronTrigger;
+    private final String schedule;
+
+    private ScheduledThreadPoolExecutor executor;
+    private volatile boolean stopped = false;
+    private volatile long nextScheduledAt;
+
+    // 누적 지표 (this 단위로 동기화)
+    private long runs;
+    private long failures;
+    private long overruns;
+    private long totalLagMs;
+    private long lastLagMs;
+    private long maxLagMs;
+    private long lastDurationMs;
+    private long maxDurationMs;
+
+    private ScheduledJob(String name, Runnable task, long fixedDelayMs, String cronExpression) {
+        this.name = name;
+        this.task = task;
+        this.fixedDelayMs = fixedDelayMs;
+        this.cronTrigger = (cronExpression != null) ? new CronTrigger(cronExpression) : null;
+        this.schedule = (cronExpression != null) ? "cron=" + cronExpression : "fixedDelay=" + fixedDelayMs + "ms";
+    }
+
+    /**
+     * 완료 후 delayMs 대기하는 작업 (첫 실행은 시작 즉시)
+     *
+     * @throws IllegalArgumentException delayMs가 1 미만
+     */
+    public static ScheduledJob fixedDelay(String name, long delayMs, Runnable task) {
+        if (delayMs < 1) {
+            throw new IllegalArgumentException("delayMs는 1 이상이어야 합니다: " + name + "=" + delayMs);
+        }
+        return new ScheduledJob(name, task, delayMs, null);
+    }
+
+    /**
+     * cron 작업 (초 분 시 일 월 요일, Spring @Scheduled cron 형식)
+     *
+     * @throws IllegalArgumentException cron 형식 오류
+     */
+    public static ScheduledJob cron(String name, String expression, Runnable task) {
+        return new ScheduledJob(name, task, 0L, expression.trim());
+    }
+
+    /**
+     * 전용 스레드 생성 후 첫 실행 예약
+     */
+    public synchronized void start() {
+        executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "alarm-job-" + name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        // 종료 후에는 예약만 된 다음 실행을 버림 (진행 중인 실행만 완료 대기)
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        scheduleAt(firstRunTime(System.currentTimeMillis()));
+        System.out.println("⏰ 예약 작업 시작: " + name + " (" + schedule + ")");
+    }
+
+    /**
+     * 종료 요청 (다음 실행 예약 중지, 대기 없이 반환)
+     */
+    public synchronized void requestStop() {
+        stopped = true;
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 종료 (진행 중인 실행 완료 대기, 초과 시 interrupt)
+     *
+     * @return 시간 안에 끝났으면 true
+     */
+    public boolean stop(long timeoutMs) {
+        requestStop();
+        ScheduledThreadPoolExecutor current;
+        synchronized (this) {
+            current = executor;
+        }
+        if (current == null) {
+            return true;
+        }
+        try {
+            if (current.awaitTermination(Math.max(0L, timeoutMs), TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        current.shutdownNow();
+        System.err.println("⚠️ 예약 작업 종료 대기 시간 초과 (interrupt): " + name);
+        return false;
+    }
+
+    @Override
+    public void run() {
+        long scheduledAt = nextScheduledAt;
+        long startedAt = System.currentTimeMillis();
+        boolean failed = false;
+        try {
+            task.run();
+        } catch (Exception e) {
+            failed = true;
+            System.err.println("예약 작업 오류 [" + name + "]: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            long next = recordRun(scheduledAt, startedAt, System.currentTimeMillis(), failed);
+            if (!stopped) {
+                scheduleAt(next);
+            }
+        }
+    }
+
+    private synchronized void scheduleAt(long time) {
+        nextScheduledAt = time;
+        try {
+            executor.schedule(this, Math.max(0L, time - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // stop()과 동시에 완료된 실행 → 다음 실행 예약 불필요
+        }
+    }
+
+    // ==================== Pure Functions (단위 테스트 대상) ====================
+
+    /**
+     * 첫 실행 시각 (fixed-delay: 즉시, cron: now 이후 첫 cron 시각)
+     */
+    long firstRunTime(long now) {
+        return (cronTrigger != null) ? nextCronTime(now) : now;
+    }
+
+    /**
+     * 실행 결과 기록 후 다음 실행 시각 계산
+     *
+     * @param scheduledAt 예정 시각
+     * @param startedAt 실제 시작 시각 (예정 대비 지연 = startedAt - scheduledAt)
+     * @param completedAt 완료 시각
+     * @param failed 작업 예외 여부
+     * @return 다음 실행 시각
+     */
+    synchronized long recordRun(long scheduledAt, long startedAt, long completedAt, boolean failed) {
+        long lag = Math.max(0L, startedAt - scheduledAt);
+        long duration = Math.max(0L, completedAt - startedAt);
+        runs++;
+        if (failed) {
+            failures++;
+        }
+        totalLagMs += lag;
+        lastLagMs = lag;
+        maxLagMs = Math.max(maxLagMs, lag);
+        lastDurationMs = duration;
+        maxDurationMs = Math.max(maxDurationMs, duration);
+
+        if (cronTrigger == null) {
+            return completedAt + fixedDelayMs;
+        }
+        long next = nextCronTime(scheduledAt);
+        if (next <= completedAt) {
+            // 실행 중 다음 cron 시각이 지남 → 밀린 실행을 연달아 돌리지 않고 완료 이후 시각으로
+            overruns++;
+            next = nextCronTime(completedAt);
+            System.err.println("⏭️ 예약 작업 실행 시간 초과 (지난 예정 실행 생략): " + name
+                    + " (실행 " + duration + "ms, " + schedule + ")");
+        }
+        return next;
+    }
+
+    private long nextCronTime(long after) {
+        Date afterDate = new Date(after);
+        return cronTrigger.nextExecutionTime(new SimpleTriggerContext(afterDate, afterDate, afterDate)).getTime();
+    }
+
+    // ========== Getter 메서드 ==========
+
+    public String getName() { return name; }
+
+    public String getSchedule() { return schedule; }
+
+    public synchronized long getRuns() { return runs; }
+
+    public synchronized long getFailures() { return failures; }
+
+    public synchronized long getOverruns() { return overruns; }
+
+    public synchronized long getLastLagMs() { return lastLagMs; }
+
+    public synchronized long getMaxLagMs() { return maxLagMs; }
+
+    /**
+     * 운영 조회용 요약 (실행/실패/생략 횟수, 시작 지연, 실행 시간, 다음 예정 시각)
+     */
+    public synchronized String getSummary() {
+        return schedule
+                + ", runs=" + runs
+                + ", failures=" + failures
+                + ", overruns=" + overruns
+                + ", lastLagMs=" + lastLagMs
+                + ", avgLagMs=" + ((runs > 0) ? totalLagMs / runs : 0)
+                + ", maxLagMs=" + maxLagMs
+                + ", lastDurationMs=" + lastDurationMs
+                + ", maxDurationMs=" + maxDurationMs
+                + ", next=" + ((nextScheduledAt > 0 && !stopped)
+                        ? new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(nextScheduledAt)) : "-");
+    }
+}
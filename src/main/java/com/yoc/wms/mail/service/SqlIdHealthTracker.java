@@ -0,0 +1,187 @@
+package com.yoc.wms.mail.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * SQL_ID별 실행 상태 추적 + 격리 (Quarantine)
+ *
+ * 잘못된 SQL_ID나 실행 계획이 틀어진 상세 쿼리는 큐 행마다 쿼리 + 재시도 3회를 소모하고 폴링마다 반복됩니다.
+ * 실행 결과를 SQL_ID별로 기록하다가 연속으로 failureThreshold회 실패(또는 slowThresholdMs 초과)하면
+ * cooldownMs 동안 격리하고, 격리 중인 SQL_ID의 행은 쿼리 없이 연기합니다.
+ *
+ * 격리 해제:
+ * - cooldown 경과 후 첫 실행이 시험 실행 (성공하면 연속 카운트 초기화)
+ * - 시험 실행도 실패하면 연속 카운트가 이미 임계치 이상이므로 즉시 재격리
+ * - 운영자 수동 해제: release()
+ *
+ * 시각(now)은 호출자가 전달 (단위 테스트에서 시간 제어)
+ *
+ *  @author 김찬기
+ *  @since v3.17.0
+ */
+public class SqlIdHealthTracker {
+
+    private final int failureThreshold;
+    private final long slowThresholdMs;
+    private final long cooldownMs;
+
+    private final ConcurrentMap<String, Stats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * @param failureThreshold 격리 기준 연속 실패(지연 포함) 횟수 (0 이하면 격리 안 함, 통계만 기록)
+     * @param slowThresholdMs 지연 판정 기준 실행 시간 (0 이하면 지연 판정 안 함)
+     * @param cooldownMs 격리 시간
+     */
+    public SqlIdHealthTracker(int failureThreshold, long slowThresholdMs, long cooldownMs) {
+        this.failureThreshold = failureThreshold;
+        this.slowThresholdMs = slowThresholdMs;
+        this.cooldownMs = cooldownMs;
+    }
+
+    /**
+     * 실행 성공 기록 (실행 시간이 지연 기준을 넘으면 실패와 같이 연속 카운트 증가)
+     */
+    public void recordSuccess(String sqlId, long elapsedMs, long now) {
+        if (sqlId == null) {
+            return;
+        }
+        boolean slow = slowThresholdMs > 0 && elapsedMs > slowThresholdMs;
+        record(sqlId, elapsedMs, false, slow, slow ? "지연 " + elapsedMs + "ms" : null, now);
+    }
+
+    /**
+     * 실행 실패 기록 (SQL 오류, 쿼리 타임아웃 등)
+     *
+     * @param error 실패 사유 (운영 조회용)
+     */
+    public void recordFailure(String sqlId, long elapsedMs, String error, long now) {
+        if (sqlId == null) {
+            return;
+        }
+        record(sqlId, elapsedMs, true, false, (error != null) ? error : "실패", now);
+    }
+
+    /**
+     * 남은 격리 시간
+     *
+     * @return 격리 중이면 남은 ms, 아니면 0
+     */
+    public long getQuarantineRemainingMs(String sqlId, long now) {
+        if (sqlId == null) {
+            return 0L;
+        }
+        Stats s = stats.get(sqlId);
+        if (s == null) {
+            return 0L;
+        }
+        synchronized (s) {
+            return Math.max(0L, s.quarantinedUntil - now);
+        }
+    }
+
+    /**
+     * 격리 수동 해제 (연속 카운트 초기화)
+     *
+     * @return 격리 중이었으면 true
+     */
+    public boolean release(String sqlId, long now) {
+        Stats s = (sqlId != null) ? stats.get(sqlId) : null;
+        if (s == null) {
+            return false;
+        }
+        synchronized (s) {
+            boolean quarantined = s.quarantinedUntil > now;
+            s.quarantinedUntil = 0L;
+            s.consecutiveBad = 0;
+            return quarantined;
+        }
+    }
+
+    /**
+     * 격리 중인 SQL_ID 목록
+     *
+     * @return SQL_ID → "남은 초, 마지막 사유" (SQL_ID 순)
+     */
+    public Map<String, String> getQuarantined(long now) {
+        Map<String, String> result = new TreeMap<>();
+        for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            synchronized (s) {
+                if (s.quarantinedUntil > now) {
+                    result.put(entry.getKey(), "remainingSec=" + ((s.quarantinedUntil - now + 999) / 1000)
+                            + ", lastError=" + s.lastError);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * SQL_ID별 실행 통계
+     *
+     * @return SQL_ID → "실행/실패/지연 횟수, 평균/최대 ms" (SQL_ID 순)
+     */
+    public Map<String, String> getStats() {
+        Map<String, String> result = new TreeMap<>();
+        for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            synchronized (s) {
+                result.put(entry.getKey(), "executions=" + s.executions
+                        + ", failures=" + s.failures
+                        + ", slow=" + s.slow
+                        + ", avgMs=" + ((s.executions > 0) ? s.totalElapsedMs / s.executions : 0)
+                        + ", maxMs=" + s.maxElapsedMs);
+            }
+        }
+        return result;
+    }
+
+    private void record(String sqlId, long elapsedMs, boolean failed, boolean slow, String error, long now) {
+        Stats s = stats.get(sqlId);
+        if (s == null) {
+            stats.putIfAbsent(sqlId, new Stats());
+            s = stats.get(sqlId);
+        }
+
+        synchronized (s) {
+            s.executions++;
+            s.totalElapsedMs += elapsedMs;
+            s.maxElapsedMs = Math.max(s.maxElapsedMs, elapsedMs);
+            if (!failed && !slow) {
+                s.consecutiveBad = 0;
+                return;
+            }
+
+            if (failed) {
+                s.failures++;
+            } else {
+                s.slow++;
+            }
+            s.consecutiveBad++;
+            s.lastError = error;
+
+            if (failureThreshold > 0 && s.consecutiveBad >= failureThreshold) {
+                s.quarantinedUntil = now + cooldownMs;
+                System.err.println("🚫 SQL_ID 격리: " + sqlId + " (연속 " + s.consecutiveBad + "회, "
+                        + (cooldownMs / 1000) + "초, 사유: " + error + ")");
+            }
+        }
+    }
+
+    /**
+     * SQL_ID별 누적 값 (Stats 객체 단위로 동기화)
+     */
+    private static class Stats {
+        long executions;
+        long failures;
+        long slow;
+        long totalElapsedMs;
+        long maxElapsedMs;
+        int consecutiveBad;
+        long quarantinedUntil;
+        String lastError;
+    }
+}
@@ -0,0 +1,179 @@
+package com.yoc.wms.mail.util;
+
+import java.math.BigDecimal;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 알람 워터마크 유틸리티 (증분 상세 조회용)
+ *
+ * 워터마크: MAIL_SOURCE별로 마지막으로 본 행의 기준 컬럼 최대값 (예: ORDER_ID, UPD_DATE)
+ * - 상세 쿼리 결과에서 최대값 추출 (findMax)
+ * - MAIL_ALARM_STATE에 유형(WATERMARK_TYPE) + 문자열(WATERMARK_VALUE)로 저장 (typeOf, encode)
+ * - 다음 조회 시 원래 타입으로 복원하여 #{WATERMARK} 파라미터로 전달 (decode)
+ *
+ * 지원 타입: NUMBER(Number → BigDecimal), DATE(Date, ms 단위), STRING(String)
+ *
+ * @author 김찬기
+ * @since v3.13.0
+ */
+public class WatermarkUtils {
+
+    public static final String TYPE_NUMBER = "NUMBER";
+    public static final String TYPE_DATE = "DATE";
+    public static final String TYPE_STRING = "STRING";
+
+    private static final String DATE_PATTERN = "yyyy-MM-dd HH:mm:ss.SSS";
+
+    /**
+     * 상세 결과에서 워터마크 컬럼 최대값 추출
+     *
+     * - 컬럼명은 대소문자 구분 없이 검색 (H2/Oracle 결과 Map Key 차이)
+     * - NULL 또는 첫 값과 타입이 다른 값은 무시
+     *
+     * @param rows 상세 쿼리 결과 (NULL 가능)
+     * @param column 워터마크 컬럼명
+     * @return 최대값 (Number는 BigDecimal, 대상 값이 없으면 NULL)
+     */
+    public static Object findMax(List<Map<String, Object>> rows, String column) {
+        if (rows == null || column == null) {
+            return null;
+        }
+
+        Object max = null;
+        for (Map<String, Object> row : rows) {
+            Object value = normalize(getIgnoreCase(row, column));
+            if (value == null) {
+                continue;
+            }
+            if (max == null) {
+                max = value;
+            } else if (typeOf(value).equals(typeOf(max)) && compare(value, max) > 0) {
+                max = value;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 두 워터마크 비교 (같은 타입 전제)
+     *
+     * @return a < b 음수, a = b 0, a > b 양수
+     * @throws IllegalArgumentException 타입이 다르거나 지원하지 않는 타입
+     */
+    @SuppressWarnings("unchecked")
+    public static int compare(Object a, Object b) {
+        Object left = normalize(a);
+        Object right = normalize(b);
+        if (left == null || right == null || !typeOf(left).equals(typeOf(right))) {
+            throw new IllegalArgumentException("워터마크 비교 불가: " + a + " / " + b);
+        }
+        return ((Comparable<Object>) left).compareTo(right);
+    }
+
+    /**
+     * 워터마크 타입 (NUMBER / DATE / STRING)
+     *
+     * @throws IllegalArgumentException 지원하지 않는 타입
+     */
+    public static String typeOf(Object value) {
+        if (value instanceof Number) {
+            return TYPE_NUMBER;
+        }
+        if (value instanceof Date) {
+            return TYPE_DATE;
+        }
+        if (value instanceof String) {
+            return TYPE_STRING;
+        }
+        throw new IllegalArgumentException("지원하지 않는 워터마크 타입: "
+                + (value == null ? "null" : value.getClass().getName()));
+    }
+
+    /**
+     * 워터마크 → 저장 문자열
+     *
+     * Example:
+     *   1200 → "1200", 2025-03-04 09:00:00 → "2025-03-04 09:00:00.000", "ORD-0042" → "ORD-0042"
+     */
+    public static String encode(Object value) {
+        Object normalized = normalize(value);
+        if (normalized == null) {
+            return null;
+        }
+        if (normalized instanceof BigDecimal) {
+            return ((BigDecimal) normalized).toPlainString();
+        }
+        if (normalized instanceof Date) {
+            return new SimpleDateFormat(DATE_PATTERN).format((Date) normalized);
+        }
+        return (String) normalized;
+    }
+
+    /**
+     * 저장 문자열 → 워터마크
+     *
+     * @param type WATERMARK_TYPE (NULL이면 NULL 반환)
+     * @param value WATERMARK_VALUE (NULL이면 NULL 반환)
+     * @return BigDecimal / Date / String
+     * @throws IllegalArgumentException 타입을 알 수 없거나 값 형식이 잘못된 경우
+     */
+    public static Object decode(String type, String value) {
+        if (type == null || value == null) {
+            return null;
+        }
+        if (TYPE_NUMBER.equals(type)) {
+            return new BigDecimal(value);
+        }
+        if (TYPE_DATE.equals(type)) {
+            try {
+                return new SimpleDateFormat(DATE_PATTERN).parse(value);
+            } catch (ParseException e) {
+                throw new IllegalArgumentException("워터마크 일시 형식 오류: " + value, e);
+            }
+        }
+        if (TYPE_STRING.equals(type)) {
+            return value;
+        }
+        throw new IllegalArgumentException("알 수 없는 워터마크 타입: " + type);
+    }
+
+    // ===== 내부 메서드 =====
+
+    /**
+     * Number → BigDecimal, Date 하위 타입(Timestamp 등) → Date, 그 외 지원 타입은 그대로
+     */
+    private static Object normalize(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof BigDecimal) {
+            return value;
+        }
+        if (value instanceof Number) {
+            return new BigDecimal(value.toString());
+        }
+        if (value instanceof Date) {
+            return new Date(((Date) value).getTime());
+        }
+        if (value instanceof String) {
+            return value;
+        }
+        return null;
+    }
+
+    private static Object getIgnoreCase(Map<String, Object> row, String column) {
+        if (row.containsKey(column)) {
+            return row.get(column);
+        }
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            if (column.equalsIgnoreCase(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+}
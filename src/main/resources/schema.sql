@@ -3,6 +3,11 @@
 -- 기존 테이블 삭제
 DROP TABLE IF EXISTS MAIL_SEND_LOG;
 DROP TABLE IF EXISTS MAIL_QUEUE;
+DROP TABLE IF EXISTS MAIL_QUEUE_DLQ;
+DROP TABLE IF EXISTS MAIL_ALARM_STATE;
+DROP TABLE IF EXISTS MAIL_NODE_HEARTBEAT;
+DROP TABLE IF EXISTS MAIL_ALARM_RULE;
+DROP TABLE IF EXISTS MAIL_QUEUE_SIGNAL;
 DROP TABLE IF EXISTS USER_INFO;
 DROP TABLE IF EXISTS ORDERS;
 DROP TABLE IF EXISTS INVENTORY;
@@ -60,14 +65,24 @@ CREATE TABLE MAIL_QUEUE (
                             EXCEL_SQL_ID        VARCHAR2(200),
                             EXCEL_COLUMN_ORDER  VARCHAR2(500),
                             EXCEL_FILE_NAME     VARCHAR2(200),
-                            STATUS              VARCHAR2(20)    NOT NULL CHECK (STATUS IN ('PENDING', 'SUCCESS', 'FAILED')),
+                            STATUS              VARCHAR2(20)    NOT NULL CHECK (STATUS IN ('PENDING', 'PROCESSING', 'SUCCESS', 'FAILED', 'SKIPPED')),
                             RETRY_COUNT         NUMBER          DEFAULT 0,
                             ERROR_MESSAGE       VARCHAR2(2000),
+                            OWNER_NODE_ID       VARCHAR2(100),
+                            CLAIM_TOKEN         VARCHAR2(50),
+                            LEASE_EXPIRE_DATE   DATE,
+                            NEXT_RETRY_AT       DATE,
+                            FAILURE_HISTORY     CLOB,
+                            DEDUP_KEY           VARCHAR2(200),
+                            DEDUP_ACTIVE_KEY    VARCHAR2(200)   GENERATED ALWAYS AS (CASE WHEN STATUS IN ('PENDING', 'PROCESSING') THEN DEDUP_KEY END),
                             REG_DATE            DATE            DEFAULT SYSDATE,
                             UPD_DATE            DATE
 );
 
 CREATE INDEX IDX_MAIL_QUEUE_STATUS ON MAIL_QUEUE(STATUS, REG_DATE);
+CREATE INDEX IDX_MAIL_QUEUE_CLAIM ON MAIL_QUEUE(CLAIM_TOKEN);
+CREATE INDEX IDX_MAIL_QUEUE_SEVERITY ON MAIL_QUEUE(STATUS, SEVERITY, REG_DATE);
+CREATE UNIQUE INDEX UX_MAIL_QUEUE_DEDUP ON MAIL_QUEUE(DEDUP_ACTIVE_KEY);  -- 처리 전(PENDING/PROCESSING) 행끼리만 DEDUP_KEY 중복 불가
 
 COMMENT ON TABLE MAIL_QUEUE IS '메일 알람 발송 큐 (Oracle Procedure가 INSERT)';
 COMMENT ON COLUMN MAIL_QUEUE.MAIL_SOURCE IS '알람 타입 식별자 (OVERDUE_ORDERS, LOW_STOCK 등)';
@@ -82,6 +97,136 @@ COMMENT ON COLUMN MAIL_QUEUE.COLUMN_ORDER IS '테이블 컬럼 순서 (콤마 
 COMMENT ON COLUMN MAIL_QUEUE.EXCEL_SQL_ID IS 'Excel 데이터 조회 MyBatis SQL ID (NULL 가능, 예: alarm.selectOverdueOrdersDetail)';
 COMMENT ON COLUMN MAIL_QUEUE.EXCEL_COLUMN_ORDER IS 'Excel 컬럼 순서 (콤마 구분, NULL 가능, 예: orderId,customer,orderDate)';
 COMMENT ON COLUMN MAIL_QUEUE.EXCEL_FILE_NAME IS 'Excel 파일명 (NULL이면 SECTION_TITLE 기반, 예: 지연주문현황)';
+COMMENT ON COLUMN MAIL_QUEUE.OWNER_NODE_ID IS '선점한 Consumer 노드 ID (PROCESSING 시 기록)';
+COMMENT ON COLUMN MAIL_QUEUE.CLAIM_TOKEN IS '선점 토큰 (선점 배치 식별, 상태 업데이트 조건)';
+COMMENT ON COLUMN MAIL_QUEUE.LEASE_EXPIRE_DATE IS '선점 만료 일시 (경과 시 다른 노드가 재선점 가능)';
+COMMENT ON COLUMN MAIL_QUEUE.NEXT_RETRY_AT IS '다음 재시도 가능 일시 (Exponential Backoff + Jitter, NULL이면 즉시)';
+COMMENT ON COLUMN MAIL_QUEUE.FAILURE_HISTORY IS '시도별 실패 이력 (재시도마다 한 줄씩 누적, Dead Letter 이동 시 함께 보존)';
+COMMENT ON COLUMN MAIL_QUEUE.DEDUP_KEY IS '중복 등록 방지 키 (NULL 가능, 같은 키가 처리 전이면 등록 생략, 예: LOW_STOCK)';
+COMMENT ON COLUMN MAIL_QUEUE.DEDUP_ACTIVE_KEY IS 'PENDING/PROCESSING일 때만 DEDUP_KEY (가상 컬럼, 유니크 인덱스 대상)';
+
+
+-- ==================== 3-1. 메일 알람 Dead Letter 큐 ====================
+CREATE TABLE MAIL_QUEUE_DLQ (
+                            QUEUE_ID            NUMBER          PRIMARY KEY,
+                            MAIL_SOURCE         VARCHAR2(100)   NOT NULL,
+                            ALARM_NAME          VARCHAR2(200)   NOT NULL,
+                            SEVERITY            VARCHAR2(20)    NOT NULL,
+                            SQL_ID              VARCHAR2(200)   NOT NULL,
+                            SECTION_TITLE       VARCHAR2(500),
+                            SECTION_CONTENT     CLOB,
+                            RECIPIENT_USER_IDS  VARCHAR2(1000),
+                            RECIPIENT_GROUPS    VARCHAR2(1000),
+                            COLUMN_ORDER        VARCHAR2(500),
+                            EXCEL_SQL_ID        VARCHAR2(200),
+                            EXCEL_COLUMN_ORDER  VARCHAR2(500),
+                            EXCEL_FILE_NAME     VARCHAR2(200),
+                            DEDUP_KEY           VARCHAR2(200),
+                            RETRY_COUNT         NUMBER          DEFAULT 0,
+                            ERROR_MESSAGE       VARCHAR2(2000),
+                            FAILURE_HISTORY     CLOB,
+                            LAST_NODE_ID        VARCHAR2(100),
+                            REG_DATE            DATE,
+                            FAILED_DATE         DATE            DEFAULT SYSDATE
+);
+
+CREATE INDEX IDX_MAIL_QUEUE_DLQ_SOURCE ON MAIL_QUEUE_DLQ(MAIL_SOURCE, FAILED_DATE);
+CREATE INDEX IDX_MAIL_QUEUE_DLQ_FAILED ON MAIL_QUEUE_DLQ(FAILED_DATE);
+
+COMMENT ON TABLE MAIL_QUEUE_DLQ IS '최종 실패한 알람 큐 (MAIL_QUEUE에서 이동, 재처리 시 MAIL_QUEUE로 복귀)';
+COMMENT ON COLUMN MAIL_QUEUE_DLQ.QUEUE_ID IS '원본 MAIL_QUEUE.QUEUE_ID (재처리 시 그대로 사용)';
+COMMENT ON COLUMN MAIL_QUEUE_DLQ.RETRY_COUNT IS '최종 실패 시점 재시도 횟수';
+COMMENT ON COLUMN MAIL_QUEUE_DLQ.DEDUP_KEY IS '원본 MAIL_QUEUE.DEDUP_KEY (재처리 시 같은 키가 처리 전이면 흡수)';
+COMMENT ON COLUMN MAIL_QUEUE_DLQ.ERROR_MESSAGE IS '마지막 실패 에러 메시지';
+COMMENT ON COLUMN MAIL_QUEUE_DLQ.FAILURE_HISTORY IS '시도별 실패 이력 (일시, 시도 횟수, 노드, 에러 메시지 - 줄 단위 누적)';
+COMMENT ON COLUMN MAIL_QUEUE_DLQ.LAST_NODE_ID IS '마지막으로 처리한 Consumer 노드 ID';
+COMMENT ON COLUMN MAIL_QUEUE_DLQ.REG_DATE IS '원본 큐 등록 일시';
+COMMENT ON COLUMN MAIL_QUEUE_DLQ.FAILED_DATE IS 'Dead Letter 이동 일시 (재처리 기간 조건)';
+
+
+-- ==================== 3-2. 알람 상태 (MAIL_SOURCE별 발송 결과 지문 / 워터마크) ====================
+CREATE TABLE MAIL_ALARM_STATE (
+                            MAIL_SOURCE         VARCHAR2(100)   PRIMARY KEY,
+                            LAST_FINGERPRINT    VARCHAR2(64),
+                            LAST_SENT_DATE      DATE,
+                            LAST_SKIPPED_DATE   DATE,
+                            SKIP_COUNT          NUMBER          DEFAULT 0,
+                            WATERMARK_TYPE      VARCHAR2(10),
+                            WATERMARK_VALUE     VARCHAR2(100),
+                            UPD_DATE            DATE            DEFAULT SYSDATE
+);
+
+COMMENT ON TABLE MAIL_ALARM_STATE IS 'MAIL_SOURCE별 알람 상태 (마지막 발송 결과 지문, 증분 조회 워터마크)';
+COMMENT ON COLUMN MAIL_ALARM_STATE.LAST_FINGERPRINT IS '마지막 발송 상세 결과 + 수신인 SHA-256 (HEX, 발송 생략 미사용 시 NULL)';
+COMMENT ON COLUMN MAIL_ALARM_STATE.LAST_SENT_DATE IS '마지막 발송 일시';
+COMMENT ON COLUMN MAIL_ALARM_STATE.LAST_SKIPPED_DATE IS '마지막 발송 생략 일시';
+COMMENT ON COLUMN MAIL_ALARM_STATE.SKIP_COUNT IS '마지막 발송 이후 생략 건수 (발송 시 0으로 초기화)';
+COMMENT ON COLUMN MAIL_ALARM_STATE.WATERMARK_TYPE IS '워터마크 타입 (NUMBER/DATE/STRING)';
+COMMENT ON COLUMN MAIL_ALARM_STATE.WATERMARK_VALUE IS '마지막으로 본 워터마크 컬럼 최대값 (DATE는 yyyy-MM-dd HH:mm:ss.SSS)';
+
+
+-- ==================== 3-3. Consumer 노드 Heartbeat ====================
+CREATE TABLE MAIL_NODE_HEARTBEAT (
+                            NODE_ID             VARCHAR2(100)   PRIMARY KEY,
+                            HOST_NAME           VARCHAR2(200),
+                            STARTED_AT          DATE            DEFAULT SYSDATE,
+                            LAST_HEARTBEAT      DATE            DEFAULT SYSDATE
+);
+
+COMMENT ON TABLE MAIL_NODE_HEARTBEAT IS 'Consumer 노드 생존 신호 (응답 없는 노드의 PROCESSING 행 회수 기준)';
+COMMENT ON COLUMN MAIL_NODE_HEARTBEAT.NODE_ID IS 'Consumer 노드 ID (MAIL_QUEUE.OWNER_NODE_ID)';
+COMMENT ON COLUMN MAIL_NODE_HEARTBEAT.HOST_NAME IS '노드 호스트명';
+COMMENT ON COLUMN MAIL_NODE_HEARTBEAT.STARTED_AT IS '첫 Heartbeat 일시';
+COMMENT ON COLUMN MAIL_NODE_HEARTBEAT.LAST_HEARTBEAT IS '마지막 Heartbeat 일시 (dead-seconds 경과 시 응답 없는 노드)';
+
+
+-- ==================== 3-4. 알람 규칙 (Producer) ====================
+CREATE TABLE MAIL_ALARM_RULE (
+                            MAIL_SOURCE             VARCHAR2(100)   PRIMARY KEY,
+                            ALARM_NAME              VARCHAR2(200)   NOT NULL,
+                            SEVERITY                VARCHAR2(20)    NOT NULL CHECK (SEVERITY IN ('INFO', 'WARNING', 'CRITICAL')),
+                            CONDITION_SQL_ID        VARCHAR2(200)   NOT NULL,
+                            SQL_ID                  VARCHAR2(200)   NOT NULL,
+                            SECTION_TITLE           VARCHAR2(500),
+                            SECTION_CONTENT         CLOB,
+                            RECIPIENT_USER_IDS      VARCHAR2(1000),
+                            RECIPIENT_GROUPS        VARCHAR2(1000),
+                            COLUMN_ORDER            VARCHAR2(500),
+                            EXCEL_SQL_ID            VARCHAR2(200),
+                            EXCEL_COLUMN_ORDER      VARCHAR2(500),
+                            EXCEL_FILE_NAME         VARCHAR2(200),
+                            CHECK_INTERVAL_MINUTES  NUMBER          DEFAULT 30 NOT NULL,
+                            ENABLED                 CHAR(1)         DEFAULT 'Y' NOT NULL CHECK (ENABLED IN ('Y', 'N')),
+                            LAST_CHECKED_AT         DATE,
+                            REG_DATE                DATE            DEFAULT SYSDATE,
+                            UPD_DATE                DATE
+);
+
+COMMENT ON TABLE MAIL_ALARM_RULE IS '알람 규칙 (AlarmRuleEngine이 주기마다 조건 쿼리를 평가해 MAIL_QUEUE 등록)';
+COMMENT ON COLUMN MAIL_ALARM_RULE.MAIL_SOURCE IS '알람 타입 식별자 (MAIL_QUEUE.MAIL_SOURCE)';
+COMMENT ON COLUMN MAIL_ALARM_RULE.CONDITION_SQL_ID IS '발생 조건 MyBatis SQL ID (결과 CNT 컬럼, 없으면 행 수가 1 이상이면 발생)';
+COMMENT ON COLUMN MAIL_ALARM_RULE.SECTION_CONTENT IS '메일 본문 섹션 내용 ({count}는 발생 건수로 치환)';
+COMMENT ON COLUMN MAIL_ALARM_RULE.CHECK_INTERVAL_MINUTES IS '평가 주기 (분)';
+COMMENT ON COLUMN MAIL_ALARM_RULE.ENABLED IS '사용 여부 (Y/N)';
+COMMENT ON COLUMN MAIL_ALARM_RULE.LAST_CHECKED_AT IS '마지막 평가 일시 (평가 선점 조건, 노드 간 중복 평가 방지)';
+
+
+
+-- ==================== 3-5. 큐 등록 신호 (노드 간 Consumer 깨우기) ====================
+CREATE TABLE MAIL_QUEUE_SIGNAL (
+                            SEVERITY            VARCHAR2(20)    PRIMARY KEY,
+                            SIGNAL_SEQ          NUMBER          DEFAULT 0 NOT NULL,
+                            UPD_DATE            DATE
+);
+
+COMMENT ON TABLE MAIL_QUEUE_SIGNAL IS '큐 등록 신호 (AlarmQueue.enqueue()가 SIGNAL_SEQ 증가, 다른 노드는 변경을 보고 해당 Lane 즉시 폴링)';
+COMMENT ON COLUMN MAIL_QUEUE_SIGNAL.SEVERITY IS 'Severity Lane (CRITICAL/WARNING/INFO)';
+COMMENT ON COLUMN MAIL_QUEUE_SIGNAL.SIGNAL_SEQ IS '등록 신호 번호 (등록마다 1 증가)';
+COMMENT ON COLUMN MAIL_QUEUE_SIGNAL.UPD_DATE IS '마지막 신호 일시';
+
+INSERT INTO MAIL_QUEUE_SIGNAL (SEVERITY, SIGNAL_SEQ) VALUES ('CRITICAL', 0);
+INSERT INTO MAIL_QUEUE_SIGNAL (SEVERITY, SIGNAL_SEQ) VALUES ('WARNING', 0);
+INSERT INTO MAIL_QUEUE_SIGNAL (SEVERITY, SIGNAL_SEQ) VALUES ('INFO', 0);
 
 
 -- ==================== 4. 사용자 정보 (테스트용) ====================
@@ -106,10 +251,12 @@ CREATE TABLE ORDERS (
                         CUSTOMER_NAME   VARCHAR2(200),
                         ORDER_DATE      DATE,
                         STATUS          VARCHAR2(20),
-                        DAYS_OVERDUE    NUMBER
+                        DAYS_OVERDUE    NUMBER,
+                        UPD_DATE        DATE            DEFAULT SYSDATE
 );
 
 COMMENT ON TABLE ORDERS IS '주문 정보 (SQL_ID 조회용 더미 데이터)';
+COMMENT ON COLUMN ORDERS.UPD_DATE IS 'STATUS/DAYS_OVERDUE 변경 시각 (워터마크 컬럼 예시)';
 
 
 CREATE TABLE INVENTORY (
@@ -0,0 +1,120 @@
+package com.yoc.wms.mail.dao;
+
+import org.apache.ibatis.session.ResultContext;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * CappedResultHandler / CappedRows 단위 테스트
+ *
+ * 테스트 범위:
+ * - 상한까지만 보관, 전체 건수 집계
+ * - 제한 없음 (maxRows 0 이하)
+ * - CappedRows 수정 불가
+ *
+ * @since v3.15.0
+ */
+public class CappedResultHandlerTest {
+
+    // ==================== handleResult() 테스트 ====================
+
+    @Test
+    public void handleResult_overLimit_keepsFirstRowsAndCountsAll() {
+        CappedResultHandler handler = new CappedResultHandler(3);
+
+        feed(handler, 10);
+        CappedRows rows = handler.toRows();
+
+        assertEquals(3, rows.size());
+        assertEquals(10, rows.getTotalCount());
+        assertTrue(rows.isTruncated());
+        assertEquals(1, rows.get(0).get("ID"));
+        assertEquals(3, rows.get(2).get("ID"));
+    }
+
+    @Test
+    public void handleResult_underLimit_notTruncated() {
+        CappedResultHandler handler = new CappedResultHandler(5);
+
+        feed(handler, 5);
+        CappedRows rows = handler.toRows();
+
+        assertEquals(5, rows.size());
+        assertEquals(5, rows.getTotalCount());
+        assertFalse(rows.isTruncated());
+    }
+
+    @Test
+    public void handleResult_zeroLimit_unlimited() {
+        CappedResultHandler handler = new CappedResultHandler(0);
+
+        feed(handler, 20);
+
+        assertEquals(20, handler.toRows().size());
+    }
+
+    @Test
+    public void handleResult_noRows_empty() {
+        CappedRows rows = new CappedResultHandler(3).toRows();
+
+        assertTrue(rows.isEmpty());
+        assertEquals(0, rows.getTotalCount());
+    }
+
+    // ==================== CappedRows 테스트 ====================
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void cappedRows_unmodifiable() {
+        new CappedRows(new ArrayList<Map<String, Object>>(), 0).add(new HashMap<String, Object>());
+    }
+
+    @Test
+    public void cappedRows_totalCountNotBelowSize() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        list.add(new HashMap<String, Object>());
+        list.add(new HashMap<String, Object>());
+
+        assertEquals(2, new CappedRows(list, 0).getTotalCount());
+    }
+
+
+    // ===== Helper Methods =====
+
+    @SuppressWarnings("unchecked")
+    private void feed(CappedResultHandler handler, int count) {
+        for (int i = 1; i <= count; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("ID", i);
+            handler.handleResult(new RowContext(row, i));
+        }
+    }
+
+    /**
+     * MyBatis DefaultResultContext 대역 (3.1/3.5 공용 Raw 타입)
+     */
+    @SuppressWarnings("rawtypes")
+    private static class RowContext implements ResultContext {
+        private final Object row;
+        private final int count;
+
+        RowContext(Object row, int count) {
+            this.row = row;
+            this.count = count;
+        }
+
+        @Override
+        public Object getResultObject() { return row; }
+
+        @Override
+        public int getResultCount() { return count; }
+
+        @Override
+        public boolean isStopped() { return false; }
+
+        @Override
+        public void stop() { }
+    }
+}
@@ -0,0 +1,171 @@
+package com.yoc.wms.mail.dao;
+
+import com.yoc.wms.mail.domain.QueueMessage;
+import org.junit.Test;
+
+import javax.sql.rowset.serial.SerialClob;
+import javax.sql.rowset.serial.SerialException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * ClobStringTypeHandler 단위 테스트
+ *
+ * 테스트 범위:
+ * - CLOB / VARCHAR 컬럼을 매핑 시점에 String으로 변환
+ * - 선점 세션(커넥션) 종료 후에도 QueueMessage 본문/수신인 조회 가능
+ * - NULL 컬럼
+ *
+ * JDBC ResultSet은 컬럼 값을 돌려주는 Dynamic Proxy로 대체 (Mockito 없음)
+ *
+ * @since v3.25.0
+ */
+public class ClobStringTypeHandlerTest {
+
+    private final ClobStringTypeHandler handler = new ClobStringTypeHandler();
+
+    @Test
+    public void getResult_clobColumn_readableAfterSessionClosed() throws SQLException {
+        // Given - 선점 세션의 커넥션에 묶인 CLOB + VARCHAR2 컬럼
+        FakeConnection connection = new FakeConnection();
+        FakeRow row = new FakeRow();
+        row.put("SECTION_CONTENT", new ConnectionBoundClob("재고 부족 5건", connection));
+        row.put("RECIPIENT_USER_IDS", "ADMIN,USER1");
+
+        // When - 결과 매핑 (세션 안) → 세션 종료로 커넥션 반환
+        String content = handler.getResult(row.resultSet, "SECTION_CONTENT");
+        String userIds = handler.getResult(row.resultSet, "RECIPIENT_USER_IDS");
+        connection.closed = true;
+
+        QueueMessage message = new QueueMessage(1L, "LOW_STOCK", "재고 부족", "WARNING", "alarm.selectDetail",
+                "재고 부족", content, userIds, null, null, null, null, null, 0, "token-1", null);
+
+        // Then - Worker 스레드에서 나중에 읽어도 CLOB 접근 없음
+        assertEquals("재고 부족 5건", message.getSectionContent());
+        assertEquals("ADMIN,USER1", message.getRecipientUserIds());
+
+        // 커넥션 반환 후 Locator를 직접 읽으면 실패 (지연 변환이면 여기서 실패했을 것)
+        try {
+            ((ConnectionBoundClob) row.get("SECTION_CONTENT")).length();
+            fail("닫힌 커넥션의 CLOB 접근은 실패해야 함");
+        } catch (SQLException expected) {
+            assertTrue(expected.getMessage().contains("ORA-22922"));
+        }
+    }
+
+    @Test
+    public void getResult_byColumnIndex() throws SQLException {
+        FakeRow row = new FakeRow();
+        row.put("SECTION_CONTENT", new ConnectionBoundClob("본문", new FakeConnection()));
+        row.put("RECIPIENT_USER_IDS", "USER1");
+
+        assertEquals("본문", handler.getResult(row.resultSet, 1));
+        assertEquals("USER1", handler.getResult(row.resultSet, 2));
+    }
+
+    @Test
+    public void getResult_nullColumn_messageDefaultsToEmpty() throws SQLException {
+        FakeRow row = new FakeRow();
+        row.put("SECTION_CONTENT", null);
+        row.put("RECIPIENT_USER_IDS", null);
+
+        String content = handler.getResult(row.resultSet, "SECTION_CONTENT");
+        String userIds = handler.getResult(row.resultSet, "RECIPIENT_USER_IDS");
+
+        assertNull(content);
+        assertNull(userIds);
+        QueueMessage message = new QueueMessage(1L, "LOW_STOCK", null, "WARNING", null,
+                null, content, userIds, null, null, null, null, null, null, "token-1", null);
+        assertEquals("", message.getSectionContent());
+        assertEquals("", message.getRecipientUserIds());
+    }
+
+    @Test
+    public void getResult_emptyClob_emptyString() throws SQLException {
+        FakeRow row = new FakeRow();
+        row.put("SECTION_CONTENT", new ConnectionBoundClob("", new FakeConnection()));
+
+        assertEquals("", handler.getResult(row.resultSet, "SECTION_CONTENT"));
+    }
+
+
+    // ===== Helper Methods =====
+
+    /**
+     * 선점 세션이 잡고 있던 커넥션 (closed = Pool 반환)
+     */
+    private static class FakeConnection {
+        volatile boolean closed;
+    }
+
+    /**
+     * 커넥션이 반환되면 읽을 수 없는 CLOB (Oracle Locator 동작 재현)
+     */
+    private static class ConnectionBoundClob extends SerialClob {
+        private final FakeConnection connection;
+
+        ConnectionBoundClob(String value, FakeConnection connection) throws SQLException {
+            super(value.toCharArray());
+            this.connection = connection;
+        }
+
+        @Override
+        public long length() throws SerialException {
+            checkOpen();
+            return super.length();
+        }
+
+        @Override
+        public String getSubString(long pos, int length) throws SerialException {
+            checkOpen();
+            return super.getSubString(pos, length);
+        }
+
+        private void checkOpen() throws SerialException {
+            if (connection.closed) {
+                throw new SerialException("ORA-22922: nonexistent LOB value");
+            }
+        }
+    }
+
+    /**
+     * 1행짜리 ResultSet (getObject / wasNull만 지원)
+     */
+    private static class FakeRow implements InvocationHandler {
+        private final Map<String, Object> columns = new LinkedHashMap<>();
+        private boolean lastNull;
+        final ResultSet resultSet = (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, this);
+
+        void put(String column, Object value) {
+            columns.put(column, value);
+        }
+
+        Object get(String column) {
+            return columns.get(column);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if ("getObject".equals(method.getName()) && args.length == 1) {
+                Object value = (args[0] instanceof Integer)
+                        ? new ArrayList<>(columns.values()).get((Integer) args[0] - 1)
+                        : columns.get(args[0]);
+                lastNull = (value == null);
+                return value;
+            }
+            if ("wasNull".equals(method.getName())) {
+                return lastNull;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        }
+    }
+}
@@ -0,0 +1,507 @@
+package com.yoc.wms.mail.dao;
+
+import com.yoc.wms.mail.domain.QueueMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * JournalMailQueueStore 단위 테스트 (임시 디렉토리 실제 파일)
+ *
+ * 테스트 범위:
+ * - 등록/선점/완료/재시도/최종 실패/반환/Lease 연장 상태 전이
+ * - Lane별 인덱스 선점 순서 (Lease 만료 행 우선)
+ * - Dead Letter 저널 보관/재기동 복구/재처리 (DEDUP_KEY 흡수, 속도 제어)
+ * - DEDUP_KEY 흡수 (처리 전 행만)
+ * - 재기동 복구 (정상 종료 checkpoint, 비정상 종료 세그먼트 재생, 쓰다 중단된 레코드)
+ * - 세그먼트 가득 참 → checkpoint + 이전 세그먼트 삭제
+ * - isClaimable() - alarm.claimPendingQueue 조건
+ * - matchesLike(), matchesDeadLetterFilter() - alarm.deadLetterFilter 조건
+ *
+ * @since v3.24.0
+ */
+public class JournalMailQueueStoreTest {
+
+    private static final int SEGMENT_BYTES = 64 * 1024;
+
+    private File dir;
+    private JournalMailQueueStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("alarm-journal-test").toFile();
+        store = new JournalMailQueueStore(dir, SEGMENT_BYTES);
+    }
+
+    @After
+    public void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+        deleteRecursively(dir);
+    }
+
+    // ==================== 상태 전이 ====================
+
+    @Test
+    public void enqueueClaimAck_rowRemoved() {
+        // Given
+        assertEquals(2, store.enqueue(Arrays.asList(alarm("A", "CRITICAL", null), alarm("B", "CRITICAL", null))));
+
+        // When
+        List<QueueMessage> claimed = store.claim("CRITICAL", 10, null, "NODE-A", 300);
+
+        // Then
+        assertEquals(2, claimed.size());
+        Map<String, Object> row = store.snapshot(claimed.get(0).getQueueId());
+        assertEquals("PROCESSING", row.get("STATUS"));
+        assertEquals("NODE-A", row.get("OWNER_NODE_ID"));
+        assertEquals(row.get("CLAIM_TOKEN"), claimed.get(0).getClaimToken());
+        assertEquals("등록 순서", "A", claimed.get(0).getMailSource());
+        assertEquals("저널 테스트 내용", claimed.get(0).getSectionContent());
+        assertEquals(0, store.countPending("CRITICAL"));
+
+        String token = claimed.get(0).getClaimToken();
+        assertEquals(2, store.ack(queueIds(claimed), token));
+        assertTrue(store.claim("CRITICAL", 10, null, "NODE-A", 300).isEmpty());
+    }
+
+    @Test
+    public void claim_laneAndLimitApplied() {
+        store.enqueue(Arrays.asList(alarm("C", "CRITICAL", null), alarm("I1", "INFO", null),
+                alarm("N", null, null), alarm("I2", "INFO", null)));
+
+        assertEquals(1, store.claim("CRITICAL", 10, null, "NODE-A", 300).size());
+        assertEquals("INFO Lane은 NULL 포함 + limit", 2, store.claim("INFO", 2, null, "NODE-A", 300).size());
+        assertEquals(1, store.countPending("INFO"));
+    }
+
+    @Test
+    public void claim_expiredLeaseBeforeNewPending() {
+        // Given - 선점 시한이 지난 A, 이후 등록된 B
+        store.enqueue(Collections.singletonList(alarm("A", "WARNING", null)));
+        store.claim("WARNING", 10, null, "NODE-A", -60);
+        store.enqueue(Collections.singletonList(alarm("B", "WARNING", null)));
+
+        // When
+        List<QueueMessage> claimed = store.claim("WARNING", 1, null, "NODE-B", 300);
+
+        // Then
+        assertEquals("A", claimed.get(0).getMailSource());
+        assertEquals("NODE-B", store.snapshot(claimed.get(0).getQueueId()).get("OWNER_NODE_ID"));
+        assertEquals(1, store.countPending("WARNING"));
+    }
+
+    @Test
+    public void tokenMismatch_notApplied() {
+        store.enqueue(Collections.singletonList(alarm("A", "WARNING", null)));
+        List<QueueMessage> claimed = store.claim("WARNING", 10, null, "NODE-A", 300);
+
+        assertEquals(0, store.ack(queueIds(claimed), "OTHER-TOKEN"));
+        assertEquals(0, store.release(queueIds(claimed), "OTHER-TOKEN"));
+        assertEquals(1, store.ack(queueIds(claimed), claimed.get(0).getClaimToken()));
+    }
+
+    @Test
+    public void retry_countIncrementedAndDelayed() {
+        // Given
+        store.enqueue(Collections.singletonList(alarm("A", "INFO", null)));
+        QueueMessage row = store.claim("INFO", 10, null, "NODE-A", 300).get(0);
+
+        // When
+        assertEquals(1, store.retry(row.getQueueId(), row.getClaimToken(), 60L, "SMTP 오류", "이력1\n"));
+
+        // Then - 대기 중에는 선점/적체량에서 제외
+        assertTrue(store.claim("INFO", 10, null, "NODE-A", 300).isEmpty());
+        assertEquals(0, store.countPending("INFO"));
+
+        // 대기 없이 재시도하면 증가한 RETRY_COUNT와 누적 이력으로 선점
+        store.defer(Collections.singletonList(row.getQueueId()), null, 0L, "즉시");
+        QueueMessage retried = store.claim("INFO", 10, null, "NODE-A", 300).get(0);
+        assertEquals(1, retried.getRetryCount());
+        assertEquals("이력1\n", store.snapshot(retried.getQueueId()).get("FAILURE_HISTORY"));
+    }
+
+    @Test
+    public void fail_rowRemovedAndDedupKeyFreed() {
+        store.enqueue(Collections.singletonList(alarm("A", "INFO", "KEY-A")));
+        QueueMessage row = store.claim("INFO", 10, null, "NODE-A", 300).get(0);
+
+        assertEquals(1, store.fail(row.getQueueId(), row.getClaimToken(), "최종 실패", "이력\n"));
+
+        assertEquals(0, store.countPending("INFO"));
+        assertEquals("처리 완료 후 같은 키 재등록", 1,
+                store.enqueue(Collections.singletonList(alarm("A", "INFO", "KEY-A"))));
+    }
+
+    @Test
+    public void releaseNode_onlyOwnClaimsReturned() {
+        store.enqueue(Arrays.asList(alarm("A", "INFO", null), alarm("B", "INFO", null)));
+        store.claim("INFO", 1, null, "NODE-A", 300);
+        store.claim("INFO", 1, null, "NODE-B", 300);
+
+        assertEquals(1, store.releaseNode("NODE-A"));
+        assertEquals(1, store.countPending("INFO"));
+    }
+
+    @Test
+    public void renewLease_expiredClaimExtendedAndNotReclaimed() {
+        // Given - 처리 시한이 이미 지난 선점
+        store.enqueue(Collections.singletonList(alarm("A", "INFO", null)));
+        QueueMessage row = store.claim("INFO", 10, null, "NODE-A", -60).get(0);
+
+        // When
+        assertEquals(0, store.renewLease(queueIds(Collections.singletonList(row)), "OTHER-TOKEN", 300));
+        assertEquals(1, store.renewLease(queueIds(Collections.singletonList(row)), row.getClaimToken(), 300));
+
+        // Then - 연장 후에는 다른 노드가 재선점하지 못함
+        assertTrue(store.claim("INFO", 10, null, "NODE-B", 300).isEmpty());
+        assertEquals(1, store.ack(queueIds(Collections.singletonList(row)), row.getClaimToken()));
+    }
+
+    // ==================== Dead Letter 저널 ====================
+
+    @Test
+    public void fail_deadLetterPersistedAcrossRestart() {
+        // Given
+        Long queueId = failOne("A", "KEY-A", "최종 실패");
+
+        // When - checkpoint 없이 재기동 (Dead Letter 세그먼트 재생)
+        reopen(false);
+
+        // Then
+        assertNull(store.snapshot(queueId));
+        assertEquals(1L, store.countDeadLetters(filter("A")));
+        Map<String, Object> deadLetter = store.deadLetterSnapshot(queueId);
+        assertEquals("최종 실패", deadLetter.get("ERROR_MESSAGE"));
+        assertEquals("NODE-A", deadLetter.get("LAST_NODE_ID"));
+        assertEquals("이력\n", deadLetter.get("FAILURE_HISTORY"));
+        assertNotNull(deadLetter.get("FAILED_DATE"));
+    }
+
+    @Test
+    public void replayDeadLetters_returnedAsPendingWithRetryReset() {
+        // Given
+        Long queueId = failOne("A", null, "SMTP 연결 실패");
+
+        // When
+        assertEquals(1, store.replayDeadLetters(filter("A"), 0));
+
+        // Then - 원본 QUEUE_ID, 실패 이력 유지 / RETRY_COUNT 0
+        QueueMessage replayed = store.claim("INFO", 10, null, "NODE-A", 300).get(0);
+        assertEquals(queueId, replayed.getQueueId());
+        assertEquals(0, replayed.getRetryCount());
+        assertEquals("이력\n", store.snapshot(queueId).get("FAILURE_HISTORY"));
+        assertEquals(0L, store.countDeadLetters(filter("A")));
+
+        reopen(true);
+        assertEquals(0L, store.countDeadLetters(filter("A")));
+        assertNotNull(store.snapshot(queueId));
+    }
+
+    @Test
+    public void replayDeadLetters_activeAndDuplicateKeysAbsorbed() {
+        // Given - K: Dead Letter 2건 + 처리 전 1건, K2: Dead Letter 2건
+        failOne("A", "K", "실패");
+        failOne("A", "K", "실패");
+        failOne("A", "K2", "실패");
+        Long newestK2 = failOne("A", "K2", "실패");
+        store.enqueue(Collections.singletonList(alarm("A", "INFO", "K")));
+
+        // When
+        int replayed = store.replayDeadLetters(filter("A"), 0);
+
+        // Then - K2 최신 1건만 복귀, 나머지는 흡수되어 삭제
+        assertEquals(1, replayed);
+        assertNotNull(store.snapshot(newestK2));
+        assertEquals(2, store.countPending("INFO"));
+        assertEquals(0L, store.countDeadLetters(filter("A")));
+    }
+
+    @Test
+    public void replayDeadLetters_rateStaggersNextRetryAt() {
+        for (int i = 0; i < 3; i++) {
+            failOne("A", null, "실패");
+        }
+
+        assertEquals(3, store.replayDeadLetters(filter("A"), 2));
+
+        assertEquals("분당 2건: 2건 즉시, 1건 1분 뒤", 2, store.countPending("INFO"));
+    }
+
+    // ==================== DEDUP_KEY ====================
+
+    @Test
+    public void enqueue_activeDuplicatesAbsorbed() {
+        // Given - 한 번에 같은 키 2건 + 키 없음 2건
+        int inserted = store.enqueue(Arrays.asList(alarm("A", "INFO", "KEY-A"), alarm("A", "INFO", "KEY-A"),
+                alarm("N", "INFO", null), alarm("N", "INFO", null)));
+
+        // Then
+        assertEquals(3, inserted);
+
+        // 처리 중이어도 흡수
+        store.claim("INFO", 10, null, "NODE-A", 300);
+        assertEquals(0, store.enqueue(Collections.singletonList(alarm("A", "INFO", "KEY-A"))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void enqueue_rowLargerThanSegment_rejected() {
+        Map<String, Object> alarm = alarm("BIG", "INFO", null);
+        char[] content = new char[SEGMENT_BYTES];
+        Arrays.fill(content, 'x');
+        alarm.put("SECTION_CONTENT", new String(content));
+
+        store.enqueue(Collections.singletonList(alarm));
+    }
+
+    // ==================== 재기동 복구 ====================
+
+    @Test
+    public void reopen_afterClose_pendingAndQueueIdRestored() {
+        // Given - 3건 등록, 2건 선점 후 1건만 완료 (KEY-A는 처리 중 종료)
+        store.enqueue(Arrays.asList(alarm("A", "INFO", "KEY-A"), alarm("B", "INFO", null), alarm("C", "INFO", null)));
+        List<QueueMessage> claimed = store.claim("INFO", 2, null, "NODE-A", 300);
+        store.ack(queueIds(claimed.subList(1, 2)), claimed.get(1).getClaimToken());
+        long lastQueueId = claimed.get(1).getQueueId() + 1;
+
+        // When
+        reopen(true);
+
+        // Then - 처리 중 행은 PENDING, QUEUE_ID는 이어서 발급, DEDUP 인덱스 복구
+        assertEquals(2, store.countPending("INFO"));
+        assertEquals(0, store.enqueue(Collections.singletonList(alarm("A", "INFO", "KEY-A"))));
+        store.enqueue(Collections.singletonList(alarm("D", "INFO", null)));
+        List<QueueMessage> all = store.claim("INFO", 10, null, "NODE-A", 300);
+        assertEquals(3, all.size());
+        assertEquals(lastQueueId + 1, (long) all.get(2).getQueueId());
+    }
+
+    @Test
+    public void reopen_withoutClose_segmentReplayed() {
+        // Given - 정상 종료 없이 (checkpoint 없이) 기록만 남은 상태
+        store.enqueue(Arrays.asList(alarm("A", "INFO", null), alarm("B", "INFO", null)));
+        List<QueueMessage> claimed = store.claim("INFO", 1, null, "NODE-A", 300);
+        store.ack(queueIds(claimed), claimed.get(0).getClaimToken());
+
+        // When
+        reopen(false);
+
+        // Then
+        List<QueueMessage> remaining = store.claim("INFO", 10, null, "NODE-A", 300);
+        assertEquals(1, remaining.size());
+        assertEquals("B", remaining.get(0).getMailSource());
+    }
+
+    @Test
+    public void reopen_tornLastRecord_ignored() throws IOException {
+        // Given - 마지막 레코드 본문이 손상된 채 비정상 종료
+        store.enqueue(Collections.singletonList(alarm("A", "INFO", null)));
+        store.enqueue(Collections.singletonList(alarm("B", "INFO", null)));
+        File segment = onlySegment();
+        RandomAccessFile raf = new RandomAccessFile(segment, "rw");
+        try {
+            long end = findRecordEnd(raf);
+            raf.seek(end - 1);
+            int last = raf.read();
+            raf.seek(end - 1);
+            raf.write(last ^ 0xFF);  // 마지막 레코드 끝 1바이트 변경 → CRC 불일치
+        } finally {
+            raf.close();
+        }
+
+        // When
+        reopen(false);
+
+        // Then - 손상 전 레코드까지만 복구
+        List<QueueMessage> rows = store.claim("INFO", 10, null, "NODE-A", 300);
+        assertEquals(1, rows.size());
+        assertEquals("A", rows.get(0).getMailSource());
+    }
+
+    @Test
+    public void segmentFull_checkpointAndOldSegmentDeleted() {
+        // Given - 작은 세그먼트에 여러 번 넘치도록 기록
+        store.close();
+        store = new JournalMailQueueStore(dir, 2048);
+        for (int i = 0; i < 100; i++) {
+            store.enqueue(Collections.singletonList(alarm("S" + i, "INFO", null)));
+            if (i % 2 == 0) {
+                List<QueueMessage> claimed = store.claim("INFO", 1, null, "NODE-A", 300);
+                store.ack(queueIds(claimed), claimed.get(0).getClaimToken());
+            }
+        }
+
+        // Then - 세그먼트는 항상 1개, 재기동 후 처리 전 50건 유지
+        assertEquals(1, segmentCount());
+        reopen(false);
+        assertEquals(50, store.countPending("INFO"));
+    }
+
+    // ==================== isClaimable() ====================
+
+    @Test
+    public void isClaimable_expiredLeaseAndRetryDue() {
+        long now = 1_000_000L;
+        Map<String, Object> row = new HashMap<>();
+        row.put("STATUS", "PROCESSING");
+        row.put("SEVERITY", "CRITICAL");
+        row.put("LEASE_EXPIRE_DATE", new Date(now + 1));
+        assertFalse("Lease 유효", JournalMailQueueStore.isClaimable(row, "CRITICAL", null, now));
+
+        row.put("LEASE_EXPIRE_DATE", new Date(now - 1));
+        assertTrue("Lease 만료", JournalMailQueueStore.isClaimable(row, "CRITICAL", null, now));
+
+        row.put("NEXT_RETRY_AT", new Date(now + 1));
+        assertFalse("재시도 대기", JournalMailQueueStore.isClaimable(row, "CRITICAL", null, now));
+    }
+
+    @Test
+    public void isClaimable_updatedInThisCycle_excluded() {
+        long now = 1_000_000L;
+        Map<String, Object> row = new HashMap<>();
+        row.put("STATUS", "PENDING");
+        row.put("UPD_DATE", new Date(now - 500));
+
+        assertFalse(JournalMailQueueStore.isClaimable(row, null, new Date(now - 1000), now + 1));
+        assertTrue(JournalMailQueueStore.isClaimable(row, null, new Date(now), now + 1));
+    }
+
+
+    // ==================== Dead Letter 조건 ====================
+
+    @Test
+    public void matchesLike_wildcards() {
+        assertTrue(JournalMailQueueStore.matchesLike("SMTP 연결 실패", "%SMTP%"));
+        assertTrue(JournalMailQueueStore.matchesLike("SMTP", "SMT_"));
+        assertFalse(JournalMailQueueStore.matchesLike("SQL 오류", "%SMTP%"));
+        assertFalse("정규식 문자는 그대로 비교", JournalMailQueueStore.matchesLike("SMTP", "SMT."));
+        assertFalse("NULL은 불일치", JournalMailQueueStore.matchesLike(null, "%"));
+    }
+
+    @Test
+    public void matchesDeadLetterFilter_dateRange() {
+        Map<String, Object> deadLetter = new HashMap<>();
+        deadLetter.put("MAIL_SOURCE", "A");
+        deadLetter.put("FAILED_DATE", new Date(2000L));
+
+        Map<String, Object> range = new HashMap<>();
+        range.put("FROM_DATE", new Date(2000L));
+        range.put("TO_DATE", new Date(3000L));
+        assertTrue("FROM 포함", JournalMailQueueStore.matchesDeadLetterFilter(deadLetter, range));
+
+        range.put("TO_DATE", new Date(2000L));
+        assertFalse("TO 미포함", JournalMailQueueStore.matchesDeadLetterFilter(deadLetter, range));
+
+        assertFalse(JournalMailQueueStore.matchesDeadLetterFilter(deadLetter, filter("B")));
+    }
+
+
+    // ===== Helper Methods =====
+
+    /**
+     * INFO Lane 알람 1건 등록 → 선점 → 최종 실패 (다른 INFO 처리 전 행이 없을 때 사용)
+     */
+    private Long failOne(String mailSource, String dedupKey, String errorMessage) {
+        store.enqueue(Collections.singletonList(alarm(mailSource, "INFO", dedupKey)));
+        QueueMessage row = store.claim("INFO", 1, null, "NODE-A", 300).get(0);
+        assertEquals(1, store.fail(row.getQueueId(), row.getClaimToken(), errorMessage, "이력\n"));
+        return row.getQueueId();
+    }
+
+    private Map<String, Object> filter(String mailSource) {
+        Map<String, Object> filter = new HashMap<>();
+        filter.put("MAIL_SOURCE", mailSource);
+        return filter;
+    }
+
+    /**
+     * 저장소 재기동 (graceful=false면 비정상 종료처럼 checkpoint 없이 새 인스턴스)
+     */
+    private void reopen(boolean graceful) {
+        if (graceful) {
+            store.close();
+        }
+        store = new JournalMailQueueStore(dir, SEGMENT_BYTES);
+    }
+
+    private Map<String, Object> alarm(String mailSource, String severity, String dedupKey) {
+        Map<String, Object> alarm = new HashMap<>();
+        alarm.put("MAIL_SOURCE", mailSource);
+        alarm.put("ALARM_NAME", "저널 테스트");
+        alarm.put("SEVERITY", severity);
+        alarm.put("SQL_ID", "alarm.selectOverdueOrdersDetail");
+        alarm.put("SECTION_CONTENT", "저널 테스트 내용");
+        alarm.put("DEDUP_KEY", dedupKey);
+        return alarm;
+    }
+
+    private List<Long> queueIds(List<QueueMessage> messages) {
+        List<Long> queueIds = new ArrayList<>();
+        for (QueueMessage message : messages) {
+            queueIds.add(message.getQueueId());
+        }
+        return queueIds;
+    }
+
+    private File onlySegment() {
+        File[] segments = dir.listFiles();
+        File found = null;
+        for (File file : segments) {
+            if (file.getName().startsWith("segment-")) {
+                assertNull("세그먼트 1개", found);
+                found = file;
+            }
+        }
+        return found;
+    }
+
+    private int segmentCount() {
+        int count = 0;
+        for (File file : dir.listFiles()) {
+            if (file.getName().startsWith("segment-")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 기록된 마지막 레코드의 끝 위치 ([길이][CRC][본문] 반복, 길이 0에서 종료)
+     */
+    private long findRecordEnd(RandomAccessFile raf) throws IOException {
+        long position = 0;
+        while (true) {
+            raf.seek(position);
+            int length = raf.readInt();
+            if (length == 0) {
+                return position;
+            }
+            position += 8 + length;
+        }
+    }
+
+    private void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,95 @@
+package com.yoc.wms.mail.dao;
+
+import org.apache.ibatis.executor.BatchResult;
+import org.junit.Test;
+
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * MailDao 단위 테스트 (Pure Functions)
+ *
+ * 테스트 범위:
+ * - countApplied() - Batch update count 합계 (MERGE 중복 0건, SUCCESS_NO_INFO)
+ * - isDuplicateKey() - 유니크 제약 위반 판정 (Oracle/H2, 래핑된 예외)
+ *
+ * @since v3.22.0
+ */
+public class MailDaoTest {
+
+    // ==================== countApplied() 테스트 ====================
+
+    @Test
+    public void countApplied_mergeDuplicatesCountedAsZero() {
+        // Given - 4건 중 2건이 이미 활성 상태 (MERGE 미반영)
+        List<BatchResult> results = results(new int[]{1, 0, 1, 0});
+
+        // When & Then
+        assertEquals(2, MailDao.countApplied(results));
+    }
+
+    @Test
+    public void countApplied_successNoInfo_countedAsOne() {
+        // Given - 구버전 Oracle 드라이버
+        List<BatchResult> results = results(new int[]{Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO});
+
+        assertEquals(2, MailDao.countApplied(results));
+    }
+
+    @Test
+    public void countApplied_emptyOrNull_zero() {
+        assertEquals(0, MailDao.countApplied(null));
+        assertEquals(0, MailDao.countApplied(new ArrayList<BatchResult>()));
+        assertEquals(0, MailDao.countApplied(results(null)));
+    }
+
+    // ==================== isDuplicateKey() 테스트 ====================
+
+    @Test
+    public void isDuplicateKey_oracleUniqueViolation() {
+        SQLException oracle = new SQLIntegrityConstraintViolationException(
+                "ORA-00001: unique constraint (UX_MAIL_QUEUE_DEDUP) violated", "23000", 1);
+
+        assertTrue(MailDao.isDuplicateKey(new RuntimeException("insert 실패", oracle)));
+    }
+
+    @Test
+    public void isDuplicateKey_h2UniqueViolationInsideBatchException() {
+        // Given - BatchUpdateException.getNextException()에 실제 원인
+        BatchUpdateException batch = new BatchUpdateException("batch 실패", new int[0]);
+        batch.setNextException(new SQLException("Unique index or primary key violation", "23505", 23505));
+
+        assertTrue(MailDao.isDuplicateKey(new RuntimeException(new RuntimeException(batch))));
+    }
+
+    @Test
+    public void isDuplicateKey_checkConstraintViolation_false() {
+        SQLException check = new SQLIntegrityConstraintViolationException(
+                "ORA-02290: check constraint violated", "23000", 2290);
+
+        assertFalse(MailDao.isDuplicateKey(new RuntimeException(check)));
+    }
+
+    @Test
+    public void isDuplicateKey_nonSqlError_false() {
+        assertFalse(MailDao.isDuplicateKey(new IllegalStateException("연결 종료")));
+        assertFalse(MailDao.isDuplicateKey(null));
+    }
+
+
+    // ===== Helper Methods =====
+
+    private List<BatchResult> results(int[] updateCounts) {
+        BatchResult result = new BatchResult(null, "MERGE INTO MAIL_QUEUE", null);
+        result.setUpdateCounts(updateCounts);
+        List<BatchResult> results = new ArrayList<>();
+        results.add(result);
+        return results;
+    }
+}
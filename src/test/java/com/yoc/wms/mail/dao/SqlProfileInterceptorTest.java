@@ -0,0 +1,117 @@
+package com.yoc.wms.mail.dao;
+
+import org.apache.ibatis.plugin.Invocation;
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * SqlProfileInterceptor 단위 테스트
+ *
+ * 테스트 범위:
+ * - 바인딩된 프로파일을 Statement에 적용
+ * - 바인딩 없으면 Statement 변경 없음
+ *
+ * JDBC Statement는 호출을 기록하는 Dynamic Proxy로 대체 (Mockito 없음)
+ *
+ * @since v3.16.0
+ */
+public class SqlProfileInterceptorTest {
+
+    private final SqlProfileInterceptor interceptor = new SqlProfileInterceptor();
+
+    @After
+    public void tearDown() {
+        SqlProfileInterceptor.clear();
+    }
+
+    @Test
+    public void intercept_boundProfile_appliedToStatement() throws Throwable {
+        RecordingStatement recorder = new RecordingStatement();
+        SqlProfileInterceptor.bind(new SqlProfile(30, 500));
+
+        interceptor.intercept(parameterize(recorder));
+
+        assertEquals(30, recorder.calls.get("setQueryTimeout"));
+        assertEquals(500, recorder.calls.get("setFetchSize"));
+        assertTrue(recorder.calls.containsKey("proceed"));
+    }
+
+    @Test
+    public void intercept_noProfile_statementUntouched() throws Throwable {
+        RecordingStatement recorder = new RecordingStatement();
+
+        interceptor.intercept(parameterize(recorder));
+
+        assertFalse(recorder.calls.containsKey("setQueryTimeout"));
+        assertFalse(recorder.calls.containsKey("setFetchSize"));
+    }
+
+    @Test
+    public void intercept_zeroValues_skipped() throws Throwable {
+        RecordingStatement recorder = new RecordingStatement();
+        SqlProfileInterceptor.bind(new SqlProfile(0, 200));
+
+        interceptor.intercept(parameterize(recorder));
+
+        assertFalse(recorder.calls.containsKey("setQueryTimeout"));
+        assertEquals(200, recorder.calls.get("setFetchSize"));
+    }
+
+    @Test
+    public void clear_removesBinding() throws Throwable {
+        RecordingStatement recorder = new RecordingStatement();
+        SqlProfileInterceptor.bind(new SqlProfile(30, 500));
+        SqlProfileInterceptor.clear();
+
+        interceptor.intercept(parameterize(recorder));
+
+        assertFalse(recorder.calls.containsKey("setFetchSize"));
+    }
+
+
+    // ===== Helper Methods =====
+
+    /**
+     * StatementHandler.parameterize(statement) 호출 대역 (proceed 시 "proceed" 기록)
+     */
+    private Invocation parameterize(final RecordingStatement recorder) throws NoSuchMethodException {
+        Object handler = new Object() {
+            @SuppressWarnings("unused")
+            public void parameterize(Statement s) {
+                recorder.calls.put("proceed", 1);
+            }
+        };
+        Method method = handler.getClass().getMethod("parameterize", Statement.class);
+        method.setAccessible(true);
+        return new Invocation(handler, method, new Object[]{recorder.statement});
+    }
+
+    private static class RecordingStatement {
+        final Map<String, Object> calls = new LinkedHashMap<>();
+        final Statement statement = (Statement) Proxy.newProxyInstance(
+                Statement.class.getClassLoader(), new Class<?>[]{Statement.class}, new RecordingHandler(this));
+    }
+
+    private static class RecordingHandler implements InvocationHandler {
+        final RecordingStatement owner;
+
+        RecordingHandler(RecordingStatement owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            owner.calls.put(method.getName(), (args != null && args.length == 1) ? args[0] : null);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.yoc.wms.mail.dao;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * SqlProfileRegistry 단위 테스트 (Pure Functions)
+ *
+ * 테스트 범위:
+ * - findOverride() - "SQL_ID:값" 목록 파싱
+ * - buildProfile() - SQL_ID별 값 / 기본값 조합
+ *
+ * @since v3.16.0
+ */
+public class SqlProfileRegistryTest {
+
+    private static final String SQL_ID = "alarm.selectOverdueOrdersDetail";
+
+    // ==================== findOverride() 테스트 ====================
+
+    @Test
+    public void findOverride_matchingSqlId() {
+        String mappings = "alarm.selectLowStockDetail:10, alarm.selectOverdueOrdersDetail:120";
+
+        assertEquals(Integer.valueOf(120), SqlProfileRegistry.findOverride(mappings, SQL_ID));
+    }
+
+    @Test
+    public void findOverride_notConfigured_null() {
+        assertNull(SqlProfileRegistry.findOverride("", SQL_ID));
+        assertNull(SqlProfileRegistry.findOverride(null, SQL_ID));
+        assertNull(SqlProfileRegistry.findOverride("alarm.selectLowStockDetail:10", SQL_ID));
+    }
+
+    @Test
+    public void findOverride_caseSensitive() {
+        assertNull(SqlProfileRegistry.findOverride("ALARM.SELECTOVERDUEORDERSDETAIL:10", SQL_ID));
+    }
+
+    @Test
+    public void findOverride_invalidNumber_ignored() {
+        assertNull(SqlProfileRegistry.findOverride(SQL_ID + ":abc", SQL_ID));
+    }
+
+    // ==================== buildProfile() 테스트 ====================
+
+    @Test
+    public void buildProfile_defaults() {
+        SqlProfile profile = SqlProfileRegistry.buildProfile(SQL_ID, 30, 500, "", "");
+
+        assertEquals(new SqlProfile(30, 500), profile);
+    }
+
+    @Test
+    public void buildProfile_overridesPerValue() {
+        SqlProfile profile = SqlProfileRegistry.buildProfile(SQL_ID, 30, 500, SQL_ID + ":0", SQL_ID + ":2000");
+
+        assertEquals(0, profile.getTimeoutSeconds());
+        assertEquals(2000, profile.getFetchSize());
+    }
+
+    @Test
+    public void sqlProfile_isEmpty() {
+        assertTrue(SqlProfile.NONE.isEmpty());
+        assertTrue(new SqlProfile(-1, 0).isEmpty());
+        assertFalse(new SqlProfile(0, 100).isEmpty());
+    }
+}
@@ -0,0 +1,140 @@
+package com.yoc.wms.mail.domain;
+
+import org.junit.Test;
+
+import javax.sql.rowset.serial.SerialClob;
+import java.sql.SQLException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * QueueMessage 단위 테스트
+ *
+ * 테스트 범위:
+ * - fromRow() 변환 (숫자 타입, NULL 기본값)
+ * - CLOB 생성 시 변환 (1회, 커넥션 반환 후에도 조회 가능)
+ * - 불변성 (withSectionContent 사본, REG_DATE 방어 복사)
+ *
+ * @since v3.25.0
+ */
+public class QueueMessageTest {
+
+    // ==================== fromRow() ====================
+
+    @Test
+    public void fromRow_numberTypesNormalized() {
+        // Given - Oracle NUMBER는 BigDecimal
+        Map<String, Object> row = new HashMap<>();
+        row.put("QUEUE_ID", new java.math.BigDecimal("42"));
+        row.put("RETRY_COUNT", new java.math.BigDecimal("2"));
+        row.put("MAIL_SOURCE", "LOW_STOCK");
+        row.put("CLAIM_TOKEN", "token-1");
+
+        // When
+        QueueMessage message = QueueMessage.fromRow(row);
+
+        // Then
+        assertEquals(Long.valueOf(42L), message.getQueueId());
+        assertEquals(2, message.getRetryCount());
+        assertEquals("LOW_STOCK", message.getMailSource());
+        assertEquals("token-1", message.getClaimToken());
+    }
+
+    @Test
+    public void fromRow_nullColumns_defaults() {
+        QueueMessage message = QueueMessage.fromRow(new HashMap<String, Object>());
+
+        assertNull(message.getQueueId());
+        assertEquals("RETRY_COUNT NULL → 0", 0, message.getRetryCount());
+        assertEquals("CLOB NULL → 빈 문자열", "", message.getSectionContent());
+        assertEquals("", message.getRecipientUserIds());
+        assertNull(message.getRecipientGroups());
+        assertNull(message.getRegDate());
+    }
+
+    // ==================== CLOB 변환 ====================
+
+    @Test
+    public void fromRow_clob_convertedOnceAtConstruction() throws SQLException {
+        // Given
+        CountingClob content = new CountingClob("재고 부족 5건");
+        CountingClob userIds = new CountingClob("ADMIN,USER1");
+        Map<String, Object> row = createRow(1L, null);
+        row.put("SECTION_CONTENT", content);
+        row.put("RECIPIENT_USER_IDS", userIds);
+
+        // When
+        QueueMessage message = QueueMessage.fromRow(row);
+
+        // Then - 생성 시 1회 변환, 이후 CLOB 접근 없음 (조회 커넥션 반환 후에도 안전)
+        assertEquals(1, content.reads);
+        assertEquals(1, userIds.reads);
+        content.free();
+        userIds.free();
+
+        assertEquals("재고 부족 5건", message.getSectionContent());
+        assertEquals("ADMIN,USER1", message.getRecipientUserIds());
+        assertEquals("ADMIN,USER1", message.withSectionContent("통합 본문").getRecipientUserIds());
+        assertEquals(1, content.reads);
+        assertEquals(1, userIds.reads);
+    }
+
+    // ==================== 불변성 ====================
+
+    @Test
+    public void withSectionContent_returnsCopy() {
+        QueueMessage original = QueueMessage.fromRow(createRow(7L, "원본"));
+
+        QueueMessage copy = original.withSectionContent("통합 본문");
+
+        assertEquals("원본", original.getSectionContent());
+        assertEquals("통합 본문", copy.getSectionContent());
+        assertEquals(original.getQueueId(), copy.getQueueId());
+        assertEquals(original.getClaimToken(), copy.getClaimToken());
+        assertEquals(original.getRegDate(), copy.getRegDate());
+    }
+
+    @Test
+    public void regDate_defensiveCopy() {
+        Date regDate = new Date(1700000000000L);
+        Map<String, Object> row = createRow(1L, "본문");
+        row.put("REG_DATE", regDate);
+        QueueMessage message = QueueMessage.fromRow(row);
+
+        regDate.setTime(0L);
+        message.getRegDate().setTime(0L);
+
+        assertEquals(1700000000000L, message.getRegDate().getTime());
+    }
+
+
+    // ===== Helper Methods =====
+
+    private Map<String, Object> createRow(Long queueId, String content) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("QUEUE_ID", queueId);
+        row.put("MAIL_SOURCE", "LOW_STOCK");
+        row.put("SECTION_CONTENT", content);
+        row.put("CLAIM_TOKEN", "token-" + queueId);
+        row.put("REG_DATE", new Date(1700000000000L));
+        return row;
+    }
+
+    /**
+     * getSubString 호출 횟수를 세는 CLOB (Mock 대신 실제 구현)
+     */
+    private static class CountingClob extends SerialClob {
+        int reads;
+
+        CountingClob(String value) throws SQLException {
+            super(value.toCharArray());
+        }
+
+        @Override
+        public String getSubString(long pos, int length) throws javax.sql.rowset.serial.SerialException {
+            reads++;
+            return super.getSubString(pos, length);
+        }
+    }
+}
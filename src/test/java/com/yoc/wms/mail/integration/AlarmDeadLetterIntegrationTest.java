@@ -0,0 +1,287 @@
+package com.yoc.wms.mail.integration;
+
+import com.yoc.wms.mail.dao.MailDao;
+import com.yoc.wms.mail.exception.ValueChainException;
+import com.yoc.wms.mail.service.AlarmDeadLetterService;
+import com.yoc.wms.mail.service.AlarmMailService;
+import com.yoc.wms.mail.util.FakeMailSender;
+import com.yoc.wms.mail.util.MailUtils;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.MethodSorters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Dead Letter 큐(MAIL_QUEUE_DLQ) 통합 테스트 (H2)
+ *
+ * Architecture:
+ * - MailDao: Real (H2 In-Memory)
+ * - AlarmMailService, AlarmDeadLetterService: Real
+ * - JavaMailSender: Fake (FakeMailSender, SMTP 발송 방지)
+ *
+ * 존재하지 않는 SQL_ID로 처리 실패를 유발합니다 (SMTP 재시도 대기 없이 즉시 실패).
+ *
+ * 시나리오 구성:
+ * 1. 재시도 시 FAILURE_HISTORY 누적
+ * 2. 최종 실패 시 MAIL_QUEUE → MAIL_QUEUE_DLQ 이동 (실패 이력 보존)
+ * 3. MAIL_SOURCE 조건 재처리 - 대상만 PENDING으로 복귀, 나머지는 Dead Letter 유지
+ * 4. 에러 패턴 조건 재처리
+ * 5. 속도 제어 - 분당 N건씩 NEXT_RETRY_AT 분산
+ * 6. 조건 없는 재처리 거부
+ * 7. DEDUP_KEY 중복 흡수 - 처리 전 키/같은 키 중복은 복귀하지 않고 삭제 (재처리 전체 실패 없음)
+ *
+ * @since v3.8.0
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(properties = "alarm.queue.scheduler.enabled=false")
+@ActiveProfiles("integration")
+@Import(IntegrationTestConfig.class)  // ⭐ FakeMailSender 주입
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+@Ignore("H2 integration 프로파일 필요 - 필요 시 @Ignore 제거 후 실행")
+public class AlarmDeadLetterIntegrationTest {
+
+    private static final String INVALID_SQL_ID = "alarm.notExistingDetail";
+
+    @Autowired
+    private AlarmMailService alarmMailService;  // Real
+
+    @Autowired
+    private AlarmDeadLetterService deadLetterService;  // Real
+
+    @Autowired
+    private MailDao mailDao;  // Real (H2)
+
+    @Autowired
+    private JavaMailSender mailSender;  // Fake (IntegrationTestConfig에서 주입)
+
+    @Before
+    public void setUp() {
+        mailDao.delete("alarm.deleteAllQueue", null);
+        mailDao.delete("alarm.deleteAllDeadLetter", null);
+
+        FakeMailSender fake = (FakeMailSender) mailSender;
+        fake.reset();
+    }
+
+
+    // ==================== 시나리오 1: 실패 이력 누적 ====================
+
+    @Test
+    public void test01_retry_appendsFailureHistory() {
+        // Given - 첫 시도
+        insertQueue("DLQ_RETRY", INVALID_SQL_ID, 0);
+
+        // When
+        alarmMailService.processQueue();
+
+        // Then - 재시도 대기, 실패 이력 1줄
+        Map<String, Object> queue = selectQueueByMailSource("DLQ_RETRY");
+        assertEquals("PENDING", queue.get("STATUS"));
+        String history = MailUtils.convertToString(queue.get("FAILURE_HISTORY"));
+        assertTrue(history, history.contains("[시도 1/3]"));
+
+        System.out.println("✅ 실패 이력 누적: " + history.trim());
+    }
+
+
+    // ==================== 시나리오 2: 최종 실패 → Dead Letter 이동 ====================
+
+    @Test
+    public void test02_finalFailure_movedToDeadLetter() {
+        // Given - 마지막 시도 (RETRY_COUNT = 2)
+        insertQueue("DLQ_FINAL", INVALID_SQL_ID, 2);
+
+        // When
+        alarmMailService.processQueue();
+
+        // Then - MAIL_QUEUE에서 제거
+        Map<String, Object> params = new HashMap<>();
+        params.put("MAIL_SOURCE", "DLQ_FINAL");
+        assertTrue(mailDao.selectList("alarm.selectQueueByMailSource", params).isEmpty());
+
+        // Dead Letter에 실패 이력과 함께 보존
+        List<Map<String, Object>> deadLetters = mailDao.selectList("alarm.selectDeadLetterByMailSource", params);
+        assertEquals(1, deadLetters.size());
+        Map<String, Object> deadLetter = deadLetters.get(0);
+        assertEquals(2, ((Number) deadLetter.get("RETRY_COUNT")).intValue());
+        assertNotNull(deadLetter.get("ERROR_MESSAGE"));
+        assertNotNull(deadLetter.get("LAST_NODE_ID"));
+        assertNotNull(deadLetter.get("FAILED_DATE"));
+        assertTrue(MailUtils.convertToString(deadLetter.get("FAILURE_HISTORY")).contains("[시도 3/3]"));
+
+        System.out.println("✅ 최종 실패 → Dead Letter 이동");
+    }
+
+
+    // ==================== 시나리오 3: MAIL_SOURCE 조건 재처리 ====================
+
+    @Test
+    public void test03_replayByMailSource_onlyMatchingRowsReturned() {
+        // Given
+        insertDeadLetter("DLQ_SOURCE_A", "SMTP 연결 실패");
+        insertDeadLetter("DLQ_SOURCE_A", "SMTP 연결 실패");
+        insertDeadLetter("DLQ_SOURCE_B", "SMTP 연결 실패");
+        assertEquals(2L, deadLetterService.countDeadLetters("DLQ_SOURCE_A", null, null, null));
+
+        // When
+        int replayed = deadLetterService.replay("DLQ_SOURCE_A", null, null, null, 0);
+
+        // Then - A만 MAIL_QUEUE로 복귀 (PENDING, RETRY_COUNT 초기화)
+        assertEquals(2, replayed);
+        Map<String, Object> params = new HashMap<>();
+        params.put("MAIL_SOURCE", "DLQ_SOURCE_A");
+        List<Map<String, Object>> queues = mailDao.selectList("alarm.selectQueueByMailSource", params);
+        assertEquals(2, queues.size());
+        for (Map<String, Object> queue : queues) {
+            assertEquals("PENDING", queue.get("STATUS"));
+            assertEquals(0, ((Number) queue.get("RETRY_COUNT")).intValue());
+        }
+        assertTrue(mailDao.selectList("alarm.selectDeadLetterByMailSource", params).isEmpty());
+
+        // B는 Dead Letter 유지
+        params.put("MAIL_SOURCE", "DLQ_SOURCE_B");
+        assertEquals(1, mailDao.selectList("alarm.selectDeadLetterByMailSource", params).size());
+
+        System.out.println("✅ MAIL_SOURCE 조건 재처리: " + replayed + "건");
+    }
+
+
+    // ==================== 시나리오 4: 에러 패턴 조건 재처리 ====================
+
+    @Test
+    public void test04_replayByErrorPattern() {
+        // Given
+        insertDeadLetter("DLQ_PATTERN", "SMTP 연결 실패");
+        insertDeadLetter("DLQ_PATTERN", "SQL 문법 오류");
+
+        // When
+        int replayed = deadLetterService.replay(null, null, null, "%SMTP%", 0);
+
+        // Then
+        assertEquals(1, replayed);
+        Map<String, Object> params = new HashMap<>();
+        params.put("MAIL_SOURCE", "DLQ_PATTERN");
+        List<Map<String, Object>> deadLetters = mailDao.selectList("alarm.selectDeadLetterByMailSource", params);
+        assertEquals(1, deadLetters.size());
+        assertEquals("SQL 문법 오류", deadLetters.get(0).get("ERROR_MESSAGE"));
+
+        System.out.println("✅ 에러 패턴 조건 재처리");
+    }
+
+
+    // ==================== 시나리오 5: 속도 제어 ====================
+
+    @Test
+    public void test05_replayWithRate_staggersNextRetryAt() {
+        // Given - 5건
+        for (int i = 0; i < 5; i++) {
+            insertDeadLetter("DLQ_RATE", "SMTP 연결 실패");
+        }
+
+        // When - 분당 2건
+        int replayed = deadLetterService.replay("DLQ_RATE", null, null, null, 2);
+
+        // Then - 즉시 처리 가능한 행은 2건, 나머지는 1분/2분 뒤 도래
+        assertEquals(5, replayed);
+        Map<String, Object> result = mailDao.selectOne("alarm.selectPendingCount", new HashMap<String, Object>());
+        assertEquals(2, ((Number) result.get("CNT")).intValue());
+
+        System.out.println("✅ 속도 제어: 5건 중 2건 즉시, 3건 분산");
+    }
+
+
+    // ==================== 시나리오 6: 조건 없는 재처리 거부 ====================
+
+    @Test(expected = ValueChainException.class)
+    public void test06_replayWithoutFilter_rejected() {
+        deadLetterService.replay(null, null, null, "  ", 0);
+    }
+
+
+    // ==================== 시나리오 7: DEDUP_KEY 중복 흡수 ====================
+
+    @Test
+    public void test07_replayWithActiveDedupKey_absorbedInsteadOfFailing() {
+        // Given - K는 MAIL_QUEUE에 처리 전(PENDING) 행이 있음, K2는 Dead Letter에만 2건
+        Map<String, Object> queueData = new HashMap<>();
+        queueData.put("MAIL_SOURCE", "DLQ_DEDUP_ACTIVE");
+        queueData.put("ALARM_NAME", "처리 전 알람");
+        queueData.put("SEVERITY", "INFO");
+        queueData.put("SQL_ID", "alarm.selectOverdueOrdersDetail");
+        queueData.put("SECTION_TITLE", "처리 전 알람");
+        queueData.put("SECTION_CONTENT", "처리 전");
+        queueData.put("DEDUP_KEY", "DLQ_DEDUP_K");
+        queueData.put("RETRY_COUNT", 0);
+        mailDao.insert("alarm.insertTestQueue", queueData);
+
+        insertDeadLetter("DLQ_DEDUP", "SMTP 연결 실패", "DLQ_DEDUP_K");
+        insertDeadLetter("DLQ_DEDUP", "SMTP 연결 실패", "DLQ_DEDUP_K2");
+        insertDeadLetter("DLQ_DEDUP", "SMTP 연결 실패", "DLQ_DEDUP_K2");
+        insertDeadLetter("DLQ_DEDUP", "SMTP 연결 실패", null);
+
+        // When - 유니크 제약 위반 없이 완료
+        int replayed = deadLetterService.replay("DLQ_DEDUP", null, null, null, 0);
+
+        // Then - K2 1건 + 키 없는 1건만 복귀
+        assertEquals(2, replayed);
+        Map<String, Object> params = new HashMap<>();
+        params.put("MAIL_SOURCE", "DLQ_DEDUP");
+        assertEquals(2, mailDao.selectList("alarm.selectQueueByMailSource", params).size());
+
+        // 흡수된 행(K 1건, K2 중복 1건)은 Dead Letter에서 삭제
+        assertTrue(mailDao.selectList("alarm.selectDeadLetterByMailSource", params).isEmpty());
+
+        System.out.println("✅ DEDUP_KEY 중복 흡수: 복귀 " + replayed + "건, 흡수 2건");
+    }
+
+
+    // ==================== Helper ====================
+
+    private void insertQueue(String mailSource, String sqlId, int retryCount) {
+        Map<String, Object> queueData = new HashMap<>();
+        queueData.put("MAIL_SOURCE", mailSource);
+        queueData.put("ALARM_NAME", "Dead Letter 테스트");
+        queueData.put("SEVERITY", "WARNING");
+        queueData.put("SQL_ID", sqlId);
+        queueData.put("SECTION_TITLE", "Dead Letter 테스트");
+        queueData.put("SECTION_CONTENT", "처리 실패 검증");
+        queueData.put("RETRY_COUNT", retryCount);
+        mailDao.insert("alarm.insertTestQueue", queueData);
+    }
+
+    private void insertDeadLetter(String mailSource, String errorMessage) {
+        insertDeadLetter(mailSource, errorMessage, null);
+    }
+
+    private void insertDeadLetter(String mailSource, String errorMessage, String dedupKey) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("MAIL_SOURCE", mailSource);
+        data.put("ALARM_NAME", "Dead Letter 재처리 테스트");
+        data.put("SEVERITY", "INFO");
+        data.put("SQL_ID", "alarm.selectOverdueOrdersDetail");
+        data.put("SECTION_TITLE", "Dead Letter 재처리");
+        data.put("SECTION_CONTENT", "재처리 검증");
+        data.put("ERROR_MESSAGE", errorMessage);
+        data.put("DEDUP_KEY", dedupKey);
+        mailDao.insert("alarm.insertTestDeadLetter", data);
+    }
+
+    private Map<String, Object> selectQueueByMailSource(String mailSource) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("MAIL_SOURCE", mailSource);
+        List<Map<String, Object>> queues = mailDao.selectList("alarm.selectQueueByMailSource", params);
+        assertEquals(1, queues.size());
+        Map<String, Object> selectParams = new HashMap<>();
+        selectParams.put("QUEUE_ID", queues.get(0).get("QUEUE_ID"));
+        return mailDao.selectOne("alarm.selectQueueById", selectParams);
+    }
+}
@@ -15,6 +15,7 @@ import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -43,18 +44,19 @@ import static org.junit.Assert.*;
  * 1. 정상 발송 (PENDING → SUCCESS)
  * 2. 복수 알람 배치 처리
  * 3. 첫 번째 재시도 (RETRY_COUNT 증가)
- * 4. 최종 실패 (3회 재시도 후 FAILED)
+ * 4. 최종 실패 (3회 재시도 후 FAILED → Dead Letter 이동)
  * 5. 재시도 후 성공 (Resilience 검증)
  * 6. SQL_ID 동적 조회 - OVERDUE_ORDERS
  * 7. SQL_ID 동적 조회 - LOW_STOCK
  * 8. 빈 테이블 데이터 (테이블 섹션 생략)
  * 9. CLOB 변환 검증
  * 10. 심각도별 처리 (CRITICAL/WARNING/INFO)
+ * 12. 워터마크 분기 SQL 구분 (MailDao.getStatementSql - <if test="WATERMARK != null"> 분기 반영)
  *
  * @since v2.4.0 (Chicago School, Mockito 제거)
  */
 @RunWith(SpringJUnit4ClassRunner.class)
-@SpringBootTest
+@SpringBootTest(properties = "alarm.queue.scheduler.enabled=false")
 @ActiveProfiles("integration")
 @Import(IntegrationTestConfig.class)  // ⭐ FakeMailSender 주입
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
@@ -77,6 +79,7 @@ public class AlarmMailServiceIntegrationTest {
     public void setUp() {
         // 큐 초기화
         mailDao.delete("alarm.deleteAllQueue", null);
+        mailDao.delete("alarm.deleteAllDeadLetter", null);
 
         // Fake 초기화
         FakeMailSender fake = (FakeMailSender) mailSender;
@@ -232,14 +235,17 @@ public class AlarmMailServiceIntegrationTest {
         // When
         alarmMailService.processQueue();
 
-        // Then - FAILED 상태 확인
+        // Then - MAIL_QUEUE에서 제거, Dead Letter로 이동 (v3.8.0)
         Map<String, Object> params = new HashMap<>();
         params.put("MAIL_SOURCE", "FINAL_FAILURE");
         List<Map<String, Object>> queues = mailDao.selectList("alarm.selectQueueByMailSource", params);
-        assertEquals("FAILED", queues.get(0).get("STATUS"));  // 최종 실패
-        assertEquals(2, ((Number) queues.get(0).get("RETRY_COUNT")).intValue());  // RETRY_COUNT 유지
+        assertTrue(queues.isEmpty());  // 최종 실패 행은 큐에 남지 않음
 
-        System.out.println("✅ 최종 실패 처리: PENDING → FAILED");
+        List<Map<String, Object>> deadLetters = mailDao.selectList("alarm.selectDeadLetterByMailSource", params);
+        assertEquals(1, deadLetters.size());
+        assertEquals(2, ((Number) deadLetters.get(0).get("RETRY_COUNT")).intValue());  // RETRY_COUNT 유지
+
+        System.out.println("✅ 최종 실패 처리: PENDING → FAILED → Dead Letter");
     }
 
 
@@ -477,6 +483,35 @@ public class AlarmMailServiceIntegrationTest {
         System.out.println("  8. 빈 테이블 데이터 처리");
         System.out.println("  9. CLOB 변환 검증");
         System.out.println(" 10. 심각도별 처리 (CRITICAL/WARNING/INFO)");
+        System.out.println(" 12. 워터마크 분기 SQL 구분");
         System.out.println("========================================\n");
     }
+
+
+    // ==================== 시나리오 12: 워터마크 분기 SQL 구분 ====================
+
+    @Test
+    public void test12_scenario12_statementSql_watermarkBranchIncluded() {
+        // Given - selectOverdueOrdersDetail: <if test="WATERMARK != null"> AND UPD_DATE > #{WATERMARK}
+        String statement = "alarm.selectOverdueOrdersDetail";
+        Map<String, Object> first = new HashMap<>();
+        first.put("WATERMARK", new Date(1700000000000L));
+        Map<String, Object> second = new HashMap<>();
+        second.put("WATERMARK", new Date(1700000001000L));
+
+        // When
+        String withoutWatermark = mailDao.getStatementSql(statement, null);
+        String withWatermark = mailDao.getStatementSql(statement, first);
+
+        // Then - 분기가 포함된 SQL과 바인딩 파라미터 이름으로 구분
+        assertFalse(withoutWatermark.contains("UPD_DATE >"));
+        assertTrue(withWatermark.contains("UPD_DATE >"));
+        assertTrue(withWatermark.endsWith("-- params: WATERMARK"));
+        assertFalse(withoutWatermark.equals(withWatermark));
+
+        // 값은 비교하지 않음 (같은 분기면 같은 SQL)
+        assertEquals(withWatermark, mailDao.getStatementSql(statement, second));
+
+        System.out.println("✅ 워터마크 분기 SQL 구분");
+    }
 }
\ No newline at end of file
@@ -23,7 +23,7 @@ import java.util.concurrent.TimeUnit;
  * 3. INFO 알람 (시스템 공지)
  */
 @RunWith(SpringJUnit4ClassRunner.class)
-@SpringBootTest
+@SpringBootTest(properties = "alarm.queue.scheduler.enabled=false")
 @ActiveProfiles("integration")
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 @Ignore("실제 메일 발송 테스트 - 필요 시 @Ignore 제거 후 실행")
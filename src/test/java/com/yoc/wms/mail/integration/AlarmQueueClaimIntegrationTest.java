@@ -0,0 +1,984 @@
+package com.yoc.wms.mail.integration;
+
+import com.yoc.wms.mail.config.AlarmQueueConfig;
+import com.yoc.wms.mail.dao.MailDao;
+import com.yoc.wms.mail.domain.QueueMessage;
+import com.yoc.wms.mail.service.AlarmMailService;
+import com.yoc.wms.mail.service.AlarmQueue;
+import com.yoc.wms.mail.service.AlarmQueueReaper;
+import com.yoc.wms.mail.service.AlarmQueueMetrics;
+import com.yoc.wms.mail.service.AlarmRuleEngine;
+import com.yoc.wms.mail.util.FakeMailSender;
+import com.yoc.wms.mail.util.MailUtils;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.MethodSorters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * MAIL_QUEUE Multi-Node 선점(Claim) 통합 테스트 (H2)
+ *
+ * Architecture:
+ * - MailDao: Real (H2 In-Memory)
+ * - AlarmMailService: Real (선점 → 발송 → 상태 업데이트)
+ * - JavaMailSender: Fake (FakeMailSender, SMTP 발송 방지)
+ *
+ * 두 Consumer(NODE-A, NODE-B)가 동시에 alarm.claimPendingQueue를 실행해도
+ * 같은 QUEUE_ID가 두 노드에 선점되지 않음을 DB 상태로 검증합니다.
+ *
+ * 시나리오 구성:
+ * 1. 동시 선점 - 두 노드의 선점 결과가 겹치지 않고 합집합이 전체 큐와 일치
+ * 2. Lease 유효 중 재선점 불가, Lease 만료 후 다른 노드가 재선점
+ * 3. 늦게 도착한 상태 업데이트 차단 (CLAIM_TOKEN 불일치)
+ * 4. processQueue 전체 흐름 (PENDING → PROCESSING → SUCCESS)
+ * 5. 메시지별 트랜잭션 - 한 메시지 실패가 다른 메시지 상태 업데이트를 롤백하지 않음 (v3.3.0)
+ * 6. Drain 모드 - 1회 호출로 batch-size를 넘는 적체를 모두 처리 (v3.4.0)
+ * 7. Severity Lane - Lane별 선점 분리, 전체 Lane 처리 (v3.6.0)
+ * 8. 재시도 Backoff - NEXT_RETRY_AT 도래 전에는 선점 제외 (v3.7.0)
+ * 9. 상세 쿼리 캐시 - 같은 배치의 동일 SQL_ID는 1회만 실행 (v3.9.0)
+ * 10. 결과 변경 없는 알람 생략 - 두 번째 발송은 SKIPPED, 메일 미발송 (v3.12.0)
+ * 11. SQL_ID 격리 - 연속 실패한 SQL_ID의 나머지 행은 쿼리 없이 연기 (v3.17.0)
+ * 12. 처리 중 회수 - Heartbeat가 끊긴 노드 / 처리 시한 경과 행만 PENDING으로 회수 (v3.18.0)
+ * 13. 종료 시 선점 반환 - 종료하는 노드의 행만 재시도 소모 없이 PENDING, 다른 노드가 즉시 선점 (v3.19.0)
+ * 14. 알람 규칙 엔진 - 평가 주기가 된 규칙 중 발생한 규칙만 등록, 같은 주기 재실행 시 재등록 없음 (v3.21.0)
+ * 15. 중복 등록 흡수 - 같은 DEDUP_KEY가 처리 전이면 등록 생략, 처리 완료 후에는 다시 등록 (v3.22.0)
+ * 16. 큐 등록 API - 등록된 행의 Lane만 신호 증가, 전부 흡수되면 신호 없음 (v3.23.0)
+ * 17. 회수 한도 / Lease 연장 - 시도 횟수를 모두 쓴 행은 Dead Letter, 연장된 선점은 회수 안 됨 (v3.18.0)
+ * 18. 규칙 평가 실패 선점 취소 - 평가 실패한 알람 규칙은 LAST_CHECKED_AT 복원 → 다음 주기에 재평가 (v3.21.0)
+ * 19. 종료 Drain 시간 초과 - 대기 중이던 메시지만 PENDING 반환, 발송 중이던 행은 선점 유지 (v3.19.0)
+ *
+ * @since v3.1.0
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(properties = "alarm.queue.scheduler.enabled=false")
+@ActiveProfiles("integration")
+@Import(IntegrationTestConfig.class)  // ⭐ FakeMailSender 주입
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+@Ignore("H2 integration 프로파일 필요 - 필요 시 @Ignore 제거 후 실행")
+public class AlarmQueueClaimIntegrationTest {
+
+    private static final int QUEUE_SIZE = 50;
+
+    @Autowired
+    private AlarmMailService alarmMailService;  // Real
+
+    @Autowired
+    private MailDao mailDao;  // Real (H2)
+
+    @Autowired
+    private AlarmQueueMetrics queueMetrics;  // Real
+
+    @Autowired
+    private AlarmQueueConfig queueConfig;  // Real
+
+    @Autowired
+    private AlarmQueueReaper queueReaper;  // Real
+
+    @Autowired
+    private AlarmRuleEngine ruleEngine;  // Real
+
+    @Autowired
+    private AlarmQueue alarmQueue;  // Real (scheduler 비활성 → 같은 노드 Consumer 미등록, DB 신호만)
+
+    @Autowired
+    private JavaMailSender mailSender;  // Fake (IntegrationTestConfig에서 주입)
+
+    @Before
+    public void setUp() {
+        mailDao.delete("alarm.deleteAllQueue", null);
+        mailDao.delete("alarm.deleteAllAlarmState", null);
+        mailDao.delete("alarm.deleteAllNodeHeartbeat", null);
+        mailDao.delete("alarm.deleteAllAlarmRule", null);
+
+        FakeMailSender fake = (FakeMailSender) mailSender;
+        fake.reset();
+    }
+
+
+    // ==================== 시나리오 1: 동시 선점 ====================
+
+    @Test
+    public void test01_concurrentClaim_noDuplicateQueueId() throws Exception {
+        // Given - PENDING 50건
+        insertPendingQueues(QUEUE_SIZE);
+
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final List<Long> claimedByA = Collections.synchronizedList(new ArrayList<Long>());
+        final List<Long> claimedByB = Collections.synchronizedList(new ArrayList<Long>());
+
+        Thread nodeA = new Thread(new ClaimWorker("NODE-A", claimedByA, startLatch));
+        Thread nodeB = new Thread(new ClaimWorker("NODE-B", claimedByB, startLatch));
+
+        // When - 두 노드가 동시에 5건씩 선점
+        nodeA.start();
+        nodeB.start();
+        startLatch.countDown();
+        nodeA.join(30000);
+        nodeB.join(30000);
+
+        // Then - 교집합 없음
+        Set<Long> intersection = new HashSet<>(claimedByA);
+        intersection.retainAll(claimedByB);
+        assertTrue("중복 선점된 QUEUE_ID: " + intersection, intersection.isEmpty());
+
+        // 합집합 = 전체 큐 (누락 없음)
+        Set<Long> union = new HashSet<>(claimedByA);
+        union.addAll(claimedByB);
+        assertEquals(QUEUE_SIZE, union.size());
+        assertEquals(QUEUE_SIZE, claimedByA.size() + claimedByB.size());
+
+        // DB 상태: 전부 PROCESSING, OWNER_NODE_ID가 선점한 노드와 일치
+        assertEquals(0, countByStatus("PENDING"));
+        assertEquals(QUEUE_SIZE, countByStatus("PROCESSING"));
+        for (Long queueId : claimedByA) {
+            assertEquals("NODE-A", selectQueue(queueId).get("OWNER_NODE_ID"));
+        }
+        for (Long queueId : claimedByB) {
+            assertEquals("NODE-B", selectQueue(queueId).get("OWNER_NODE_ID"));
+        }
+
+        System.out.println("✅ 동시 선점: NODE-A " + claimedByA.size() + "건, NODE-B " + claimedByB.size() + "건, 중복 0건");
+    }
+
+
+    // ==================== 시나리오 2: Lease 만료 후 재선점 ====================
+
+    @Test
+    public void test02_leaseExpired_reclaimedByOtherNode() {
+        // Given - NODE-A가 이미 만료된 Lease로 선점 (노드 장애 시뮬레이션)
+        insertPendingQueues(1);
+        List<QueueMessage> claimedByA = claim("NODE-A", 10, -60);
+        assertEquals(1, claimedByA.size());
+
+        // When - NODE-B 선점 시도
+        List<QueueMessage> claimedByB = claim("NODE-B", 10, 300);
+
+        // Then - 만료된 행은 NODE-B가 재선점
+        assertEquals(1, claimedByB.size());
+        assertEquals(claimedByA.get(0).getQueueId(), claimedByB.get(0).getQueueId());
+        assertEquals("NODE-B", selectQueue(claimedByB.get(0).getQueueId()).get("OWNER_NODE_ID"));
+
+        // Lease 유효 중에는 NODE-A도 재선점 불가
+        assertTrue(claim("NODE-A", 10, 300).isEmpty());
+    }
+
+
+    // ==================== 시나리오 3: 늦게 도착한 상태 업데이트 차단 ====================
+
+    @Test
+    public void test03_staleClaimToken_statusUpdateIgnored() {
+        // Given - NODE-A 선점 후 Lease 만료, NODE-B가 재선점
+        insertPendingQueues(1);
+        QueueMessage staleClaim = claim("NODE-A", 10, -60).get(0);
+        QueueMessage currentClaim = claim("NODE-B", 10, 300).get(0);
+
+        // When - NODE-A가 뒤늦게 SUCCESS 업데이트 시도
+        Map<String, Object> params = new HashMap<>();
+        params.put("QUEUE_ID", staleClaim.getQueueId());
+        params.put("CLAIM_TOKEN", staleClaim.getClaimToken());
+        int updated = mailDao.update("alarm.updateQueueSuccess", params);
+
+        // Then - 0건 업데이트, NODE-B 선점 유지
+        assertEquals(0, updated);
+        Map<String, Object> queue = selectQueue(currentClaim.getQueueId());
+        assertEquals("PROCESSING", queue.get("STATUS"));
+        assertEquals(currentClaim.getClaimToken(), queue.get("CLAIM_TOKEN"));
+    }
+
+
+    // ==================== 시나리오 4: processQueue 전체 흐름 ====================
+
+    @Test
+    public void test04_processQueue_claimedMessagesSentOnce() {
+        // Given
+        insertPendingQueues(3);
+
+        // When
+        alarmMailService.processQueue();
+
+        // Then - 3건 발송, 전부 SUCCESS
+        FakeMailSender fake = (FakeMailSender) mailSender;
+        assertEquals(3, fake.getSentCount());
+        assertEquals(3, countByStatus("SUCCESS"));
+        assertEquals(0, countByStatus("PROCESSING"));
+
+        // 다시 실행해도 추가 발송 없음
+        alarmMailService.processQueue();
+        assertEquals(3, fake.getSentCount());
+    }
+
+
+    // ==================== 시나리오 5: 메시지별 트랜잭션 ====================
+
+    @Test
+    public void test05_oneMessageFails_neighboursStayCommitted() {
+        // Given - 정상 2건 + 존재하지 않는 SQL_ID 1건
+        insertPendingQueues(2);
+
+        Map<String, Object> brokenQueue = new HashMap<>();
+        brokenQueue.put("MAIL_SOURCE", "CLAIM_TEST_BROKEN");
+        brokenQueue.put("ALARM_NAME", "SQL 오류 알람");
+        brokenQueue.put("SEVERITY", "WARNING");
+        brokenQueue.put("SQL_ID", "alarm.notExistingStatement");
+        brokenQueue.put("SECTION_TITLE", "SQL 오류");
+        brokenQueue.put("SECTION_CONTENT", "SQL_ID 조회 실패");
+        brokenQueue.put("RETRY_COUNT", 0);
+        mailDao.insert("alarm.insertTestQueue", brokenQueue);
+
+        // When
+        alarmMailService.processQueue();
+
+        // Then - 정상 2건은 SUCCESS 유지 (롤백 없음)
+        assertEquals(2, countByStatus("SUCCESS"));
+
+        // 실패 1건은 선점 해제 후 재시도 대기
+        Map<String, Object> params = new HashMap<>();
+        params.put("MAIL_SOURCE", "CLAIM_TEST_BROKEN");
+        Map<String, Object> broken = mailDao.selectList("alarm.selectQueueByMailSource", params).get(0);
+        assertEquals("PENDING", broken.get("STATUS"));
+        assertEquals(1, ((Number) broken.get("RETRY_COUNT")).intValue());
+        assertEquals(0, countByStatus("PROCESSING"));
+    }
+
+
+    // ==================== 시나리오 6: Drain 모드 ====================
+
+    @Test
+    public void test06_drainMode_wholeBacklogInOneCycle() {
+        // Given - batch-size(기본 10)를 넘는 적체 25건
+        insertPendingQueues(25);
+
+        // When - 1회 호출
+        boolean queueEmpty = alarmMailService.processQueue();
+
+        // Then - 대기 없이 연속 선점하여 전부 처리
+        assertTrue(queueEmpty);
+        FakeMailSender fake = (FakeMailSender) mailSender;
+        assertEquals(25, fake.getSentCount());
+        assertEquals(25, countByStatus("SUCCESS"));
+        assertEquals(0, countByStatus("PENDING"));
+    }
+
+    @Test
+    public void test07_drainMode_failedRowNotRetriedInSameCycle() {
+        // Given - 발송 실패 시뮬레이션
+        insertPendingQueues(1);
+        FakeMailSender fake = (FakeMailSender) mailSender;
+        fake.setShouldFail(true);
+
+        // When
+        alarmMailService.processQueue();
+
+        // Then - 같은 사이클에서 재선점하지 않음 (재시도 1회만 기록)
+        Map<String, Object> params = new HashMap<>();
+        params.put("MAIL_SOURCE", "CLAIM_TEST_0");
+        Map<String, Object> queue = mailDao.selectList("alarm.selectQueueByMailSource", params).get(0);
+        assertEquals("PENDING", queue.get("STATUS"));
+        assertEquals(1, ((Number) queue.get("RETRY_COUNT")).intValue());
+    }
+
+
+    // ==================== 시나리오 7: Severity Lane ====================
+
+    @Test
+    public void test08_severityLane_claimOnlyOwnSeverity() {
+        // Given - INFO 3건이 먼저 등록된 뒤 CRITICAL 2건
+        insertPendingQueues(3);
+        insertPendingQueues(2, "CRITICAL");
+
+        // When - CRITICAL Lane 선점
+        List<QueueMessage> critical = claim("NODE-A", 10, 300, "CRITICAL");
+
+        // Then - 먼저 등록된 INFO보다 CRITICAL만 선점
+        assertEquals(2, critical.size());
+        for (QueueMessage row : critical) {
+            assertEquals("CRITICAL", row.getSeverity());
+        }
+
+        // INFO Lane은 나머지 INFO만 선점
+        List<QueueMessage> info = claim("NODE-A", 10, 300, "INFO");
+        assertEquals(3, info.size());
+        for (QueueMessage row : info) {
+            assertEquals("INFO", row.getSeverity());
+        }
+    }
+
+    @Test
+    public void test09_severityLane_processQueueDrainsAllLanes() {
+        // Given
+        insertPendingQueues(3);
+        insertPendingQueues(2, "CRITICAL");
+        insertPendingQueues(2, "WARNING");
+
+        // When
+        boolean queueEmpty = alarmMailService.processQueue();
+
+        // Then - 모든 Lane 처리
+        assertTrue(queueEmpty);
+        FakeMailSender fake = (FakeMailSender) mailSender;
+        assertEquals(7, fake.getSentCount());
+        assertEquals(7, countByStatus("SUCCESS"));
+    }
+
+
+    // ==================== 시나리오 8: 재시도 Backoff ====================
+
+    @Test
+    public void test10_retryBackoff_notClaimedUntilDue() {
+        // Given - 선점 후 재시도 처리 (60초 후 재시도)
+        insertPendingQueues(1);
+        QueueMessage claimed = claim("NODE-A", 10, 300).get(0);
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("QUEUE_ID", claimed.getQueueId());
+        params.put("CLAIM_TOKEN", claimed.getClaimToken());
+        params.put("ERROR_MESSAGE", "SMTP 장애");
+        params.put("RETRY_DELAY_SECONDS", 60);
+        mailDao.update("alarm.updateQueueRetry", params);
+
+        // When - 즉시 선점 시도
+        List<QueueMessage> reclaimed = claim("NODE-B", 10, 300);
+
+        // Then - 도래 전이므로 선점 제외, 적체량에도 미포함
+        assertTrue(reclaimed.isEmpty());
+        assertNotNull(selectQueue(claimed.getQueueId()).get("NEXT_RETRY_AT"));
+        assertEquals(0, ((Number) mailDao.selectOne("alarm.selectPendingCount", new HashMap<String, Object>()).get("CNT")).intValue());
+
+        // 도래 시각이 지나면 다시 선점 (대기 0초로 재처리)
+        params.put("CLAIM_TOKEN", null);
+        params.put("RETRY_DELAY_SECONDS", 0);
+        mailDao.update("alarm.updateQueueRetry", params);
+        assertEquals(1, claim("NODE-B", 10, 300).size());
+    }
+
+
+    // ==================== 시나리오 9: 상세 쿼리 캐시 ====================
+
+    @Test
+    public void test11_detailQueryCache_sameSqlIdQueriedOncePerBatch() {
+        // Given - 같은 SQL_ID 5건 (INFO Lane 1배치)
+        insertPendingQueues(5);
+        long missBefore = queueMetrics.getDetailCacheMissTotal();
+        long hitBefore = queueMetrics.getDetailCacheHitTotal();
+
+        // When
+        alarmMailService.processQueue();
+
+        // Then - 쿼리 1회 실행, 나머지 4건은 캐시 적중
+        assertEquals(5, countByStatus("SUCCESS"));
+        assertEquals(1L, queueMetrics.getDetailCacheMissTotal() - missBefore);
+        assertEquals(4L, queueMetrics.getDetailCacheHitTotal() - hitBefore);
+
+        System.out.println("✅ 상세 쿼리 캐시: 5건 처리, SQL_ID 실행 1회");
+    }
+
+
+    // ==================== 시나리오 10: 결과 변경 없는 알람 생략 ====================
+
+    @Test
+    public void test12_skipUnchanged_secondSendSkipped() {
+        ReflectionTestUtils.setField(queueConfig, "skipUnchangedMailSources", "CLAIM_TEST_0");
+        try {
+            FakeMailSender fake = (FakeMailSender) mailSender;
+
+            // Given - 첫 발송
+            insertPendingQueues(1);
+            alarmMailService.processQueue();
+            assertEquals(1, countByStatus("SUCCESS"));
+            assertEquals(1, fake.getSentCount());
+            long skippedBefore = queueMetrics.getSkippedTotal();
+
+            // When - 같은 결과로 다시 등록
+            insertPendingQueues(1);
+            alarmMailService.processQueue();
+
+            // Then - SKIPPED, 메일 추가 발송 없음, 생략 건수 누적
+            assertEquals(1, countByStatus("SKIPPED"));
+            assertEquals(1, fake.getSentCount());
+            assertEquals(1L, queueMetrics.getSkippedTotal() - skippedBefore);
+
+            Map<String, Object> params = new HashMap<>();
+            params.put("MAIL_SOURCE", "CLAIM_TEST_0");
+            Map<String, Object> state = mailDao.selectOne("alarm.selectAlarmState", params);
+            assertEquals(1, ((Number) state.get("SKIP_COUNT")).intValue());
+            assertEquals(64, ((String) state.get("LAST_FINGERPRINT")).length());
+
+            System.out.println("✅ 결과 변경 없는 알람 생략: 두 번째 등록 SKIPPED");
+        } finally {
+            ReflectionTestUtils.setField(queueConfig, "skipUnchangedMailSources", "");
+        }
+    }
+
+
+    // ==================== 시나리오 11: SQL_ID 격리 ====================
+
+    @Test
+    public void test13_quarantine_remainingRowsDeferredWithoutRetry() {
+        String brokenSqlId = "alarm.notExistingQuarantineStatement";
+        try {
+            // Given - 존재하지 않는 SQL_ID 5건 (INFO Lane Worker 1개 → 순차 처리, 격리 기준 연속 3회)
+            for (int i = 0; i < 5; i++) {
+                Map<String, Object> queueData = new HashMap<>();
+                queueData.put("MAIL_SOURCE", "CLAIM_TEST_QUARANTINE");
+                queueData.put("ALARM_NAME", "격리 테스트 " + i);
+                queueData.put("SEVERITY", "INFO");
+                queueData.put("SQL_ID", brokenSqlId);
+                queueData.put("SECTION_TITLE", "격리 테스트");
+                queueData.put("SECTION_CONTENT", "SQL_ID 격리 검증");
+                queueData.put("RETRY_COUNT", 0);
+                mailDao.insert("alarm.insertTestQueue", queueData);
+            }
+            long deferredBefore = queueMetrics.getQuarantineDeferredTotal();
+
+            // When
+            alarmMailService.processQueue();
+
+            // Then - 3건은 실행 실패(재시도), 2건은 쿼리 없이 연기 (RETRY_COUNT 유지)
+            Map<String, Object> params = new HashMap<>();
+            params.put("MAIL_SOURCE", "CLAIM_TEST_QUARANTINE");
+            int retried = 0;
+            int deferred = 0;
+            for (Map<String, Object> row : mailDao.selectList("alarm.selectQueueByMailSource", params)) {
+                assertEquals("PENDING", row.get("STATUS"));
+                if (((Number) row.get("RETRY_COUNT")).intValue() == 0) {
+                    assertTrue(((String) row.get("ERROR_MESSAGE")).startsWith("SQL_ID 격리 중"));
+                    deferred++;
+                } else {
+                    retried++;
+                }
+            }
+            assertEquals(3, retried);
+            assertEquals(2, deferred);
+            assertEquals(2L, queueMetrics.getQuarantineDeferredTotal() - deferredBefore);
+            assertTrue(queueMetrics.getQuarantinedSqlIds().containsKey(brokenSqlId));
+
+            System.out.println("✅ SQL_ID 격리: 연속 3회 실패 후 2건 연기");
+        } finally {
+            // 운영 API로 해제 → 다른 테스트에 영향 없음
+            assertTrue(queueMetrics.releaseQuarantine(brokenSqlId));
+            assertFalse(queueMetrics.getQuarantinedSqlIds().containsKey(brokenSqlId));
+        }
+    }
+
+    // ==================== 시나리오 12: 처리 중 회수 ====================
+
+    @Test
+    public void test14_reaper_deadNodeAndExpiredLeaseReclaimed() {
+        // Given - 3건을 각각 다른 노드가 선점
+        insertPendingQueues(3);
+        insertHeartbeat("NODE-DEAD", 600);   // Heartbeat 10분 끊김
+        insertHeartbeat("NODE-LIVE", 0);
+        Long deadRow = claim("NODE-DEAD", 1, 300).get(0).getQueueId();
+        Long liveRow = claim("NODE-LIVE", 1, 300).get(0).getQueueId();
+        Long hungRow = claim("NODE-HUNG", 1, -60).get(0).getQueueId();  // 처리 시한 경과, Heartbeat 없음
+        long reapedBefore = queueMetrics.getReapedTotal();
+
+        // When
+        int reaped = queueReaper.reap();
+
+        // Then - 응답 없는 노드 / 처리 시한 경과 행만 회수, 시도 횟수 증가
+        assertEquals(2, reaped);
+        assertEquals(2L, queueMetrics.getReapedTotal() - reapedBefore);
+        for (Long queueId : Arrays.asList(deadRow, hungRow)) {
+            Map<String, Object> row = selectQueue(queueId);
+            assertEquals("PENDING", row.get("STATUS"));
+            assertEquals(1, ((Number) row.get("RETRY_COUNT")).intValue());
+            assertNull(row.get("OWNER_NODE_ID"));
+            assertNull(row.get("CLAIM_TOKEN"));
+        }
+        assertTrue(((String) selectQueue(deadRow).get("ERROR_MESSAGE")).contains("node=NODE-DEAD"));
+
+        // 살아있는 노드의 처리 중 행은 유지
+        Map<String, Object> live = selectQueue(liveRow);
+        assertEquals("PROCESSING", live.get("STATUS"));
+        assertEquals("NODE-LIVE", live.get("OWNER_NODE_ID"));
+
+        System.out.println("✅ 처리 중 회수: 응답 없는 노드 1건 + 처리 시한 경과 1건");
+    }
+
+    @Test
+    public void test15_heartbeat_registersAndRefreshesNode() {
+        // When - 최초 Heartbeat → 등록, 두 번째 → 갱신
+        queueReaper.heartbeat();
+        queueReaper.heartbeat();
+
+        // Then
+        Map<String, Object> params = new HashMap<>();
+        params.put("NODE_ID", queueConfig.getNodeId());
+        List<Map<String, Object>> rows = mailDao.selectList("alarm.selectTestNodeHeartbeat", params);
+        assertEquals(1, rows.size());
+        assertNotNull(rows.get(0).get("LAST_HEARTBEAT"));
+    }
+
+    // ==================== 시나리오 13: 종료 시 선점 반환 ====================
+
+    @Test
+    public void test16_shutdownRelease_ownClaimsReturnedWithoutRetry() {
+        // Given - 종료하는 노드(NODE-A)가 2건 선점, 다른 노드(NODE-B)가 1건 선점
+        insertPendingQueues(3);
+        List<QueueMessage> claimedA = claim("NODE-A", 2, 300);
+        Long rowB = claim("NODE-B", 1, 300).get(0).getQueueId();
+
+        // When - 발송 시작 전 묶음 반환 (늦은 토큰은 무시) + 노드 전체 반환
+        Map<String, Object> stale = new HashMap<>();
+        stale.put("QUEUE_IDS", Arrays.asList(claimedA.get(0).getQueueId()));
+        stale.put("CLAIM_TOKEN", "stale-token");
+        assertEquals(0, mailDao.update("alarm.releaseQueueClaims", stale));
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("NODE_ID", "NODE-A");
+        int released = mailDao.update("alarm.releaseNodeClaims", params);
+
+        // Then - NODE-A 행만 PENDING, 재시도 횟수 유지
+        assertEquals(2, released);
+        for (QueueMessage claimed : claimedA) {
+            Map<String, Object> row = selectQueue(claimed.getQueueId());
+            assertEquals("PENDING", row.get("STATUS"));
+            assertEquals(0, ((Number) row.get("RETRY_COUNT")).intValue());
+            assertNull(row.get("OWNER_NODE_ID"));
+            assertNull(row.get("CLAIM_TOKEN"));
+        }
+        assertEquals("PROCESSING", selectQueue(rowB).get("STATUS"));
+
+        // Lease 만료를 기다리지 않고 다른 노드가 바로 선점
+        assertEquals(2, claim("NODE-B", 10, 300).size());
+
+        System.out.println("✅ 종료 시 선점 반환: NODE-A 2건 → NODE-B 즉시 선점");
+    }
+
+    // ==================== 시나리오 14: 알람 규칙 엔진 ====================
+
+    @Test
+    public void test17_ruleEngine_onlyDueFiredRulesEnqueuedOnce() {
+        // Given - 발생 규칙, 미발생 규칙, 평가 주기 전 규칙 (발생 조건이지만 5분 전 평가)
+        insertAlarmRule("RULE_FIRED", "alarm.countTestConditionFired", null);
+        insertAlarmRule("RULE_NONE", "alarm.countTestConditionNone", null);
+        insertAlarmRule("RULE_NOT_DUE", "alarm.countTestConditionFired", 5);
+
+        // When
+        int inserted = ruleEngine.collect();
+
+        // Then - 발생 규칙 1건만 PENDING 등록, {count} 치환
+        assertEquals(1, inserted);
+        List<Map<String, Object>> fired = selectQueuesByMailSource("RULE_FIRED");
+        assertEquals(1, fired.size());
+        Map<String, Object> row = selectQueue(toLong(fired.get(0).get("QUEUE_ID")));
+        assertEquals("PENDING", row.get("STATUS"));
+        assertEquals("WARNING", row.get("SEVERITY"));
+        assertEquals("테스트 조건 2건", MailUtils.convertToString(row.get("SECTION_CONTENT")));
+        assertTrue(selectQueuesByMailSource("RULE_NONE").isEmpty());
+        assertTrue(selectQueuesByMailSource("RULE_NOT_DUE").isEmpty());
+
+        // 규칙별 평가 시간 기록 (평가한 규칙만)
+        assertTrue(queueMetrics.getRuleStats().containsKey("RULE_FIRED"));
+        assertTrue(queueMetrics.getRuleStats().containsKey("RULE_NONE"));
+        assertFalse(queueMetrics.getRuleStats().containsKey("RULE_NOT_DUE"));
+
+        // 같은 주기 안에 다시 실행해도 LAST_CHECKED_AT이 갱신되어 재등록 없음
+        assertEquals(0, ruleEngine.collect());
+        assertEquals(1, selectQueuesByMailSource("RULE_FIRED").size());
+
+        System.out.println("✅ 알람 규칙 엔진: 3개 규칙 중 1건 등록, 재실행 시 0건");
+    }
+
+    // ==================== 시나리오 15: 중복 등록 흡수 ====================
+
+    @Test
+    public void test18_dedupEnqueue_activeDuplicatesAbsorbed() {
+        // Given - 한 Batch 안에 같은 키 2건 + 다른 키 1건 + 키 없음 2건
+        List<Map<String, Object>> rows = new ArrayList<>();
+        rows.add(enqueueRow("DEDUP_A"));
+        rows.add(enqueueRow("DEDUP_A"));
+        rows.add(enqueueRow("DEDUP_B"));
+        rows.add(enqueueRow(null));
+        rows.add(enqueueRow(null));
+
+        // When
+        int inserted = mailDao.batchInsertIgnoreDuplicates("alarm.enqueueAlarmQueue", rows);
+
+        // Then - DEDUP_A는 1건만, 키 없는 행은 모두 등록
+        assertEquals(4, inserted);
+        assertEquals(4, countByStatus("PENDING"));
+
+        // 처리 중(PROCESSING)이어도 같은 키는 흡수
+        List<QueueMessage> claimed = claim("NODE-A", 10, 300);
+        assertEquals(0, mailDao.batchInsertIgnoreDuplicates("alarm.enqueueAlarmQueue",
+                Arrays.asList(enqueueRow("DEDUP_A"), enqueueRow("DEDUP_B"))));
+
+        // 처리 완료(SUCCESS) 후에는 같은 키로 다시 등록
+        for (QueueMessage row : claimed) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("QUEUE_ID", row.getQueueId());
+            params.put("CLAIM_TOKEN", row.getClaimToken());
+            mailDao.update("alarm.updateQueueSuccess", params);
+        }
+        assertEquals(1, mailDao.batchInsertIgnoreDuplicates("alarm.enqueueAlarmQueue",
+                Arrays.asList(enqueueRow("DEDUP_A"))));
+
+        System.out.println("✅ 중복 등록 흡수: 5건 요청 → 4건 등록, 처리 중 2건 흡수, 완료 후 재등록");
+    }
+
+    @Test
+    public void test19_dedupEnqueue_uniqueViolationFallsBackPerRow() {
+        // Given - 유니크 제약에만 의존하는 일반 INSERT (동시 등록 경합과 같은 상황)
+        Map<String, Object> existing = testQueueRow("DEDUP_RACE");
+        mailDao.insert("alarm.insertTestQueue", existing);
+
+        // When - Batch 중 1건이 유니크 제약 위반
+        int inserted = mailDao.batchInsertIgnoreDuplicates("alarm.insertTestQueue",
+                Arrays.asList(testQueueRow("DEDUP_NEW"), testQueueRow("DEDUP_RACE"), testQueueRow(null)));
+
+        // Then - Batch 롤백 후 행 단위 재실행: 위반 행만 건너뜀
+        assertEquals(2, inserted);
+        assertEquals(3, countByStatus("PENDING"));
+
+        System.out.println("✅ 유니크 제약 경합: Batch 롤백 → 행 단위 2건 등록, 1건 흡수");
+    }
+
+    // ==================== 시나리오 16: 큐 등록 API ====================
+
+    @Test
+    public void test20_alarmQueueEnqueue_signalsOnlyEnqueuedLanes() {
+        // Given
+        long criticalBefore = signalSeq("CRITICAL");
+        long infoBefore = signalSeq("INFO");
+        Map<String, Object> alarm = enqueueRow("ENQUEUE_API");
+        alarm.put("SEVERITY", "CRITICAL");
+
+        // When
+        int inserted = alarmQueue.enqueue(alarm);
+
+        // Then - CRITICAL 행 등록 + CRITICAL 신호만 증가
+        assertEquals(1, inserted);
+        assertEquals(1, countByStatus("PENDING"));
+        assertEquals(criticalBefore + 1, signalSeq("CRITICAL"));
+        assertEquals(infoBefore, signalSeq("INFO"));
+
+        // 처리 전 같은 키 재등록 → 흡수, 신호 없음
+        assertEquals(0, alarmQueue.enqueue(alarm));
+        assertEquals(criticalBefore + 1, signalSeq("CRITICAL"));
+
+        // 다른 노드 시점: 기준값 기록 후 신호 변경 감지
+        Map<String, Long> lastSeen = new HashMap<>();
+        alarmMailService.findSignaledLanes(lastSeen, mailDao.selectList("alarm.selectQueueSignals", null));
+        alarm.put("DEDUP_KEY", "ENQUEUE_API_2");
+        alarmQueue.enqueue(alarm);
+        assertEquals(Arrays.asList("CRITICAL"),
+                alarmMailService.findSignaledLanes(lastSeen, mailDao.selectList("alarm.selectQueueSignals", null)));
+
+        System.out.println("✅ 큐 등록 API: CRITICAL 신호만 증가, 흡수된 등록은 신호 없음");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test21_alarmQueueEnqueue_invalidRowRejectsWholeBatch() {
+        Map<String, Object> invalid = enqueueRow("ENQUEUE_INVALID");
+        invalid.remove("SQL_ID");
+
+        try {
+            alarmQueue.enqueue(Arrays.asList(enqueueRow("ENQUEUE_VALID"), invalid));
+        } finally {
+            assertEquals("검증 실패 시 1건도 등록하지 않음", 0, countByStatus("PENDING"));
+        }
+    }
+
+    // ==================== 시나리오 17: 회수 한도 / Lease 연장 ====================
+
+    @Test
+    public void test22_reaper_exhaustedRetriesMovedToDeadLetter() {
+        // Given - 이미 2회 시도한 행을 처리 중 멈춘 노드가 선점 (회수하면 3회째)
+        mailDao.delete("alarm.deleteAllDeadLetter", null);
+        Map<String, Object> queueData = new HashMap<>();
+        queueData.put("MAIL_SOURCE", "REAP_EXHAUSTED");
+        queueData.put("ALARM_NAME", "회수 한도 테스트");
+        queueData.put("SEVERITY", "INFO");
+        queueData.put("SQL_ID", "alarm.selectOverdueOrdersDetail");
+        queueData.put("SECTION_TITLE", "회수 한도 테스트");
+        queueData.put("SECTION_CONTENT", "반복 회수 방지 검증");
+        queueData.put("RETRY_COUNT", 2);
+        mailDao.insert("alarm.insertTestQueue", queueData);
+        Long queueId = claim("NODE-HUNG", 1, -60).get(0).getQueueId();
+
+        // When
+        int reaped = queueReaper.reap();
+
+        // Then - PENDING으로 돌리지 않고 Dead Letter로 이동
+        assertEquals(1, reaped);
+        assertNull("MAIL_QUEUE에서 삭제", selectQueue(queueId));
+        Map<String, Object> params = new HashMap<>();
+        params.put("MAIL_SOURCE", "REAP_EXHAUSTED");
+        List<Map<String, Object>> deadLetters = mailDao.selectList("alarm.selectDeadLetterByMailSource", params);
+        assertEquals(1, deadLetters.size());
+        assertEquals(3, ((Number) deadLetters.get(0).get("RETRY_COUNT")).intValue());
+        assertEquals("NODE-HUNG", deadLetters.get(0).get("LAST_NODE_ID"));
+        assertTrue(((String) deadLetters.get(0).get("FAILURE_HISTORY")).contains("[회수]"));
+
+        System.out.println("✅ 처리 중 회수: 시도 횟수 소진 → Dead Letter");
+    }
+
+    @Test
+    public void test23_renewLease_liveClaimNotReaped() {
+        // Given - 처리 시한이 지난 선점 (배치 안에서 오래 대기한 메시지)
+        insertPendingQueues(1);
+        QueueMessage row = claim("NODE-LIVE", 1, -60).get(0);
+        Map<String, Object> params = new HashMap<>();
+        params.put("QUEUE_IDS", Collections.singletonList(row.getQueueId()));
+        params.put("CLAIM_TOKEN", row.getClaimToken());
+        params.put("LEASE_SECONDS", 300);
+
+        // When - 발송 시작 전 Lease 연장
+        assertEquals(1, mailDao.update("alarm.renewQueueLease", params));
+
+        // Then - 회수되지 않고 선점 유지
+        assertEquals(0, queueReaper.reap());
+        Map<String, Object> queue = selectQueue(row.getQueueId());
+        assertEquals("PROCESSING", queue.get("STATUS"));
+        assertEquals(row.getClaimToken(), queue.get("CLAIM_TOKEN"));
+
+        System.out.println("✅ Lease 연장: 살아있는 처리는 회수 안 됨");
+    }
+
+    // ==================== 시나리오 18: 규칙 평가 실패 선점 취소 ====================
+
+    @Test
+    public void test24_ruleEngine_failedRuleReleasedForNextCycle() {
+        // Given - 조건 쿼리가 없는 규칙 (평가 실패)
+        insertAlarmRule("RULE_BROKEN", "alarm.countTestConditionMissing", null);
+
+        // When
+        assertEquals(0, ruleEngine.collect());
+
+        // Then - LAST_CHECKED_AT 복원 → CHECK_INTERVAL_MINUTES를 기다리지 않고 다음 주기에 재평가 대상
+        boolean stillDue = false;
+        for (Map<String, Object> rule : mailDao.selectList("alarm.selectDueAlarmRules", null)) {
+            stillDue |= "RULE_BROKEN".equals(rule.get("MAIL_SOURCE"));
+        }
+        assertTrue(stillDue);
+
+        System.out.println("✅ 알람 규칙 평가 실패: 선점 취소 → 다음 주기 재평가");
+    }
+
+    // ==================== 시나리오 19: 종료 Drain 시간 초과 ====================
+
+    @Test
+    @DirtiesContext  // destroy()로 Consumer가 종료되므로 다음 테스트는 새 Context 사용
+    public void test25_shutdownTimeout_onlyQueuedClaimReleased() throws Exception {
+        // Given - WARNING Lane(Worker 1개)에 2건 → 1건은 발송 중(SMTP 응답 대기), 1건은 Worker 대기 큐
+        insertPendingQueues(2, "WARNING");
+        FakeMailSender fake = (FakeMailSender) mailSender;
+        CountDownLatch sendEntered = new CountDownLatch(1);
+        CountDownLatch sendRelease = new CountDownLatch(1);
+        fake.holdSends(sendEntered, sendRelease);
+
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                alarmMailService.processQueue();
+            }
+        });
+        consumer.start();
+
+        try {
+            assertTrue("발송 시작 대기 시간 초과", sendEntered.await(10, TimeUnit.SECONDS));
+            List<Map<String, Object>> claimed = new ArrayList<>(selectQueuesByMailSource("CLAIM_TEST_WARNING_0"));
+            claimed.addAll(selectQueuesByMailSource("CLAIM_TEST_WARNING_1"));
+            Map<Long, Object> tokens = new HashMap<>();
+            for (Map<String, Object> row : claimed) {
+                Long queueId = toLong(row.get("QUEUE_ID"));
+                Map<String, Object> queue = selectQueue(queueId);
+                assertEquals("PROCESSING", queue.get("STATUS"));
+                tokens.put(queueId, queue.get("CLAIM_TOKEN"));
+            }
+
+            // When - 발송이 끝나기 전에 Drain 시간 초과로 종료
+            ReflectionTestUtils.setField(queueConfig, "shutdownDrainTimeoutMs", 300L);
+            alarmMailService.destroy();
+
+            // Then - 대기 중이던 1건만 재시도 소모 없이 PENDING, 발송 중이던 1건은 선점 그대로 (Lease 만료 후 회수)
+            int pending = 0;
+            int inFlight = 0;
+            for (Map.Entry<Long, Object> entry : tokens.entrySet()) {
+                Map<String, Object> row = selectQueue(entry.getKey());
+                if ("PENDING".equals(row.get("STATUS"))) {
+                    pending++;
+                    assertNull(row.get("CLAIM_TOKEN"));
+                    assertNull(row.get("OWNER_NODE_ID"));
+                    assertEquals(0, ((Number) row.get("RETRY_COUNT")).intValue());
+                } else {
+                    inFlight++;
+                    assertEquals("PROCESSING", row.get("STATUS"));
+                    assertEquals(entry.getValue(), row.get("CLAIM_TOKEN"));
+                    assertEquals(queueConfig.getNodeId(), row.get("OWNER_NODE_ID"));
+                    assertNotNull(row.get("LEASE_EXPIRE_DATE"));
+                }
+            }
+            assertEquals(1, pending);
+            assertEquals(1, inFlight);
+        } finally {
+            sendRelease.countDown();
+            consumer.join(10000);
+        }
+
+        // 발송 중이던 1건만 발송됨 (대기 중이던 메시지는 발송 없이 반환)
+        assertEquals(1, fake.getSentCount());
+
+        System.out.println("✅ 종료 Drain 시간 초과: 대기 1건 PENDING 반환, 발송 중 1건 선점 유지");
+    }
+
+    // ==================== Helper ====================
+
+    /**
+     * 한 노드의 Consumer 시뮬레이션: 선점 결과가 비어있을 때까지 반복 선점
+     */
+    private class ClaimWorker implements Runnable {
+        private final String nodeId;
+        private final List<Long> claimed;
+        private final CountDownLatch startLatch;
+
+        ClaimWorker(String nodeId, List<Long> claimed, CountDownLatch startLatch) {
+            this.nodeId = nodeId;
+            this.claimed = claimed;
+            this.startLatch = startLatch;
+        }
+
+        @Override
+        public void run() {
+            try {
+                startLatch.await();
+                while (true) {
+                    List<QueueMessage> rows;
+                    try {
+                        rows = claim(nodeId, 5, 300);
+                    } catch (Exception e) {
+                        // H2 잠금 대기 타임아웃 등 → 선점 실패로 간주하고 재시도
+                        continue;
+                    }
+                    if (rows.isEmpty()) {
+                        return;
+                    }
+                    for (QueueMessage row : rows) {
+                        claimed.add(row.getQueueId());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private List<QueueMessage> claim(String nodeId, int limit, int leaseSeconds) {
+        return claim(nodeId, limit, leaseSeconds, null);
+    }
+
+    private List<QueueMessage> claim(String nodeId, int limit, int leaseSeconds, String severity) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("SEVERITY", severity);
+        params.put("NODE_ID", nodeId);
+        params.put("CLAIM_TOKEN", UUID.randomUUID().toString());
+        params.put("LEASE_SECONDS", leaseSeconds);
+        params.put("LIMIT", limit);
+
+        mailDao.update("alarm.claimPendingQueue", params);
+        return mailDao.selectTypedList("alarm.selectClaimedQueue", params);
+    }
+
+    private void insertHeartbeat(String nodeId, int agoSeconds) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("NODE_ID", nodeId);
+        params.put("AGO_SECONDS", agoSeconds);
+        mailDao.insert("alarm.insertTestNodeHeartbeat", params);
+    }
+
+    private void insertAlarmRule(String mailSource, String conditionSqlId, Integer checkedAgoMinutes) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("MAIL_SOURCE", mailSource);
+        params.put("ALARM_NAME", "규칙 테스트 " + mailSource);
+        params.put("SEVERITY", "WARNING");
+        params.put("CONDITION_SQL_ID", conditionSqlId);
+        params.put("SQL_ID", "alarm.selectLowStockDetail");
+        params.put("SECTION_TITLE", "규칙 테스트");
+        params.put("SECTION_CONTENT", "테스트 조건 {count}건");
+        params.put("CHECK_INTERVAL_MINUTES", 30);
+        params.put("CHECKED_AGO_MINUTES", checkedAgoMinutes);
+        mailDao.insert("alarm.insertTestAlarmRule", params);
+    }
+
+    private Map<String, Object> enqueueRow(String dedupKey) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("MAIL_SOURCE", "DEDUP_TEST");
+        row.put("ALARM_NAME", "중복 등록 테스트");
+        row.put("SEVERITY", "INFO");
+        row.put("SQL_ID", "alarm.selectOverdueOrdersDetail");
+        row.put("SECTION_TITLE", "중복 등록 테스트");
+        row.put("SECTION_CONTENT", "DEDUP_KEY 흡수 검증");
+        row.put("DEDUP_KEY", dedupKey);
+        return row;
+    }
+
+    private long signalSeq(String severity) {
+        for (Map<String, Object> signal : mailDao.selectList("alarm.selectQueueSignals", null)) {
+            if (severity.equals(signal.get("SEVERITY"))) {
+                return toLong(signal.get("SIGNAL_SEQ"));
+            }
+        }
+        throw new AssertionError("MAIL_QUEUE_SIGNAL 행 없음: " + severity);
+    }
+
+    private Map<String, Object> testQueueRow(String dedupKey) {
+        Map<String, Object> row = enqueueRow(dedupKey);
+        row.put("RETRY_COUNT", 0);
+        return row;
+    }
+
+    private List<Map<String, Object>> selectQueuesByMailSource(String mailSource) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("MAIL_SOURCE", mailSource);
+        return mailDao.selectList("alarm.selectQueueByMailSource", params);
+    }
+
+    private void insertPendingQueues(int count) {
+        insertPendingQueues(count, "INFO");
+    }
+
+    private void insertPendingQueues(int count, String severity) {
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> queueData = new HashMap<>();
+            queueData.put("MAIL_SOURCE", "CLAIM_TEST_" + ("INFO".equals(severity) ? "" : severity + "_") + i);
+            queueData.put("ALARM_NAME", "선점 테스트 " + i);
+            queueData.put("SEVERITY", severity);
+            queueData.put("SQL_ID", "alarm.selectOverdueOrdersDetail");
+            queueData.put("SECTION_TITLE", "선점 테스트");
+            queueData.put("SECTION_CONTENT", "Multi-Node 선점 검증");
+            queueData.put("RETRY_COUNT", 0);
+            mailDao.insert("alarm.insertTestQueue", queueData);
+        }
+    }
+
+    private Map<String, Object> selectQueue(Long queueId) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("QUEUE_ID", queueId);
+        return mailDao.selectOne("alarm.selectQueueById", params);
+    }
+
+    private int countByStatus(String status) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("STATUS", status);
+        return ((Number) mailDao.selectOne("alarm.selectQueueCountByStatus", params).get("CNT")).intValue();
+    }
+
+    private Long toLong(Object value) {
+        return ((Number) value).longValue();
+    }
+}
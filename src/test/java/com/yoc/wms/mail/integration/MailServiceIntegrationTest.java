@@ -48,7 +48,7 @@ import static org.junit.Assert.*;
  * @since v2.4.0 (Chicago School, Mockito 제거)
  */
 @RunWith(SpringJUnit4ClassRunner.class)
-@SpringBootTest
+@SpringBootTest(properties = "alarm.queue.scheduler.enabled=false")
 @ActiveProfiles("integration")
 @Import(IntegrationTestConfig.class)  // ⭐ FakeMailSender 주입
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
@@ -0,0 +1,141 @@
+package com.yoc.wms.mail.service;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * AdaptiveBatchSizer 단위 테스트
+ *
+ * 테스트 범위:
+ * - calculateBatchSize() - 적체량/처리 시간/실패율 기반 계산 (Pure Function)
+ * - recordBatch() → nextBatchSize() - 관측 결과 반영
+ *
+ * 기준 설정: 초기 10건, 범위 1~100건, Worker 4개, 목표 사이클 10초
+ *
+ * @since v3.5.0
+ */
+public class AdaptiveBatchSizerTest {
+
+    private AdaptiveBatchSizer sizer;
+
+    @Before
+    public void setUp() {
+        sizer = new AdaptiveBatchSizer(10, 1, 100, 4, 10000L);
+    }
+
+    // ===== calculateBatchSize() 테스트 =====
+
+    @Test
+    public void calculateBatchSize_noObservation_usesInitialSize() {
+        assertEquals(10, sizer.calculateBatchSize(500, -1, 0.0));
+    }
+
+    @Test
+    public void calculateBatchSize_emptyQueue_returnsMin() {
+        assertEquals(1, sizer.calculateBatchSize(0, 100, 0.0));
+    }
+
+    @Test
+    public void calculateBatchSize_smallBacklog_limitedToPendingCount() {
+        // 처리 가능량은 크지만 적체가 3건뿐
+        assertEquals(3, sizer.calculateBatchSize(3, 100, 0.0));
+    }
+
+    @Test
+    public void calculateBatchSize_fastMessages_growsToCapacity() {
+        // 4 Worker × 10,000ms ÷ 500ms = 80건
+        assertEquals(80, sizer.calculateBatchSize(2000, 500, 0.0));
+    }
+
+    @Test
+    public void calculateBatchSize_veryFastMessages_cappedAtMax() {
+        // 4 × 10,000 ÷ 10 = 4,000건 → 최대 100건
+        assertEquals(100, sizer.calculateBatchSize(2000, 10, 0.0));
+    }
+
+    @Test
+    public void calculateBatchSize_slowMessages_shrinks() {
+        // SMTP 재시도로 메시지당 20초: 4 × 10,000 ÷ 20,000 = 2건
+        assertEquals(2, sizer.calculateBatchSize(2000, 20000, 0.0));
+    }
+
+    @Test
+    public void calculateBatchSize_failures_reduceBatch() {
+        // 80건 × (1 - 0.5) = 40건
+        assertEquals(40, sizer.calculateBatchSize(2000, 500, 0.5));
+    }
+
+    @Test
+    public void calculateBatchSize_allFailing_returnsMin() {
+        assertEquals(1, sizer.calculateBatchSize(2000, 500, 1.0));
+    }
+
+    // ===== recordBatch() / nextBatchSize() 테스트 =====
+
+    @Test
+    public void nextBatchSize_firstCall_usesInitialSize() {
+        assertEquals(10, sizer.nextBatchSize(500));
+        assertEquals(10, sizer.getLastBatchSize());
+    }
+
+    @Test
+    public void recordBatch_fastBatch_increasesNextBatch() {
+        // 10건을 500ms에 처리 → 메시지당 200ms (4 Worker 병렬)
+        sizer.recordBatch(10, 500, 0);
+
+        assertEquals(200.0, sizer.getAvgMessageMs(), 0.001);
+        assertEquals(100, sizer.nextBatchSize(2000));  // 4 × 10,000 ÷ 200 = 200 → 최대 100
+    }
+
+    @Test
+    public void recordBatch_slowdown_shrinksNextBatch() {
+        // Given - 정상 처리 후
+        sizer.recordBatch(10, 500, 0);
+        int before = sizer.nextBatchSize(2000);
+
+        // When - SMTP 지연 (10건에 60초)
+        sizer.recordBatch(10, 60000, 0);
+        int after = sizer.nextBatchSize(2000);
+
+        // Then
+        assertTrue("지연 후 선점 건수 감소: " + before + " → " + after, after < before);
+    }
+
+    @Test
+    public void recordBatch_failures_shrinkNextBatch() {
+        // Given
+        sizer.recordBatch(10, 2000, 0);
+        int before = sizer.nextBatchSize(2000);
+
+        // When - 전부 실패
+        sizer.recordBatch(10, 2000, 10);
+        int after = sizer.nextBatchSize(2000);
+
+        // Then
+        assertTrue(sizer.getFailureRate() > 0.0);
+        assertTrue("실패 후 선점 건수 감소: " + before + " → " + after, after < before);
+    }
+
+    @Test
+    public void recordBatch_emptyBatch_ignored() {
+        sizer.recordBatch(0, 1000, 0);
+
+        assertEquals(-1.0, sizer.getAvgMessageMs(), 0.001);
+    }
+
+    // ===== 생성자 검증 =====
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_minGreaterThanMax_throwsException() {
+        new AdaptiveBatchSizer(10, 50, 20, 4, 10000L);
+    }
+
+    @Test
+    public void constructor_initialOutOfRange_clamped() {
+        AdaptiveBatchSizer clamped = new AdaptiveBatchSizer(500, 1, 100, 4, 10000L);
+
+        assertEquals(100, clamped.getLastBatchSize());
+    }
+}
@@ -0,0 +1,58 @@
+package com.yoc.wms.mail.service;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * AlarmDeadLetterService 단위 테스트 (Pure Functions만 테스트)
+ *
+ * 테스트 범위:
+ * - buildFilterParams() - 재처리 조건 파라미터 생성
+ *
+ * 재처리 SQL(INSERT ... SELECT, 속도 제어)은 AlarmDeadLetterIntegrationTest에서 검증
+ *
+ * @since v3.8.0
+ */
+public class AlarmDeadLetterServiceTest {
+
+    private AlarmDeadLetterService service;
+
+    @Before
+    public void setUp() {
+        service = new AlarmDeadLetterService();
+    }
+
+    @Test
+    public void buildFilterParams_allFilters() {
+        Date from = new Date(1000L);
+        Date to = new Date(2000L);
+
+        Map<String, Object> params = service.buildFilterParams(" LOW_STOCK ", from, to, "%SMTP%");
+
+        assertEquals(4, params.size());
+        assertEquals("LOW_STOCK", params.get("MAIL_SOURCE"));
+        assertEquals(from, params.get("FROM_DATE"));
+        assertEquals(to, params.get("TO_DATE"));
+        assertEquals("%SMTP%", params.get("ERROR_PATTERN"));
+    }
+
+    @Test
+    public void buildFilterParams_blankValues_excluded() {
+        Map<String, Object> params = service.buildFilterParams("  ", null, null, "");
+
+        assertTrue(params.isEmpty());
+    }
+
+    @Test
+    public void buildFilterParams_dateRangeOnly() {
+        Map<String, Object> params = service.buildFilterParams(null, new Date(1000L), null, null);
+
+        assertEquals(1, params.size());
+        assertTrue(params.containsKey("FROM_DATE"));
+    }
+}
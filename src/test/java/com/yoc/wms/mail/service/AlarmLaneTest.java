@@ -0,0 +1,117 @@
+package com.yoc.wms.mail.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * AlarmLane 단위 테스트
+ *
+ * 테스트 범위:
+ * - tryStart()/finish() - Lane 중복 실행 방지
+ * - isDue() - idle-interval 대기
+ * - wakeUp() - 등록 시 대기 해제, 실행 중 요청은 종료 후 재실행 (v3.23.0)
+ *
+ * @since v3.6.0
+ */
+public class AlarmLaneTest {
+
+    private AlarmLane lane;
+
+    @Before
+    public void setUp() {
+        lane = new AlarmLane("CRITICAL",
+                new AlarmWorkerPool("test-worker", 1, 1),
+                new AdaptiveBatchSizer(10, 1, 100, 1, 10000L));
+    }
+
+    @After
+    public void tearDown() {
+        lane.shutdown();
+    }
+
+    @Test
+    public void tryStart_whileRunning_returnsFalse() {
+        assertTrue(lane.tryStart());
+        assertTrue(lane.isRunning());
+
+        assertFalse(lane.tryStart());
+    }
+
+    @Test
+    public void finish_allowsNextStart() {
+        lane.tryStart();
+
+        lane.finish(0L);
+
+        assertFalse(lane.isRunning());
+        assertTrue(lane.tryStart());
+    }
+
+    @Test
+    public void isDue_beforeNextPollTime_returnsFalse() {
+        lane.tryStart();
+        lane.finish(5000L);
+
+        assertFalse(lane.isDue(4999L));
+        assertTrue(lane.isDue(5000L));
+    }
+
+    @Test
+    public void isDue_initially_returnsTrue() {
+        assertTrue(lane.isDue(System.currentTimeMillis()));
+    }
+
+    @Test
+    public void wakeUp_idleLane_dueImmediately() {
+        lane.tryStart();
+        lane.finish(Long.MAX_VALUE);
+        assertFalse(lane.isDue(System.currentTimeMillis()));
+
+        lane.wakeUp();
+
+        assertTrue(lane.isDue(System.currentTimeMillis()));
+    }
+
+    @Test
+    public void wakeUp_whileRunning_finishReportsWokenAndSkipsIdle() {
+        // Given - 실행 중 새 행 등록
+        lane.tryStart();
+        lane.wakeUp();
+
+        // When - 큐가 비어 idle-interval로 종료하려 해도
+        boolean woken = lane.finish(Long.MAX_VALUE);
+
+        // Then - 깨우기 요청이 우선, 바로 다시 폴링 가능
+        assertTrue(woken);
+        assertTrue(lane.isDue(System.currentTimeMillis()));
+    }
+
+    @Test
+    public void wakeUp_beforeStart_notCarriedIntoFinish() {
+        // Given - 실행 전 깨우기는 이번 실행의 선점이 가져감
+        lane.wakeUp();
+        lane.tryStart();
+
+        // When & Then
+        assertFalse(lane.finish(5000L));
+        assertFalse(lane.isDue(4999L));
+    }
+
+    @Test
+    public void laneOf_unknownSeverity_info() {
+        assertEquals("CRITICAL", AlarmLane.laneOf("CRITICAL"));
+        assertEquals("WARNING", AlarmLane.laneOf("WARNING"));
+        assertEquals("INFO", AlarmLane.laneOf("INFO"));
+        assertEquals("INFO", AlarmLane.laneOf(null));
+        assertEquals("INFO", AlarmLane.laneOf("critical"));
+    }
+
+    @Test
+    public void severities_criticalFirst() {
+        assertEquals("CRITICAL", AlarmLane.SEVERITIES[0]);
+        assertEquals("INFO", AlarmLane.SEVERITIES[AlarmLane.SEVERITIES.length - 1]);
+    }
+}
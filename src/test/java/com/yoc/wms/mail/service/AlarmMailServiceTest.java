@@ -1,6 +1,8 @@
 package com.yoc.wms.mail.service;
 
+import com.yoc.wms.mail.dao.CappedRows;
 import com.yoc.wms.mail.domain.MailRequest;
+import com.yoc.wms.mail.domain.QueueMessage;
 import com.yoc.wms.mail.domain.Recipient;
 import org.junit.Before;
 import org.junit.Test;
@@ -528,6 +530,453 @@ public class AlarmMailServiceTest {
         assertFalse(result.hasExcelAttachments());
     }
 
+    // ===== calculateRetryDelaySeconds() 테스트 (v3.7.0) =====
+
+    @Test
+    public void calculateRetryDelaySeconds_firstRetry_halfToFullBase() {
+        // base=60 → 30~60초
+        assertEquals(30L, service.calculateRetryDelaySeconds(0, 60, 1800, 0.0));
+        assertEquals(60L, service.calculateRetryDelaySeconds(0, 60, 1800, 1.0));
+    }
+
+    @Test
+    public void calculateRetryDelaySeconds_exponentialGrowth() {
+        // jitter 고정 시 재시도마다 2배
+        assertEquals(60L, service.calculateRetryDelaySeconds(0, 60, 1800, 1.0));
+        assertEquals(120L, service.calculateRetryDelaySeconds(1, 60, 1800, 1.0));
+        assertEquals(240L, service.calculateRetryDelaySeconds(2, 60, 1800, 1.0));
+    }
+
+    @Test
+    public void calculateRetryDelaySeconds_cappedAtMax() {
+        // 60 × 2^10 → 상한 1800초
+        assertEquals(1800L, service.calculateRetryDelaySeconds(10, 60, 1800, 1.0));
+        assertEquals(900L, service.calculateRetryDelaySeconds(10, 60, 1800, 0.0));
+    }
+
+    @Test
+    public void calculateRetryDelaySeconds_jitterWithinRange() {
+        for (int i = 0; i < 100; i++) {
+            long delay = service.calculateRetryDelaySeconds(1, 60, 1800, Math.random());
+            assertTrue("60~120초 범위: " + delay, delay >= 60 && delay <= 120);
+        }
+    }
+
+    @Test
+    public void calculateRetryDelaySeconds_zeroBase_minimumOneSecond() {
+        assertEquals(1L, service.calculateRetryDelaySeconds(3, 0, 1800, 0.5));
+    }
+
+    @Test
+    public void calculateRetryDelaySeconds_hugeRetryCount_noOverflow() {
+        assertEquals(1800L, service.calculateRetryDelaySeconds(Integer.MAX_VALUE, 60, 1800, 1.0));
+    }
+
+    // ===== buildFailureEntry() 테스트 (v3.8.0) =====
+
+    @Test
+    public void buildFailureEntry_formatsOneLine() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2025, Calendar.MARCH, 4, 9, 5, 7);
+
+        String entry = service.buildFailureEntry(calendar.getTime(), 2, "NODE-A", "SMTP 연결 실패");
+
+        assertEquals("2025-03-04 09:05:07 [시도 2/3] node=NODE-A SMTP 연결 실패\n", entry);
+    }
+
+    @Test
+    public void buildFailureEntry_nullMessage_placeholder() {
+        String entry = service.buildFailureEntry(new Date(), 1, "NODE-A", null);
+
+        assertTrue(entry.contains("(메시지 없음)"));
+        assertTrue(entry.endsWith("\n"));
+    }
+
+
+    // ===== isSameSql() 테스트 (v3.10.0) =====
+
+    @Test
+    public void isSameSql_whitespaceIgnored() {
+        String tableSql = "SELECT ORDER_ID, CUSTOMER_NAME\n        FROM ORDERS\n        WHERE STATUS = 'OVERDUE'";
+        String excelSql = "  SELECT ORDER_ID,  CUSTOMER_NAME FROM ORDERS WHERE STATUS = 'OVERDUE'  ";
+
+        assertTrue(service.isSameSql(tableSql, excelSql));
+    }
+
+    @Test
+    public void isSameSql_literalCaseDiffers_false() {
+        assertFalse(service.isSameSql("SELECT * FROM ORDERS WHERE STATUS = 'A'",
+                "SELECT * FROM ORDERS WHERE STATUS = 'a'"));
+    }
+
+    @Test
+    public void isSameSql_differentQuery_false() {
+        assertFalse(service.isSameSql("SELECT * FROM ORDERS", "SELECT * FROM INVENTORY"));
+    }
+
+    @Test
+    public void isSameSql_nullSql_false() {
+        assertFalse(service.isSameSql(null, "SELECT * FROM ORDERS"));
+        assertFalse(service.isSameSql("SELECT * FROM ORDERS", null));
+    }
+
+    // ===== groupForCoalescing() / buildRecipientKey() 테스트 (v3.11.0) =====
+
+    @Test
+    public void groupForCoalescing_sameSourceWithinWindow_merged() {
+        // Given - 10:00, 10:02, 10:04 (window 300초)
+        List<QueueMessage> messages = Arrays.asList(
+                createQueueMessage(1L, "LOW_STOCK", 0),
+                createQueueMessage(2L, "LOW_STOCK", 120),
+                createQueueMessage(3L, "LOW_STOCK", 240)
+        );
+
+        // When
+        List<List<QueueMessage>> groups = service.groupForCoalescing(
+                messages, Arrays.asList("a@company.com", "a@company.com", "a@company.com"), 300);
+
+        // Then
+        assertEquals(1, groups.size());
+        assertEquals(3, groups.get(0).size());
+    }
+
+    @Test
+    public void groupForCoalescing_outsideWindow_newGroup() {
+        // Given - 최초 메시지 기준 10:00, 10:06 (window 300초)
+        List<QueueMessage> messages = Arrays.asList(
+                createQueueMessage(1L, "LOW_STOCK", 0),
+                createQueueMessage(2L, "LOW_STOCK", 240),
+                createQueueMessage(3L, "LOW_STOCK", 360)
+        );
+
+        // When
+        List<List<QueueMessage>> groups = service.groupForCoalescing(
+                messages, Arrays.asList("a@company.com", "a@company.com", "a@company.com"), 300);
+
+        // Then
+        assertEquals(2, groups.size());
+        assertEquals(2, groups.get(0).size());
+        assertEquals(Long.valueOf(3L), groups.get(1).get(0).getQueueId());
+    }
+
+    @Test
+    public void groupForCoalescing_differentSourceOrRecipients_notMerged() {
+        // Given
+        List<QueueMessage> messages = Arrays.asList(
+                createQueueMessage(1L, "LOW_STOCK", 0),
+                createQueueMessage(2L, "OVERDUE_ORDERS", 10),
+                createQueueMessage(3L, "LOW_STOCK", 20),
+                createQueueMessage(4L, "LOW_STOCK", 30)
+        );
+
+        // When - 4번은 수신인 다름
+        List<List<QueueMessage>> groups = service.groupForCoalescing(
+                messages, Arrays.asList("a@company.com", "a@company.com", "a@company.com", "b@company.com"), 300);
+
+        // Then - [1, 3], [2], [4] (최초 메시지 순서)
+        assertEquals(3, groups.size());
+        assertEquals(2, groups.get(0).size());
+        assertEquals(Long.valueOf(3L), groups.get(0).get(1).getQueueId());
+        assertEquals(Long.valueOf(2L), groups.get(1).get(0).getQueueId());
+        assertEquals(Long.valueOf(4L), groups.get(2).get(0).getQueueId());
+    }
+
+    @Test
+    public void groupForCoalescing_unresolvedRecipientsOrDisabled_single() {
+        List<QueueMessage> messages = Arrays.asList(
+                createQueueMessage(1L, "LOW_STOCK", 0),
+                createQueueMessage(2L, "LOW_STOCK", 10)
+        );
+
+        // 수신인 조회 실패 → 단독
+        assertEquals(2, service.groupForCoalescing(messages, Arrays.asList("a@company.com", null), 300).size());
+        // window 0 → 통합 안 함
+        assertEquals(2, service.groupForCoalescing(messages, Arrays.asList("a@company.com", "a@company.com"), 0).size());
+    }
+
+    @Test
+    public void buildRecipientKey_orderAndCaseInsensitive() {
+        String key1 = service.buildRecipientKey(Arrays.asList(
+                Recipient.builder().email("B@company.com").userId("B").build(),
+                Recipient.builder().email("a@company.com").userId("A").build()));
+        String key2 = service.buildRecipientKey(Arrays.asList(
+                Recipient.builder().email("a@company.com").userId("A").build(),
+                Recipient.builder().email("b@company.com").userId("B").build()));
+
+        assertEquals("a@company.com,b@company.com", key1);
+        assertEquals(key1, key2);
+    }
+
+    @Test
+    public void buildCoalescedContent_appendsCountAndFirstRegDate() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2025, Calendar.MARCH, 4, 9, 0, 0);
+
+        String content = service.buildCoalescedContent("재고 부족 5건", 3, calendar.getTime());
+
+        assertEquals("재고 부족 5건\n\n※ 같은 알람 3건을 통합 발송했습니다 (최초 발생: 2025-03-04 09:00:00)", content);
+        assertEquals("※ 같은 알람 2건을 통합 발송했습니다", service.buildCoalescedContent(null, 2, null));
+    }
+
+    // ===== buildResultFingerprint() 테스트 (v3.12.0) =====
+
+    @Test
+    public void buildResultFingerprint_sameResult_sameHash() {
+        // Given - 컬럼 순서만 다른 Map, 숫자 표현만 다른 값
+        List<Map<String, Object>> first = Arrays.asList(
+                createMap("PRODUCT_CODE", "P001", "STOCK", new java.math.BigDecimal("5.0")));
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("STOCK", new java.math.BigDecimal("5"));
+        row.put("PRODUCT_CODE", "P001");
+        List<Map<String, Object>> second = Arrays.asList(row);
+
+        // When
+        String hash1 = service.buildResultFingerprint(first, null, "a@company.com");
+        String hash2 = service.buildResultFingerprint(second, null, "a@company.com");
+
+        // Then
+        assertEquals(hash1, hash2);
+        assertEquals(64, hash1.length());
+    }
+
+    @Test
+    public void buildResultFingerprint_changedValueOrRecipients_differentHash() {
+        List<Map<String, Object>> rows = Arrays.asList(createMap("PRODUCT_CODE", "P001", "STOCK", 5));
+        List<Map<String, Object>> changed = Arrays.asList(createMap("PRODUCT_CODE", "P001", "STOCK", 4));
+
+        String base = service.buildResultFingerprint(rows, null, "a@company.com");
+
+        assertNotEquals(base, service.buildResultFingerprint(changed, null, "a@company.com"));
+        assertNotEquals(base, service.buildResultFingerprint(rows, null, "a@company.com,b@company.com"));
+    }
+
+    @Test
+    public void buildResultFingerprint_rowOrderMatters() {
+        Map<String, Object> p1 = createMap("PRODUCT_CODE", "P001");
+        Map<String, Object> p2 = createMap("PRODUCT_CODE", "P002");
+
+        assertNotEquals(
+                service.buildResultFingerprint(Arrays.asList(p1, p2), null, ""),
+                service.buildResultFingerprint(Arrays.asList(p2, p1), null, ""));
+    }
+
+    @Test
+    public void buildResultFingerprint_nullValueDistinctFromText() {
+        List<Map<String, Object>> nullValue = Arrays.asList(createMap("NOTE", null));
+        List<Map<String, Object>> textValue = Arrays.asList(createMap("NOTE", "-1:"));
+
+        assertNotEquals(
+                service.buildResultFingerprint(nullValue, null, ""),
+                service.buildResultFingerprint(textValue, null, ""));
+    }
+
+    @Test
+    public void buildResultFingerprint_sharedExcelData_countedOnce() {
+        List<Map<String, Object>> rows = Arrays.asList(createMap("PRODUCT_CODE", "P001"));
+
+        assertEquals(
+                service.buildResultFingerprint(rows, null, ""),
+                service.buildResultFingerprint(rows, rows, ""));
+        assertNotEquals(
+                service.buildResultFingerprint(rows, null, ""),
+                service.buildResultFingerprint(rows, new ArrayList<>(rows), ""));
+    }
+
+    // ===== buildDetailParams() 테스트 (v3.13.0) =====
+
+    @Test
+    public void buildDetailParams_firstRun_nullWatermarkIncluded() {
+        Map<String, Object> params = service.buildDetailParams("OVERDUE_ORDERS", null);
+
+        assertEquals("OVERDUE_ORDERS", params.get("MAIL_SOURCE"));
+        assertTrue(params.containsKey("WATERMARK"));
+        assertNull(params.get("WATERMARK"));
+    }
+
+    @Test
+    public void buildDetailParams_withWatermark() {
+        Map<String, Object> params = service.buildDetailParams("OVERDUE_ORDERS", "ORD-0042");
+
+        assertEquals("ORD-0042", params.get("WATERMARK"));
+    }
+
+    // ===== 상세 결과 행 수 상한 테스트 (v3.15.0) =====
+
+    @Test
+    public void buildAlarmMailRequest_cappedRows_subjectUsesTotalCount() {
+        Map<String, Object> queueData = createMap(
+                "SEVERITY", "WARNING",
+                "SECTION_TITLE", "대량 지연",
+                "SECTION_CONTENT", "확인 필요",
+                "MAIL_SOURCE", "BULK_DELAY"
+        );
+        CappedRows tableData = new CappedRows(createRows(3), 12000);
+        List<Recipient> recipients = Arrays.asList(Recipient.builder().email("admin@company.com").build());
+
+        MailRequest result = service.buildAlarmMailRequest(queueData, tableData, recipients, null);
+
+        assertEquals("[경고] WMS 대량 지연 12000건", result.getSubject());
+        assertEquals(3, result.getSections().get(1).getData().size());
+        assertEquals("확인 필요\n\n※ 전체 12000건 중 3건만 표시합니다.", result.getSections().get(0).getContent());
+    }
+
+    @Test
+    public void buildAlarmMailRequest_tableMaxRows_truncatesTable() {
+        Map<String, Object> queueData = createMap(
+                "SEVERITY", "WARNING",
+                "SECTION_TITLE", "대량 지연",
+                "SECTION_CONTENT", "확인 필요",
+                "MAIL_SOURCE", "BULK_DELAY"
+        );
+        List<Map<String, Object>> tableData = createRows(100);
+        List<Recipient> recipients = Arrays.asList(Recipient.builder().email("admin@company.com").build());
+
+        MailRequest result = service.buildAlarmMailRequest(
+                queueData, tableData, recipients, null, null, null, null, 10);
+
+        assertEquals("[경고] WMS 대량 지연 100건", result.getSubject());
+        assertEquals(10, result.getSections().get(1).getData().size());
+        assertEquals("ORDER1", result.getSections().get(1).getData().get(0).get("orderId"));
+        assertTrue(result.getSections().get(0).getContent().endsWith("※ 전체 100건 중 10건만 표시합니다."));
+    }
+
+    @Test
+    public void buildAlarmMailRequest_tableMaxRows_sharedExcel_convertedOnce() {
+        Map<String, Object> queueData = createMap(
+                "SEVERITY", "WARNING",
+                "SECTION_TITLE", "대량 지연",
+                "SECTION_CONTENT", "확인 필요",
+                "MAIL_SOURCE", "BULK_DELAY"
+        );
+        List<Map<String, Object>> rows = createRows(100);
+        List<Recipient> recipients = Arrays.asList(Recipient.builder().email("admin@company.com").build());
+
+        MailRequest result = service.buildAlarmMailRequest(
+                queueData, rows, recipients, null, rows, null, null, 10);
+
+        List<Map<String, String>> table = result.getSections().get(1).getData();
+        List<Map<String, String>> excel = result.getExcelAttachments().get(0).getData();
+        assertEquals(10, table.size());
+        assertEquals(100, excel.size());
+        // 본문 테이블은 Excel 변환본의 앞부분 (같은 행 객체)
+        for (int i = 0; i < table.size(); i++) {
+            assertSame(excel.get(i), table.get(i));
+        }
+    }
+
+    @Test
+    public void buildAlarmMailRequest_tableMaxRows_notExceeded_noNotice() {
+        Map<String, Object> queueData = createMap(
+                "SEVERITY", "WARNING",
+                "SECTION_TITLE", "대량 지연",
+                "SECTION_CONTENT", "확인 필요",
+                "MAIL_SOURCE", "BULK_DELAY"
+        );
+        List<Recipient> recipients = Arrays.asList(Recipient.builder().email("admin@company.com").build());
+
+        MailRequest result = service.buildAlarmMailRequest(
+                queueData, createRows(10), recipients, null, null, null, null, 10);
+
+        assertEquals(10, result.getSections().get(1).getData().size());
+        assertEquals("확인 필요", result.getSections().get(0).getContent());
+    }
+
+    @Test
+    public void countTotalRows_cappedAndPlainLists() {
+        assertEquals(0, service.countTotalRows(null));
+        assertEquals(5, service.countTotalRows(createRows(5)));
+        assertEquals(900, service.countTotalRows(new CappedRows(createRows(5), 900)));
+    }
+
+    @Test
+    public void buildResultFingerprint_cappedRows_totalCountIncluded() {
+        List<Map<String, Object>> kept = createRows(3);
+
+        assertNotEquals(service.buildResultFingerprint(new CappedRows(kept, 100), null, ""),
+                service.buildResultFingerprint(new CappedRows(kept, 101), null, ""));
+        assertEquals(service.buildResultFingerprint(kept, null, ""),
+                service.buildResultFingerprint(new CappedRows(kept, 3), null, ""));
+    }
+
+    @Test
+    public void buildTruncationNotice_variants() {
+        assertNull(service.buildTruncationNotice(10, 10, 0));
+        assertNull(service.buildTruncationNotice(0, 0, 0));
+        assertEquals("※ 전체 1500건 중 1000건만 표시합니다.", service.buildTruncationNotice(1500, 1000, 0));
+        assertEquals("※ 전체 1500건 중 1000건만 표시합니다. (첨부 Excel: 1500건)",
+                service.buildTruncationNotice(1500, 1000, 1500));
+    }
+
+    // ===== buildAlarmMailRequest(QueueMessage) 테스트 (v3.25.0) =====
+
+    @Test
+    public void buildAlarmMailRequest_fromQueueMessage_usesMessageFields() {
+        // Given - COLUMN_ORDER는 메시지 값, 본문은 통합 안내가 추가된 사본
+        QueueMessage message = QueueMessage.fromRow(createMap(
+                "QUEUE_ID", 1L,
+                "SEVERITY", "WARNING",
+                "SECTION_TITLE", "지연 주문 알림",
+                "SECTION_CONTENT", "원본 본문",
+                "MAIL_SOURCE", "OVERDUE_ORDERS",
+                "COLUMN_ORDER", "orderId,status"
+        )).withSectionContent("통합 본문");
+        List<Recipient> recipients = Arrays.asList(
+                Recipient.builder().email("admin@company.com").build()
+        );
+
+        // When
+        MailRequest result = service.buildAlarmMailRequest(message, createRows(3), recipients, null, 0);
+
+        // Then
+        assertEquals("OVERDUE_ORDERS", result.getMailSource());
+        assertTrue(result.getSubject().contains("3건"));
+        assertEquals("통합 본문", result.getSections().get(0).getContent());
+        assertEquals("orderId,status", result.getSections().get(1).getMetadataOrDefault("columnOrder", null));
+    }
+
+    // ===== findSignaledLanes() 테스트 (v3.23.0) =====
+
+    @Test
+    public void findSignaledLanes_firstRead_onlyRecordsBaseline() {
+        Map<String, Long> lastSeen = new HashMap<>();
+
+        List<String> signaled = service.findSignaledLanes(lastSeen, Arrays.asList(
+                createMap("SEVERITY", "CRITICAL", "SIGNAL_SEQ", new java.math.BigDecimal("5")),
+                createMap("SEVERITY", "INFO", "SIGNAL_SEQ", 0L)));
+
+        assertTrue(signaled.isEmpty());
+        assertEquals(Long.valueOf(5L), lastSeen.get("CRITICAL"));
+    }
+
+    @Test
+    public void findSignaledLanes_changedSeq_laneSignaled() {
+        // Given
+        Map<String, Long> lastSeen = new HashMap<>();
+        lastSeen.put("CRITICAL", 5L);
+        lastSeen.put("WARNING", 2L);
+
+        // When - CRITICAL만 증가
+        List<String> signaled = service.findSignaledLanes(lastSeen, Arrays.asList(
+                createMap("SEVERITY", "CRITICAL", "SIGNAL_SEQ", 6L),
+                createMap("SEVERITY", "WARNING", "SIGNAL_SEQ", 2L)));
+
+        // Then
+        assertEquals(Arrays.asList("CRITICAL"), signaled);
+        assertEquals(Long.valueOf(6L), lastSeen.get("CRITICAL"));
+    }
+
+    @Test
+    public void findSignaledLanes_nullOrInvalidRows_ignored() {
+        Map<String, Long> lastSeen = new HashMap<>();
+        lastSeen.put("CRITICAL", 1L);
+
+        assertTrue(service.findSignaledLanes(lastSeen, null).isEmpty());
+        assertTrue(service.findSignaledLanes(lastSeen, Arrays.asList(
+                createMap("SEVERITY", "CRITICAL", "SIGNAL_SEQ", null))).isEmpty());
+        assertEquals(Long.valueOf(1L), lastSeen.get("CRITICAL"));
+    }
+
+
     // ===== Helper Methods =====
 
     private Map<String, Object> createMap(Object... keyValues) {
@@ -537,4 +986,21 @@ public class AlarmMailServiceTest {
         }
         return map;
     }
+
+    private List<Map<String, Object>> createRows(int count) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            rows.add(createMap("orderId", "ORDER" + i, "status", "DELAYED"));
+        }
+        return rows;
+    }
+
+    private QueueMessage createQueueMessage(Long queueId, String mailSource, int secondsAfterBase) {
+        return QueueMessage.fromRow(createMap(
+                "QUEUE_ID", queueId,
+                "MAIL_SOURCE", mailSource,
+                "SQL_ID", "alarm.selectDetail",
+                "REG_DATE", new Date(1700000000000L + secondsAfterBase * 1000L)
+        ));
+    }
 }
@@ -0,0 +1,54 @@
+package com.yoc.wms.mail.service;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * AlarmQueueReaper 단위 테스트 (Pure Functions)
+ *
+ * 테스트 범위:
+ * - isDue() - Heartbeat / 회수 주기 판단
+ * - buildReapEntry() - 회수 이력 형식
+ *
+ * 회수 SQL은 AlarmQueueClaimIntegrationTest(H2)에서 검증
+ *
+ * @since v3.18.0
+ */
+public class AlarmQueueReaperTest {
+
+    // ==================== isDue() 테스트 ====================
+
+    @Test
+    public void isDue_firstRun_immediately() {
+        assertTrue(AlarmQueueReaper.isDue(0L, 10000L, 1000L));
+    }
+
+    @Test
+    public void isDue_intervalElapsed() {
+        assertFalse(AlarmQueueReaper.isDue(1000L, 10000L, 10999L));
+        assertTrue(AlarmQueueReaper.isDue(1000L, 10000L, 11000L));
+    }
+
+    @Test
+    public void isDue_disabled_never() {
+        assertFalse(AlarmQueueReaper.isDue(0L, 0L, 1000L));
+        assertFalse(AlarmQueueReaper.isDue(0L, -1L, 1000L));
+    }
+
+    // ==================== buildReapEntry() 테스트 ====================
+
+    @Test
+    public void buildReapEntry_format() {
+        Calendar cal = Calendar.getInstance();
+        cal.set(2025, Calendar.MARCH, 4, 9, 30, 15);
+        Date reapedAt = cal.getTime();
+
+        String entry = AlarmQueueReaper.buildReapEntry(reapedAt, "NODE-A", "처리 중 회수");
+
+        assertEquals("2025-03-04 09:30:15 [회수] node=NODE-A 처리 중 회수\n", entry);
+    }
+}
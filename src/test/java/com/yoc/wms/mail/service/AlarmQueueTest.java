@@ -0,0 +1,104 @@
+package com.yoc.wms.mail.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * AlarmQueue 단위 테스트
+ *
+ * 테스트 범위:
+ * - validate() - 필수 값 / SEVERITY 검증
+ * - toQueueRow() - enqueueAlarmQueue 파라미터 변환
+ * - lanesOf() - 깨울 Lane 목록 (CRITICAL 우선)
+ *
+ * @since v3.23.0
+ */
+public class AlarmQueueTest {
+
+    // ==================== validate() 테스트 ====================
+
+    @Test
+    public void validate_requiredPresent_passes() {
+        AlarmQueue.validate(alarm("STOCK_OUT", "CRITICAL"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void validate_missingSqlId_throws() {
+        Map<String, Object> alarm = alarm("STOCK_OUT", "CRITICAL");
+        alarm.remove("SQL_ID");
+
+        AlarmQueue.validate(alarm);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void validate_blankMailSource_throws() {
+        AlarmQueue.validate(alarm("  ", "INFO"));
+    }
+
+    @Test
+    public void validate_invalidSeverity_throws() {
+        try {
+            AlarmQueue.validate(alarm("STOCK_OUT", "URGENT"));
+            fail("SEVERITY 오류는 등록 전에 거부되어야 함");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("URGENT"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void validate_null_throws() {
+        AlarmQueue.validate(null);
+    }
+
+    // ==================== toQueueRow() 테스트 ====================
+
+    @Test
+    public void toQueueRow_optionalColumnsFilledWithNull() {
+        // Given
+        Map<String, Object> alarm = alarm("STOCK_OUT", "CRITICAL");
+        alarm.put("DEDUP_KEY", "STOCK_OUT:P001");
+        alarm.put("UNKNOWN_COLUMN", "무시");
+
+        // When
+        Map<String, Object> row = AlarmQueue.toQueueRow(alarm);
+
+        // Then
+        assertEquals("STOCK_OUT", row.get("MAIL_SOURCE"));
+        assertEquals("STOCK_OUT:P001", row.get("DEDUP_KEY"));
+        assertTrue(row.containsKey("EXCEL_FILE_NAME"));
+        assertNull(row.get("EXCEL_FILE_NAME"));
+        assertFalse("큐 컬럼이 아닌 키는 넘기지 않음", row.containsKey("UNKNOWN_COLUMN"));
+        assertFalse("호출자 Map은 변경하지 않음", alarm.containsKey("EXCEL_FILE_NAME"));
+    }
+
+    // ==================== lanesOf() 테스트 ====================
+
+    @Test
+    public void lanesOf_distinctLanesInPriorityOrder() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        rows.add(alarm("A", "INFO"));
+        rows.add(alarm("B", "CRITICAL"));
+        rows.add(alarm("C", "INFO"));
+
+        assertEquals(Arrays.asList("CRITICAL", "INFO"), AlarmQueue.lanesOf(rows));
+    }
+
+
+    // ===== Helper Methods =====
+
+    private Map<String, Object> alarm(String mailSource, String severity) {
+        Map<String, Object> alarm = new HashMap<>();
+        alarm.put("MAIL_SOURCE", mailSource);
+        alarm.put("ALARM_NAME", "테스트 알람");
+        alarm.put("SEVERITY", severity);
+        alarm.put("SQL_ID", "alarm.selectStockOutDetail");
+        return alarm;
+    }
+}
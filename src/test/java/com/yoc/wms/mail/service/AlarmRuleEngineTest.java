@@ -0,0 +1,121 @@
+package com.yoc.wms.mail.service;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * AlarmRuleEngine 단위 테스트
+ *
+ * 테스트 범위:
+ * - 조건 쿼리 결과 → 발생 건수 판정 (CNT 컬럼 / 행 수)
+ * - 규칙 → MAIL_QUEUE INSERT 파라미터 변환 ({count} 치환)
+ *
+ * @since v3.21.0
+ */
+public class AlarmRuleEngineTest {
+
+    // ==================== resolveHitCount ====================
+
+    @Test
+    public void resolveHitCount_cntColumn_usesCntValue() {
+        // Given - SELECT COUNT(*) AS CNT (Oracle은 BigDecimal)
+        List<Map<String, Object>> rows = rows(row("CNT", new BigDecimal("7")));
+
+        // When & Then - 행 수(1)가 아닌 CNT 값
+        assertEquals(7L, AlarmRuleEngine.resolveHitCount(rows, 1L));
+    }
+
+    @Test
+    public void resolveHitCount_cntZero_notFired() {
+        List<Map<String, Object>> rows = rows(row("CNT", 0L));
+
+        assertEquals(0L, AlarmRuleEngine.resolveHitCount(rows, 1L));
+    }
+
+    @Test
+    public void resolveHitCount_noCntColumn_usesRowCount() {
+        // Given - 상세 행을 그대로 반환하는 조건 쿼리
+        List<Map<String, Object>> rows = rows(row("ORDER_ID", "ORD-001"));
+
+        // When & Then
+        assertEquals(12L, AlarmRuleEngine.resolveHitCount(rows, 12L));
+    }
+
+    @Test
+    public void resolveHitCount_nonNumericCnt_usesRowCount() {
+        List<Map<String, Object>> rows = rows(row("CNT", "N/A"));
+
+        assertEquals(1L, AlarmRuleEngine.resolveHitCount(rows, 1L));
+    }
+
+    @Test
+    public void resolveHitCount_emptyResult_zero() {
+        assertEquals(0L, AlarmRuleEngine.resolveHitCount(Collections.<Map<String, Object>>emptyList(), 0L));
+        assertEquals(0L, AlarmRuleEngine.resolveHitCount(null, 0L));
+    }
+
+    // ==================== buildQueueRow ====================
+
+    @Test
+    public void buildQueueRow_copiesRuleFieldsAndFormatsContent() {
+        // Given
+        Map<String, Object> rule = new HashMap<>();
+        rule.put("MAIL_SOURCE", "LOW_STOCK");
+        rule.put("ALARM_NAME", "재고 부족");
+        rule.put("SEVERITY", "WARNING");
+        rule.put("CONDITION_SQL_ID", "alarm.countLowStock");
+        rule.put("SQL_ID", "alarm.selectLowStockDetail");
+        rule.put("SECTION_TITLE", "재고 부족 알림");
+        rule.put("SECTION_CONTENT", "안전재고 미달 품목 {count}건 ({count}건 확인 필요)");
+        rule.put("RECIPIENT_GROUPS", "ADM");
+        rule.put("CHECK_INTERVAL_MINUTES", 30);
+
+        // When
+        Map<String, Object> row = AlarmRuleEngine.buildQueueRow(rule, 5L);
+
+        // Then
+        assertEquals("LOW_STOCK", row.get("MAIL_SOURCE"));
+        assertEquals("WARNING", row.get("SEVERITY"));
+        assertEquals("alarm.selectLowStockDetail", row.get("SQL_ID"));
+        assertEquals("ADM", row.get("RECIPIENT_GROUPS"));
+        assertEquals("처리 전 같은 알람 중복 방지", "LOW_STOCK", row.get("DEDUP_KEY"));
+        assertEquals("안전재고 미달 품목 5건 (5건 확인 필요)", row.get("SECTION_CONTENT"));
+        assertTrue(row.containsKey("RECIPIENT_USER_IDS"));
+        assertNull(row.get("RECIPIENT_USER_IDS"));
+        assertFalse("규칙 전용 컬럼은 큐에 넘기지 않음", row.containsKey("CONDITION_SQL_ID"));
+        assertFalse(row.containsKey("CHECK_INTERVAL_MINUTES"));
+    }
+
+    @Test
+    public void buildQueueRow_nullContent_staysNull() {
+        Map<String, Object> rule = new HashMap<>();
+        rule.put("MAIL_SOURCE", "OVERDUE_ORDERS");
+
+        Map<String, Object> row = AlarmRuleEngine.buildQueueRow(rule, 3L);
+
+        assertNull(row.get("SECTION_CONTENT"));
+    }
+
+
+    // ===== Helper Methods =====
+
+    private Map<String, Object> row(String column, Object value) {
+        Map<String, Object> row = new HashMap<>();
+        row.put(column, value);
+        return row;
+    }
+
+    private List<Map<String, Object>> rows(Map<String, Object> row) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        rows.add(row);
+        return rows;
+    }
+}
@@ -0,0 +1,294 @@
+package com.yoc.wms.mail.service;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * AlarmWorkerPool 단위 테스트
+ *
+ * 테스트 범위:
+ * - runAll() 병렬 실행 / 예외 격리 / 큐 포화 시 CallerRunsPolicy
+ * - submit() 결과/예외 전달, 큐 포화 시 호출 스레드 실행 / 거부 모드는 예외 (v3.14.0)
+ * - shutdown(timeoutMs) 진행 중 작업 완료 대기 / 시간 초과 시 강제 종료 (v3.19.0)
+ * - 생성자 파라미터 검증
+ *
+ * @since v3.2.0
+ */
+public class AlarmWorkerPoolTest {
+
+    private AlarmWorkerPool pool;
+
+    @After
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void runAll_tasksRunInParallel() {
+        // Given - 4개 작업이 모두 동시에 실행되어야만 통과하는 Latch
+        pool = new AlarmWorkerPool("test-worker", 4, 10);
+        final CountDownLatch allStarted = new CountDownLatch(4);
+        final AtomicInteger parallelCount = new AtomicInteger();
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    allStarted.countDown();
+                    try {
+                        if (allStarted.await(5, TimeUnit.SECONDS)) {
+                            parallelCount.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+
+        // When
+        int completed = pool.runAll(tasks);
+
+        // Then
+        assertEquals(4, completed);
+        assertEquals(4, parallelCount.get());
+    }
+
+    @Test
+    public void runAll_taskException_othersStillComplete() {
+        // Given
+        pool = new AlarmWorkerPool("test-worker", 2, 10);
+        final AtomicInteger executed = new AtomicInteger();
+
+        List<Runnable> tasks = new ArrayList<>();
+        tasks.add(countingTask(executed));
+        tasks.add(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("처리 실패");
+            }
+        });
+        tasks.add(countingTask(executed));
+
+        // When
+        int completed = pool.runAll(tasks);
+
+        // Then
+        assertEquals(2, completed);
+        assertEquals(2, executed.get());
+    }
+
+    @Test
+    public void runAll_queueFull_callerRunsRemainingTasks() {
+        // Given - Worker 1개, 대기 큐 1개 → 나머지는 호출 스레드가 직접 실행
+        pool = new AlarmWorkerPool("test-worker", 1, 1);
+        final AtomicInteger executed = new AtomicInteger();
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tasks.add(countingTask(executed));
+        }
+
+        // When
+        int completed = pool.runAll(tasks);
+
+        // Then - 유실 없음
+        assertEquals(5, completed);
+        assertEquals(5, executed.get());
+    }
+
+    @Test
+    public void runAll_emptyTasks() {
+        pool = new AlarmWorkerPool("test-worker", 2, 10);
+
+        assertEquals(0, pool.runAll(new ArrayList<Runnable>()));
+    }
+
+    @Test
+    public void submit_returnsResultAndPropagatesException() throws Exception {
+        pool = new AlarmWorkerPool("test-fetch", 2, 2);
+
+        Future<String> success = pool.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return "OK";
+            }
+        });
+        Future<String> failure = pool.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                throw new IllegalStateException("조회 실패");
+            }
+        });
+
+        assertEquals("OK", success.get(5, TimeUnit.SECONDS));
+        try {
+            failure.get(5, TimeUnit.SECONDS);
+            fail("ExecutionException 기대");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void submit_queueFull_runsInCallerThread() throws Exception {
+        // Given - Worker 1개 점유 + 대기 큐 1개 채움
+        pool = new AlarmWorkerPool("test-fetch", 1, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Callable<String> blocking = new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                release.await(5, TimeUnit.SECONDS);
+                return Thread.currentThread().getName();
+            }
+        };
+        pool.submit(blocking);
+        pool.submit(blocking);
+
+        // When - 세 번째는 호출 스레드가 직접 실행
+        Future<String> overflow = pool.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return Thread.currentThread().getName();
+            }
+        });
+
+        // Then - 반환 시점에 이미 완료
+        assertTrue(overflow.isDone());
+        assertEquals(Thread.currentThread().getName(), overflow.get());
+        release.countDown();
+    }
+
+    @Test
+    public void submit_rejectWhenFull_throwsInsteadOfRunningInCaller() throws Exception {
+        // Given - 거부 모드, Worker 1개 점유 + 대기 큐 1개 채움
+        pool = new AlarmWorkerPool("test-fetch", 1, 1, true);
+        final CountDownLatch release = new CountDownLatch(1);
+        Callable<String> blocking = new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                release.await(5, TimeUnit.SECONDS);
+                return Thread.currentThread().getName();
+            }
+        };
+        Future<String> running = pool.submit(blocking);
+        Future<String> queued = pool.submit(blocking);
+        final AtomicInteger overflowExecuted = new AtomicInteger();
+
+        // When - 세 번째는 거부
+        try {
+            pool.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    overflowExecuted.incrementAndGet();
+                    return Thread.currentThread().getName();
+                }
+            });
+            fail("RejectedExecutionException 기대");
+        } catch (RejectedExecutionException expected) {
+            // 정상
+        }
+
+        // Then - 호출 스레드에서 실행되지 않았고, 기존 작업은 Worker 스레드에서 완료
+        assertEquals(0, overflowExecuted.get());
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS).startsWith("test-fetch-"));
+        assertTrue(queued.get(5, TimeUnit.SECONDS).startsWith("test-fetch-"));
+    }
+
+    @Test
+    public void shutdown_inFlightTasksCompleteWithinTimeout() throws Exception {
+        // Given - 실행 중 1건 + 대기 큐 1건
+        pool = new AlarmWorkerPool("test-worker", 1, 1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicInteger executed = new AtomicInteger();
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                sleepQuietly(200);
+                executed.incrementAndGet();
+            }
+        });
+        pool.execute(countingTask(executed));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // When
+        boolean terminated = pool.shutdown(5000L);
+
+        // Then - 대기 중이던 작업까지 완료
+        assertTrue(terminated);
+        assertEquals(2, executed.get());
+    }
+
+    @Test
+    public void shutdown_timeoutExceeded_interruptsAndReturnsFalse() throws Exception {
+        // Given - 종료 대기 시간보다 오래 걸리는 작업
+        pool = new AlarmWorkerPool("test-worker", 1, 1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    Thread.sleep(10000L);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // When
+        long start = System.currentTimeMillis();
+        boolean terminated = pool.shutdown(100L);
+
+        // Then - 제한 시간 안에 반환, 실행 중 작업에 interrupt
+        assertFalse(terminated);
+        assertTrue(System.currentTimeMillis() - start < 5000L);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_zeroWorkers_throwsException() {
+        new AlarmWorkerPool("test-worker", 0, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_zeroQueueCapacity_throwsException() {
+        new AlarmWorkerPool("test-worker", 2, 0);
+    }
+
+    private void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Runnable countingTask(final AtomicInteger counter) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                counter.incrementAndGet();
+            }
+        };
+    }
+}
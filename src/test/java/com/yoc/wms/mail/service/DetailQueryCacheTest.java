@@ -0,0 +1,306 @@
+package com.yoc.wms.mail.service;
+
+import com.yoc.wms.mail.dao.CappedRows;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * DetailQueryCache 단위 테스트
+ *
+ * 테스트 범위:
+ * - buildCacheKey() - SQL_ID + 파라미터 Key (Pure Function)
+ * - get() - 배치 내 재사용, 동시 요청 1회 실행, 실패 미캐시, 대기 요청 interrupt 시 공유 쿼리 유지
+ * - endBatch() - 배치 범위 / TTL 재사용
+ *
+ * 쿼리는 호출 횟수를 세는 CountingLoader로 대체 (Mockito 없음)
+ *
+ * @since v3.9.0
+ */
+public class DetailQueryCacheTest {
+
+    // ===== buildCacheKey() 테스트 =====
+
+    @Test
+    public void buildCacheKey_noParams_sqlIdOnly() {
+        assertEquals("alarm.selectLowStockDetail", DetailQueryCache.buildCacheKey("alarm.selectLowStockDetail", null));
+    }
+
+    @Test
+    public void buildCacheKey_paramOrderIgnored() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("B", 2);
+        first.put("A", 1);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("A", 1);
+        second.put("B", 2);
+
+        assertEquals(DetailQueryCache.buildCacheKey("sql", first), DetailQueryCache.buildCacheKey("sql", second));
+        assertEquals("sql|{A=1, B=2}", DetailQueryCache.buildCacheKey("sql", first));
+    }
+
+    @Test
+    public void buildCacheKey_dateWithinSameSecond_distinct() {
+        // Given - 같은 초, 다른 ms의 WATERMARK (Date.toString()은 초 단위까지만 표시)
+        Map<String, Object> first = new HashMap<>();
+        first.put("WATERMARK", new Date(1700000000100L));
+        Map<String, Object> second = new HashMap<>();
+        second.put("WATERMARK", new Date(1700000000900L));
+
+        // When & Then
+        assertNotEquals(DetailQueryCache.buildCacheKey("sql", first), DetailQueryCache.buildCacheKey("sql", second));
+        assertEquals("sql|{WATERMARK=Date(1700000000100)}", DetailQueryCache.buildCacheKey("sql", first));
+    }
+
+    // ===== get() 테스트 =====
+
+    @Test
+    public void get_sameBatch_queryRunsOnce() throws Exception {
+        DetailQueryCache cache = new DetailQueryCache(0);
+        CountingLoader loader = new CountingLoader();
+        long batchId = cache.beginBatch();
+
+        List<Map<String, Object>> first = cache.get("sql.a", null, batchId, loader);
+        List<Map<String, Object>> second = cache.get("sql.a", null, batchId, loader);
+
+        assertEquals(1, loader.calls.get());
+        assertEquals(first, second);
+        assertEquals(1L, cache.getMissCount());
+        assertEquals(1L, cache.getHitCount());
+    }
+
+    @Test
+    public void get_differentSqlId_queriedSeparately() throws Exception {
+        DetailQueryCache cache = new DetailQueryCache(0);
+        CountingLoader loader = new CountingLoader();
+        long batchId = cache.beginBatch();
+
+        cache.get("sql.a", null, batchId, loader);
+        cache.get("sql.b", null, batchId, loader);
+
+        assertEquals(2, loader.calls.get());
+        assertEquals(2L, cache.getMissCount());
+    }
+
+    @Test
+    public void get_concurrentWorkers_queryRunsOnce() throws Exception {
+        final DetailQueryCache cache = new DetailQueryCache(0);
+        final CountingLoader loader = new CountingLoader(50L);
+        final long batchId = cache.beginBatch();
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final AtomicInteger errors = new AtomicInteger();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        cache.get("sql.a", null, batchId, loader);
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        startLatch.countDown();
+        for (Thread worker : workers) {
+            worker.join(5000);
+        }
+
+        assertEquals(0, errors.get());
+        assertEquals(1, loader.calls.get());
+        assertEquals(7L, cache.getHitCount());
+    }
+
+    @Test
+    public void get_waiterInterrupted_sharedQueryKeepsRunning() throws Exception {
+        // Given - 첫 요청이 쿼리 실행 중, 두 번째 요청은 결과 대기
+        final DetailQueryCache cache = new DetailQueryCache(0);
+        final long batchId = cache.beginBatch();
+        final CountDownLatch loaderStarted = new CountDownLatch(1);
+        final CountDownLatch releaseLoader = new CountDownLatch(1);
+        final CountingLoader counting = new CountingLoader();
+        final Callable<List<Map<String, Object>>> blockingLoader = new Callable<List<Map<String, Object>>>() {
+            @Override
+            public List<Map<String, Object>> call() throws Exception {
+                loaderStarted.countDown();
+                releaseLoader.await();
+                return counting.call();
+            }
+        };
+        final List<Object> runnerResult = new ArrayList<>();
+        Thread runner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runnerResult.add(cache.get("sql.a", null, batchId, blockingLoader));
+                } catch (Exception e) {
+                    runnerResult.add(e);
+                }
+            }
+        });
+        runner.start();
+        assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+
+        final List<Object> waiterResult = new ArrayList<>();
+        Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    waiterResult.add(cache.get("sql.a", null, batchId, blockingLoader));
+                } catch (Exception e) {
+                    waiterResult.add(e);
+                }
+            }
+        });
+        waiter.start();
+        while (cache.getHitCount() == 0L) {
+            Thread.sleep(5L);
+        }
+
+        // When - 대기 중인 요청만 중단 (조회 시간 초과 등)
+        waiter.interrupt();
+        waiter.join(5000);
+        releaseLoader.countDown();
+        runner.join(5000);
+
+        // Then - 중단된 요청만 실패, 공유 쿼리는 끝까지 실행되어 결과 재사용
+        assertTrue(waiterResult.get(0) instanceof InterruptedException);
+        assertTrue(runnerResult.get(0) instanceof List);
+        cache.get("sql.a", null, batchId, counting);
+        assertEquals(1, counting.calls.get());
+    }
+
+    @Test
+    public void get_loaderFails_notCached() throws Exception {
+        DetailQueryCache cache = new DetailQueryCache(0);
+        long batchId = cache.beginBatch();
+
+        try {
+            cache.get("sql.a", null, batchId, new Callable<List<Map<String, Object>>>() {
+                @Override
+                public List<Map<String, Object>> call() {
+                    throw new IllegalStateException("SQL 오류");
+                }
+            });
+            fail("예외가 전달되어야 함");
+        } catch (IllegalStateException e) {
+            assertEquals("SQL 오류", e.getMessage());
+        }
+
+        CountingLoader loader = new CountingLoader();
+        cache.get("sql.a", null, batchId, loader);
+        assertEquals(1, loader.calls.get());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void get_resultIsReadOnly() throws Exception {
+        DetailQueryCache cache = new DetailQueryCache(0);
+
+        List<Map<String, Object>> result = cache.get("sql.a", null, cache.beginBatch(), new CountingLoader());
+
+        result.clear();
+    }
+
+    @Test
+    public void get_cappedRows_returnedWithTotalCount() throws Exception {
+        DetailQueryCache cache = new DetailQueryCache(0);
+        final CappedRows rows = new CappedRows(new ArrayList<Map<String, Object>>(), 500);
+
+        List<Map<String, Object>> result = cache.get("sql.a", null, cache.beginBatch(),
+                new Callable<List<Map<String, Object>>>() {
+                    @Override
+                    public List<Map<String, Object>> call() {
+                        return rows;
+                    }
+                });
+
+        assertSame(rows, result);
+        assertEquals(500, ((CappedRows) result).getTotalCount());
+    }
+
+    // ===== endBatch() / TTL 테스트 =====
+
+    @Test
+    public void endBatch_noTtl_nextBatchQueriesAgain() throws Exception {
+        DetailQueryCache cache = new DetailQueryCache(0);
+        CountingLoader loader = new CountingLoader();
+
+        long first = cache.beginBatch();
+        cache.get("sql.a", null, first, loader);
+        cache.endBatch(first);
+
+        assertEquals(0, cache.size());
+
+        long second = cache.beginBatch();
+        cache.get("sql.a", null, second, loader);
+        assertEquals(2, loader.calls.get());
+    }
+
+    @Test
+    public void endBatch_withinTtl_nextBatchReuses() throws Exception {
+        DetailQueryCache cache = new DetailQueryCache(60000L);
+        CountingLoader loader = new CountingLoader();
+
+        long first = cache.beginBatch();
+        cache.get("sql.a", null, first, loader);
+        cache.endBatch(first);
+
+        long second = cache.beginBatch();
+        cache.get("sql.a", null, second, loader);
+
+        assertEquals(1, loader.calls.get());
+        assertEquals(1L, cache.getHitCount());
+    }
+
+    @Test
+    public void get_ttlExpired_queriesAgain() throws Exception {
+        DetailQueryCache cache = new DetailQueryCache(1L);
+        CountingLoader loader = new CountingLoader();
+
+        cache.get("sql.a", null, cache.beginBatch(), loader);
+        Thread.sleep(20);
+        cache.get("sql.a", null, cache.beginBatch(), loader);
+
+        assertEquals(2, loader.calls.get());
+    }
+
+    /**
+     * 호출 횟수를 세는 쿼리 대체 구현
+     */
+    private static class CountingLoader implements Callable<List<Map<String, Object>>> {
+        final AtomicInteger calls = new AtomicInteger();
+        private final long delayMs;
+
+        CountingLoader() {
+            this(0L);
+        }
+
+        CountingLoader(long delayMs) {
+            this.delayMs = delayMs;
+        }
+
+        @Override
+        public List<Map<String, Object>> call() throws Exception {
+            calls.incrementAndGet();
+            if (delayMs > 0) {
+                Thread.sleep(delayMs);
+            }
+            Map<String, Object> row = new HashMap<>();
+            row.put("ID", calls.get());
+            List<Map<String, Object>> rows = new ArrayList<>();
+            rows.add(row);
+            return rows;
+        }
+    }
+}
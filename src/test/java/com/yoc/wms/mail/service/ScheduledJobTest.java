@@ -0,0 +1,157 @@
+package com.yoc.wms.mail.service;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * ScheduledJob 단위 테스트
+ *
+ * 테스트 범위:
+ * - 다음 실행 시각 계산 (fixed-delay / cron)
+ * - cron 실행 시간 초과 시 지난 예정 실행 생략 (overrun)
+ * - 예정 대비 시작 지연 / 실패 지표
+ * - 전용 스레드 반복 실행, 작업 예외 후 계속 실행, 종료
+ *
+ * @since v3.20.0
+ */
+public class ScheduledJobTest {
+
+    private static final Runnable NO_OP = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    private ScheduledJob job;
+
+    @After
+    public void tearDown() {
+        if (job != null) {
+            job.stop(1000L);
+        }
+    }
+
+    // ==================== 다음 실행 시각 ====================
+
+    @Test
+    public void fixedDelay_nextRunIsCompletionPlusDelay() {
+        job = ScheduledJob.fixedDelay("consumer", 1000L, NO_OP);
+
+        assertEquals(5000L, job.firstRunTime(5000L));
+        assertEquals(7800L, job.recordRun(5000L, 5200L, 6800L, false));
+    }
+
+    @Test
+    public void cron_firstRunIsNextSlot() {
+        job = ScheduledJob.cron("producer", "0 */30 * * * *", NO_OP);
+
+        assertEquals(time(10, 30, 0), job.firstRunTime(time(10, 7, 15)));
+    }
+
+    @Test
+    public void cron_completedWithinSlot_nextSlotNoOverrun() {
+        job = ScheduledJob.cron("producer", "0 */30 * * * *", NO_OP);
+
+        long next = job.recordRun(time(10, 30, 0), time(10, 30, 2), time(10, 35, 0), false);
+
+        assertEquals(time(11, 0, 0), next);
+        assertEquals(0L, job.getOverruns());
+    }
+
+    @Test
+    public void cron_runExceedsNextSlot_missedSlotSkipped() {
+        // Given - 10:30 실행이 11:05에 끝남 → 11:00 실행은 생략
+        job = ScheduledJob.cron("producer", "0 */30 * * * *", NO_OP);
+
+        // When
+        long next = job.recordRun(time(10, 30, 0), time(10, 30, 0), time(11, 5, 0), false);
+
+        // Then - 밀린 11:00을 바로 실행하지 않고 11:30
+        assertEquals(time(11, 30, 0), next);
+        assertEquals(1L, job.getOverruns());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fixedDelay_zero_throwsException() {
+        ScheduledJob.fixedDelay("consumer", 0L, NO_OP);
+    }
+
+    // ==================== 지표 ====================
+
+    @Test
+    public void recordRun_lagAndFailuresTracked() {
+        job = ScheduledJob.fixedDelay("reaper", 1000L, NO_OP);
+
+        job.recordRun(1000L, 1050L, 1100L, false);
+        job.recordRun(2100L, 2400L, 2500L, true);
+        job.recordRun(3500L, 3510L, 3600L, false);
+
+        assertEquals(3L, job.getRuns());
+        assertEquals(1L, job.getFailures());
+        assertEquals(10L, job.getLastLagMs());
+        assertEquals(300L, job.getMaxLagMs());
+        assertTrue(job.getSummary().contains("avgLagMs=120"));
+    }
+
+    // ==================== 실행 / 종료 ====================
+
+    @Test
+    public void start_runsRepeatedlyOnDedicatedThread() throws Exception {
+        // Given
+        final CountDownLatch threeRuns = new CountDownLatch(3);
+        final AtomicReference<String> threadName = new AtomicReference<>();
+        job = ScheduledJob.fixedDelay("test", 10L, new Runnable() {
+            @Override
+            public void run() {
+                threadName.set(Thread.currentThread().getName());
+                threeRuns.countDown();
+            }
+        });
+
+        // When
+        job.start();
+
+        // Then
+        assertTrue(threeRuns.await(5, TimeUnit.SECONDS));
+        assertEquals("alarm-job-test", threadName.get());
+        assertTrue(job.stop(1000L));
+    }
+
+    @Test
+    public void start_taskException_nextRunStillScheduled() throws Exception {
+        // Given - 매번 예외
+        final CountDownLatch twoRuns = new CountDownLatch(2);
+        job = ScheduledJob.fixedDelay("test", 10L, new Runnable() {
+            @Override
+            public void run() {
+                twoRuns.countDown();
+                throw new IllegalStateException("작업 실패");
+            }
+        });
+
+        // When
+        job.start();
+
+        // Then
+        assertTrue(twoRuns.await(5, TimeUnit.SECONDS));
+        assertTrue(job.stop(1000L));
+        assertTrue(job.getFailures() >= 2L);
+    }
+
+
+    // ===== Helper Methods =====
+
+    private long time(int hour, int minute, int second) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2025, Calendar.MARCH, 4, hour, minute, second);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+}
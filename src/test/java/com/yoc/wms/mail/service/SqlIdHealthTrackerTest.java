@@ -0,0 +1,124 @@
+package com.yoc.wms.mail.service;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * SqlIdHealthTracker 단위 테스트
+ *
+ * 테스트 범위:
+ * - 연속 실패/지연 임계치 도달 시 격리
+ * - 성공 시 연속 카운트 초기화
+ * - cooldown 경과 후 시험 실행, 실패 시 즉시 재격리
+ * - 수동 해제, 격리 목록/통계 조회
+ *
+ * 시각은 인자로 전달 (sleep 없음)
+ *
+ * @since v3.17.0
+ */
+public class SqlIdHealthTrackerTest {
+
+    private static final String SQL_ID = "alarm.selectOverdueOrdersDetail";
+    private static final long COOLDOWN_MS = 60000L;
+
+    private final SqlIdHealthTracker tracker = new SqlIdHealthTracker(3, 5000L, COOLDOWN_MS);
+
+    // ==================== 격리 판단 ====================
+
+    @Test
+    public void consecutiveFailures_reachThreshold_quarantined() {
+        tracker.recordFailure(SQL_ID, 10, "ORA-00942", 1000L);
+        tracker.recordFailure(SQL_ID, 10, "ORA-00942", 2000L);
+        assertEquals(0L, tracker.getQuarantineRemainingMs(SQL_ID, 2000L));
+
+        tracker.recordFailure(SQL_ID, 10, "ORA-00942", 3000L);
+
+        assertEquals(COOLDOWN_MS, tracker.getQuarantineRemainingMs(SQL_ID, 3000L));
+        assertEquals(COOLDOWN_MS - 1000L, tracker.getQuarantineRemainingMs(SQL_ID, 4000L));
+    }
+
+    @Test
+    public void successInBetween_resetsConsecutiveCount() {
+        tracker.recordFailure(SQL_ID, 10, "ORA-00942", 1000L);
+        tracker.recordFailure(SQL_ID, 10, "ORA-00942", 2000L);
+        tracker.recordSuccess(SQL_ID, 10, 3000L);
+        tracker.recordFailure(SQL_ID, 10, "ORA-00942", 4000L);
+
+        assertEquals(0L, tracker.getQuarantineRemainingMs(SQL_ID, 4000L));
+    }
+
+    @Test
+    public void slowExecutions_countAsBad() {
+        tracker.recordSuccess(SQL_ID, 6000, 1000L);
+        tracker.recordSuccess(SQL_ID, 7000, 2000L);
+        tracker.recordSuccess(SQL_ID, 8000, 3000L);
+
+        assertTrue(tracker.getQuarantineRemainingMs(SQL_ID, 3000L) > 0);
+        assertTrue(tracker.getQuarantined(3000L).get(SQL_ID).contains("지연 8000ms"));
+    }
+
+    @Test
+    public void cooldownExpired_probeFails_requarantinedImmediately() {
+        quarantine(1000L);
+        long afterCooldown = 1000L + COOLDOWN_MS;
+        assertEquals(0L, tracker.getQuarantineRemainingMs(SQL_ID, afterCooldown));
+
+        tracker.recordFailure(SQL_ID, 10, "ORA-00942", afterCooldown);
+
+        assertEquals(COOLDOWN_MS, tracker.getQuarantineRemainingMs(SQL_ID, afterCooldown));
+    }
+
+    @Test
+    public void zeroThreshold_neverQuarantined() {
+        SqlIdHealthTracker disabled = new SqlIdHealthTracker(0, 0L, COOLDOWN_MS);
+        for (int i = 0; i < 10; i++) {
+            disabled.recordFailure(SQL_ID, 10, "ORA-00942", 1000L);
+        }
+
+        assertEquals(0L, disabled.getQuarantineRemainingMs(SQL_ID, 1000L));
+    }
+
+    @Test
+    public void unknownOrNullSqlId_notQuarantined() {
+        assertEquals(0L, tracker.getQuarantineRemainingMs("alarm.unknown", 1000L));
+        assertEquals(0L, tracker.getQuarantineRemainingMs(null, 1000L));
+    }
+
+    // ==================== 운영 API ====================
+
+    @Test
+    public void release_clearsQuarantineAndCount() {
+        quarantine(1000L);
+
+        assertTrue(tracker.release(SQL_ID, 2000L));
+        assertEquals(0L, tracker.getQuarantineRemainingMs(SQL_ID, 2000L));
+
+        // 연속 카운트도 초기화 → 1회 실패로 재격리되지 않음
+        tracker.recordFailure(SQL_ID, 10, "ORA-00942", 3000L);
+        assertEquals(0L, tracker.getQuarantineRemainingMs(SQL_ID, 3000L));
+        assertFalse(tracker.release("alarm.unknown", 3000L));
+    }
+
+    @Test
+    public void getStats_countsAndLatency() {
+        tracker.recordSuccess(SQL_ID, 100, 1000L);
+        tracker.recordSuccess(SQL_ID, 300, 2000L);
+        tracker.recordFailure(SQL_ID, 200, "ORA-01013", 3000L);
+
+        Map<String, String> stats = tracker.getStats();
+
+        assertEquals("executions=3, failures=1, slow=0, avgMs=200, maxMs=300", stats.get(SQL_ID));
+    }
+
+
+    // ===== Helper Methods =====
+
+    private void quarantine(long now) {
+        for (int i = 0; i < 3; i++) {
+            tracker.recordFailure(SQL_ID, 10, "ORA-00942", now);
+        }
+    }
+}
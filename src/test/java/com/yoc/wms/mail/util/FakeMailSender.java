@@ -12,6 +12,7 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * 테스트용 Fake JavaMailSender
@@ -24,6 +25,8 @@ import java.util.Properties;
  * - 운영 환경 100% 호환 (Spring 3.1.2)
  * - 실패 시뮬레이션 지원
  * - 발송 이력 저장
+ * - Thread-safe (Worker Pool 병렬 발송 대응, v3.2.0)
+ * - 발송 지연 시뮬레이션 (SMTP 응답 대기 중 종료, v3.19.0)
  *
  * Usage:
  *   FakeMailSender fake = (FakeMailSender) mailSender;
@@ -39,6 +42,10 @@ public class FakeMailSender implements JavaMailSender {
     private boolean shouldFail = false;
     private int sendCallCount = 0;
 
+    /** send() 진입 신호 / 발송 진행 허용 (NULL이면 지연 없음, v3.19.0) */
+    private volatile CountDownLatch sendEntered;
+    private volatile CountDownLatch sendRelease;
+
     @Override
     public MimeMessage createMimeMessage() {
         // Mock Session 사용 (실제 SMTP 연결 없음)
@@ -54,13 +61,41 @@ public class FakeMailSender implements JavaMailSender {
 
     @Override
     public void send(MimeMessage mimeMessage) throws MailException {
-        sendCallCount++;
+        awaitSendRelease();  // 대기 중에는 Lock을 잡지 않음 (다른 Worker/검증 코드 진행)
 
-        if (shouldFail) {
-            throw new RuntimeException("Fake SMTP Error (Simulated)");
+        synchronized (this) {
+            sendCallCount++;
+
+            if (shouldFail) {
+                throw new RuntimeException("Fake SMTP Error (Simulated)");
+            }
+
+            sentMessages.add(mimeMessage);
         }
+    }
 
-        sentMessages.add(mimeMessage);
+    /**
+     * holdSends()가 설정돼 있으면 release까지 대기 (응답 없는 SMTP처럼 인터럽트도 무시)
+     */
+    private void awaitSendRelease() {
+        CountDownLatch entered = sendEntered;
+        CountDownLatch release = sendRelease;
+        if (release == null) {
+            return;
+        }
+        entered.countDown();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                release.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     @Override
@@ -89,7 +124,7 @@ public class FakeMailSender implements JavaMailSender {
     }
 
     @Override
-    public void send(SimpleMailMessage simpleMessage) throws MailException {
+    public synchronized void send(SimpleMailMessage simpleMessage) throws MailException {
         sendCallCount++;
         if (shouldFail) {
             throw new RuntimeException("Fake SMTP Error (Simulated)");
@@ -109,21 +144,21 @@ public class FakeMailSender implements JavaMailSender {
     /**
      * 발송된 메시지 개수 반환
      */
-    public int getSentCount() {
+    public synchronized int getSentCount() {
         return sentMessages.size();
     }
 
     /**
      * send() 호출 횟수 반환 (실패 포함)
      */
-    public int getSendCallCount() {
+    public synchronized int getSendCallCount() {
         return sendCallCount;
     }
 
     /**
      * 발송된 메시지 목록 반환
      */
-    public List<MimeMessage> getSentMessages() {
+    public synchronized List<MimeMessage> getSentMessages() {
         return new ArrayList<>(sentMessages);
     }
 
@@ -132,23 +167,38 @@ public class FakeMailSender implements JavaMailSender {
      *
      * @param shouldFail true이면 send() 호출 시 예외 발생
      */
-    public void setShouldFail(boolean shouldFail) {
+    public synchronized void setShouldFail(boolean shouldFail) {
         this.shouldFail = shouldFail;
     }
 
+    /**
+     * 발송 지연 시뮬레이션 설정 (v3.19.0)
+     *
+     * send() 진입 시 entered를 countDown하고 release가 열릴 때까지 대기합니다.
+     *
+     * @param entered send() 진입 신호
+     * @param release 발송 진행 허용 (countDown 시 대기 중인 send() 진행)
+     */
+    public void holdSends(CountDownLatch entered, CountDownLatch release) {
+        this.sendEntered = entered;
+        this.sendRelease = release;
+    }
+
     /**
      * 상태 초기화 (다음 테스트를 위해)
      */
-    public void reset() {
+    public synchronized void reset() {
         sentMessages.clear();
         shouldFail = false;
         sendCallCount = 0;
+        sendEntered = null;
+        sendRelease = null;
     }
 
     /**
      * 특정 인덱스의 메시지 반환
      */
-    public MimeMessage getMessage(int index) {
+    public synchronized MimeMessage getMessage(int index) {
         if (index < 0 || index >= sentMessages.size()) {
             return null;
         }
@@ -158,7 +208,7 @@ public class FakeMailSender implements JavaMailSender {
     /**
      * 마지막 발송 메시지 반환
      */
-    public MimeMessage getLastMessage() {
+    public synchronized MimeMessage getLastMessage() {
         if (sentMessages.isEmpty()) {
             return null;
         }
@@ -0,0 +1,128 @@
+package com.yoc.wms.mail.util;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * WatermarkUtils 단위 테스트
+ *
+ * 테스트 범위:
+ * - 결과 최대값 추출 (NUMBER/DATE/STRING, 대소문자, NULL)
+ * - 저장 문자열 변환 (encode/decode 왕복)
+ * - 비교
+ *
+ * @since v3.13.0
+ */
+public class WatermarkUtilsTest {
+
+    // ==================== findMax() 테스트 ====================
+
+    @Test
+    public void findMax_number_returnsBigDecimal() {
+        List<Map<String, Object>> rows = Arrays.asList(
+                row("ID", 3), row("ID", 12L), row("ID", new BigDecimal("7")));
+
+        assertEquals(new BigDecimal("12"), WatermarkUtils.findMax(rows, "ID"));
+    }
+
+    @Test
+    public void findMax_string_lexicographic() {
+        List<Map<String, Object>> rows = Arrays.asList(
+                row("ORDER_ID", "ORD-0040"), row("ORDER_ID", "ORD-0042"), row("ORDER_ID", "ORD-0041"));
+
+        assertEquals("ORD-0042", WatermarkUtils.findMax(rows, "ORDER_ID"));
+    }
+
+    @Test
+    public void findMax_timestamp_returnsDate() {
+        List<Map<String, Object>> rows = Arrays.asList(
+                row("UPD_DATE", new Timestamp(1000L)), row("UPD_DATE", new Timestamp(5000L)));
+
+        Object max = WatermarkUtils.findMax(rows, "UPD_DATE");
+
+        assertEquals(Date.class, max.getClass());
+        assertEquals(5000L, ((Date) max).getTime());
+    }
+
+    @Test
+    public void findMax_columnCaseInsensitive() {
+        List<Map<String, Object>> rows = Arrays.asList(row("order_id", "A"), row("order_id", "B"));
+
+        assertEquals("B", WatermarkUtils.findMax(rows, "ORDER_ID"));
+    }
+
+    @Test
+    public void findMax_nullAndMismatchedValuesIgnored() {
+        List<Map<String, Object>> rows = Arrays.asList(
+                row("ID", null), row("ID", 5), row("ID", "999"), row("OTHER", 100));
+
+        assertEquals(new BigDecimal("5"), WatermarkUtils.findMax(rows, "ID"));
+    }
+
+    @Test
+    public void findMax_noRows_null() {
+        assertNull(WatermarkUtils.findMax(null, "ID"));
+        assertNull(WatermarkUtils.findMax(new ArrayList<Map<String, Object>>(), "ID"));
+    }
+
+    // ==================== encode() / decode() 테스트 ====================
+
+    @Test
+    public void encodeDecode_roundTrip() {
+        Date date = new Date(1741046400123L);
+
+        assertEquals(new BigDecimal("1200"), WatermarkUtils.decode("NUMBER", WatermarkUtils.encode(1200)));
+        assertEquals(date, WatermarkUtils.decode("DATE", WatermarkUtils.encode(date)));
+        assertEquals("ORD-0042", WatermarkUtils.decode("STRING", WatermarkUtils.encode("ORD-0042")));
+    }
+
+    @Test
+    public void typeOf_supportedTypes() {
+        assertEquals("NUMBER", WatermarkUtils.typeOf(1));
+        assertEquals("DATE", WatermarkUtils.typeOf(new Timestamp(0L)));
+        assertEquals("STRING", WatermarkUtils.typeOf("A"));
+    }
+
+    @Test
+    public void decode_null_returnsNull() {
+        assertNull(WatermarkUtils.decode(null, "1"));
+        assertNull(WatermarkUtils.decode("NUMBER", null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_invalidDate_throws() {
+        WatermarkUtils.decode("DATE", "2025/03/04");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_unknownType_throws() {
+        WatermarkUtils.decode("BLOB", "1");
+    }
+
+    // ==================== compare() 테스트 ====================
+
+    @Test
+    public void compare_numberScaleIgnored() {
+        assertEquals(0, Integer.signum(WatermarkUtils.compare(new BigDecimal("5.0"), 5)));
+        assertTrue(WatermarkUtils.compare(6L, new BigDecimal("5")) > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void compare_differentTypes_throws() {
+        WatermarkUtils.compare(1, "1");
+    }
+
+
+    // ===== Helper Methods =====
+
+    private Map<String, Object> row(String column, Object value) {
+        Map<String, Object> row = new HashMap<>();
+        row.put(column, value);
+        return row;
+    }
+}